@@ -0,0 +1,165 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import com.acroteq.kafka.connect.source.converter.TweetStructReader;
+import com.acroteq.kafka.connect.source.util.LogSampler;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.log4j.FileAppender;
+import org.apache.log4j.LogManager;
+import org.apache.log4j.PatternLayout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Measures the cost of the hot path logging per tweet: the tweet is read into a {@code Struct} by the streaming
+ * parser, and then logged with one of two policies:
+ * <ul>
+ *   <li>{@code PER_TWEET_INFO}: the former policy, a line at INFO for every tweet, and one for every poll.</li>
+ *   <li>{@code SAMPLED_SUMMARY}: the raw JSON of a sampled share of the lines at DEBUG, and a summary of the polls at
+ *   INFO once per interval, as the task does now.</li>
+ * </ul>
+ *
+ * <p>The log goes to a file through log4j at INFO, with the layout of the Connect worker's {@code connect.log}, so
+ * the sampled DEBUG lines are disabled, as in production.  A poll is counted every {@value #TWEETS_PER_POLL} tweets.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HotPathLoggingBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TwitterV2SourceTask.class);
+    private static final int TWEETS_PER_POLL = 100;
+
+    public enum LoggingPolicy {
+        PER_TWEET_INFO,
+        SAMPLED_SUMMARY
+    }
+
+    @Param
+    public LoggingPolicy policy;
+
+    private final TweetStructReader tweetStructReader = new TweetStructReader();
+    private final LogSampler rawJsonSampler =
+          new LogSampler(TwitterV2SourceConnectorConfig.LOG_RAW_JSON_SAMPLE_RATIO_DEFAULT);
+    private File logFile;
+    private PollSummaryLog pollSummaryLog;
+    private byte[] json;
+    private int tweetsSincePoll;
+
+    @Setup
+    public void setUp() throws IOException {
+        logFile = File.createTempFile("hot-path-logging", ".log");
+        final org.apache.log4j.Logger rootLogger = LogManager.getRootLogger();
+        rootLogger.removeAllAppenders();
+        rootLogger.setLevel(org.apache.log4j.Level.INFO);
+        rootLogger.addAppender(new FileAppender(new PatternLayout("[%d] %p %m (%c)%n"), logFile.getPath()));
+
+        pollSummaryLog = new PollSummaryLog(TwitterV2SourceConnectorConfig.LOG_SUMMARY_INTERVAL_MS_DEFAULT,
+                                            new SourceRecordQueue(TWEETS_PER_POLL, 1),
+                                            System.nanoTime());
+        json = readRecordedTweet().getBytes(UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        LogManager.shutdown();
+        if (!logFile.delete()) {
+            logFile.deleteOnExit();
+        }
+    }
+
+    private String readRecordedTweet() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .findFirst()
+                         .orElseThrow();
+        }
+    }
+
+    @Benchmark
+    public Struct tweet() {
+        final ByteBuffer line = ByteBuffer.wrap(json);
+        if (policy == LoggingPolicy.PER_TWEET_INFO) {
+            return perTweetInfo(line);
+        }
+        return sampledSummary(line);
+    }
+
+    private Struct perTweetInfo(final ByteBuffer line) {
+        final Struct struct = tweetStructReader.read(line);
+        log.info("TwitterV2SourceTask tweet consumer.");
+        if (++tweetsSincePoll == TWEETS_PER_POLL) {
+            log.info("TwitterV2SourceTask poll: returned {} records.", tweetsSincePoll);
+            tweetsSincePoll = 0;
+        }
+        return struct;
+    }
+
+    private Struct sampledSummary(final ByteBuffer line) {
+        if (log.isDebugEnabled() && rawJsonSampler.sample()) {
+            log.debug("Tweet stream processor received json: {}",
+                      UTF_8.decode(line.duplicate())
+                           .toString());
+        }
+        final Struct struct = tweetStructReader.read(line);
+        if (++tweetsSincePoll == TWEETS_PER_POLL) {
+            pollSummaryLog.record(tweetsSincePoll, System.nanoTime());
+            tweetsSincePoll = 0;
+        }
+        return struct;
+    }
+}
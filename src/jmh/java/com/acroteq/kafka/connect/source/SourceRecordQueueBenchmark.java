@@ -0,0 +1,126 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.QueueOverflowPolicy.DROP_OLDEST;
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the ring buffer based {@link SourceRecordQueue} with the original {@link DequeSourceRecordQueue}, with one
+ * stream thread adding records and one Connect thread polling batches.
+ *
+ * <p>The producer is paced to {@code tweetsPerSecond} (0 means flat out).  If an implementation can sustain the rate,
+ * the reported {@code produce} throughput matches it; if not, it falls short.  Run with {@code -prof gc} to compare
+ * the allocation per record.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SourceRecordQueueBenchmark {
+
+    private static final int MAX_BATCH_SIZE = 100;
+    private static final int MAX_BATCH_INTERVAL_MS = 10;
+
+    @Param({ "deque", "ring" })
+    public String implementation;
+
+    @Param({ "0", "10000", "50000", "100000", "200000" })
+    public int tweetsPerSecond;
+
+    private Consumer<SourceRecord> add;
+    private Supplier<List<SourceRecord>> getBatch;
+    private SourceRecord sourceRecord;
+    private long intervalNanos;
+    private long nextAddNanos;
+
+    @Setup
+    public void setUp() {
+        if ("deque".equals(implementation)) {
+            final DequeSourceRecordQueue queue = new DequeSourceRecordQueue(MAX_BATCH_SIZE, MAX_BATCH_INTERVAL_MS);
+            add = queue::add;
+            getBatch = queue::getBatch;
+        } else {
+            // Drop-oldest, so that the producer can never block after the consumer has finished its iteration.
+            final SourceRecordQueue queue = SourceRecordQueue.builder()
+                                                             .maxBatchSize(MAX_BATCH_SIZE)
+                                                             .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                             .overflowPolicy(DROP_OLDEST)
+                                                             .build();
+            add = queue::add;
+            getBatch = queue::getBatch;
+        }
+        sourceRecord = new SourceRecord(emptyMap(), emptyMap(), "topic", Schema.STRING_SCHEMA, "value");
+        intervalNanos = tweetsPerSecond == 0 ? 0 : SECONDS.toNanos(1) / tweetsPerSecond;
+        nextAddNanos = System.nanoTime();
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public void produce() {
+        if (intervalNanos > 0) {
+            while (System.nanoTime() < nextAddNanos) {
+                Thread.onSpinWait();
+            }
+            nextAddNanos += intervalNanos;
+        }
+        add.accept(sourceRecord);
+    }
+
+    @Benchmark
+    @Group("queue")
+    @GroupThreads(1)
+    public void poll(final Blackhole blackhole) {
+        blackhole.consume(getBatch.get());
+    }
+}
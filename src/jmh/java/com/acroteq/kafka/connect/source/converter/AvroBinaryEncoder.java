@@ -0,0 +1,133 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Date;
+import java.util.List;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+
+/**
+ * Encodes a {@link Struct} in the Avro binary encoding, the way the Avro converter serialises the records, so the
+ * benchmarks can compare the size and the cost of serialising each schema without a schema registry: optional
+ * values are a union with null, integers are zig-zag varints, doubles are 8 bytes, strings and decimals are length
+ * prefixed bytes, and arrays are a single block.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+final class AvroBinaryEncoder {
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(1024 * 1024)
+                                                .order(ByteOrder.LITTLE_ENDIAN);
+
+    /** @return the number of bytes the struct encodes to */
+    int encode(final Struct struct) {
+        buffer.clear();
+        writeStruct(struct);
+        return buffer.position();
+    }
+
+    private void writeStruct(final Struct struct) {
+        for (final Field field : struct.schema()
+                                       .fields()) {
+            write(field.schema(), struct.get(field));
+        }
+    }
+
+    private void write(final Schema schema, final Object value) {
+        if (schema.isOptional()) {
+            if (value == null) {
+                writeLong(0);
+                return;
+            }
+            writeLong(1);
+        }
+        if (Decimal.LOGICAL_NAME.equals(schema.name())) {
+            writeBytes(((BigDecimal) value).unscaledValue()
+                                           .toByteArray());
+            return;
+        }
+        if (Timestamp.LOGICAL_NAME.equals(schema.name())) {
+            writeLong(((Date) value).getTime());
+            return;
+        }
+        switch (schema.type()) {
+            case INT32:
+                writeLong((Integer) value);
+                break;
+            case INT64:
+                writeLong((Long) value);
+                break;
+            case FLOAT64:
+                buffer.putDouble((Double) value);
+                break;
+            case BOOLEAN:
+                buffer.put((byte) ((Boolean) value ? 1 : 0));
+                break;
+            case STRING:
+                writeBytes(((String) value).getBytes(UTF_8));
+                break;
+            case ARRAY:
+                final List<?> items = (List<?>) value;
+                if (!items.isEmpty()) {
+                    writeLong(items.size());
+                    for (final Object item : items) {
+                        write(schema.valueSchema(), item);
+                    }
+                }
+                writeLong(0);
+                break;
+            case STRUCT:
+                writeStruct((Struct) value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported schema type: " + schema.type());
+        }
+    }
+
+    private void writeBytes(final byte[] bytes) {
+        writeLong(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void writeLong(final long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer.put((byte) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        buffer.put((byte) zigZag);
+    }
+}
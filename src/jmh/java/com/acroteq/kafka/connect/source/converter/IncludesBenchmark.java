@@ -0,0 +1,133 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import com.google.gson.Gson;
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.Expansions;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import com.twitter.clientlib.model.Tweet;
+import com.twitter.clientlib.model.User;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Reads tweets with their {@code includes}, with the {@link IncludesCache} of converted users, media and places, and
+ * with a cache of no entries, which converts them every time.  The tweets are by {@link #AUTHORS} authors, each with
+ * a photo and a place, so most of the includes repeat.  {@code model} deserialises the lines into the SDK model and
+ * converts them with the {@link TweetConverter}, {@code streaming} reads them with the {@link TweetStructReader}.  An
+ * operation is one tweet.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IncludesBenchmark {
+
+    private static final int TWEETS = 100;
+    private static final int AUTHORS = 10;
+    private static final long TTL_MS = 60_000;
+
+    @Param({ "cached", "uncached" })
+    public String cache;
+
+    @Param({ "model", "streaming" })
+    public String parser;
+
+    private final List<byte[]> lines = new ArrayList<>();
+
+    private Gson gson;
+    private TweetConverter tweetConverter;
+    private TweetStructReader tweetStructReader;
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    @Setup
+    public void setUp() {
+        new JSON();
+        gson = JSON.getGson();
+        final int maxEntries = "cached".equals(cache) ? AUTHORS * 2 : 0;
+        tweetConverter = new TweetConverter(Set.of(), false, new IncludesCache(maxEntries, TTL_MS));
+        tweetStructReader = new TweetStructReader(tweetConverter.getSchema(), new IncludesCache(maxEntries, TTL_MS));
+
+        final TweetTestDataGenerator testDataGenerator = new TweetTestDataGenerator();
+        for (int i = 0; i < TWEETS; i++) {
+            final String authorId = Long.toString(i % AUTHORS);
+            final Tweet tweet = new Tweet().id(Long.toString(i))
+                                           .text("tweet " + i)
+                                           .authorId(authorId)
+                                           .editHistoryTweetIds(List.of(Long.toString(i)));
+            final User user = testDataGenerator.createUser()
+                                               .id(authorId);
+            final Expansions includes = testDataGenerator.createIncludes()
+                                                         .users(List.of(user));
+            includes.getMedia()
+                    .get(0)
+                    .setMediaKey("3_" + authorId);
+            final String json = gson.toJson(new FilteredStreamingTweetResponse().data(tweet)
+                                                                                .includes(includes));
+            lines.add(json.getBytes(UTF_8));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TWEETS)
+    public void read(final Blackhole blackhole) {
+        if ("model".equals(parser)) {
+            for (final byte[] line : lines) {
+                final FilteredStreamingTweetResponse response = gson.fromJson(new String(line, UTF_8),
+                                                                              FilteredStreamingTweetResponse.class);
+                blackhole.consume(tweetConverter.convert(response.getData(), response.getIncludes()));
+            }
+        } else {
+            for (final byte[] line : lines) {
+                blackhole.consume(tweetStructReader.read(ByteBuffer.wrap(line)));
+            }
+        }
+    }
+}
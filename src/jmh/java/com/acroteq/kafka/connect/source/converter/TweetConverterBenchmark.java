@@ -0,0 +1,105 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import com.twitter.clientlib.model.Tweet;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures converting the SDK model of a tweet into a {@code Struct}: {@code convert} converts a tweet of each
+ * {@link TweetShapes shape}, {@code recordedTweets} converts the recorded tweets in {@code well-formed-tweets.txt}.
+ * The throughput and the sampled latency percentiles are reported per operation.  Run with {@code -prof gc} and
+ * compare {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TweetConverterBenchmark {
+
+    private final TweetConverter tweetConverter = new TweetConverter();
+
+    private List<Tweet> recordedTweets;
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    @Setup
+    public void setUp() throws IOException {
+        new JSON();
+        recordedTweets = readRecordedTweets().stream()
+                                             .map(json -> JSON.getGson()
+                                                              .fromJson(json, FilteredStreamingTweetResponse.class)
+                                                              .getData())
+                                             .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public Object convert(final TweetShapes shapes) {
+        return tweetConverter.convert(shapes.tweet);
+    }
+
+    @Benchmark
+    public void recordedTweets(final Blackhole blackhole) {
+        for (final Tweet tweet : recordedTweets) {
+            blackhole.consume(tweetConverter.convert(tweet));
+        }
+    }
+
+    private List<String> readRecordedTweets() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import java.nio.ByteBuffer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing a streamed tweet line of each {@link TweetShapes shape}: {@code gson} parses it into the SDK model
+ * with {@code GSON.fromJson}, as the model parser does before converting, and {@code structReader} reads it straight
+ * into a {@code Struct}, as the streaming parser does, and {@code lineScanner} only finds its ID and conversation
+ * ID, as the raw parser does.  The throughput and the sampled latency percentiles are
+ * reported per tweet; run with {@code -prof gc} for the bytes allocated per tweet.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TweetParseBenchmark {
+
+    private final TweetStructReader tweetStructReader = new TweetStructReader();
+    private final TweetLineScanner tweetLineScanner = new TweetLineScanner();
+
+    @Benchmark
+    public Object gson(final TweetShapes shapes) {
+        return JSON.getGson()
+                   .fromJson(shapes.json, FilteredStreamingTweetResponse.class);
+    }
+
+    @Benchmark
+    public Object structReader(final TweetShapes shapes) {
+        return tweetStructReader.read(ByteBuffer.wrap(shapes.jsonBytes));
+    }
+
+    @Benchmark
+    public long lineScanner(final TweetShapes shapes) {
+        tweetLineScanner.scan(ByteBuffer.wrap(shapes.jsonBytes));
+        return tweetLineScanner.getTweetId();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the standard and the compact tweet schema: {@code read} reads the streamed lines into a {@code Struct}
+ * of the schema, as the streaming parser does, and {@code encode} serialises the structs with the
+ * {@link AvroBinaryEncoder}.  The {@code recorded} tweets are the ones in {@code well-formed-tweets.txt}, the
+ * {@code full} tweet has every field, with snowflake IDs.  An operation is one tweet.  The average encoded size of a
+ * tweet is printed on set up.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TweetSchemaBenchmark {
+
+    private static final int TWEETS = 100;
+
+    @Param({ "standard", "compact" })
+    public String schema;
+
+    @Param({ "recorded", "full" })
+    public String tweets;
+
+    private final AvroBinaryEncoder encoder = new AvroBinaryEncoder();
+
+    private TweetStructReader tweetStructReader;
+    private final List<byte[]> lines = new ArrayList<>();
+    private final List<Struct> structs = new ArrayList<>();
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    @Setup
+    public void setUp() throws IOException {
+        new JSON();
+        final Set<String> allFields = TweetConverter.TWEET_SCHEMA.fields()
+                                                                 .stream()
+                                                                 .map(Field::name)
+                                                                 .collect(Collectors.toSet());
+        final TweetConverter tweetConverter = new TweetConverter(allFields, "compact".equals(schema));
+        tweetStructReader = new TweetStructReader(tweetConverter.getSchema());
+
+        final List<String> jsons = "full".equals(tweets)
+                                   ? List.of(JSON.getGson()
+                                                 .toJson(new FilteredStreamingTweetResponse().data(
+                                                       new TweetTestDataGenerator().createSnowflakeTweet())))
+                                   : readRecordedTweets();
+        long bytes = 0;
+        for (int i = 0; i < TWEETS; i++) {
+            final byte[] line = jsons.get(i % jsons.size())
+                                     .getBytes(UTF_8);
+            final Struct struct = tweetStructReader.read(ByteBuffer.wrap(line));
+            lines.add(line);
+            structs.add(struct);
+            bytes += encoder.encode(struct);
+        }
+        System.out.printf("%n%s schema, %s tweets: %d encoded bytes per tweet%n", schema, tweets, bytes / TWEETS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TWEETS)
+    public void read(final Blackhole blackhole) {
+        for (final byte[] line : lines) {
+            blackhole.consume(tweetStructReader.read(ByteBuffer.wrap(line)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TWEETS)
+    public void encode(final Blackhole blackhole) {
+        for (final Struct struct : structs) {
+            blackhole.consume(encoder.encode(struct));
+        }
+    }
+
+    private List<String> readRecordedTweets() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .collect(Collectors.toList());
+        }
+    }
+}
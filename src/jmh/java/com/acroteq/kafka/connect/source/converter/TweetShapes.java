@@ -0,0 +1,123 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.ContextAnnotation;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import com.twitter.clientlib.model.FullTextEntities;
+import com.twitter.clientlib.model.Tweet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A tweet of a given shape, as the SDK model and as the JSON line Twitter streams, shared by the parse and convert
+ * benchmarks:
+ * <ul>
+ *   <li>{@code SMALL}: the fields of the example configuration, {@code id}, {@code text}, {@code author_id},
+ *   {@code created_at}, {@code conversation_id}, {@code lang} and {@code source}.</li>
+ *   <li>{@code MEDIUM}: every field, with one item in each list, as the {@link TweetTestDataGenerator} creates it.</li>
+ *   <li>{@code ENTITY_HEAVY}: every field, with {@value #HEAVY_ITEMS} items in each list of entities and context
+ *   annotations.</li>
+ * </ul>
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Benchmark)
+public class TweetShapes {
+
+    private static final int HEAVY_ITEMS = 10;
+
+    @Param({ "SMALL", "MEDIUM", "ENTITY_HEAVY" })
+    public String shape;
+
+    Tweet tweet;
+    String json;
+    byte[] jsonBytes;
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    @Setup
+    public void setUp() {
+        new JSON();
+        final TweetTestDataGenerator generator = new TweetTestDataGenerator();
+        tweet = createTweet(generator);
+        json = JSON.getGson()
+                   .toJson(new FilteredStreamingTweetResponse().data(tweet));
+        jsonBytes = json.getBytes(UTF_8);
+    }
+
+    private Tweet createTweet(final TweetTestDataGenerator generator) {
+        switch (shape) {
+            case "SMALL":
+                final Tweet all = generator.createTweet();
+                return new Tweet().id(all.getId())
+                                  .text(all.getText())
+                                  .authorId(all.getAuthorId())
+                                  .createdAt(all.getCreatedAt())
+                                  .conversationId(all.getConversationId())
+                                  .lang(all.getLang())
+                                  .source(all.getSource())
+                                  .editHistoryTweetIds(all.getEditHistoryTweetIds());
+            case "MEDIUM":
+                return generator.createTweet();
+            case "ENTITY_HEAVY":
+                final List<FullTextEntities> entities = new ArrayList<>();
+                final List<ContextAnnotation> contextAnnotations = new ArrayList<>();
+                for (int i = 0; i < HEAVY_ITEMS; i++) {
+                    entities.add(generator.createEntities());
+                    contextAnnotations.add(generator.createContextAnnotation());
+                }
+                return generator.createTweet()
+                                .contextAnnotations(contextAnnotations)
+                                .entities(new FullTextEntities().annotations(flatten(entities,
+                                                                                     FullTextEntities::getAnnotations))
+                                                                .urls(flatten(entities, FullTextEntities::getUrls))
+                                                                .hashtags(flatten(entities,
+                                                                                  FullTextEntities::getHashtags))
+                                                                .mentions(flatten(entities,
+                                                                                  FullTextEntities::getMentions))
+                                                                .cashtags(flatten(entities,
+                                                                                  FullTextEntities::getCashtags)));
+            default:
+                throw new IllegalArgumentException("Unknown tweet shape " + shape);
+        }
+    }
+
+    private static <T> List<T> flatten(final List<FullTextEntities> entities,
+                                       final Function<FullTextEntities, List<T>> getter) {
+        final List<T> items = new ArrayList<>();
+        entities.forEach(e -> items.addAll(getter.apply(e)));
+        return items;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares framing the filtered stream with the {@link LineFramer} against the original
+ * {@code InputStreamReader} / {@code BufferedReader.lines()} path, replaying the recorded tweets in
+ * {@code well-formed-tweets.txt} with a keep-alive after every {@code tweetsPerKeepAlive} tweets.
+ *
+ * <p>{@code reader} and {@code framerDecoded} both end with a {@code String} per tweet, as the model parser needs;
+ * {@code framer} hands the raw bytes on, as the streaming parser takes them.  {@code framerDecoded} decodes the way
+ * the TweetStreamProcessor does for the model parser.  Run with {@code -prof gc} to compare
+ * the allocation per replay.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineFramerBenchmark {
+
+    private static final int REPLAY_TWEETS = 10_000;
+
+    @Param({ "1", "10" })
+    public int tweetsPerKeepAlive;
+
+    private byte[] replay;
+
+    @Setup
+    public void setUp() throws IOException {
+        final List<String> tweets = readRecordedTweets();
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < REPLAY_TWEETS; i++) {
+            stream.write(tweets.get(i % tweets.size())
+                               .getBytes(UTF_8));
+            stream.write('\r');
+            stream.write('\n');
+            if (i % tweetsPerKeepAlive == 0) {
+                stream.write('\r');
+                stream.write('\n');
+            }
+        }
+        replay = stream.toByteArray();
+    }
+
+    @Benchmark
+    public void reader(final Blackhole blackhole) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(replay),
+                                                                              UTF_8))) {
+            reader.lines()
+                  .filter(StringUtils::isNotBlank)
+                  .forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void framer(final Blackhole blackhole) throws IOException {
+        try (LineFramer lineFramer = new LineFramer(Channels.newChannel(new ByteArrayInputStream(replay)))) {
+            lineFramer.readLines(blackhole::consume, () -> true);
+        }
+    }
+
+    @Benchmark
+    public void framerDecoded(final Blackhole blackhole) throws IOException {
+        try (LineFramer lineFramer = new LineFramer(Channels.newChannel(new ByteArrayInputStream(replay)))) {
+            final byte[] lineBytes = new byte[64 * 1024];
+            lineFramer.readLines(line -> {
+                final int length = line.remaining();
+                line.get(lineBytes, 0, length);
+                blackhole.consume(new String(lineBytes, 0, length, UTF_8));
+            }, () -> true);
+        }
+    }
+
+    private List<String> readRecordedTweets() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .collect(Collectors.toList());
+        }
+    }
+}
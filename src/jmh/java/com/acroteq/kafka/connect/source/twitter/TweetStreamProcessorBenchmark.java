@@ -0,0 +1,167 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.acroteq.kafka.connect.source.converter.TweetConverter;
+import com.acroteq.kafka.connect.source.converter.TweetLineScanner;
+import com.acroteq.kafka.connect.source.converter.TweetStructReader;
+import com.acroteq.kafka.connect.source.twitter.TweetStreamProcessor.TweetStreamProcessorFactory;
+import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.api.TweetsApi;
+import com.twitter.clientlib.api.TweetsApi.APIsearchStreamRequest;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.common.config.types.Password;
+import org.apache.kafka.common.metrics.Metrics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the end-to-end path of the {@link TweetStreamProcessor}, from the stream to the converted {@code Struct},
+ * fed from an in-memory replay of {@value #REPLAY_TWEETS} recorded tweets through a mocked {@link TweetsApi}.  The
+ * {@code model} parser parses each line into the SDK model and converts it with the {@link TweetConverter}; the
+ * {@code streaming} parser reads each line straight into a {@code Struct} with the {@link TweetStructReader}; the
+ * {@code raw} parser only scans each line for the tweet ID with the {@link TweetLineScanner} and copies its bytes.
+ *
+ * <p>An operation is one tweet, so the throughput is in tweets per microsecond and the average time is the latency
+ * per tweet.  The tweets are processed on the processor's own stream thread, which {@code -prof gc} does not attribute
+ * to the benchmark, so its {@code gc.alloc.rate.norm} is close to zero; the {@code TweetParseBenchmark} and the
+ * {@code TweetConverterBenchmark} give the allocation of the parse and convert steps.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TweetStreamProcessorBenchmark {
+
+    private static final int REPLAY_TWEETS = 10_000;
+
+    @Param({ "model", "streaming", "raw" })
+    public String parser;
+
+    private final TweetsApi tweetsApi = mock(TweetsApi.class);
+    private final APIsearchStreamRequest searchStreamRequest = mock(APIsearchStreamRequest.class);
+    private final ManualClock clock = new ManualClock(System.currentTimeMillis());
+    // the manual clock's sleeper skips the waits for the stream connection budget
+    private final RateLimiter rateLimiter = new RateLimiter("benchmark", clock, clock::advance, new Metrics());
+    private final TweetConverter tweetConverter = new TweetConverter();
+    private final TweetStructReader tweetStructReader = new TweetStructReader();
+    private final TweetLineScanner tweetLineScanner = new TweetLineScanner();
+
+    private TwitterConfig config;
+
+    @Setup
+    public void setUp() throws IOException, ApiException {
+        final List<String> tweets = readRecordedTweets();
+        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < REPLAY_TWEETS; i++) {
+            stream.write(tweets.get(i % tweets.size())
+                               .getBytes(UTF_8));
+            stream.write('\r');
+            stream.write('\n');
+        }
+        final byte[] replay = stream.toByteArray();
+
+        config = TwitterConfig.builder()
+                              .bearerToken(new Password("benchmark"))
+                              .build();
+        when(tweetsApi.searchStream()).thenReturn(searchStreamRequest);
+        when(searchStreamRequest.tweetFields(anySet())).thenReturn(searchStreamRequest);
+        when(searchStreamRequest.executeWithHttpInfo()).thenAnswer(invocation -> new ByteArrayInputStream(replay));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REPLAY_TWEETS)
+    public void stream(final Blackhole blackhole) throws Exception {
+        final CompletableFuture<Throwable> disconnected = new CompletableFuture<>();
+        final TweetStreamProcessorFactory factory = TweetStreamProcessor.factory()
+                                                                        .tweetsApi(tweetsApi)
+                                                                        .rateLimiter(rateLimiter)
+                                                                        .config(config)
+                                                                        .disconnectListener(disconnected::complete);
+        if ("streaming".equals(parser)) {
+            factory.lineConsumer(line -> blackhole.consume(tweetStructReader.read(line)));
+        } else if ("raw".equals(parser)) {
+            factory.lineConsumer(line -> {
+                blackhole.consume(tweetLineScanner.scan(line));
+                final byte[] json = new byte[line.remaining()];
+                line.get(json);
+                blackhole.consume(json);
+            });
+        } else {
+            factory.consumer(tweet -> blackhole.consume(tweetConverter.convert(tweet)));
+        }
+
+        try (TweetStreamProcessor ignored = factory.start()) {
+            // the replay ends with an EOF, which disconnects the processor
+            final Throwable cause = disconnected.get(1, MINUTES);
+            if (!(cause instanceof EOFException)) {
+                throw new IllegalStateException("The replay did not run to the end", cause);
+            }
+        }
+    }
+
+    private List<String> readRecordedTweets() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Sizes each batch, and the time to linger for it, so that records reach Kafka within a target latency.
+ *
+ * <p>The sizer keeps two exponentially weighted moving averages: the arrival rate of records, and the time Connect
+ * takes to commit a batch after poll() returns it.  The linger budget is whatever the target latency leaves after the
+ * commit latency, capped at {@code maxLingerMs}.  The batch size is the number of records expected to arrive within
+ * that budget, clamped to {@code [minBatchSize, maxBatchSize]}.  At night that means small batches that are returned
+ * almost immediately, and during a spike it means large batches.
+ *
+ * <p>The arrival rate average is time-weighted, so irregular poll intervals don't skew it.  The commit latency average
+ * is weighted per committed batch.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+class AdaptiveBatchSizer implements BatchSizer {
+
+    /** The time constant of the arrival rate average. */
+    static final long SMOOTHING_NANOS = SECONDS.toNanos(5);
+
+    /** The weight of each new commit latency sample. */
+    static final double COMMIT_LATENCY_ALPHA = 0.2;
+
+    private static final long MIN_LINGER_NANOS = MILLISECONDS.toNanos(1);
+
+    private final long targetLatencyNanos;
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+
+    // Only accessed by the poll thread.
+    private long lastArrivals;
+    private long lastPollNanos;
+    private boolean initialised;
+    private double arrivalsPerNano;
+
+    // Written by whichever thread Connect calls commitRecord() on.
+    private volatile double commitLatencyNanos = -1;
+
+    private volatile int batchSize;
+    private volatile long lingerNanos;
+
+    AdaptiveBatchSizer(final int targetLatencyMs, final int minBatchSize, final int maxBatchSize, final int maxLingerMs) {
+        targetLatencyNanos = MILLISECONDS.toNanos(targetLatencyMs);
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        maxLingerNanos = MILLISECONDS.toNanos(maxLingerMs);
+        batchSize = minBatchSize;
+        lingerNanos = Math.min(maxLingerNanos, targetLatencyNanos);
+    }
+
+    @Override
+    public void onPoll(final long totalArrivals, final long nowNanos) {
+        if (initialised) {
+            final long elapsedNanos = nowNanos - lastPollNanos;
+            if (elapsedNanos > 0) {
+                final double rate = (double) (totalArrivals - lastArrivals) / elapsedNanos;
+                arrivalsPerNano = ewma(arrivalsPerNano, rate, elapsedNanos);
+            }
+        } else {
+            initialised = true;
+        }
+        lastArrivals = totalArrivals;
+        lastPollNanos = nowNanos;
+        resize();
+    }
+
+    @Override
+    public synchronized void onCommit(final long latencyNanos) {
+        final double average = commitLatencyNanos;
+        commitLatencyNanos = average < 0 ? latencyNanos : average + COMMIT_LATENCY_ALPHA * (latencyNanos - average);
+    }
+
+    private void resize() {
+        final long budgetNanos = targetLatencyNanos - (long) Math.max(0, commitLatencyNanos);
+        final long newLingerNanos = Math.max(MIN_LINGER_NANOS, Math.min(maxLingerNanos, budgetNanos));
+        final double expectedArrivals = Math.ceil(arrivalsPerNano * newLingerNanos);
+        final int newBatchSize = (int) Math.max(minBatchSize, Math.min(maxBatchSize, expectedArrivals));
+
+        if (newBatchSize != batchSize && log.isDebugEnabled()) {
+            log.debug("Adaptive batch size {} -> {}, linger {} ms, arrival rate {}/s, commit latency {} ms.",
+                      batchSize,
+                      newBatchSize,
+                      NANOSECONDS.toMillis(newLingerNanos),
+                      (long) (arrivalsPerNano * SECONDS.toNanos(1)),
+                      (long) getCommitLatencyMs());
+        }
+        lingerNanos = newLingerNanos;
+        batchSize = newBatchSize;
+    }
+
+    private static double ewma(final double average, final double sample, final long elapsedNanos) {
+        final double alpha = 1 - Math.exp(-(double) elapsedNanos / SMOOTHING_NANOS);
+        return average + alpha * (sample - average);
+    }
+
+    @Override
+    public int batchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public int maxBatchSize() {
+        return maxBatchSize;
+    }
+
+    @Override
+    public long lingerNanos() {
+        return lingerNanos;
+    }
+
+    /** The smoothed arrival rate, in records per second. */
+    double getArrivalRate() {
+        return arrivalsPerNano * SECONDS.toNanos(1);
+    }
+
+    /** The smoothed commit latency, in milliseconds. */
+    double getCommitLatencyMs() {
+        return Math.max(0, commitLatencyNanos) / MILLISECONDS.toNanos(1);
+    }
+}
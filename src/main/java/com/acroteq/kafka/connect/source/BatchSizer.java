@@ -0,0 +1,59 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+/**
+ * Decides how many records {@link SourceRecordQueue#getBatch()} should wait for, and how long it may linger before it
+ * returns a partial batch.
+ *
+ * <p>{@link #onPoll(long, long)} is called at the start of each poll, from the poll thread only.  The other methods may
+ * be called from any thread.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+interface BatchSizer {
+
+    /**
+     * Update the sizer's view of the stream.
+     *
+     * @param totalArrivals the total number of records added to the queue so far.
+     * @param nowNanos the current {@link System#nanoTime()}.
+     */
+    void onPoll(long totalArrivals, long nowNanos);
+
+    /** Record the time between a batch being returned by poll() and Connect committing it. */
+    void onCommit(long commitLatencyNanos);
+
+    /** The number of records that makes a full batch. */
+    int batchSize();
+
+    /** The maximum number of records to return in a single batch. Never less than {@link #batchSize()}. */
+    int maxBatchSize();
+
+    /** How long to wait for a full batch before returning a partial one. */
+    long lingerNanos();
+}
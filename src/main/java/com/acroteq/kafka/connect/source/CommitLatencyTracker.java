@@ -0,0 +1,77 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.apache.kafka.connect.source.SourceRecord;
+
+/**
+ * Measures the time from polling a batch to Connect committing it, using the last record of each batch as the
+ * sample.  The samples of at most the last {@code maxPending} batches are kept, so if Connect falls that far behind,
+ * only the oldest samples are given up, and the commits of the newer batches are still measured.
+ *
+ * <p>{@link #polled} is called by the poll thread, {@link #committed} by the producer threads of Connect.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class CommitLatencyTracker {
+
+    static final long NOT_SAMPLED = -1;
+
+    private final int maxPending;
+    /** The poll time of each sample, by identity, as the records are only ever looked up as the same instance. */
+    private final Map<SourceRecord, Long> pollNanos = new IdentityHashMap<>();
+    /** The samples in the order they were polled, including those committed since, so the oldest can be evicted. */
+    private final Deque<SourceRecord> pollOrder = new ArrayDeque<>();
+
+    CommitLatencyTracker(final int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    /** Sample the commit of the last record of a batch. */
+    synchronized void polled(final SourceRecord lastRecordInBatch, final long nowNanos) {
+        if (pollOrder.size() >= maxPending) {
+            pollNanos.remove(pollOrder.pollFirst());
+        }
+        pollOrder.addLast(lastRecordInBatch);
+        pollNanos.put(lastRecordInBatch, nowNanos);
+    }
+
+    /** @return the time since the record was polled, or {@link #NOT_SAMPLED} if it is not a sample */
+    synchronized long committed(final SourceRecord sourceRecord, final long nowNanos) {
+        final Long polledNanos = pollNanos.remove(sourceRecord);
+        return polledNanos == null ? NOT_SAMPLED : nowNanos - polledNanos;
+    }
+
+    /** The number of samples not committed yet. */
+    synchronized int pendingCount() {
+        return pollNanos.size();
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.Arrays;
+
+/**
+ * Suppresses tweets that were already seen, e.g. replayed after a reconnect or returned again by the backfill.
+ *
+ * <p>The filter is a ring of Bloom filters, each covering a slice of the window, selected by the creation time encoded
+ * in the snowflake tweet ID.  When the newest tweet moves into a new slice, the filter of the oldest slice is cleared
+ * and reused, so the memory is fixed at {@code maxBytes} whatever the tweet rate.  A tweet older than the window
+ * cannot be checked and always passes.
+ *
+ * <p>A Bloom filter never misses a duplicate within the window, but may mistake a new tweet for a duplicate.  That
+ * false positive rate grows with the number of tweets per slice and is reported by {@link #getFalsePositiveRate()}.
+ * A duplicate has the same ID, so the same creation time, so only the slice of that time is checked.
+ *
+ * <p>Tweet IDs are hashed as primitive longs; nothing is allocated per tweet.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class DuplicateTweetFilter {
+
+    static final int SLICES = 8;
+    static final int HASH_FUNCTIONS = 7;
+    private static final int MIN_BITS_PER_SLICE = 1 << 10;
+    private static final long UNUSED_SLICE = Long.MIN_VALUE;
+
+    private final long sliceMs;
+    private final long[][] bits;
+    private final int[] bitCounts;
+    private final long[] sliceEpochs;
+    private final long bitMask;
+
+    private long newestEpoch = UNUSED_SLICE;
+    private long checkedCount;
+    private long duplicateCount;
+    private long outOfWindowCount;
+
+    DuplicateTweetFilter(final long windowMs, final long maxBytes) {
+        checkArgument(windowMs > 0, "windowMs must be positive");
+        // the window is covered by all but the newest slice, which is still filling up
+        sliceMs = Math.max(windowMs / (SLICES - 1), 1);
+
+        final long bitsPerSlice = Math.max(Long.highestOneBit(maxBytes * Byte.SIZE / SLICES), MIN_BITS_PER_SLICE);
+        checkArgument(bitsPerSlice <= Integer.MAX_VALUE, "maxBytes too large");
+        bitMask = bitsPerSlice - 1;
+        bits = new long[SLICES][(int) (bitsPerSlice / Long.SIZE)];
+        bitCounts = new int[SLICES];
+        sliceEpochs = new long[SLICES];
+        Arrays.fill(sliceEpochs, UNUSED_SLICE);
+    }
+
+    /**
+     * Record the tweet as seen.
+     *
+     * @return false if the tweet was already seen within the window, so it is a duplicate
+     */
+    synchronized boolean firstSeen(final long tweetId) {
+        checkedCount++;
+        final long epoch = Math.floorDiv(TweetSourceOffsets.createdAtMs(tweetId), sliceMs);
+        if (newestEpoch != UNUSED_SLICE && epoch <= newestEpoch - SLICES) {
+            outOfWindowCount++;
+            return true;
+        }
+        if (epoch > newestEpoch) {
+            newestEpoch = epoch;
+        }
+
+        final boolean seen = mightContain(tweetId, epoch);
+        if (seen) {
+            duplicateCount++;
+            return false;
+        }
+        add(tweetId, epoch);
+        return true;
+    }
+
+    private boolean mightContain(final long tweetId, final long epoch) {
+        final int slice = (int) Math.floorMod(epoch, SLICES);
+        if (sliceEpochs[slice] != epoch) {
+            return false;
+        }
+
+        final long hash = mix(tweetId);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> Integer.SIZE);
+        final long[] sliceBits = bits[slice];
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            final long bit = (hash1 + (long) i * hash2) & bitMask;
+            if ((sliceBits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(final long tweetId, final long epoch) {
+        final int slice = (int) Math.floorMod(epoch, SLICES);
+        if (sliceEpochs[slice] != epoch) {
+            Arrays.fill(bits[slice], 0);
+            bitCounts[slice] = 0;
+            sliceEpochs[slice] = epoch;
+        }
+
+        final long hash = mix(tweetId);
+        final int hash1 = (int) hash;
+        final int hash2 = (int) (hash >>> Integer.SIZE);
+        final long[] sliceBits = bits[slice];
+        for (int i = 0; i < HASH_FUNCTIONS; i++) {
+            final long bit = (hash1 + (long) i * hash2) & bitMask;
+            final int word = (int) (bit >>> 6);
+            final long mask = 1L << bit;
+            if ((sliceBits[word] & mask) == 0) {
+                sliceBits[word] |= mask;
+                bitCounts[slice]++;
+            }
+        }
+    }
+
+    /** The finalizer of MurmurHash3, as snowflake IDs differ mostly in their high bits. */
+    private static long mix(final long value) {
+        long hash = value;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * The estimated probability that a new tweet is mistaken for a duplicate, i.e. that all its bits are already set,
+     * in the fullest slice of the window.
+     */
+    synchronized double getFalsePositiveRate() {
+        double falsePositiveRate = 0.0;
+        for (int slice = 0; slice < SLICES; slice++) {
+            if (sliceEpochs[slice] != UNUSED_SLICE && sliceEpochs[slice] > newestEpoch - SLICES) {
+                final double fill = (double) bitCounts[slice] / (bitMask + 1);
+                falsePositiveRate = Math.max(falsePositiveRate, Math.pow(fill, HASH_FUNCTIONS));
+            }
+        }
+        return falsePositiveRate;
+    }
+
+    synchronized long getCheckedCount() {
+        return checkedCount;
+    }
+
+    synchronized long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /** The number of tweets that were too old to be checked, and passed. */
+    synchronized long getOutOfWindowCount() {
+        return outOfWindowCount;
+    }
+
+    /** The memory held by the filter, in bytes. */
+    long getSizeBytes() {
+        return (long) SLICES * (bitMask + 1) / Byte.SIZE;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.Collections.synchronizedMap;
+
+import com.acroteq.kafka.connect.source.util.SpillJournal;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import lombok.NonNull;
+import org.apache.kafka.connect.source.SourceRecord;
+
+/**
+ * Spills the overflow to a {@link SpillJournal} on the local disk, so a long Kafka outage neither exhausts the heap
+ * nor loses tweets, up to the disk budget.
+ *
+ * <p>Only the raw JSON line of each record is journalled, behind its stamped source offset.  The poll thread parses
+ * the line again when it drains the record, and restores the offset.  The journal entry of a drained record is
+ * released when Connect commits the record, so a segment is only recycled once all its records are in Kafka.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class JournalOverflowTier implements OverflowTier {
+
+    private static final int OFFSET_BYTES = 2 * Long.BYTES;
+    private static final int INITIAL_ENTRY_BYTES = 8 * 1024;
+
+    private final SpillJournal journal;
+    private final Function<ByteBuffer, SourceRecord> parser;
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong addedCount = new AtomicLong();
+
+    /** The segment of each drained record that has not been committed yet, by identity. */
+    private final Map<SourceRecord, Long> pendingCommits = synchronizedMap(new IdentityHashMap<>());
+    private final AtomicInteger pendingCommitCount = new AtomicInteger();
+
+    // only accessed by the stream thread
+    private ByteBuffer entry = ByteBuffer.allocate(INITIAL_ENTRY_BYTES);
+
+    /**
+     * @param journal the journal, which is closed with the tier
+     * @param parser  parses the journalled lines on the poll thread, so it must not be shared with other threads
+     */
+    JournalOverflowTier(@NonNull final SpillJournal journal, @NonNull final Function<ByteBuffer, SourceRecord> parser) {
+        this.journal = journal;
+        this.parser = parser;
+    }
+
+    @Override
+    public boolean add(final SourceRecord sourceRecord, final ByteBuffer json) {
+        if (json == null) {
+            return false;
+        }
+        final int length = OFFSET_BYTES + json.remaining();
+        if (entry.capacity() < length) {
+            entry = ByteBuffer.allocate(Math.max(length, entry.capacity() * 2));
+        }
+        entry.clear();
+        entry.putLong(TweetSourceOffsets.tweetIdOf(sourceRecord))
+             .putLong(TweetSourceOffsets.createdAtMsOf(sourceRecord))
+             .put(json.duplicate())
+             .flip();
+        if (!journal.append(entry)) {
+            return false;
+        }
+        size.incrementAndGet();
+        addedCount.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public SourceRecord poll() {
+        SpillJournal.Entry journalEntry;
+        while ((journalEntry = journal.poll()) != null) {
+            size.decrementAndGet();
+            final ByteBuffer data = journalEntry.getData();
+            final long tweetId = data.getLong();
+            final long createdAtMs = data.getLong();
+            final SourceRecord parsed = parser.apply(data);
+            if (parsed == null) {
+                journal.release(journalEntry.getSegmentId());
+                continue;
+            }
+            final SourceRecord sourceRecord = TweetSourceOffsets.withOffset(parsed, tweetId, createdAtMs);
+            pendingCommits.put(sourceRecord, journalEntry.getSegmentId());
+            pendingCommitCount.incrementAndGet();
+            return sourceRecord;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public long addedCount() {
+        return addedCount.get();
+    }
+
+    @Override
+    public void commit(final SourceRecord sourceRecord) {
+        if (pendingCommitCount.get() == 0) {
+            return;
+        }
+        final Long segmentId = pendingCommits.remove(sourceRecord);
+        if (segmentId != null) {
+            pendingCommitCount.decrementAndGet();
+            journal.release(segmentId);
+        }
+    }
+
+    @Override
+    public void close() {
+        pendingCommits.clear();
+        pendingCommitCount.set(0);
+        size.set(0);
+        journal.close();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.kafka.connect.source.SourceRecord;
+
+/**
+ * Holds the overflow on the heap, so it is only meant for short bursts.  It holds up to a maximum number of records,
+ * and once it is full the queue drops the records that do not fit, as it does when the spill journal is full.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class MemoryOverflowTier implements OverflowTier {
+
+    private final Queue<SourceRecord> overflow = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong addedCount = new AtomicLong();
+    private final int capacity;
+
+    MemoryOverflowTier(final int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean add(final SourceRecord sourceRecord, final ByteBuffer json) {
+        // only the stream thread adds, so the size cannot grow between the check and the add
+        if (size.get() >= capacity) {
+            return false;
+        }
+        overflow.add(sourceRecord);
+        size.incrementAndGet();
+        addedCount.incrementAndGet();
+        return true;
+    }
+
+    @Override
+    public SourceRecord poll() {
+        final SourceRecord sourceRecord = overflow.poll();
+        if (sourceRecord != null) {
+            size.decrementAndGet();
+        }
+        return sourceRecord;
+    }
+
+    @Override
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public long addedCount() {
+        return addedCount.get();
+    }
+
+    @Override
+    public void commit(final SourceRecord sourceRecord) {
+        // nothing to release
+    }
+
+    @Override
+    public void close() {
+        overflow.clear();
+        size.set(0);
+    }
+}
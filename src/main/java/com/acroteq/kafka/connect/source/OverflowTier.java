@@ -0,0 +1,66 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import java.nio.ByteBuffer;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds the records that did not fit into the ring buffer of the {@link SourceRecordQueue}, in the order they were
+ * added, until the poll thread drains them.
+ *
+ * <p>{@link #add} is called by the stream thread only, and {@link #poll()} by the poll thread only.  The other methods
+ * may be called from any thread.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+interface OverflowTier extends AutoCloseable {
+
+    /**
+     * Add a record, with the raw JSON line it was parsed from, if there is one.
+     *
+     * @return false if the tier could not hold the record.
+     */
+    boolean add(SourceRecord sourceRecord, @Nullable ByteBuffer json);
+
+    /** The oldest record, or null if the tier is empty. */
+    @Nullable
+    SourceRecord poll();
+
+    /** The number of records held. */
+    int size();
+
+    /** The total number of records added so far. */
+    long addedCount();
+
+    /** Called once Connect has committed a record, which may have come from this tier. */
+    void commit(SourceRecord sourceRecord);
+
+    @Override
+    void close();
+}
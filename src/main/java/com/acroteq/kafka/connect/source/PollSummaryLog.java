@@ -0,0 +1,90 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Logs one summary line of the polls per interval, at INFO, instead of a line per poll.  Between the summaries a poll
+ * only adds to two counters, and nothing is formatted unless INFO is enabled.
+ *
+ * <p>Only called by the poll thread.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+class PollSummaryLog {
+
+    private final long intervalNanos;
+    private final SourceRecordQueue queue;
+
+    private long intervalStartNanos;
+    private long polls;
+    private long records;
+
+    PollSummaryLog(final long intervalMs, @NonNull final SourceRecordQueue queue, final long nowNanos) {
+        this.intervalNanos = MILLISECONDS.toNanos(intervalMs);
+        this.queue = queue;
+        this.intervalStartNanos = nowNanos;
+    }
+
+    /**
+     * Count a poll, and log the summary if the interval is over.
+     *
+     * @return true if the summary was logged
+     */
+    boolean record(final int batchSize, final long nowNanos) {
+        polls++;
+        records += batchSize;
+
+        final long elapsedNanos = nowNanos - intervalStartNanos;
+        if (elapsedNanos < intervalNanos) {
+            return false;
+        }
+        if (log.isInfoEnabled()) {
+            log.info("Polled {} records in {} polls in the last {} s, {} per second.  {} queued ({} bytes, peak {}), "
+                     + "{} dropped so far.",
+                     records,
+                     polls,
+                     NANOSECONDS.toSeconds(elapsedNanos),
+                     records * SECONDS.toNanos(1) / elapsedNanos,
+                     queue.size(),
+                     queue.getQueuedBytes(),
+                     queue.getPeakQueuedBytes(),
+                     queue.getDroppedCount());
+        }
+        intervalStartNanos = nowNanos;
+        polls = 0;
+        records = 0;
+        return true;
+    }
+}
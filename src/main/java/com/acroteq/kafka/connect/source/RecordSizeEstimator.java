@@ -0,0 +1,128 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+
+/**
+ * Estimates the heap retained by a tweet record, by walking its key and value.
+ *
+ * <p>The sizes assume a 64-bit JVM with compressed references, and strings that fit into Latin-1, i.e. one byte per
+ * character.  Schemas are shared by all the records, so they are not counted.  The estimate is meant to bound the
+ * memory held by the queue, not to be exact: a tweet with all its entities and annotations is many times the size of
+ * one with just its ID and text, and the estimate tells them apart.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+final class RecordSizeEstimator {
+
+    /** The record itself, its source offset map with its two boxed values, and the topic reference. */
+    private static final int RECORD_BYTES = 256;
+    private static final int OBJECT_HEADER_BYTES = 16;
+    private static final int REFERENCE_BYTES = 4;
+    /** The String object and the header of its byte array. */
+    private static final int STRING_BYTES = 24 + OBJECT_HEADER_BYTES;
+    /** An ArrayList and the header of its element array. */
+    private static final int LIST_BYTES = 24 + OBJECT_HEADER_BYTES;
+    /** A HashMap and its table, before its entries. */
+    private static final int MAP_BYTES = 48 + OBJECT_HEADER_BYTES;
+    private static final int MAP_ENTRY_BYTES = 32 + REFERENCE_BYTES;
+    private static final int BIG_DECIMAL_BYTES = 40 + 24;
+    private static final int DATE_BYTES = 24;
+    /** A boxed number or boolean. */
+    private static final int BOXED_BYTES = 16;
+
+    private RecordSizeEstimator() {
+    }
+
+    static int estimate(final SourceRecord sourceRecord) {
+        final long bytes = RECORD_BYTES + estimateValue(sourceRecord.key()) + estimateValue(sourceRecord.value());
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long estimateValue(final Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String) {
+            return STRING_BYTES + ((String) value).length();
+        }
+        if (value instanceof Struct) {
+            return estimateStruct((Struct) value);
+        }
+        if (value instanceof List) {
+            return estimateList((List<?>) value);
+        }
+        if (value instanceof Map) {
+            return estimateMap((Map<?, ?>) value);
+        }
+        if (value instanceof byte[]) {
+            return OBJECT_HEADER_BYTES + ((byte[]) value).length;
+        }
+        if (value instanceof BigDecimal) {
+            return BIG_DECIMAL_BYTES;
+        }
+        if (value instanceof Date) {
+            return DATE_BYTES;
+        }
+        return BOXED_BYTES;
+    }
+
+    private static long estimateStruct(final Struct struct) {
+        final List<Field> fields = struct.schema()
+                                         .fields();
+        // the Struct, and its array of values
+        long bytes = OBJECT_HEADER_BYTES + REFERENCE_BYTES * 2 + OBJECT_HEADER_BYTES
+                     + (long) REFERENCE_BYTES * fields.size();
+        for (final Field field : fields) {
+            bytes += estimateValue(struct.get(field));
+        }
+        return bytes;
+    }
+
+    private static long estimateList(final List<?> list) {
+        long bytes = LIST_BYTES + (long) REFERENCE_BYTES * list.size();
+        for (final Object element : list) {
+            bytes += estimateValue(element);
+        }
+        return bytes;
+    }
+
+    private static long estimateMap(final Map<?, ?> map) {
+        long bytes = MAP_BYTES + (long) (MAP_ENTRY_BYTES + REFERENCE_BYTES) * map.size();
+        for (final Map.Entry<?, ?> entry : map.entrySet()) {
+            bytes += estimateValue(entry.getKey()) + estimateValue(entry.getValue());
+        }
+        return bytes;
+    }
+}
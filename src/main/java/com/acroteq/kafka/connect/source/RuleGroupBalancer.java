@@ -0,0 +1,101 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.Comparator.comparingLong;
+import static java.util.stream.Collectors.toList;
+
+import com.acroteq.kafka.connect.source.twitter.RuleGroup;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+
+/**
+ * Shares rule groups out across shards, so that each shard gets about the same volume of tweets.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+final class RuleGroupBalancer {
+
+    private RuleGroupBalancer() {
+    }
+
+    /**
+     * Assign the groups, largest volume first, each to the shard with the smallest volume so far.  Every shard gets at
+     * least one group, as long as there are at least as many groups as shards.  The groups of each shard keep their
+     * original order.
+     */
+    static List<List<RuleGroup>> balance(@NonNull final List<RuleGroup> groups,
+                                         final int shards,
+                                         @NonNull final ToLongFunction<RuleGroup> volume) {
+        final long[] volumes = groups.stream()
+                                     .mapToLong(volume)
+                                     .toArray();
+        final Comparator<Integer> byVolume = comparingLong(i -> volumes[i]);
+        final List<Integer> largestFirst = IntStream.range(0, groups.size())
+                                                    .boxed()
+                                                    .sorted(byVolume.reversed()
+                                                                    .thenComparing(i -> i))
+                                                    .collect(toList());
+
+        final long[] shardVolumes = new long[shards];
+        final List<List<Integer>> assigned = new ArrayList<>();
+        IntStream.range(0, shards)
+                 .forEach(s -> assigned.add(new ArrayList<>()));
+        for (final int group : largestFirst) {
+            final int shard = smallestShard(shardVolumes, assigned);
+            assigned.get(shard)
+                    .add(group);
+            shardVolumes[shard] += volumes[group];
+        }
+
+        return assigned.stream()
+                       .map(indices -> indices.stream()
+                                              .sorted()
+                                              .map(groups::get)
+                                              .collect(toList()))
+                       .collect(toList());
+    }
+
+    /** The shard with the smallest volume, preferring shards without any group, so that no shard is left empty. */
+    private static int smallestShard(final long[] shardVolumes, final List<List<Integer>> assigned) {
+        int smallest = 0;
+        for (int shard = 1; shard < shardVolumes.length; shard++) {
+            final boolean empty = assigned.get(shard)
+                                          .isEmpty();
+            final boolean smallestEmpty = assigned.get(smallest)
+                                                  .isEmpty();
+            if ((empty && !smallestEmpty) || (empty == smallestEmpty && shardVolumes[shard] < shardVolumes[smallest])) {
+                smallest = shard;
+            }
+        }
+        return smallest;
+    }
+}
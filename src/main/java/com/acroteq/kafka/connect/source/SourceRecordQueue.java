@@ -26,57 +26,418 @@
  */
 package com.acroteq.kafka.connect.source;
 
-import static java.util.concurrent.CompletableFuture.delayedExecutor;
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
-import static java.util.stream.Collectors.toList;
-import static java.util.stream.IntStream.range;
+import static com.acroteq.kafka.connect.source.QueueOverflowPolicy.BLOCK;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 
+import com.acroteq.kafka.connect.source.util.SpscRingBuffer;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
-import java.util.concurrent.ConcurrentLinkedDeque;
-import java.util.concurrent.CountDownLatch;
-import lombok.RequiredArgsConstructor;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.connect.source.SourceRecord;
+import org.jetbrains.annotations.Nullable;
 
-/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
-@RequiredArgsConstructor
+/**
+ * Hands the records produced by the tweet stream thread over to the Connect poll thread.
+ *
+ * <p>The records are held in a bounded {@link SpscRingBuffer}, so there must only be one producer at a time: the task
+ * serialises the stream thread and the backfill, which both add records.  The poll thread is the only regular
+ * consumer, but with {@link QueueOverflowPolicy#DROP_OLDEST} the producer also has to remove the head record, so the
+ * consumer side is serialised by {@link #consumerLock}.  That lock is only contended when the buffer is full.
+ *
+ * <p>{@link #getBatch()} returns as soon as a full batch is queued, and otherwise returns whatever is queued when the
+ * linger deadline expires.  The batch size and linger time come from a {@link BatchSizer}, which is either fixed or
+ * adapts to the arrival rate and commit latency.  The poll thread waits on {@link #batchReady}, which the
+ * producer only signals when a batch is complete and the poll thread is actually waiting, so there is no timer task
+ * and no lock acquisition on the common path of {@link #add(SourceRecord)}.
+ *
+ * <p>Each record is stamped with the time it was added, so {@link #getLastBatchWaitNanos()} can tell how long the
+ * oldest record of the last batch waited to be polled.
+ *
+ * <p>The queue is bounded both by its capacity in records and by the estimated bytes the queued records retain, see
+ * {@link RecordSizeEstimator}, as the size of a tweet depends on its fields and varies by an order of magnitude.  The
+ * estimate is carried by the ring buffer as the weight of each record, so the poll thread does not estimate it again,
+ * and each batch is bounded by bytes as well as by records.  The queue is full if either bound is reached, except
+ * that a single record always fits into an empty queue, however large.
+ *
+ * <p>With {@link QueueOverflowPolicy#SPILL} the records that do not fit go to an {@link OverflowTier}, on the heap or
+ * in a journal on the local disk, which is drained in order before the ring buffer is used again.  Both tiers are
+ * bounded, and the records that do not fit into the tier either are dropped.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
 @Slf4j
 class SourceRecordQueue {
 
-    private final ConcurrentLinkedDeque<SourceRecord> sourceRecordDeque = new ConcurrentLinkedDeque<>();
-    private CountDownLatch responseLatch = new CountDownLatch(1);
-    private final int maxBatchSize;
-    private final int maxBatchIntervalMs;
+    static final int DEFAULT_CAPACITY = TwitterV2SourceConnectorConfig.KAFKA_QUEUE_CAPACITY_DEFAULT;
+    static final long DEFAULT_MAX_BYTES = TwitterV2SourceConnectorConfig.KAFKA_QUEUE_MAX_BYTES_DEFAULT;
+    static final int DEFAULT_MAX_BATCH_BYTES = TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_BYTES_DEFAULT;
+
+    private static final long BLOCKED_PARK_NANOS = MICROSECONDS.toNanos(100);
+
+    private final SpscRingBuffer<SourceRecord> ringBuffer;
+    private final OverflowTier overflow;
+    private final Lock consumerLock = new ReentrantLock();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong queuedBytes = new AtomicLong();
+    // only written by the producer
+    private volatile long peakQueuedBytes;
+    private final long maxQueuedBytes;
+    private final long maxBatchBytes;
+    private final Lock batchLock = new ReentrantLock();
+    private final Condition batchReady = batchLock.newCondition();
+    private volatile boolean consumerWaiting;
+    private final QueueOverflowPolicy overflowPolicy;
+    private final BatchSizer batchSizer;
+    // only accessed by the poll thread
+    private long lastBatchWaitNanos;
+
+    SourceRecordQueue(final int maxBatchSize, final int maxBatchIntervalMs) {
+        this(new FixedBatchSizer(maxBatchSize, maxBatchIntervalMs),
+             DEFAULT_CAPACITY,
+             DEFAULT_MAX_BYTES,
+             DEFAULT_MAX_BATCH_BYTES,
+             BLOCK,
+             new MemoryOverflowTier(DEFAULT_CAPACITY));
+    }
+
+    private SourceRecordQueue(@NonNull final BatchSizer batchSizer,
+                              final int capacity,
+                              final long maxQueuedBytes,
+                              final long maxBatchBytes,
+                              @NonNull final QueueOverflowPolicy overflowPolicy,
+                              @NonNull final OverflowTier overflow) {
+        this.batchSizer = batchSizer;
+        this.maxQueuedBytes = maxQueuedBytes;
+        this.maxBatchBytes = maxBatchBytes;
+        this.overflowPolicy = overflowPolicy;
+        this.overflow = overflow;
+        ringBuffer = new SpscRingBuffer<>(capacity);
+    }
 
+    static SourceRecordQueueBuilder builder() {
+        return new SourceRecordQueueBuilder();
+    }
+
+    /** Called by one producer at a time; the task serialises the stream and the backfill. */
     void add(final SourceRecord sourceRecord) {
-        sourceRecordDeque.add(sourceRecord);
-        if (sourceRecordDeque.size() > maxBatchSize) {
-            responseLatch.countDown();
+        add(sourceRecord, null);
+    }
+
+    /**
+     * Called by one producer at a time; the task serialises the stream and the backfill.
+     *
+     * @param json the raw JSON line the record was parsed from, which is only read if the record has to be spilled.
+     */
+    void add(final SourceRecord sourceRecord, @Nullable final ByteBuffer json) {
+        final long addedNanos = System.nanoTime();
+        if (overflow.size() > 0) {
+            // Keep the order: nothing goes back into the ring buffer until the overflow has been drained.
+            addToOverflow(sourceRecord, json);
+        } else {
+            final int bytes = RecordSizeEstimator.estimate(sourceRecord);
+            if (!offer(sourceRecord, addedNanos, bytes)) {
+                handleOverflow(sourceRecord, json, addedNanos, bytes);
+            }
         }
+
+        signalIfBatchReady();
     }
 
-    List<SourceRecord> getBatch() {
-        waitForBatchTimeout();
-        final List<SourceRecord> sourceRecords = range(0, maxBatchSize).mapToObj(i -> sourceRecordDeque.poll())
-                                                                       .filter(Objects::nonNull)
-                                                                       .collect(toList());
-        resetBatchTimeout();
-        return sourceRecords;
+    private boolean offer(final SourceRecord sourceRecord, final long addedNanos, final int bytes) {
+        if (queuedBytes.get() + bytes > maxQueuedBytes && !ringBuffer.isEmpty()) {
+            return false;
+        }
+        if (!ringBuffer.offer(sourceRecord, addedNanos, bytes)) {
+            return false;
+        }
+        final long total = queuedBytes.addAndGet(bytes);
+        if (total > peakQueuedBytes) {
+            peakQueuedBytes = total;
+        }
+        return true;
+    }
+
+    private boolean isBatchReady(final int batchSize) {
+        return size() >= batchSize || queuedBytes.get() >= maxBatchBytes;
     }
 
-    private void resetBatchTimeout() {
-        if (sourceRecordDeque.size() < maxBatchSize) {
-            responseLatch = new CountDownLatch(1);
-            delayedExecutor(maxBatchIntervalMs, MILLISECONDS).execute(responseLatch::countDown);
+    private void signalIfBatchReady() {
+        if (isBatchReady(batchSizer.batchSize())) {
+            // Pairs with the fence in awaitBatch(): either we see consumerWaiting, or the consumer sees the new size.
+            VarHandle.fullFence();
+            if (consumerWaiting) {
+                batchLock.lock();
+                try {
+                    batchReady.signal();
+                } finally {
+                    batchLock.unlock();
+                }
+            }
         }
     }
 
-    private void waitForBatchTimeout() {
+    private void handleOverflow(final SourceRecord sourceRecord,
+                                final ByteBuffer json,
+                                final long addedNanos,
+                                final int bytes) {
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                dropOldestAndAdd(sourceRecord, addedNanos, bytes);
+                break;
+            case SPILL:
+                addToOverflow(sourceRecord, json);
+                break;
+            case BLOCK:
+            default:
+                blockUntilAdded(sourceRecord, addedNanos, bytes);
+                break;
+        }
+    }
+
+    private void blockUntilAdded(final SourceRecord sourceRecord, final long addedNanos, final int bytes) {
+        while (!offer(sourceRecord, addedNanos, bytes)) {
+            if (Thread.currentThread()
+                      .isInterrupted()) {
+                recordDropped("Interrupted while waiting for space in the source record queue");
+                return;
+            }
+            LockSupport.parkNanos(this, BLOCKED_PARK_NANOS);
+        }
+    }
+
+    private void dropOldestAndAdd(final SourceRecord sourceRecord, final long addedNanos, final int bytes) {
+        do {
+            consumerLock.lock();
+            try {
+                final int droppedBytes = ringBuffer.headWeight();
+                if (ringBuffer.poll() != null) {
+                    queuedBytes.addAndGet(-droppedBytes);
+                    recordDropped("Source record queue is full, dropped the oldest record");
+                }
+            } finally {
+                consumerLock.unlock();
+            }
+        } while (!offer(sourceRecord, addedNanos, bytes));
+    }
+
+    private void addToOverflow(final SourceRecord sourceRecord, final ByteBuffer json) {
+        if (!overflow.add(sourceRecord, json)) {
+            recordDropped("Source record overflow tier is full, dropped the record");
+        }
+    }
+
+    private void recordDropped(final String reason) {
+        final long dropped = droppedCount.incrementAndGet();
+        // Log on every power of two, so that a long overload doesn't flood the log.
+        if (Long.bitCount(dropped) == 1) {
+            log.warn("{}.  {} records dropped so far.", reason, dropped);
+        }
+    }
+
+    /**
+     * Called by the Connect poll thread.  Returns a full batch as soon as one is available, or whatever has been queued
+     * by the time the linger deadline expires.
+     */
+    List<SourceRecord> getBatch() {
+        final long nowNanos = System.nanoTime();
+        batchSizer.onPoll(ringBuffer.addedCount() + overflow.addedCount(), nowNanos);
+        final int batchSize = batchSizer.batchSize();
+        awaitBatch(batchSize, nowNanos + batchSizer.lingerNanos());
+
+        final int maxBatchSize = batchSizer.maxBatchSize();
+        final List<SourceRecord> sourceRecords = new ArrayList<>(Math.min(maxBatchSize, size()));
+        final long oldestAddedNanos;
+        consumerLock.lock();
+        try {
+            oldestAddedNanos = ringBuffer.headStamp();
+            final long batchBytes = ringBuffer.drainTo(sourceRecords, maxBatchSize, maxBatchBytes);
+            queuedBytes.addAndGet(-batchBytes);
+            drainOverflow(sourceRecords, maxBatchSize, batchBytes);
+        } finally {
+            consumerLock.unlock();
+        }
+        lastBatchWaitNanos = oldestAddedNanos == SpscRingBuffer.NO_STAMP ? 0 : System.nanoTime() - oldestAddedNanos;
+        return sourceRecords;
+    }
+
+    private void awaitBatch(final int batchSize, final long deadlineNanos) {
+        if (isBatchReady(batchSize)) {
+            return;
+        }
+        batchLock.lock();
         try {
-            responseLatch.await(maxBatchIntervalMs, MILLISECONDS);
+            consumerWaiting = true;
+            VarHandle.fullFence();
+            long remainingNanos = deadlineNanos - System.nanoTime();
+            while (!isBatchReady(batchSize) && remainingNanos > 0) {
+                remainingNanos = batchReady.awaitNanos(remainingNanos);
+            }
         } catch (final InterruptedException e) {
-            log.warn("Interrupted while waiting for response lock to be released.");
+            log.warn("Interrupted while waiting for a batch of source records.");
+            Thread.currentThread()
+                  .interrupt();
+        } finally {
+            consumerWaiting = false;
+            batchLock.unlock();
+        }
+    }
+
+    /** The overflow records are not part of the queued bytes, but they do count towards the bytes of the batch. */
+    private void drainOverflow(final List<SourceRecord> sourceRecords, final int maxBatchSize, final long batchBytes) {
+        long bytes = batchBytes;
+        while (sourceRecords.size() < maxBatchSize && bytes < maxBatchBytes && ringBuffer.isEmpty()) {
+            final SourceRecord sourceRecord = overflow.poll();
+            if (sourceRecord == null) {
+                return;
+            }
+            sourceRecords.add(sourceRecord);
+            bytes += RecordSizeEstimator.estimate(sourceRecord);
+        }
+    }
+
+    /**
+     * Called by the Connect poll thread.  How long the oldest record of the last batch waited between being added and
+     * being polled, or 0 if it came from the overflow tier, which is not stamped.
+     */
+    long getLastBatchWaitNanos() {
+        return lastBatchWaitNanos;
+    }
+
+    /** The number of records currently queued, including any in the overflow tier. */
+    int size() {
+        return ringBuffer.size() + overflow.size();
+    }
+
+    /** Called once Connect has committed a record, so that the overflow tier can release it. */
+    void commit(final SourceRecord sourceRecord) {
+        overflow.commit(sourceRecord);
+    }
+
+    /** Discard the overflow tier, e.g. delete the spill journal. */
+    void close() {
+        overflow.close();
+    }
+
+    /** Feed the time Connect took to commit a polled batch back to the batch sizer. */
+    void recordCommitLatency(final long commitLatencyNanos) {
+        batchSizer.onCommit(commitLatencyNanos);
+    }
+
+    int capacity() {
+        return ringBuffer.capacity();
+    }
+
+    /** The estimated bytes retained by the records in the ring buffer, not counting the overflow tier. */
+    long getQueuedBytes() {
+        return Math.max(0, queuedBytes.get());
+    }
+
+    /** The most bytes the ring buffer has held since the start. */
+    long getPeakQueuedBytes() {
+        return peakQueuedBytes;
+    }
+
+    long getMaxQueuedBytes() {
+        return maxQueuedBytes;
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    static class SourceRecordQueueBuilder {
+
+        private int maxBatchSize = TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_SIZE_DEFAULT;
+        private int maxBatchIntervalMs = TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_INTERVAL_MS_DEFAULT;
+        private int capacity = DEFAULT_CAPACITY;
+        private long maxQueuedBytes = DEFAULT_MAX_BYTES;
+        private long maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+        private QueueOverflowPolicy overflowPolicy = BLOCK;
+        private BatchSizer batchSizer;
+        private OverflowTier overflowTier;
+        private int overflowCapacity = DEFAULT_CAPACITY;
+
+        private SourceRecordQueueBuilder() {
+        }
+
+        SourceRecordQueueBuilder config(final TwitterV2SourceConnectorConfig config) {
+            maxBatchSize = config.getMaxBatchSize();
+            maxBatchIntervalMs = config.getMaxBatchIntervalMs();
+            capacity = config.getQueueCapacity();
+            maxQueuedBytes = config.getQueueMaxBytes();
+            maxBatchBytes = config.getMaxBatchBytes();
+            overflowPolicy = config.getQueueOverflowPolicy();
+            if (config.isAdaptiveBatching()) {
+                batchSizer = new AdaptiveBatchSizer(config.getBatchTargetLatencyMs(),
+                                                    config.getMinBatchSize(),
+                                                    maxBatchSize,
+                                                    maxBatchIntervalMs);
+            }
+            return this;
+        }
+
+        SourceRecordQueueBuilder maxBatchSize(final int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        SourceRecordQueueBuilder maxBatchIntervalMs(final int maxBatchIntervalMs) {
+            this.maxBatchIntervalMs = maxBatchIntervalMs;
+            return this;
+        }
+
+        SourceRecordQueueBuilder batchSizer(final BatchSizer batchSizer) {
+            this.batchSizer = batchSizer;
+            return this;
+        }
+
+        SourceRecordQueueBuilder capacity(final int capacity) {
+            this.capacity = capacity;
+            return this;
+        }
+
+        SourceRecordQueueBuilder maxQueuedBytes(final long maxQueuedBytes) {
+            this.maxQueuedBytes = maxQueuedBytes;
+            return this;
+        }
+
+        SourceRecordQueueBuilder maxBatchBytes(final long maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        SourceRecordQueueBuilder overflowPolicy(final QueueOverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /** Where the records go with {@link QueueOverflowPolicy#SPILL}.  Defaults to the heap. */
+        SourceRecordQueueBuilder overflowTier(final OverflowTier overflowTier) {
+            this.overflowTier = overflowTier;
+            return this;
+        }
+
+        /** The maximum number of records held by the default overflow tier on the heap. */
+        SourceRecordQueueBuilder overflowCapacity(final int overflowCapacity) {
+            this.overflowCapacity = overflowCapacity;
+            return this;
+        }
+
+        SourceRecordQueue build() {
+            final BatchSizer sizer = Optional.ofNullable(batchSizer)
+                                             .orElseGet(() -> new FixedBatchSizer(maxBatchSize, maxBatchIntervalMs));
+            final OverflowTier tier = Optional.ofNullable(overflowTier)
+                                              .orElseGet(() -> new MemoryOverflowTier(overflowCapacity));
+            return new SourceRecordQueue(sizer, capacity, maxQueuedBytes, maxBatchBytes, overflowPolicy, tier);
         }
     }
 }
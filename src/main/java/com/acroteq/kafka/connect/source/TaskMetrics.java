@@ -0,0 +1,322 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.acroteq.kafka.connect.source.twitter.TwitterStreamer;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import lombok.NonNull;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.metrics.Gauge;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.metrics.Sensor;
+import org.apache.kafka.common.metrics.stats.Avg;
+import org.apache.kafka.common.metrics.stats.Max;
+import org.apache.kafka.common.metrics.stats.Meter;
+import org.apache.kafka.common.metrics.stats.Percentile;
+import org.apache.kafka.common.metrics.stats.Percentiles;
+import org.apache.kafka.common.metrics.stats.Percentiles.BucketSizing;
+import org.apache.kafka.common.metrics.stats.WindowedCount;
+import org.apache.kafka.common.utils.Time;
+import org.apache.kafka.connect.source.SourceRecord;
+
+/**
+ * The metrics of every stage of a task's pipeline, in the {@value #METRIC_GROUP} group, tagged by connector and task.
+ * They are exposed over JMX under {@value #JMX_PREFIX}, like the rate limits, as
+ * {@code kafka.connect.twitter:type=twitter-task-metrics,connector=<connector>,task=<task>}.
+ *
+ * <ul>
+ *   <li>stream: the bytes and tweets received, the lines that failed to parse, the time to parse and convert each
+ *   tweet, the reconnects and the time the stream was down.</li>
+ *   <li>queue: the records queued now and at each poll, the high-water mark and the records dropped, and the
+ *   estimated bytes queued now and at the peak.</li>
+ *   <li>poll: the batch sizes, how long the oldest record of each batch waited in the queue, and how long after it
+ *   was created on Twitter it was polled.</li>
+ * </ul>
+ *
+ * <p>The stream metrics are recorded by the parser workers, wrapped by {@link #instrument(Function)}, and the queue
+ * and poll metrics by the poll thread in {@link #recordPoll(List)}, once per batch.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class TaskMetrics implements AutoCloseable {
+
+    static final String METRIC_GROUP = "twitter-task-metrics";
+    static final String JMX_PREFIX = "kafka.connect.twitter";
+
+    private static final int PERCENTILES_BYTES = 4000;
+    private static final double MAX_CONVERT_TIME_US = 10000;
+    private static final double MAX_LATENCY_MS = 60000;
+
+    private final Metrics metrics;
+    private final Map<String, String> tags;
+    private final SourceRecordQueue queue;
+    private final ToLongFunction<SourceRecord> createdAtMs;
+
+    private final Sensor streamBytes;
+    private final Sensor tweets;
+    private final Sensor parseErrors;
+    private final Sensor queueDepth;
+    private final Sensor batchSize;
+    private final Sensor queueWait;
+    private final Sensor endToEndLatency;
+
+    // only written by the poll thread
+    private volatile int queueHighWater;
+
+    static TaskMetricsBuilder builder() {
+        return new TaskMetricsBuilder();
+    }
+
+    private TaskMetrics(@NonNull final Metrics metrics,
+                        @NonNull final String connector,
+                        final int task,
+                        final int maxBatchSize,
+                        @NonNull final SourceRecordQueue queue,
+                        @NonNull final Supplier<TwitterStreamer> streamer,
+                        @NonNull final ToLongFunction<SourceRecord> createdAtMs) {
+        this.metrics = metrics;
+        this.queue = queue;
+        this.createdAtMs = createdAtMs;
+        tags = Map.of("connector", connector, "task", Integer.toString(task));
+
+        streamBytes = metrics.sensor(sensorName("stream-bytes"));
+        streamBytes.add(new Meter(name("stream-bytes-rate", "The bytes of tweet lines received per second."),
+                                  name("stream-bytes-total", "The bytes of tweet lines received.")));
+
+        tweets = metrics.sensor(sensorName("tweets"));
+        tweets.add(new Meter(new WindowedCount(),
+                             name("tweet-rate", "The tweets parsed and converted per second."),
+                             name("tweet-total", "The tweets parsed and converted.")));
+        tweets.add(name("convert-time-us-avg", "The average time to parse and convert a tweet."), new Avg());
+        tweets.add(name("convert-time-us-max", "The longest time to parse and convert a tweet."), new Max());
+        tweets.add(new Percentiles(PERCENTILES_BYTES,
+                                   MAX_CONVERT_TIME_US,
+                                   BucketSizing.LINEAR,
+                                   percentile("convert-time-us", 50),
+                                   percentile("convert-time-us", 99),
+                                   percentile("convert-time-us", 99.9)));
+
+        parseErrors = metrics.sensor(sensorName("parse-errors"));
+        parseErrors.add(new Meter(new WindowedCount(),
+                                  name("parse-error-rate", "The lines that failed to parse per second."),
+                                  name("parse-error-total", "The lines that failed to parse.")));
+
+        queueDepth = metrics.sensor(sensorName("queue-depth"));
+        queueDepth.add(name("queue-depth-avg", "The average number of records queued when polled."), new Avg());
+        queueDepth.add(name("queue-depth-max", "The most records queued when polled."), new Max());
+
+        batchSize = metrics.sensor(sensorName("poll-batch-size"));
+        batchSize.add(name("poll-batch-size-avg", "The average number of records per poll."), new Avg());
+        batchSize.add(name("poll-batch-size-max", "The most records per poll."), new Max());
+        batchSize.add(new Percentiles(PERCENTILES_BYTES,
+                                      maxBatchSize,
+                                      BucketSizing.LINEAR,
+                                      percentile("poll-batch-size", 50),
+                                      percentile("poll-batch-size", 99)));
+
+        queueWait = metrics.sensor(sensorName("enqueue-to-poll-latency"));
+        queueWait.add(name("enqueue-to-poll-latency-ms-avg",
+                           "The average time the oldest record of a batch waited in the queue."), new Avg());
+        queueWait.add(name("enqueue-to-poll-latency-ms-max",
+                           "The longest time the oldest record of a batch waited in the queue."), new Max());
+
+        endToEndLatency = metrics.sensor(sensorName("end-to-end-latency"));
+        endToEndLatency.add(name("end-to-end-latency-ms-avg",
+                                 "The average time from the creation of the oldest tweet of a batch to its poll."),
+                            new Avg());
+        endToEndLatency.add(name("end-to-end-latency-ms-max",
+                                 "The longest time from the creation of the oldest tweet of a batch to its poll."),
+                            new Max());
+        endToEndLatency.add(new Percentiles(PERCENTILES_BYTES,
+                                            MAX_LATENCY_MS,
+                                            BucketSizing.LINEAR,
+                                            percentile("end-to-end-latency-ms", 50),
+                                            percentile("end-to-end-latency-ms", 99)));
+
+        metrics.addMetric(name("queue-depth", "The records queued now."), (Gauge<Integer>) (c, now) -> queue.size());
+        metrics.addMetric(name("queue-depth-high-water", "The most records queued when polled, since the start."),
+                          (Gauge<Integer>) (c, now) -> queueHighWater);
+        metrics.addMetric(name("queue-capacity", "The capacity of the queue."),
+                          (Gauge<Integer>) (c, now) -> queue.capacity());
+        metrics.addMetric(name("queue-bytes", "The estimated heap size of the records queued now."),
+                          (Gauge<Long>) (c, now) -> queue.getQueuedBytes());
+        metrics.addMetric(name("queue-bytes-peak", "The largest estimated heap size of the queue, since the start."),
+                          (Gauge<Long>) (c, now) -> queue.getPeakQueuedBytes());
+        metrics.addMetric(name("queue-bytes-capacity", "The maximum estimated heap size of the queue."),
+                          (Gauge<Long>) (c, now) -> queue.getMaxQueuedBytes());
+        metrics.addMetric(name("queue-dropped-total", "The records dropped because the queue was full."),
+                          (Gauge<Long>) (c, now) -> queue.getDroppedCount());
+        metrics.addMetric(name("reconnect-total", "The times the tweet stream was reconnected."),
+                          (Gauge<Long>) (c, now) -> Optional.ofNullable(streamer.get())
+                                                            .map(TwitterStreamer::getReconnectCount)
+                                                            .orElse(0L));
+        metrics.addMetric(name("stream-downtime-ms-total", "The time the tweet stream was disconnected."),
+                          (Gauge<Long>) (c, now) -> Optional.ofNullable(streamer.get())
+                                                            .map(TwitterStreamer::getDowntimeMs)
+                                                            .orElse(0L));
+    }
+
+    private String sensorName(final String name) {
+        // sensors are global to the Metrics instance, so they are named per task
+        return name + "." + tags.get("connector") + "." + tags.get("task");
+    }
+
+    private MetricName name(final String name, final String description) {
+        return metrics.metricName(name, METRIC_GROUP, description, tags);
+    }
+
+    private Percentile percentile(final String name, final double percentile) {
+        final String suffix = percentile == Math.rint(percentile)
+                              ? Integer.toString((int) percentile)
+                              : Double.toString(percentile)
+                                      .replace(".", "");
+        return new Percentile(name(name + "-p" + suffix, "The " + percentile + "th percentile of the " + name + "."),
+                              percentile);
+    }
+
+    /** Wrap a parser, which is called by one pipeline worker, to record the stream metrics of each line. */
+    Function<ByteBuffer, SourceRecord> instrument(@NonNull final Function<ByteBuffer, SourceRecord> parser) {
+        return line -> {
+            streamBytes.record(line.remaining());
+            final long startNanos = System.nanoTime();
+            final SourceRecord sourceRecord;
+            try {
+                sourceRecord = parser.apply(line);
+            } catch (final RuntimeException e) {
+                parseErrors.record();
+                throw e;
+            }
+            if (sourceRecord != null) {
+                tweets.record(NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+            }
+            return sourceRecord;
+        };
+    }
+
+    /** Called by the poll thread with each batch, straight after it was taken from the queue. */
+    void recordPoll(@NonNull final List<SourceRecord> batch) {
+        final int depth = batch.size() + queue.size();
+        queueDepth.record(depth);
+        if (depth > queueHighWater) {
+            queueHighWater = depth;
+        }
+        batchSize.record(batch.size());
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        queueWait.record(NANOSECONDS.toMillis(queue.getLastBatchWaitNanos()));
+        // records are not in creation order, e.g. backfilled ones among live ones
+        long oldestCreatedAtMs = Long.MAX_VALUE;
+        for (final SourceRecord sourceRecord : batch) {
+            final long recordCreatedAtMs = createdAtMs.applyAsLong(sourceRecord);
+            if (recordCreatedAtMs > 0 && recordCreatedAtMs < oldestCreatedAtMs) {
+                oldestCreatedAtMs = recordCreatedAtMs;
+            }
+        }
+        if (oldestCreatedAtMs != Long.MAX_VALUE) {
+            endToEndLatency.record(System.currentTimeMillis() - oldestCreatedAtMs);
+        }
+    }
+
+    @Override
+    public void close() {
+        metrics.close();
+    }
+
+    static class TaskMetricsBuilder {
+
+        private Metrics metrics;
+        private String connector;
+        private int task;
+        private int maxBatchSize = TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_SIZE_DEFAULT;
+        private SourceRecordQueue queue;
+        private Supplier<TwitterStreamer> streamer = () -> null;
+        private ToLongFunction<SourceRecord> createdAtMs = r -> 0;
+
+        private TaskMetricsBuilder() {
+        }
+
+        /** Defaults to a registry of its own, reported over JMX. */
+        TaskMetricsBuilder metrics(final Metrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        TaskMetricsBuilder connector(final String connector) {
+            this.connector = connector;
+            return this;
+        }
+
+        TaskMetricsBuilder task(final int task) {
+            this.task = task;
+            return this;
+        }
+
+        TaskMetricsBuilder maxBatchSize(final int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        TaskMetricsBuilder queue(final SourceRecordQueue queue) {
+            this.queue = queue;
+            return this;
+        }
+
+        /** The streamer, which is only started after the metrics are registered. */
+        TaskMetricsBuilder streamer(final Supplier<TwitterStreamer> streamer) {
+            this.streamer = streamer;
+            return this;
+        }
+
+        /** When the tweet of a record was created, or 0 if unknown. */
+        TaskMetricsBuilder createdAtMs(final ToLongFunction<SourceRecord> createdAtMs) {
+            this.createdAtMs = createdAtMs;
+            return this;
+        }
+
+        TaskMetrics build() {
+            final Metrics registry = Optional.ofNullable(metrics)
+                                             .orElseGet(() -> new Metrics(new MetricConfig(),
+                                                                          List.of(new JmxReporter()),
+                                                                          Time.SYSTEM,
+                                                                          new KafkaMetricsContext(JMX_PREFIX)));
+            return new TaskMetrics(registry, connector, task, maxBatchSize, queue, streamer, createdAtMs);
+        }
+    }
+}
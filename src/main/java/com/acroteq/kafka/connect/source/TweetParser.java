@@ -0,0 +1,69 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.Locale.ROOT;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * How the {@link TwitterV2SourceTask} turns the JSON lines of the filtered stream into records.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public enum TweetParser {
+
+    /** Deserialise into the Twitter SDK model with GSON, then convert the model with the TweetConverter. */
+    MODEL,
+
+    /** Read the JSON straight into a Struct with the TweetStructReader, skipping the SDK model. */
+    STREAMING,
+
+    /**
+     * Pass the line through as it was received, as the bytes of the record value, with only the tweet ID and the
+     * conversation ID scanned out of it by the TweetLineScanner.
+     */
+    RAW;
+
+    /** The value as it appears in the connector configuration, e.g. {@code streaming}. */
+    public String configValue() {
+        return name().toLowerCase(ROOT);
+    }
+
+    static TweetParser fromConfigValue(final String value) {
+        return valueOf(value.trim()
+                            .toUpperCase(ROOT));
+    }
+
+    static List<String> configValues() {
+        return Stream.of(values())
+                     .map(TweetParser::configValue)
+                     .collect(toList());
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.PipelineOrdering.GLOBAL;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.source.SourceRecord;
+
+/**
+ * Moves parsing and conversion off the thread that reads the tweet stream.
+ *
+ * <p>The stream reader only frames lines and hands them to {@link #accept}, which copies the bytes and passes them on
+ * to a pool of worker threads.  Each worker parses and converts with its own parser, and a sequencer hands the
+ * resulting records to the sink, one at a time, with the line they were parsed from, in the configured
+ * {@link PipelineOrdering}:
+ *
+ * <ul>
+ *   <li>{@code GLOBAL}: lines are dealt round-robin to the workers and the sequencer holds finished records back
+ *   until all earlier ones have been handed on.  At most {@link #WORKER_QUEUE_CAPACITY} lines per worker are in
+ *   flight; the stream reader waits when the window is full.</li>
+ *   <li>{@code KEY}: lines are routed by their {@code conversation_id}, so all tweets of a conversation are parsed
+ *   in order by the same worker, and records are handed on as soon as they are ready.</li>
+ * </ul>
+ *
+ * <p>With no workers, lines are parsed inline on the stream reader thread.
+ *
+ * <p>If a worker fails to parse a line, later records are discarded and the failure is rethrown to the stream
+ * reader on the next line, which stops the stream just as an inline failure does.  The failure is only rethrown once:
+ * the lines handed off until then belong to the failed connection and are discarded, and the lines of the reconnected
+ * stream flow again.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+class TweetPipeline implements Consumer<ByteBuffer>, AutoCloseable {
+
+    static final int WORKER_QUEUE_CAPACITY = 256;
+    static final int MAX_WORKERS = 64;
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    /** How often a stream reader that is waiting for the workers checks whether the pipeline was closed. */
+    private static final long HAND_OFF_POLL_MS = 100;
+
+    /** The key field as Twitter writes it, i.e. without whitespace. */
+    private static final byte[] KEY_FIELD = "\"conversation_id\":\"".getBytes(US_ASCII);
+    private static final byte QUOTE = '"';
+
+    /** The result of a line that holds no tweet, e.g. a response without data. */
+    private static final Object SKIPPED = new Object();
+
+    private final Supplier<Function<ByteBuffer, SourceRecord>> parserFactory;
+    private final BiConsumer<SourceRecord, ByteBuffer> sink;
+    private final PipelineOrdering ordering;
+    private final int workers;
+
+    private final Function<ByteBuffer, SourceRecord> inlineParser;
+    private final List<BlockingQueue<Line>> workerQueues = new ArrayList<>();
+    private final ExecutorService workerExecutor;
+
+    private final ReentrantLock sequencerLock = new ReentrantLock();
+    private final Condition windowAvailable = sequencerLock.newCondition();
+    private final Line[] window;
+    private long nextToEmit;
+    /** The records of the lines before this sequence are discarded, as their connection failed. */
+    private long discardBefore;
+
+    // only accessed by the stream reader thread
+    private long nextSequence;
+    private int nextWorker;
+
+    private volatile RuntimeException failure;
+    private volatile boolean running = true;
+
+    static TweetPipelineBuilder builder() {
+        return new TweetPipelineBuilder();
+    }
+
+    private TweetPipeline(final Supplier<Function<ByteBuffer, SourceRecord>> parserFactory,
+                          final BiConsumer<SourceRecord, ByteBuffer> sink,
+                          final int workers,
+                          final PipelineOrdering ordering) {
+        checkArgument(workers >= 0 && workers <= MAX_WORKERS, "workers must be between 0 and %s", MAX_WORKERS);
+        this.parserFactory = parserFactory;
+        this.sink = sink;
+        this.workers = workers;
+        this.ordering = ordering;
+
+        if (workers == 0) {
+            inlineParser = parserFactory.get();
+            workerExecutor = null;
+            window = null;
+        } else {
+            inlineParser = null;
+            window = ordering == GLOBAL ? new Line[workers * WORKER_QUEUE_CAPACITY] : null;
+            workerExecutor = newFixedThreadPool(workers,
+                                                new ThreadFactoryBuilder().setNameFormat("tweet-parser-%d")
+                                                                          .setDaemon(true)
+                                                                          .build());
+            for (int i = 0; i < workers; i++) {
+                final BlockingQueue<Line> queue = new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY);
+                workerQueues.add(queue);
+                workerExecutor.submit(() -> work(queue));
+            }
+        }
+    }
+
+    /** Called by the stream reader with the UTF-8 bytes of one line, which are only valid during the call. */
+    @Override
+    public void accept(final ByteBuffer line) {
+        throwIfFailed();
+
+        if (workers == 0) {
+            final int position = line.position();
+            final SourceRecord sourceRecord = inlineParser.apply(line);
+            if (sourceRecord != null) {
+                // rewind the line the parser consumed, for the sink
+                line.position(position);
+                sink.accept(sourceRecord, line);
+            }
+            return;
+        }
+
+        final byte[] json = new byte[line.remaining()];
+        line.get(json);
+        final long sequence = nextSequence++;
+        try {
+            if (window != null) {
+                awaitWindow(sequence);
+            }
+            handOff(workerQueues.get(selectWorker(json)), new Line(sequence, json));
+        } catch (final InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new ConnectException("Interrupted while handing a tweet to the parser workers", e);
+        }
+    }
+
+    private void handOff(final BlockingQueue<Line> queue, final Line line) throws InterruptedException {
+        while (running && !queue.offer(line, HAND_OFF_POLL_MS, MILLISECONDS)) {
+            log.trace("Waiting for a tweet parser worker.");
+        }
+    }
+
+    private void throwIfFailed() {
+        if (failure == null) {
+            return;
+        }
+        final RuntimeException workerFailure;
+        sequencerLock.lock();
+        try {
+            workerFailure = failure;
+            failure = null;
+            discardBefore = nextSequence;
+        } finally {
+            sequencerLock.unlock();
+        }
+        throw new ConnectException("A tweet parser worker failed", workerFailure);
+    }
+
+    private int selectWorker(final byte[] json) {
+        if (ordering == GLOBAL) {
+            nextWorker = (nextWorker + 1) % workers;
+            return nextWorker;
+        }
+        return Math.floorMod(keyHash(json), workers);
+    }
+
+    /** A hash of the first conversation_id in the line, without parsing it.  Lines without one share a hash. */
+    static int keyHash(final byte[] json) {
+        final int keyStart = indexOf(json, KEY_FIELD);
+        if (keyStart < 0) {
+            return 0;
+        }
+        int hash = 1;
+        for (int i = keyStart; i < json.length && json[i] != QUOTE; i++) {
+            hash = 31 * hash + json[i];
+        }
+        return hash;
+    }
+
+    /** The index just past the first occurrence of the field, or -1. */
+    private static int indexOf(final byte[] json, final byte[] field) {
+        final int last = json.length - field.length;
+        outer:
+        for (int i = 0; i <= last; i++) {
+            for (int j = 0; j < field.length; j++) {
+                if (json[i + j] != field[j]) {
+                    continue outer;
+                }
+            }
+            return i + field.length;
+        }
+        return -1;
+    }
+
+    private void work(final BlockingQueue<Line> queue) {
+        final Function<ByteBuffer, SourceRecord> parser = parserFactory.get();
+        try {
+            while (running) {
+                final Line line = queue.take();
+                try {
+                    final SourceRecord sourceRecord = parser.apply(ByteBuffer.wrap(line.json));
+                    line.result = sourceRecord == null ? SKIPPED : sourceRecord;
+                } catch (final RuntimeException e) {
+                    line.result = e;
+                }
+                complete(line);
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+
+    private void awaitWindow(final long sequence) throws InterruptedException {
+        sequencerLock.lock();
+        try {
+            while (running && sequence - nextToEmit >= window.length) {
+                windowAvailable.await(HAND_OFF_POLL_MS, MILLISECONDS);
+            }
+        } finally {
+            sequencerLock.unlock();
+        }
+    }
+
+    /** The sequencer.  Holding the lock while emitting also serialises the calls to the sink. */
+    private void complete(final Line line) {
+        sequencerLock.lock();
+        try {
+            if (window == null) {
+                emit(line);
+                return;
+            }
+
+            window[index(line.sequence)] = line;
+            while (window[index(nextToEmit)] != null) {
+                final int index = index(nextToEmit);
+                emit(window[index]);
+                window[index] = null;
+                nextToEmit++;
+            }
+            windowAvailable.signalAll();
+        } finally {
+            sequencerLock.unlock();
+        }
+    }
+
+    private int index(final long sequence) {
+        return (int) (sequence % window.length);
+    }
+
+    private void emit(final Line line) {
+        if (failure != null || line.sequence < discardBefore) {
+            return;
+        }
+        if (line.result instanceof SourceRecord) {
+            sink.accept((SourceRecord) line.result, ByteBuffer.wrap(line.json));
+        } else if (line.result instanceof RuntimeException) {
+            failure = (RuntimeException) line.result;
+            log.error("Error while parsing a tweet", failure);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (workerExecutor == null) {
+            return;
+        }
+        try {
+            workerExecutor.shutdownNow();
+            if (!workerExecutor.awaitTermination(SHUTDOWN_TIMEOUT_MS, MILLISECONDS)) {
+                log.warn("Tweet parser workers did not terminate within {} ms.", SHUTDOWN_TIMEOUT_MS);
+            }
+        } catch (final InterruptedException e) {
+            log.warn("Interrupted while awaiting termination of the tweet parser workers.");
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+
+    private static final class Line {
+
+        private final long sequence;
+        private final byte[] json;
+        /** The record, {@link #SKIPPED}, or the exception thrown by the parser.  Published by the sequencer lock. */
+        private Object result;
+
+        private Line(final long sequence, final byte[] json) {
+            this.sequence = sequence;
+            this.json = json;
+        }
+    }
+
+    static class TweetPipelineBuilder {
+
+        private Supplier<Function<ByteBuffer, SourceRecord>> parserFactory;
+        private BiConsumer<SourceRecord, ByteBuffer> sink;
+        private int workers;
+        private PipelineOrdering ordering = GLOBAL;
+
+        private TweetPipelineBuilder() {
+        }
+
+        TweetPipelineBuilder config(final TwitterV2SourceConnectorConfig config) {
+            workers = config.getParserWorkers();
+            ordering = config.getPipelineOrdering();
+            return this;
+        }
+
+        /** Creates one parser per worker thread, so parsers do not have to be thread-safe. */
+        TweetPipelineBuilder parserFactory(final Supplier<Function<ByteBuffer, SourceRecord>> parserFactory) {
+            this.parserFactory = parserFactory;
+            return this;
+        }
+
+        /** Receives each record with the line it was parsed from, which is only valid during the call. */
+        TweetPipelineBuilder sink(final BiConsumer<SourceRecord, ByteBuffer> sink) {
+            this.sink = sink;
+            return this;
+        }
+
+        TweetPipelineBuilder workers(final int workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        TweetPipelineBuilder ordering(final PipelineOrdering ordering) {
+            this.ordering = ordering;
+            return this;
+        }
+
+        TweetPipeline build() {
+            return new TweetPipeline(parserFactory, sink, workers, ordering);
+        }
+    }
+}
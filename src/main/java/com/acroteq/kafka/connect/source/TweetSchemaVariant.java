@@ -0,0 +1,66 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.Locale.ROOT;
+import static java.util.stream.Collectors.toList;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Which schema the {@link TwitterV2SourceTask} converts tweets into.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public enum TweetSchemaVariant {
+
+    /** The fields as Twitter sends them: IDs as strings, coordinates as decimals. */
+    STANDARD,
+
+    /**
+     * The same fields, smaller to serialise and store: IDs as INT64, coordinates as FLOAT64, {@code lang} and
+     * {@code reply_settings} as INT32 codes.
+     */
+    COMPACT;
+
+    /** The value as it appears in the connector configuration, e.g. {@code compact}. */
+    public String configValue() {
+        return name().toLowerCase(ROOT);
+    }
+
+    static TweetSchemaVariant fromConfigValue(final String value) {
+        return valueOf(value.trim()
+                            .toUpperCase(ROOT));
+    }
+
+    static List<String> configValues() {
+        return Stream.of(values())
+                     .map(TweetSchemaVariant::configValue)
+                     .collect(toList());
+    }
+}
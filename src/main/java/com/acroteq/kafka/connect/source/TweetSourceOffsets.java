@@ -0,0 +1,241 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_CREATED_AT;
+import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_ID;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The source partition and source offsets of the tweet records.
+ *
+ * <p>The offset of a record is the highest tweet ID, with its creation time, of all the records queued up to and
+ * including that record.  Tweet IDs are snowflakes, so they grow with time, and the highest one committed is where
+ * the backfill continues after a restart.
+ *
+ * <p>Each shard of a sharded connector has its own source partition, as it streams its own rules.
+ *
+ * <p>While the backfill is running, every record carries the offset that was restored on start up.  The backfill
+ * runs newest first, so the offset may only move on once it is complete.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class TweetSourceOffsets {
+
+    static final Map<String, String> SOURCE_PARTITION = Map.of("stream", "filtered");
+    private static final String SHARD_KEY = "shard";
+    static final String TWEET_ID_KEY = "tweet_id";
+    static final String CREATED_AT_KEY = "created_at";
+
+    /** The snowflake epoch, 2010-11-04T01:42:54.657Z. */
+    private static final long TWITTER_EPOCH_MS = 1288834974657L;
+    private static final int TIMESTAMP_SHIFT = 22;
+    static final long NO_TWEET_ID = 0;
+
+    private final long restoredTweetId;
+    private final long restoredCreatedAtMs;
+    private final BooleanSupplier holding;
+
+    private long maxTweetId;
+    private long maxCreatedAtMs;
+    private long minLiveTweetId = Long.MAX_VALUE;
+
+    /**
+     * @param restoredOffset the offset read from the offset storage on start up, null if there is none
+     * @param holding        true while records must keep the restored offset
+     */
+    TweetSourceOffsets(final Map<String, Object> restoredOffset, final BooleanSupplier holding) {
+        restoredTweetId = Optional.ofNullable(restoredOffset)
+                                  .map(o -> o.get(TWEET_ID_KEY))
+                                  .map(TweetSourceOffsets::toLong)
+                                  .orElse(NO_TWEET_ID);
+        restoredCreatedAtMs = Optional.ofNullable(restoredOffset)
+                                      .map(o -> o.get(CREATED_AT_KEY))
+                                      .map(TweetSourceOffsets::toLong)
+                                      .orElse(createdAtMs(restoredTweetId));
+        this.holding = holding;
+        maxTweetId = restoredTweetId;
+        maxCreatedAtMs = restoredCreatedAtMs;
+    }
+
+    private static Long toLong(final Object value) {
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        try {
+            return Long.parseLong(String.valueOf(value));
+        } catch (final NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The source partition of a shard's task.  The first shard keeps the partition of an unsharded connector, so its
+     * offset survives switching sharding on.
+     */
+    static Map<String, String> sourcePartition(final int shard) {
+        return shard == 0 ? SOURCE_PARTITION : Map.of("stream", "filtered", SHARD_KEY, Integer.toString(shard));
+    }
+
+    /** The creation time in ms encoded in a snowflake tweet ID. */
+    static long createdAtMs(final long tweetId) {
+        return (tweetId >> TIMESTAMP_SHIFT) + TWITTER_EPOCH_MS;
+    }
+
+    boolean isRestored() {
+        return restoredTweetId != NO_TWEET_ID;
+    }
+
+    long getRestoredTweetId() {
+        return restoredTweetId;
+    }
+
+    Instant getRestoredCreatedAt() {
+        return Instant.ofEpochMilli(restoredCreatedAtMs);
+    }
+
+    /** The offset with the ID and creation time of the tweet, to be replaced by {@link #stamp}. */
+    static Map<String, Object> offsetOf(final Struct tweet) {
+        final long tweetId = tweetId(tweet);
+        return offsetOf(tweetId, tweetId == NO_TWEET_ID ? 0 : createdAtMs(tweet, tweetId));
+    }
+
+    /** The offset of a tweet known only by its ID, with the creation time encoded in the ID. */
+    static Map<String, Object> offsetOf(final long tweetId) {
+        return offsetOf(tweetId, createdAtMs(tweetId));
+    }
+
+    private static Map<String, Object> offsetOf(final long tweetId, final long createdAtMs) {
+        return tweetId == NO_TWEET_ID ? Map.of() : Map.of(TWEET_ID_KEY, tweetId, CREATED_AT_KEY, createdAtMs);
+    }
+
+    /** The ID is a string in the standard schema and an INT64 in the compact schema. */
+    private static long tweetId(final Struct tweet) {
+        final Object id = tweet.get(SERIALIZED_NAME_ID);
+        if (id instanceof Long) {
+            return (Long) id;
+        }
+        try {
+            return Long.parseLong((String) id);
+        } catch (final NumberFormatException e) {
+            return NO_TWEET_ID;
+        }
+    }
+
+    private static long createdAtMs(final Struct tweet, final long tweetId) {
+        final Field field = tweet.schema()
+                                 .field(SERIALIZED_NAME_CREATED_AT);
+        final Object createdAt = field == null ? null : tweet.get(field);
+        return createdAt instanceof Date ? ((Date) createdAt).getTime() : createdAtMs(tweetId);
+    }
+
+    /**
+     * Stamp a live record, created with an offset from {@link #offsetOf}, with the highest tweet ID queued so far.
+     * Must be called in the order the records are queued.
+     *
+     * @return the record with the stamped offset, which is the same record if its offset is unchanged
+     */
+    synchronized SourceRecord stamp(final SourceRecord sourceRecord) {
+        final long tweetId = tweetIdOf(sourceRecord);
+        if (tweetId != NO_TWEET_ID && tweetId < minLiveTweetId) {
+            minLiveTweetId = tweetId;
+        }
+        return stampOffset(sourceRecord, tweetId);
+    }
+
+    /**
+     * Stamp a backfilled record, created with an offset from {@link #offsetOf}.
+     *
+     * @return the record with the stamped offset, or null if the live stream already covers the tweet, so the record
+     *       is a duplicate
+     */
+    @Nullable
+    synchronized SourceRecord stampBackfilled(final SourceRecord sourceRecord) {
+        final long tweetId = tweetIdOf(sourceRecord);
+        if (tweetId >= minLiveTweetId) {
+            return null;
+        }
+        return stampOffset(sourceRecord, tweetId);
+    }
+
+    private SourceRecord stampOffset(final SourceRecord sourceRecord, final long tweetId) {
+        if (tweetId > maxTweetId) {
+            maxTweetId = tweetId;
+            maxCreatedAtMs = createdAtMsOf(sourceRecord);
+        }
+
+        if (holding.getAsBoolean()) {
+            return withOffset(sourceRecord, restoredTweetId, restoredCreatedAtMs);
+        } else if (tweetId != maxTweetId) {
+            return withOffset(sourceRecord, maxTweetId, maxCreatedAtMs);
+        }
+        return sourceRecord;
+    }
+
+    /** The ID of the tweet in a record that was not stamped yet, or {@link #NO_TWEET_ID}. */
+    static long tweetIdOf(final SourceRecord sourceRecord) {
+        final Object tweetId = sourceRecord.sourceOffset()
+                                           .get(TWEET_ID_KEY);
+        return tweetId == null ? NO_TWEET_ID : (Long) tweetId;
+    }
+
+    /** The creation time in the offset of a record, or 0 if the offset is empty. */
+    static long createdAtMsOf(final SourceRecord sourceRecord) {
+        final Object createdAtMs = sourceRecord.sourceOffset()
+                                               .get(CREATED_AT_KEY);
+        return createdAtMs == null ? 0 : (Long) createdAtMs;
+    }
+
+    /**
+     * A copy of the record with the given offset, e.g. the one it was stamped with before it was written to the spill
+     * journal.  The offset is part of the record's value, so it is never changed in place.
+     */
+    static SourceRecord withOffset(final SourceRecord sourceRecord, final long tweetId, final long createdAtMs) {
+        if (tweetId == tweetIdOf(sourceRecord) && createdAtMs == createdAtMsOf(sourceRecord)) {
+            return sourceRecord;
+        }
+        return new SourceRecord(sourceRecord.sourcePartition(),
+                                offsetOf(tweetId, createdAtMs),
+                                sourceRecord.topic(),
+                                sourceRecord.kafkaPartition(),
+                                sourceRecord.keySchema(),
+                                sourceRecord.key(),
+                                sourceRecord.valueSchema(),
+                                sourceRecord.value(),
+                                sourceRecord.timestamp(),
+                                sourceRecord.headers());
+    }
+}
@@ -27,25 +27,86 @@
 package com.acroteq.kafka.connect.source;
 
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.createConfigDef;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TASK_SHARD_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BEARER_TOKEN_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_FILTER_KEYWORDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_GROUP_SIZE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_MAX_COUNT_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_MAX_LENGTH_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SHARD_BALANCE_BY_VOLUME_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SHARD_BEARER_TOKENS_CONF;
 import static com.acroteq.kafka.connect.source.util.Constants.VERSION;
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 
+import com.acroteq.kafka.connect.source.twitter.RuleCompiler;
+import com.acroteq.kafka.connect.source.twitter.RuleGroup;
+import com.acroteq.kafka.connect.source.twitter.TweetVolumeService;
+import com.acroteq.kafka.connect.source.twitter.TwitterRuleService;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.types.Password;
 import org.apache.kafka.connect.connector.Task;
 import org.apache.kafka.connect.source.SourceConnector;
+import org.jetbrains.annotations.Nullable;
 
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
 @Slf4j
 public class TwitterV2SourceConnector extends SourceConnector {
 
+    /** The settings that only shape the filter rules, which the connector maintains, left out of the task settings. */
+    private static final Set<String> RULE_SETTINGS = Set.of(TWITTER_FILTER_KEYWORDS_CONF,
+                                                            TWITTER_RULE_GROUP_SIZE_CONF,
+                                                            TWITTER_RULE_MAX_LENGTH_CONF,
+                                                            TWITTER_RULE_MAX_COUNT_CONF,
+                                                            TWITTER_SHARD_BEARER_TOKENS_CONF,
+                                                            TWITTER_SHARD_BALANCE_BY_VOLUME_CONF);
+
+    private static final ToLongFunction<RuleGroup> KEYWORD_COUNT = g -> g.getKeywords()
+                                                                         .size();
+
+    /** The wait before the connector asks to be reconfigured, after the rules could not be maintained. */
+    static final long RULES_RETRY_DELAY_MS = 60_000;
+
     private TwitterV2SourceConnectorConfig config;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
 
+    @Nullable private final Executor rulesExecutor;
+    private final long rulesRetryDelayMs;
+    /** Incremented on every reconfiguration and on stop, so that superseded rule updates are skipped. */
+    private final AtomicLong rulesGeneration = new AtomicLong();
+    private ExecutorService ownRulesExecutor;
+
+    public TwitterV2SourceConnector() {
+        this(null, RULES_RETRY_DELAY_MS);
+    }
+
+    /**
+     * @param rulesExecutor     runs the calls to the Twitter API that maintain the rules, or null for a thread of the
+     *                          connector's own
+     * @param rulesRetryDelayMs the wait before asking to be reconfigured, after the rules could not be maintained
+     */
+    TwitterV2SourceConnector(@Nullable final Executor rulesExecutor, final long rulesRetryDelayMs) {
+        this.rulesExecutor = rulesExecutor;
+        this.rulesRetryDelayMs = rulesRetryDelayMs;
+    }
+
     @Override
     public String version() {
         return VERSION;
@@ -56,6 +117,11 @@ public class TwitterV2SourceConnector extends SourceConnector {
         if (running.compareAndSet(false, true)) {
             log.info("TwitterV2SourceConnector starting up.");
             config = new TwitterV2SourceConnectorConfig(settingsMap);
+            if (rulesExecutor == null) {
+                ownRulesExecutor = newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("twitter-rules-%d")
+                                                                                     .setDaemon(true)
+                                                                                     .build());
+            }
         } else {
             log.warn("TwitterV2SourceConnector already running.");
         }
@@ -66,21 +132,159 @@ public class TwitterV2SourceConnector extends SourceConnector {
         return TwitterV2SourceTask.class;
     }
 
+    /**
+     * Packs the keywords into rule groups, shares the groups out across the tasks, and brings the active rules of each
+     * task's app in line with its groups.  The keywords are not part of the task settings, so when only they change the
+     * task settings stay the same, and Kafka Connect leaves the tasks, and their streams, running while the streams
+     * pick up the new rules.
+     *
+     * <p>The task settings only depend on the configuration, so they are returned straight away, while the rules are
+     * maintained on a thread of the connector.  The calls to the Twitter API may wait for the rate limit, and must not
+     * hold up the herder thread, which is shared by all the connectors of the worker.
+     */
     @Override
     public List<Map<String, String>> taskConfigs(final int maxTasks) {
         if (running.get() && config != null) {
-            checkArgument(maxTasks == 1, "MaxTasks must be 1.");
+            checkArgument(maxTasks >= 1, "MaxTasks must be at least 1.");
+
+            final List<RuleGroup> ruleGroups = RuleCompiler.pack(config.getFilterKeywords(),
+                                                                 config.getRuleGroupSize(),
+                                                                 config.getRuleMaxLength());
+            final List<Password> bearerTokens = config.getShardBearerTokens();
+            final int shards = Math.min(maxTasks, Math.min(ruleGroups.size(), bearerTokens.size()));
+            if (shards < maxTasks) {
+                log.info("Starting {} tasks instead of {}, one per bearer token with at least one rule group.",
+                         shards,
+                         maxTasks);
+            }
+
+            final List<List<RuleGroup>> shardGroups = RuleGroupBalancer.balance(ruleGroups, shards, KEYWORD_COUNT);
+            shardGroups.forEach(groups -> RuleCompiler.checkRuleCount(groups, config.getRuleMaxCount()));
 
-            final Map<String, String> taskSettings = config.originalsStrings();
-            return List.of(taskSettings);
+            final TwitterV2SourceConnectorConfig rulesConfig = config;
+            final long generation = rulesGeneration.incrementAndGet();
+            Optional.ofNullable(rulesExecutor)
+                    .orElse(ownRulesExecutor)
+                    .execute(() -> maintainRules(rulesConfig, generation, ruleGroups, shardGroups, bearerTokens));
+            return IntStream.range(0, shards)
+                            .mapToObj(shard -> createTaskSettings(shard, bearerTokens.get(shard)))
+                            .collect(toList());
         } else {
             throw new IllegalStateException("The connector is not running.");
         }
     }
 
+    /**
+     * Rebalance the rule groups by volume, if configured, and reconcile the rules of every app.  On failure, asks to be
+     * reconfigured after a while, which tries again.
+     */
+    private void maintainRules(final TwitterV2SourceConnectorConfig rulesConfig,
+                               final long generation,
+                               final List<RuleGroup> ruleGroups,
+                               final List<List<RuleGroup>> shardGroups,
+                               final List<Password> bearerTokens) {
+        if (generation != rulesGeneration.get()) {
+            log.debug("Skipping a superseded update of the rules.");
+            return;
+        }
+        try {
+            final List<List<RuleGroup>> balancedGroups = balanceByVolume(rulesConfig,
+                                                                         ruleGroups,
+                                                                         shardGroups,
+                                                                         bearerTokens);
+            // the apps of any spare bearer tokens are left without rules
+            IntStream.range(0, bearerTokens.size())
+                     .forEach(shard -> reconcileRules(rulesConfig,
+                                                      shard,
+                                                      shard < balancedGroups.size()
+                                                      ? balancedGroups.get(shard)
+                                                      : List.of(),
+                                                      bearerTokens.get(shard)));
+        } catch (final RuntimeException e) {
+            log.error("Could not update the rules, trying again in {} ms.", rulesRetryDelayMs, e);
+            try {
+                Thread.sleep(rulesRetryDelayMs);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread()
+                      .interrupt();
+                return;
+            }
+            if (generation == rulesGeneration.get()) {
+                context.requestTaskReconfiguration();
+            }
+        }
+    }
+
+    private static void reconcileRules(final TwitterV2SourceConnectorConfig rulesConfig,
+                                       final int shard,
+                                       final List<RuleGroup> ruleGroups,
+                                       final Password bearerToken) {
+        log.info("Task {} streams rule groups {}.", shard, ruleGroups);
+        try (TwitterRuleService ruleService = TwitterRuleService.builder()
+                                                                .bearerToken(bearerToken)
+                                                                .baseUrl(rulesConfig.getBaseUrl())
+                                                                .retries(rulesConfig.getRetries())
+                                                                .ruleMaxCount(rulesConfig.getRuleMaxCount())
+                                                                .build()) {
+            if (ruleService.reconcileRuleGroups(ruleGroups)) {
+                log.info("Updated the rules of task {}, its stream picks them up without reconnecting.", shard);
+            }
+        }
+    }
+
+    /**
+     * Share the rule groups out by the tweets they matched in the last 7 days, if configured.  Falls back on the given
+     * groups, shared out by the number of keywords, if the volumes are not needed or cannot be looked up, or if the
+     * balanced groups would exceed the rule count of an app.
+     */
+    private static List<List<RuleGroup>> balanceByVolume(final TwitterV2SourceConnectorConfig rulesConfig,
+                                                         final List<RuleGroup> ruleGroups,
+                                                         final List<List<RuleGroup>> shardGroups,
+                                                         final List<Password> bearerTokens) {
+        final int shards = shardGroups.size();
+        if (shards == 1 || !rulesConfig.isShardBalanceByVolume()) {
+            return shardGroups;
+        }
+
+        final Map<RuleGroup, Long> volumes;
+        try (TweetVolumeService volumeService = TweetVolumeService.builder()
+                                                                  .bearerToken(bearerTokens.get(0))
+                                                                  .baseUrl(rulesConfig.getBaseUrl())
+                                                                  .retries(rulesConfig.getRetries())
+                                                                  .build()) {
+            volumes = ruleGroups.stream()
+                                .collect(toMap(identity(), volumeService::countRecent));
+        } catch (final RuntimeException e) {
+            log.warn("Could not look up the volume of the rule groups, balancing by number of keywords instead.", e);
+            return shardGroups;
+        }
+        final List<List<RuleGroup>> balancedGroups = RuleGroupBalancer.balance(ruleGroups, shards, volumes::get);
+        if (balancedGroups.stream()
+                          .anyMatch(groups -> groups.size() > rulesConfig.getRuleMaxCount())) {
+            log.warn("Balancing by volume would exceed the maximum number of rules, balancing by number of keywords "
+                     + "instead.");
+            return shardGroups;
+        }
+        return balancedGroups;
+    }
+
+    private Map<String, String> createTaskSettings(final int shard, final Password bearerToken) {
+        final Map<String, String> taskSettings = new HashMap<>(config.originalsStrings());
+        taskSettings.keySet()
+                    .removeAll(RULE_SETTINGS);
+        taskSettings.put(TWITTER_BEARER_TOKEN_CONF, bearerToken.value());
+        taskSettings.put(TASK_SHARD_CONF, Integer.toString(shard));
+        return taskSettings;
+    }
+
     @Override
     public void stop() {
         running.set(false);
+        rulesGeneration.incrementAndGet();
+        if (ownRulesExecutor != null) {
+            ownRulesExecutor.shutdownNow();
+            ownRulesExecutor = null;
+        }
         log.info("TwitterV2SourceConnector stopping.");
     }
 
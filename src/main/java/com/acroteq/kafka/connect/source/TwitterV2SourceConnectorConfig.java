@@ -30,11 +30,18 @@ import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.kafka.common.config.ConfigDef.Importance.HIGH;
 import static org.apache.kafka.common.config.ConfigDef.Importance.LOW;
+import static org.apache.kafka.common.config.ConfigDef.NO_DEFAULT_VALUE;
 import static org.apache.kafka.common.config.ConfigDef.Range.between;
+import static org.apache.kafka.common.config.ConfigDef.Type.BOOLEAN;
+import static org.apache.kafka.common.config.ConfigDef.Type.DOUBLE;
 import static org.apache.kafka.common.config.ConfigDef.Type.INT;
+import static org.apache.kafka.common.config.ConfigDef.Type.LONG;
 import static org.apache.kafka.common.config.ConfigDef.Type.PASSWORD;
 import static org.apache.kafka.common.config.ConfigDef.Type.STRING;
 
+import com.acroteq.kafka.connect.source.util.SpillJournal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -49,7 +56,9 @@ import org.apache.kafka.common.config.ConfigDef.CompositeValidator;
 import org.apache.kafka.common.config.ConfigDef.NonEmptyString;
 import org.apache.kafka.common.config.ConfigDef.NonNullValidator;
 import org.apache.kafka.common.config.ConfigDef.Range;
+import org.apache.kafka.common.config.ConfigDef.ValidString;
 import org.apache.kafka.common.config.ConfigDef.Validator;
+import org.apache.kafka.common.config.ConfigException;
 import org.apache.kafka.common.config.types.Password;
 
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
@@ -75,10 +84,163 @@ public class TwitterV2SourceConnectorConfig extends AbstractConfig {
           CompositeValidator.of(new NonNullValidator(), new NonEmptyString());
 
     public static final String TWITTER_RETRIES_CONF = "twitter.retries";
-    private static final String TWITTER_RETRIES_DOC = "The number of times to retry when the Twitter API call fails.";
+    private static final String TWITTER_RETRIES_DOC =
+          "The number of times to retry a Twitter API call rejected with HTTP 429, a server error or a network error.";
     public static final int TWITTER_RETRIES_DEFAULT = 10;
     public static final Range TWITTER_RETRIES_VALIDATOR = between(1, 50);
 
+    public static final String TWITTER_BASE_URL_CONF = "twitter.baseUrl";
+    private static final String TWITTER_BASE_URL_DOC =
+          "The base URL of the Twitter API, only changed to run against a stub of the API. Default "
+          + "https://api.twitter.com.";
+    public static final String TWITTER_BASE_URL_DEFAULT = "https://api.twitter.com";
+
+    public static final String TWITTER_STALL_TIMEOUT_MS_CONF = "twitter.stallTimeoutMs";
+    private static final String TWITTER_STALL_TIMEOUT_MS_DOC =
+          "Reconnect when nothing, not even a keep-alive, has been received on the tweet stream for this many ms. "
+          + "Twitter sends a keep-alive every 20 seconds. Default 30000 ms.";
+    public static final int TWITTER_STALL_TIMEOUT_MS_DEFAULT = 30000;
+    public static final Range TWITTER_STALL_TIMEOUT_MS_VALIDATOR = between(1000, 600000);
+
+    public static final String TWITTER_BACKFILL_ENABLED_CONF = "twitter.backfill.enabled";
+    private static final String TWITTER_BACKFILL_ENABLED_DOC =
+          "On start up, backfill the tweets missed since the last committed tweet using the recent search, which "
+          + "reaches back 7 days. Default false.";
+    public static final boolean TWITTER_BACKFILL_ENABLED_DEFAULT = false;
+
+    public static final String TWITTER_BACKFILL_MAX_TWEETS_CONF = "twitter.backfill.maxTweets";
+    private static final String TWITTER_BACKFILL_MAX_TWEETS_DOC =
+          "The maximum number of tweets to backfill on start up. Default 10000.";
+    public static final int TWITTER_BACKFILL_MAX_TWEETS_DEFAULT = 10000;
+    public static final Range TWITTER_BACKFILL_MAX_TWEETS_VALIDATOR = between(0, 1000000);
+
+    public static final String TWITTER_DEDUPE_ENABLED_CONF = "twitter.dedupe.enabled";
+    private static final String TWITTER_DEDUPE_ENABLED_DOC =
+          "Suppress tweets that were already received, e.g. after a reconnect or by the backfill. Default false.";
+    public static final boolean TWITTER_DEDUPE_ENABLED_DEFAULT = false;
+
+    public static final String TWITTER_DEDUPE_WINDOW_MS_CONF = "twitter.dedupe.windowMs";
+    private static final String TWITTER_DEDUPE_WINDOW_MS_DOC =
+          "How far back in ms, by creation time, duplicate tweets are suppressed. Default 600000 ms.";
+    public static final int TWITTER_DEDUPE_WINDOW_MS_DEFAULT = 600000;
+    public static final Range TWITTER_DEDUPE_WINDOW_MS_VALIDATOR = between(1000, 86400000);
+
+    public static final String TWITTER_DEDUPE_MAX_BYTES_CONF = "twitter.dedupe.maxBytes";
+    private static final String TWITTER_DEDUPE_MAX_BYTES_DOC =
+          "The memory used to remember the tweets in the dedupe window. More memory means fewer new tweets mistaken for "
+          + "duplicates. Default 4194304 bytes.";
+    public static final int TWITTER_DEDUPE_MAX_BYTES_DEFAULT = 4 * 1024 * 1024;
+    public static final Range TWITTER_DEDUPE_MAX_BYTES_VALIDATOR = between(8192, 1 << 30);
+
+    public static final String TWITTER_RULE_GROUP_SIZE_CONF = "twitter.rule.groupSize";
+    private static final String TWITTER_RULE_GROUP_SIZE_DOC =
+          "The maximum number of keywords in a rule. The keywords are packed into the fewest tagged rules that fit, and "
+          + "the rules are shared out across the tasks. 0 only limits the rules by their length. Default 0.";
+    public static final int TWITTER_RULE_GROUP_SIZE_DEFAULT = 0;
+    public static final Range TWITTER_RULE_GROUP_SIZE_VALIDATOR = between(0, 1000);
+
+    public static final String TWITTER_RULE_MAX_LENGTH_CONF = "twitter.rule.maxLength";
+    private static final String TWITTER_RULE_MAX_LENGTH_DOC =
+          "The maximum length of a rule allowed by the account, e.g. 512, or 1024 for academic research access. "
+          + "Default 512.";
+    public static final int TWITTER_RULE_MAX_LENGTH_DEFAULT = 512;
+    public static final Range TWITTER_RULE_MAX_LENGTH_VALIDATOR = between(16, 4096);
+
+    public static final String TWITTER_RULE_MAX_COUNT_CONF = "twitter.rule.maxCount";
+    private static final String TWITTER_RULE_MAX_COUNT_DOC =
+          "The maximum number of rules allowed by the account per app, e.g. 5 for essential, 25 for elevated, or 1000 "
+          + "for academic research access. Default 5.";
+    public static final int TWITTER_RULE_MAX_COUNT_DEFAULT = 5;
+    public static final Range TWITTER_RULE_MAX_COUNT_VALIDATOR = between(1, 1000);
+
+    public static final String TWITTER_SHARD_BEARER_TOKENS_CONF = "twitter.shard.bearerTokens";
+    private static final String TWITTER_SHARD_BEARER_TOKENS_DOC =
+          "Comma delimited list of bearer tokens, one per task, each of a separate Twitter app with its own filtered "
+          + "stream. The number of tasks is limited to the number of tokens. If empty, twitter.bearerToken is used by "
+          + "a single task.";
+
+    public static final String TWITTER_SHARD_BALANCE_BY_VOLUME_CONF = "twitter.shard.balanceByVolume";
+    private static final String TWITTER_SHARD_BALANCE_BY_VOLUME_DOC =
+          "Balance the rule groups across the tasks by the number of tweets each group matched in the last 7 days, "
+          + "instead of by the number of keywords. Default true.";
+    public static final boolean TWITTER_SHARD_BALANCE_BY_VOLUME_DEFAULT = true;
+
+    /** Set by the connector for each task: the index of the task's shard. */
+    public static final String TASK_SHARD_CONF = "twitter.task.shard";
+    /** Set by Connect on every connector config: the name of the connector. */
+    public static final String CONNECTOR_NAME_CONF = "name";
+
+    public static final String TWITTER_PARSER_CONF = "twitter.parser";
+    private static final String TWITTER_PARSER_DOC =
+          "How tweets are parsed: 'model' deserialises into the Twitter SDK model and converts that, 'streaming' reads "
+          + "the JSON straight into the Kafka Connect struct. Both produce the same records. 'raw' passes the JSON "
+          + "line through as the bytes of the record value, with only the tweet ID and the conversation ID read from "
+          + "it; pair it with the ByteArrayConverter. Default 'model'.";
+    public static final String TWITTER_PARSER_DEFAULT = TweetParser.MODEL.configValue();
+    public static final Validator TWITTER_PARSER_VALIDATOR = ValidString.in(TweetParser.configValues()
+                                                                                       .toArray(String[]::new));
+
+    public static final String TWITTER_PARSER_WORKERS_CONF = "twitter.parser.workers";
+    private static final String TWITTER_PARSER_WORKERS_DOC =
+          "The number of threads that parse and convert tweets, so that the thread reading the stream only frames "
+          + "lines. 0 parses on the stream reader thread. Default 0.";
+    public static final int TWITTER_PARSER_WORKERS_DEFAULT = 0;
+    public static final Range TWITTER_PARSER_WORKERS_VALIDATOR = between(0, TweetPipeline.MAX_WORKERS);
+
+    public static final String TWITTER_PARSER_ORDERING_CONF = "twitter.parser.ordering";
+    private static final String TWITTER_PARSER_ORDERING_DOC =
+          "The order kept when twitter.parser.workers is greater than 0: 'global' keeps the arrival order of all "
+          + "tweets, 'key' only keeps the order of tweets with the same key, i.e. the same conversation. "
+          + "Default 'global'.";
+    public static final String TWITTER_PARSER_ORDERING_DEFAULT = PipelineOrdering.GLOBAL.configValue();
+    public static final Validator TWITTER_PARSER_ORDERING_VALIDATOR =
+          ValidString.in(PipelineOrdering.configValues()
+                                         .toArray(String[]::new));
+
+    public static final String TWITTER_SCHEMA_CONF = "twitter.schema";
+    private static final String TWITTER_SCHEMA_DOC =
+          "The schema of the tweet records: 'standard' keeps the IDs as strings and the coordinates as decimals, "
+          + "'compact' stores the IDs as INT64, the coordinates as FLOAT64 and lang and reply_settings as INT32 codes. "
+          + "Not used by the 'raw' parser. Default 'standard'.";
+    public static final String TWITTER_SCHEMA_DEFAULT = TweetSchemaVariant.STANDARD.configValue();
+    public static final Validator TWITTER_SCHEMA_VALIDATOR = ValidString.in(TweetSchemaVariant.configValues()
+                                                                                              .toArray(String[]::new));
+
+    public static final String TWITTER_EXPANSIONS_CONF = "twitter.expansions";
+    private static final String TWITTER_EXPANSIONS_DOC =
+          "Comma delimited list of expansions, e.g. author_id, attachments.media_keys or geo.place_id. The users, "
+          + "media and places they include are added to each record. Default none.";
+    public static final String TWITTER_EXPANSIONS_DEFAULT = "";
+
+    public static final String TWITTER_USER_FIELDS_CONF = "twitter.userFields";
+    private static final String TWITTER_USER_FIELDS_DOC =
+          "Comma delimited list of the fields of the included users. Default none, i.e. id, name and username.";
+    public static final String TWITTER_USER_FIELDS_DEFAULT = "";
+
+    public static final String TWITTER_MEDIA_FIELDS_CONF = "twitter.mediaFields";
+    private static final String TWITTER_MEDIA_FIELDS_DOC =
+          "Comma delimited list of the fields of the included media. Default none, i.e. media_key and type.";
+    public static final String TWITTER_MEDIA_FIELDS_DEFAULT = "";
+
+    public static final String TWITTER_PLACE_FIELDS_CONF = "twitter.placeFields";
+    private static final String TWITTER_PLACE_FIELDS_DOC =
+          "Comma delimited list of the fields of the included places. Default none, i.e. id and full_name.";
+    public static final String TWITTER_PLACE_FIELDS_DEFAULT = "";
+
+    public static final String TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF = "twitter.includes.cache.maxEntries";
+    private static final String TWITTER_INCLUDES_CACHE_MAX_ENTRIES_DOC =
+          "The maximum number of users, and as many media and places, whose converted structs each task keeps to "
+          + "reuse for later tweets. The least recently used are evicted first. 0 disables the cache. Default 10000.";
+    public static final int TWITTER_INCLUDES_CACHE_MAX_ENTRIES_DEFAULT = 10000;
+    public static final Range TWITTER_INCLUDES_CACHE_MAX_ENTRIES_VALIDATOR = between(0, 1000000);
+
+    public static final String TWITTER_INCLUDES_CACHE_TTL_MS_CONF = "twitter.includes.cache.ttlMs";
+    private static final String TWITTER_INCLUDES_CACHE_TTL_MS_DOC =
+          "How long in ms a cached user, media or place is reused before it is converted again from a later tweet, "
+          + "which bounds how stale e.g. a follower count can be. Default 900000 ms.";
+    public static final int TWITTER_INCLUDES_CACHE_TTL_MS_DEFAULT = 900000;
+    public static final Range TWITTER_INCLUDES_CACHE_TTL_MS_VALIDATOR = between(1000, 86400000);
+
     public static final String KAFKA_TWEETS_TOPIC_CONF = "topic";
     private static final String KAFKA_TWEETS_TOPIC_DOC = "Kafka topic for output. Default 'twitter-tweets'.";
 
@@ -91,22 +253,132 @@ public class TwitterV2SourceConnectorConfig extends AbstractConfig {
     public static final int KAFKA_MAX_BATCH_SIZE_DEFAULT = 100;
     public static final Range KAFKA_MAX_BATCH_SIZE_VALIDATOR = between(1, 1000);
 
+    public static final String KAFKA_MAX_BATCH_BYTES_CONF = "kafka.batch.maxBytes";
+    private static final String KAFKA_MAX_BATCH_BYTES_DOC =
+          "The maximum estimated heap size in bytes of the records returned in a single batch. A single record larger "
+          + "than this is returned on its own. Default 4 MiB.";
+    public static final int KAFKA_MAX_BATCH_BYTES_DEFAULT = 4 * 1024 * 1024;
+    public static final Range KAFKA_MAX_BATCH_BYTES_VALIDATOR = between(1024, 1 << 30);
+
     public static final String KAFKA_MAX_BATCH_INTERVAL_MS_CONF = "kafka.batch.maxIntervalMs";
     private static final String KAFKA_MAX_BATCH_INTERVAL_MS_DOC =
           "The maximum interval in ms between batches, if the maximum batch size was not yet reached. Default 1000 ms.";
     public static final int KAFKA_MAX_BATCH_INTERVAL_MS_DEFAULT = 1000;
     public static final Range KAFKA_MAX_BATCH_INTERVAL_MS_VALIDATOR = between(1, 60000);
 
+    public static final String KAFKA_BATCH_ADAPTIVE_CONF = "kafka.batch.adaptive";
+    private static final String KAFKA_BATCH_ADAPTIVE_DOC =
+          "Adapt the batch size and linger time to the observed arrival rate and Kafka Connect commit latency, to hit "
+          + "kafka.batch.targetLatencyMs. kafka.batch.maxSize and kafka.batch.maxIntervalMs become upper bounds. "
+          + "Default false.";
+    public static final boolean KAFKA_BATCH_ADAPTIVE_DEFAULT = false;
+
+    public static final String KAFKA_BATCH_TARGET_LATENCY_MS_CONF = "kafka.batch.targetLatencyMs";
+    private static final String KAFKA_BATCH_TARGET_LATENCY_MS_DOC =
+          "The target latency in ms from a tweet being received to it being committed to Kafka, when "
+          + "kafka.batch.adaptive is enabled. Default 200 ms.";
+    public static final int KAFKA_BATCH_TARGET_LATENCY_MS_DEFAULT = 200;
+    public static final Range KAFKA_BATCH_TARGET_LATENCY_MS_VALIDATOR = between(1, 60000);
+
+    public static final String KAFKA_MIN_BATCH_SIZE_CONF = "kafka.batch.minSize";
+    private static final String KAFKA_MIN_BATCH_SIZE_DOC =
+          "The minimum number of records that make a full batch, when kafka.batch.adaptive is enabled. Default 1.";
+    public static final int KAFKA_MIN_BATCH_SIZE_DEFAULT = 1;
+    public static final Range KAFKA_MIN_BATCH_SIZE_VALIDATOR = between(1, 1000);
+
+    public static final String KAFKA_QUEUE_CAPACITY_CONF = "kafka.queue.capacity";
+    private static final String KAFKA_QUEUE_CAPACITY_DOC =
+          "The maximum number of records held in memory between the tweet stream and Kafka Connect. Rounded up to the "
+          + "next power of two. Default 16384.";
+    public static final int KAFKA_QUEUE_CAPACITY_DEFAULT = 16384;
+    public static final Range KAFKA_QUEUE_CAPACITY_VALIDATOR = between(1, 1 << 24);
+
+    public static final String KAFKA_QUEUE_MAX_BYTES_CONF = "kafka.queue.maxBytes";
+    private static final String KAFKA_QUEUE_MAX_BYTES_DOC =
+          "The maximum estimated heap size in bytes of the records held in memory between the tweet stream and Kafka "
+          + "Connect. The queue is full when either this or kafka.queue.capacity is reached. Default 128 MiB.";
+    public static final long KAFKA_QUEUE_MAX_BYTES_DEFAULT = 128L * 1024 * 1024;
+    public static final Range KAFKA_QUEUE_MAX_BYTES_VALIDATOR = Range.atLeast(1024);
+
+    public static final String KAFKA_QUEUE_OVERFLOW_POLICY_CONF = "kafka.queue.overflowPolicy";
+    private static final String KAFKA_QUEUE_OVERFLOW_POLICY_DOC =
+          "What to do with a new tweet when the queue is full: 'block' the stream reader until Kafka Connect catches up, "
+          + "'drop_oldest' to discard the oldest queued tweet, or 'spill' to hold it in an overflow tier that is drained "
+          + "in order. Default 'block'.";
+    public static final String KAFKA_QUEUE_OVERFLOW_POLICY_DEFAULT = QueueOverflowPolicy.BLOCK.configValue();
+    public static final Validator KAFKA_QUEUE_OVERFLOW_POLICY_VALIDATOR =
+          ValidString.in(QueueOverflowPolicy.configValues()
+                                            .toArray(String[]::new));
+
+    public static final String KAFKA_QUEUE_SPILL_DIR_CONF = "kafka.queue.spill.dir";
+    private static final String KAFKA_QUEUE_SPILL_DIR_DOC =
+          "The directory in which each task creates its spill journal, when kafka.queue.overflowPolicy is 'spill'. "
+          + "Defaults to the system temporary directory.";
+    public static final String KAFKA_QUEUE_SPILL_DIR_DEFAULT = "";
+
+    public static final String KAFKA_QUEUE_SPILL_MAX_BYTES_CONF = "kafka.queue.spill.maxBytes";
+    private static final String KAFKA_QUEUE_SPILL_MAX_BYTES_DOC =
+          "The disk budget of each task's spill journal, rounded down to whole segments. Tweets that do not fit are "
+          + "dropped. Default 1 GiB.";
+    public static final long KAFKA_QUEUE_SPILL_MAX_BYTES_DEFAULT = 1024L * 1024 * 1024;
+    public static final Range KAFKA_QUEUE_SPILL_MAX_BYTES_VALIDATOR = Range.atLeast(SpillJournal.MIN_SEGMENT_BYTES);
+
+    public static final String KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF = "kafka.queue.spill.segmentBytes";
+    private static final String KAFKA_QUEUE_SPILL_SEGMENT_BYTES_DOC =
+          "The size of each memory-mapped segment file of the spill journal. A segment is recycled once all its tweets "
+          + "have been committed to Kafka. Default 64 MiB.";
+    public static final int KAFKA_QUEUE_SPILL_SEGMENT_BYTES_DEFAULT = 64 * 1024 * 1024;
+    public static final Range KAFKA_QUEUE_SPILL_SEGMENT_BYTES_VALIDATOR =
+          between(SpillJournal.MIN_SEGMENT_BYTES, 1 << 30);
+
+    public static final String LOG_SUMMARY_INTERVAL_MS_CONF = "log.summaryIntervalMs";
+    private static final String LOG_SUMMARY_INTERVAL_MS_DOC =
+          "How often each task logs a summary of the records it polled, instead of a line per poll. Default 60000 ms.";
+    public static final int LOG_SUMMARY_INTERVAL_MS_DEFAULT = 60000;
+    public static final Range LOG_SUMMARY_INTERVAL_MS_VALIDATOR = between(1000, 86400000);
+
+    public static final String LOG_RAW_JSON_SAMPLE_RATIO_CONF = "log.rawJsonSampleRatio";
+    private static final String LOG_RAW_JSON_SAMPLE_RATIO_DOC =
+          "The share of the tweet stream lines logged as raw JSON at DEBUG level, between 0 for none and 1 for all. "
+          + "Default 0.001, i.e. one line in a thousand.";
+    public static final double LOG_RAW_JSON_SAMPLE_RATIO_DEFAULT = 0.001;
+    public static final Range LOG_RAW_JSON_SAMPLE_RATIO_VALIDATOR = between(0.0, 1.0);
+
     public TwitterV2SourceConnectorConfig(final Map<String, String> parsedConfig) {
-        super(createConfigDef(), parsedConfig);
+        this(createConfigDef(), parsedConfig);
         TWITTER_FILTER_KEYWORDS_VALIDATOR.ensureValid(TWITTER_FILTER_KEYWORDS_CONF,
                                                       getString(TWITTER_FILTER_KEYWORDS_CONF));
+    }
+
+    private TwitterV2SourceConnectorConfig(final ConfigDef configDef, final Map<String, String> parsedConfig) {
+        super(configDef, parsedConfig);
         TWITTER_TWEET_FIELDS_VALIDATOR.ensureValid(TWITTER_TWEET_FIELDS_CONF, getString(TWITTER_TWEET_FIELDS_CONF));
+        if (getMinBatchSize() > getMaxBatchSize()) {
+            throw new ConfigException(KAFKA_MIN_BATCH_SIZE_CONF,
+                                      getMinBatchSize(),
+                                      "Must not be greater than " + KAFKA_MAX_BATCH_SIZE_CONF);
+        }
+    }
+
+    /**
+     * The config of a task.  The connector maintains the filter rules, so the keywords are left out of the task
+     * settings, and changing them doesn't restart the tasks.
+     */
+    static TwitterV2SourceConnectorConfig forTask(final Map<String, String> parsedConfig) {
+        return new TwitterV2SourceConnectorConfig(createConfigDef(""), parsedConfig);
     }
 
     static ConfigDef createConfigDef() {
+        return createConfigDef(NO_DEFAULT_VALUE);
+    }
+
+    private static ConfigDef createConfigDef(final Object filterKeywordsDefault) {
         return new ConfigDef().define(TWITTER_BEARER_TOKEN_CONF, PASSWORD, HIGH, TWITTER_BEARER_TOKEN_DOC)
-                              .define(TWITTER_FILTER_KEYWORDS_CONF, STRING, HIGH, TWITTER_FILTER_KEYWORDS_DOC)
+                              .define(TWITTER_FILTER_KEYWORDS_CONF,
+                                      STRING,
+                                      filterKeywordsDefault,
+                                      HIGH,
+                                      TWITTER_FILTER_KEYWORDS_DOC)
                               .define(TWITTER_TWEET_FIELDS_CONF, STRING, HIGH, TWITTER_TWEET_FIELDS_DOC)
                               .define(TWITTER_RETRIES_CONF,
                                       INT,
@@ -114,6 +386,130 @@ public class TwitterV2SourceConnectorConfig extends AbstractConfig {
                                       TWITTER_RETRIES_VALIDATOR,
                                       LOW,
                                       TWITTER_RETRIES_DOC)
+                              .define(TWITTER_BASE_URL_CONF,
+                                      STRING,
+                                      TWITTER_BASE_URL_DEFAULT,
+                                      new NonEmptyString(),
+                                      LOW,
+                                      TWITTER_BASE_URL_DOC)
+                              .define(TWITTER_STALL_TIMEOUT_MS_CONF,
+                                      INT,
+                                      TWITTER_STALL_TIMEOUT_MS_DEFAULT,
+                                      TWITTER_STALL_TIMEOUT_MS_VALIDATOR,
+                                      LOW,
+                                      TWITTER_STALL_TIMEOUT_MS_DOC)
+                              .define(TWITTER_BACKFILL_ENABLED_CONF,
+                                      BOOLEAN,
+                                      TWITTER_BACKFILL_ENABLED_DEFAULT,
+                                      LOW,
+                                      TWITTER_BACKFILL_ENABLED_DOC)
+                              .define(TWITTER_BACKFILL_MAX_TWEETS_CONF,
+                                      INT,
+                                      TWITTER_BACKFILL_MAX_TWEETS_DEFAULT,
+                                      TWITTER_BACKFILL_MAX_TWEETS_VALIDATOR,
+                                      LOW,
+                                      TWITTER_BACKFILL_MAX_TWEETS_DOC)
+                              .define(TWITTER_DEDUPE_ENABLED_CONF,
+                                      BOOLEAN,
+                                      TWITTER_DEDUPE_ENABLED_DEFAULT,
+                                      LOW,
+                                      TWITTER_DEDUPE_ENABLED_DOC)
+                              .define(TWITTER_DEDUPE_WINDOW_MS_CONF,
+                                      INT,
+                                      TWITTER_DEDUPE_WINDOW_MS_DEFAULT,
+                                      TWITTER_DEDUPE_WINDOW_MS_VALIDATOR,
+                                      LOW,
+                                      TWITTER_DEDUPE_WINDOW_MS_DOC)
+                              .define(TWITTER_DEDUPE_MAX_BYTES_CONF,
+                                      INT,
+                                      TWITTER_DEDUPE_MAX_BYTES_DEFAULT,
+                                      TWITTER_DEDUPE_MAX_BYTES_VALIDATOR,
+                                      LOW,
+                                      TWITTER_DEDUPE_MAX_BYTES_DOC)
+                              .define(TWITTER_RULE_GROUP_SIZE_CONF,
+                                      INT,
+                                      TWITTER_RULE_GROUP_SIZE_DEFAULT,
+                                      TWITTER_RULE_GROUP_SIZE_VALIDATOR,
+                                      LOW,
+                                      TWITTER_RULE_GROUP_SIZE_DOC)
+                              .define(TWITTER_RULE_MAX_LENGTH_CONF,
+                                      INT,
+                                      TWITTER_RULE_MAX_LENGTH_DEFAULT,
+                                      TWITTER_RULE_MAX_LENGTH_VALIDATOR,
+                                      LOW,
+                                      TWITTER_RULE_MAX_LENGTH_DOC)
+                              .define(TWITTER_RULE_MAX_COUNT_CONF,
+                                      INT,
+                                      TWITTER_RULE_MAX_COUNT_DEFAULT,
+                                      TWITTER_RULE_MAX_COUNT_VALIDATOR,
+                                      LOW,
+                                      TWITTER_RULE_MAX_COUNT_DOC)
+                              .define(TWITTER_SHARD_BEARER_TOKENS_CONF,
+                                      PASSWORD,
+                                      null,
+                                      LOW,
+                                      TWITTER_SHARD_BEARER_TOKENS_DOC)
+                              .define(TWITTER_SHARD_BALANCE_BY_VOLUME_CONF,
+                                      BOOLEAN,
+                                      TWITTER_SHARD_BALANCE_BY_VOLUME_DEFAULT,
+                                      LOW,
+                                      TWITTER_SHARD_BALANCE_BY_VOLUME_DOC)
+                              .define(TWITTER_PARSER_CONF,
+                                      STRING,
+                                      TWITTER_PARSER_DEFAULT,
+                                      TWITTER_PARSER_VALIDATOR,
+                                      LOW,
+                                      TWITTER_PARSER_DOC)
+                              .define(TWITTER_PARSER_WORKERS_CONF,
+                                      INT,
+                                      TWITTER_PARSER_WORKERS_DEFAULT,
+                                      TWITTER_PARSER_WORKERS_VALIDATOR,
+                                      LOW,
+                                      TWITTER_PARSER_WORKERS_DOC)
+                              .define(TWITTER_PARSER_ORDERING_CONF,
+                                      STRING,
+                                      TWITTER_PARSER_ORDERING_DEFAULT,
+                                      TWITTER_PARSER_ORDERING_VALIDATOR,
+                                      LOW,
+                                      TWITTER_PARSER_ORDERING_DOC)
+                              .define(TWITTER_SCHEMA_CONF,
+                                      STRING,
+                                      TWITTER_SCHEMA_DEFAULT,
+                                      TWITTER_SCHEMA_VALIDATOR,
+                                      LOW,
+                                      TWITTER_SCHEMA_DOC)
+                              .define(TWITTER_EXPANSIONS_CONF,
+                                      STRING,
+                                      TWITTER_EXPANSIONS_DEFAULT,
+                                      LOW,
+                                      TWITTER_EXPANSIONS_DOC)
+                              .define(TWITTER_USER_FIELDS_CONF,
+                                      STRING,
+                                      TWITTER_USER_FIELDS_DEFAULT,
+                                      LOW,
+                                      TWITTER_USER_FIELDS_DOC)
+                              .define(TWITTER_MEDIA_FIELDS_CONF,
+                                      STRING,
+                                      TWITTER_MEDIA_FIELDS_DEFAULT,
+                                      LOW,
+                                      TWITTER_MEDIA_FIELDS_DOC)
+                              .define(TWITTER_PLACE_FIELDS_CONF,
+                                      STRING,
+                                      TWITTER_PLACE_FIELDS_DEFAULT,
+                                      LOW,
+                                      TWITTER_PLACE_FIELDS_DOC)
+                              .define(TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF,
+                                      INT,
+                                      TWITTER_INCLUDES_CACHE_MAX_ENTRIES_DEFAULT,
+                                      TWITTER_INCLUDES_CACHE_MAX_ENTRIES_VALIDATOR,
+                                      LOW,
+                                      TWITTER_INCLUDES_CACHE_MAX_ENTRIES_DOC)
+                              .define(TWITTER_INCLUDES_CACHE_TTL_MS_CONF,
+                                      INT,
+                                      TWITTER_INCLUDES_CACHE_TTL_MS_DEFAULT,
+                                      TWITTER_INCLUDES_CACHE_TTL_MS_VALIDATOR,
+                                      LOW,
+                                      TWITTER_INCLUDES_CACHE_TTL_MS_DOC)
                               .define(KAFKA_TWEETS_TOPIC_CONF,
                                       STRING,
                                       KAFKA_TWEETS_TOPIC_DEFAULT,
@@ -126,12 +522,82 @@ public class TwitterV2SourceConnectorConfig extends AbstractConfig {
                                       KAFKA_MAX_BATCH_SIZE_VALIDATOR,
                                       LOW,
                                       KAFKA_MAX_BATCH_SIZE_DOC)
+                              .define(KAFKA_MAX_BATCH_BYTES_CONF,
+                                      INT,
+                                      KAFKA_MAX_BATCH_BYTES_DEFAULT,
+                                      KAFKA_MAX_BATCH_BYTES_VALIDATOR,
+                                      LOW,
+                                      KAFKA_MAX_BATCH_BYTES_DOC)
                               .define(KAFKA_MAX_BATCH_INTERVAL_MS_CONF,
                                       INT,
                                       KAFKA_MAX_BATCH_INTERVAL_MS_DEFAULT,
                                       KAFKA_MAX_BATCH_INTERVAL_MS_VALIDATOR,
                                       LOW,
-                                      KAFKA_MAX_BATCH_INTERVAL_MS_DOC);
+                                      KAFKA_MAX_BATCH_INTERVAL_MS_DOC)
+                              .define(KAFKA_BATCH_ADAPTIVE_CONF,
+                                      BOOLEAN,
+                                      KAFKA_BATCH_ADAPTIVE_DEFAULT,
+                                      LOW,
+                                      KAFKA_BATCH_ADAPTIVE_DOC)
+                              .define(KAFKA_BATCH_TARGET_LATENCY_MS_CONF,
+                                      INT,
+                                      KAFKA_BATCH_TARGET_LATENCY_MS_DEFAULT,
+                                      KAFKA_BATCH_TARGET_LATENCY_MS_VALIDATOR,
+                                      LOW,
+                                      KAFKA_BATCH_TARGET_LATENCY_MS_DOC)
+                              .define(KAFKA_MIN_BATCH_SIZE_CONF,
+                                      INT,
+                                      KAFKA_MIN_BATCH_SIZE_DEFAULT,
+                                      KAFKA_MIN_BATCH_SIZE_VALIDATOR,
+                                      LOW,
+                                      KAFKA_MIN_BATCH_SIZE_DOC)
+                              .define(KAFKA_QUEUE_CAPACITY_CONF,
+                                      INT,
+                                      KAFKA_QUEUE_CAPACITY_DEFAULT,
+                                      KAFKA_QUEUE_CAPACITY_VALIDATOR,
+                                      LOW,
+                                      KAFKA_QUEUE_CAPACITY_DOC)
+                              .define(KAFKA_QUEUE_MAX_BYTES_CONF,
+                                      LONG,
+                                      KAFKA_QUEUE_MAX_BYTES_DEFAULT,
+                                      KAFKA_QUEUE_MAX_BYTES_VALIDATOR,
+                                      LOW,
+                                      KAFKA_QUEUE_MAX_BYTES_DOC)
+                              .define(KAFKA_QUEUE_OVERFLOW_POLICY_CONF,
+                                      STRING,
+                                      KAFKA_QUEUE_OVERFLOW_POLICY_DEFAULT,
+                                      KAFKA_QUEUE_OVERFLOW_POLICY_VALIDATOR,
+                                      LOW,
+                                      KAFKA_QUEUE_OVERFLOW_POLICY_DOC)
+                              .define(KAFKA_QUEUE_SPILL_DIR_CONF,
+                                      STRING,
+                                      KAFKA_QUEUE_SPILL_DIR_DEFAULT,
+                                      LOW,
+                                      KAFKA_QUEUE_SPILL_DIR_DOC)
+                              .define(KAFKA_QUEUE_SPILL_MAX_BYTES_CONF,
+                                      LONG,
+                                      KAFKA_QUEUE_SPILL_MAX_BYTES_DEFAULT,
+                                      KAFKA_QUEUE_SPILL_MAX_BYTES_VALIDATOR,
+                                      LOW,
+                                      KAFKA_QUEUE_SPILL_MAX_BYTES_DOC)
+                              .define(KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF,
+                                      INT,
+                                      KAFKA_QUEUE_SPILL_SEGMENT_BYTES_DEFAULT,
+                                      KAFKA_QUEUE_SPILL_SEGMENT_BYTES_VALIDATOR,
+                                      LOW,
+                                      KAFKA_QUEUE_SPILL_SEGMENT_BYTES_DOC)
+                              .define(LOG_SUMMARY_INTERVAL_MS_CONF,
+                                      INT,
+                                      LOG_SUMMARY_INTERVAL_MS_DEFAULT,
+                                      LOG_SUMMARY_INTERVAL_MS_VALIDATOR,
+                                      LOW,
+                                      LOG_SUMMARY_INTERVAL_MS_DOC)
+                              .define(LOG_RAW_JSON_SAMPLE_RATIO_CONF,
+                                      DOUBLE,
+                                      LOG_RAW_JSON_SAMPLE_RATIO_DEFAULT,
+                                      LOG_RAW_JSON_SAMPLE_RATIO_VALIDATOR,
+                                      LOW,
+                                      LOG_RAW_JSON_SAMPLE_RATIO_DOC);
     }
 
     public String getTopic() {
@@ -150,10 +616,80 @@ public class TwitterV2SourceConnectorConfig extends AbstractConfig {
         return getInt(KAFKA_MAX_BATCH_SIZE_CONF);
     }
 
+    public int getMaxBatchBytes() {
+        return getInt(KAFKA_MAX_BATCH_BYTES_CONF);
+    }
+
     public int getMaxBatchIntervalMs() {
         return getInt(KAFKA_MAX_BATCH_INTERVAL_MS_CONF);
     }
 
+    public boolean isAdaptiveBatching() {
+        return getBoolean(KAFKA_BATCH_ADAPTIVE_CONF);
+    }
+
+    public int getBatchTargetLatencyMs() {
+        return getInt(KAFKA_BATCH_TARGET_LATENCY_MS_CONF);
+    }
+
+    public int getMinBatchSize() {
+        return getInt(KAFKA_MIN_BATCH_SIZE_CONF);
+    }
+
+    public int getQueueCapacity() {
+        return getInt(KAFKA_QUEUE_CAPACITY_CONF);
+    }
+
+    public long getQueueMaxBytes() {
+        return getLong(KAFKA_QUEUE_MAX_BYTES_CONF);
+    }
+
+    public QueueOverflowPolicy getQueueOverflowPolicy() {
+        return QueueOverflowPolicy.fromConfigValue(getString(KAFKA_QUEUE_OVERFLOW_POLICY_CONF));
+    }
+
+    public Path getQueueSpillDir() {
+        final String spillDir = getString(KAFKA_QUEUE_SPILL_DIR_CONF);
+        return Paths.get(spillDir.isBlank() ? System.getProperty("java.io.tmpdir") : spillDir);
+    }
+
+    public long getQueueSpillMaxBytes() {
+        return getLong(KAFKA_QUEUE_SPILL_MAX_BYTES_CONF);
+    }
+
+    public int getQueueSpillSegmentBytes() {
+        return getInt(KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF);
+    }
+
+    public TweetParser getTweetParser() {
+        return TweetParser.fromConfigValue(getString(TWITTER_PARSER_CONF));
+    }
+
+    public int getParserWorkers() {
+        return getInt(TWITTER_PARSER_WORKERS_CONF);
+    }
+
+    public PipelineOrdering getPipelineOrdering() {
+        return PipelineOrdering.fromConfigValue(getString(TWITTER_PARSER_ORDERING_CONF));
+    }
+
+    public TweetSchemaVariant getTweetSchemaVariant() {
+        return TweetSchemaVariant.fromConfigValue(getString(TWITTER_SCHEMA_CONF));
+    }
+
+    /** True if expansions are configured, so that the records have the users, media and places they include. */
+    public boolean isIncludesEnabled() {
+        return !getString(TWITTER_EXPANSIONS_CONF).isBlank();
+    }
+
+    public int getIncludesCacheMaxEntries() {
+        return getInt(TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF);
+    }
+
+    public int getIncludesCacheTtlMs() {
+        return getInt(TWITTER_INCLUDES_CACHE_TTL_MS_CONF);
+    }
+
     Password getBearerToken() {
         return getPassword(TWITTER_BEARER_TOKEN_CONF);
     }
@@ -162,6 +698,72 @@ public class TwitterV2SourceConnectorConfig extends AbstractConfig {
         return getInt(TWITTER_RETRIES_CONF);
     }
 
+    String getBaseUrl() {
+        return getString(TWITTER_BASE_URL_CONF);
+    }
+
+    int getLogSummaryIntervalMs() {
+        return getInt(LOG_SUMMARY_INTERVAL_MS_CONF);
+    }
+
+    double getLogRawJsonSampleRatio() {
+        return getDouble(LOG_RAW_JSON_SAMPLE_RATIO_CONF);
+    }
+
+    int getStallTimeoutMs() {
+        return getInt(TWITTER_STALL_TIMEOUT_MS_CONF);
+    }
+
+    boolean isBackfillEnabled() {
+        return getBoolean(TWITTER_BACKFILL_ENABLED_CONF);
+    }
+
+    int getBackfillMaxTweets() {
+        return getInt(TWITTER_BACKFILL_MAX_TWEETS_CONF);
+    }
+
+    boolean isDedupeEnabled() {
+        return getBoolean(TWITTER_DEDUPE_ENABLED_CONF);
+    }
+
+    int getDedupeWindowMs() {
+        return getInt(TWITTER_DEDUPE_WINDOW_MS_CONF);
+    }
+
+    int getDedupeMaxBytes() {
+        return getInt(TWITTER_DEDUPE_MAX_BYTES_CONF);
+    }
+
+    int getRuleGroupSize() {
+        return getInt(TWITTER_RULE_GROUP_SIZE_CONF);
+    }
+
+    int getRuleMaxLength() {
+        return getInt(TWITTER_RULE_MAX_LENGTH_CONF);
+    }
+
+    int getRuleMaxCount() {
+        return getInt(TWITTER_RULE_MAX_COUNT_CONF);
+    }
+
+    /** The bearer token of each shard; the single bearer token if no shard tokens are configured. */
+    List<Password> getShardBearerTokens() {
+        final List<Password> tokens = Optional.ofNullable(getPassword(TWITTER_SHARD_BEARER_TOKENS_CONF))
+                                              .map(Password::value)
+                                              .map(s -> s.split(","))
+                                              .stream()
+                                              .flatMap(Stream::of)
+                                              .map(String::trim)
+                                              .filter(s -> !s.isEmpty())
+                                              .map(Password::new)
+                                              .collect(toList());
+        return tokens.isEmpty() ? List.of(getBearerToken()) : tokens;
+    }
+
+    boolean isShardBalanceByVolume() {
+        return getBoolean(TWITTER_SHARD_BALANCE_BY_VOLUME_CONF);
+    }
+
     @SuppressWarnings("SameParameterValue")
     private List<String> getListOfString(@NonNull final String key) {
         return splitToStream(key).collect(toList());
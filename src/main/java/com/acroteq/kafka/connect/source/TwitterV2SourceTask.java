@@ -26,32 +26,74 @@
  */
 package com.acroteq.kafka.connect.source;
 
-import static com.acroteq.kafka.connect.source.converter.TweetConverter.TWEET_SCHEMA;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.CONNECTOR_NAME_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TASK_SHARD_CONF;
+import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_CONVERSATION_ID;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.emptyMap;
+import static java.util.stream.Collectors.toList;
+import static org.apache.kafka.connect.data.Schema.BYTES_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT64_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
 
+import com.acroteq.kafka.connect.source.converter.IncludesCache;
 import com.acroteq.kafka.connect.source.converter.TweetConverter;
+import com.acroteq.kafka.connect.source.converter.TweetLineScanner;
+import com.acroteq.kafka.connect.source.converter.TweetStructReader;
+import com.acroteq.kafka.connect.source.twitter.TweetJsonParser;
 import com.acroteq.kafka.connect.source.twitter.TwitterConfig;
 import com.acroteq.kafka.connect.source.twitter.TwitterStreamer;
+import com.acroteq.kafka.connect.source.twitter.TwitterStreamer.TwitterStreamerFactory;
 import com.acroteq.kafka.connect.source.util.Constants;
+import com.acroteq.kafka.connect.source.util.SpillJournal;
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
 import com.twitter.clientlib.model.Tweet;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.ConnectException;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.apache.kafka.connect.source.SourceTask;
+import org.jetbrains.annotations.Nullable;
 
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
 @Slf4j
 public class TwitterV2SourceTask extends SourceTask {
 
-    private TwitterStreamer twitterStreamer;
+    /** Guards against leaking entries if Connect never commits some batches, e.g. because the producer failed. */
+    private static final int MAX_PENDING_COMMITS = 1000;
+
+    private volatile TwitterStreamer twitterStreamer;
     private String topic;
+    private Map<String, String> sourcePartition;
+    private TweetSourceOffsets sourceOffsets;
+    private DuplicateTweetFilter duplicateTweetFilter;
     private SourceRecordQueue sourceRecordQueue;
-    private final TweetConverter tweetConverter = new TweetConverter();
+    private TweetPipeline tweetPipeline;
+    private TweetConverter tweetConverter;
+    private IncludesCache includesCache;
+    private boolean keyed;
+    private Schema keySchema;
+    private TaskMetrics taskMetrics;
+    private PollSummaryLog pollSummaryLog;
+    private boolean spilling;
+    private Function<ByteBuffer, SourceRecord> backfillRawParser;
+
+    /** The last record of each polled batch, by identity, mapped to the nanoTime when poll() returned it. */
+    // the live stream and the backfill both produce records, but the queue takes one producer at a time
+    private final Object producerLock = new Object();
+    private final CommitLatencyTracker commitLatencyTracker = new CommitLatencyTracker(MAX_PENDING_COMMITS);
+    private boolean trackCommitLatency;
 
     public TwitterV2SourceTask() {
         log.info("TwitterV2SourceTask CONSTRUCTOR.");
@@ -66,33 +108,162 @@ public class TwitterV2SourceTask extends SourceTask {
     public void start(final Map<String, String> settingsMap) {
         log.info("TwitterV2SourceTask starting up.");
 
-        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        final TwitterV2SourceConnectorConfig config = TwitterV2SourceConnectorConfig.forTask(settingsMap);
 
         topic = config.getTopic();
-        final int maxBatchSize = config.getMaxBatchSize();
-        final int maxBatchIntervalMs = config.getMaxBatchIntervalMs();
-        sourceRecordQueue = new SourceRecordQueue(maxBatchSize, maxBatchIntervalMs);
+        final boolean compact = config.getTweetSchemaVariant() == TweetSchemaVariant.COMPACT;
+        // shared by the parser workers, so that an author is converted once for all of them
+        includesCache = config.isIncludesEnabled()
+                        ? new IncludesCache(config.getIncludesCacheMaxEntries(), config.getIncludesCacheTtlMs())
+                        : null;
+        tweetConverter = new TweetConverter(config.getTweetFields(), compact, includesCache);
+        keyed = tweetConverter.getSchema()
+                              .field(SERIALIZED_NAME_CONVERSATION_ID) != null;
+        // the key is the conversation ID, as it is typed in the schema
+        keySchema = compact ? OPTIONAL_INT64_SCHEMA : STRING_SCHEMA;
+        final TweetParser tweetParser = config.getTweetParser();
+        if (tweetParser == TweetParser.RAW) {
+            log.info("Tweets passed through as the raw JSON lines of the stream.");
+            backfillRawParser = createRawParser();
+        } else {
+            log.info("Tweet schema projected onto the fields {}.", tweetConverter.getSchema()
+                                                                                .fields()
+                                                                                .stream()
+                                                                                .map(Field::name)
+                                                                                .collect(toList()));
+        }
+        final Supplier<Function<ByteBuffer, SourceRecord>> parserFactory = parserFactory(tweetParser);
+        spilling = config.getQueueOverflowPolicy() == QueueOverflowPolicy.SPILL;
+        sourceRecordQueue = SourceRecordQueue.builder()
+                                             .config(config)
+                                             .overflowTier(spilling ? createSpillTier(config, parserFactory) : null)
+                                             .build();
+        trackCommitLatency = config.isAdaptiveBatching();
+        pollSummaryLog = new PollSummaryLog(config.getLogSummaryIntervalMs(), sourceRecordQueue, System.nanoTime());
+
+        duplicateTweetFilter = config.isDedupeEnabled()
+                               ? new DuplicateTweetFilter(config.getDedupeWindowMs(), config.getDedupeMaxBytes())
+                               : null;
+
+        final boolean backfill = config.isBackfillEnabled();
+        final int shard = Optional.ofNullable(settingsMap.get(TASK_SHARD_CONF))
+                                  .map(Integer::parseInt)
+                                  .orElse(0);
+        sourcePartition = TweetSourceOffsets.sourcePartition(shard);
+        final Map<String, Object> restoredOffset = context.offsetStorageReader()
+                                                          .offset(sourcePartition);
+        sourceOffsets = new TweetSourceOffsets(restoredOffset,
+                                               () -> backfill && (twitterStreamer == null
+                                                                  || twitterStreamer.isBackfillPending()));
+
+        taskMetrics = TaskMetrics.builder()
+                                 .connector(settingsMap.getOrDefault(CONNECTOR_NAME_CONF, "twitter"))
+                                 .task(shard)
+                                 .maxBatchSize(config.getMaxBatchSize())
+                                 .queue(sourceRecordQueue)
+                                 .streamer(() -> twitterStreamer)
+                                 .createdAtMs(TwitterV2SourceTask::createdAtMs)
+                                 .build();
+
+        tweetPipeline = TweetPipeline.builder()
+                                     .config(config)
+                                     .parserFactory(() -> taskMetrics.instrument(parserFactory.get()))
+                                     .sink(this::queueLiveRecord)
+                                     .build();
 
         final TwitterConfig twitterConfig = TwitterConfig.fromSettingsMap(settingsMap);
-        twitterStreamer = TwitterStreamer.factory()
-                                         .config(twitterConfig)
-                                         .consumer(this::tweetConsumer)
-                                         .start();
+        final TwitterStreamerFactory twitterStreamerFactory = TwitterStreamer.factory()
+                                                                             .config(twitterConfig)
+                                                                             .lineConsumer(tweetPipeline);
+        if (backfill && sourceOffsets.isRestored()) {
+            twitterStreamerFactory.backfill(sourceOffsets.getRestoredTweetId(),
+                                            sourceOffsets.getRestoredCreatedAt(),
+                                            this::queueBackfilledTweet);
+        } else if (backfill) {
+            log.info("No committed tweet found, nothing to backfill.");
+        }
+        twitterStreamer = twitterStreamerFactory.start();
 
         log.info("TwitterV2SourceTask running.");
     }
 
+    /** The journalled lines are parsed again by the poll thread, with a parser of its own. */
+    private static OverflowTier createSpillTier(final TwitterV2SourceConnectorConfig config,
+                                                final Supplier<Function<ByteBuffer, SourceRecord>> parserFactory) {
+        try {
+            return new JournalOverflowTier(new SpillJournal(config.getQueueSpillDir(),
+                                                            config.getQueueSpillMaxBytes(),
+                                                            config.getQueueSpillSegmentBytes()),
+                                           parserFactory.get());
+        } catch (final IOException e) {
+            throw new ConnectException("Could not create the spill journal in " + config.getQueueSpillDir(), e);
+        }
+    }
+
+    private void queueLiveRecord(final SourceRecord sourceRecord, final ByteBuffer json) {
+        synchronized (producerLock) {
+            if (firstSeen(sourceRecord)) {
+                sourceRecordQueue.add(sourceOffsets.stamp(sourceRecord), json);
+            }
+        }
+    }
+
+    /** Backfilled tweets of a raw task are passed through as the line the filtered stream would have sent. */
+    private void queueBackfilledTweet(final Tweet tweet) {
+        final ByteBuffer line = spilling || backfillRawParser != null ? streamLineOf(tweet) : null;
+        final SourceRecord sourceRecord = backfillRawParser != null
+                                          ? backfillRawParser.apply(line.duplicate())
+                                          : convertTweet(tweet);
+        synchronized (producerLock) {
+            final SourceRecord stamped = firstSeen(sourceRecord) ? sourceOffsets.stampBackfilled(sourceRecord) : null;
+            if (stamped != null) {
+                sourceRecordQueue.add(stamped, spilling ? line : null);
+            }
+        }
+    }
+
+    /** The line the filtered stream would have sent for a backfilled tweet, so that it can be spilled. */
+    private static ByteBuffer streamLineOf(final Tweet tweet) {
+        return UTF_8.encode(JSON.getGson()
+                                .toJson(new FilteredStreamingTweetResponse().data(tweet)));
+    }
+
+    private boolean firstSeen(final SourceRecord sourceRecord) {
+        final long tweetId = TweetSourceOffsets.tweetIdOf(sourceRecord);
+        return duplicateTweetFilter == null
+               || tweetId == TweetSourceOffsets.NO_TWEET_ID
+               || duplicateTweetFilter.firstSeen(tweetId);
+    }
+
     @Override
     public List<SourceRecord> poll() {
         final List<SourceRecord> sourceRecords = Optional.ofNullable(sourceRecordQueue)
                                                          .map(SourceRecordQueue::getBatch)
                                                          .orElse(emptyList());
 
-        log.info("TwitterV2SourceTask poll: returned {} records.", sourceRecords.size());
+        if (taskMetrics != null) {
+            taskMetrics.recordPoll(sourceRecords);
+            pollSummaryLog.record(sourceRecords.size(), System.nanoTime());
+        }
+
+        if (trackCommitLatency && !sourceRecords.isEmpty()) {
+            commitLatencyTracker.polled(sourceRecords.get(sourceRecords.size() - 1), System.nanoTime());
+        }
 
         return sourceRecords;
     }
 
+    @Override
+    public void commitRecord(final SourceRecord sourceRecord, final RecordMetadata metadata) {
+        sourceRecordQueue.commit(sourceRecord);
+        if (trackCommitLatency) {
+            final long commitLatencyNanos = commitLatencyTracker.committed(sourceRecord, System.nanoTime());
+            if (commitLatencyNanos != CommitLatencyTracker.NOT_SAMPLED) {
+                sourceRecordQueue.recordCommitLatency(commitLatencyNanos);
+            }
+        }
+    }
+
     @Override
     public void stop() {
         log.info("TwitterV2SourceTask stopping.");
@@ -100,26 +271,105 @@ public class TwitterV2SourceTask extends SourceTask {
         Optional.ofNullable(twitterStreamer)
                 .filter(TwitterStreamer::isRunning)
                 .ifPresent(TwitterStreamer::stop);
+        Optional.ofNullable(tweetPipeline)
+                .ifPresent(TweetPipeline::close);
+        Optional.ofNullable(duplicateTweetFilter)
+                .ifPresent(f -> log.info("Suppressed {} duplicates of {} tweets, {} too old to check.  Estimated false "
+                                         + "positive rate {}.",
+                                         f.getDuplicateCount(),
+                                         f.getCheckedCount(),
+                                         f.getOutOfWindowCount(),
+                                         f.getFalsePositiveRate()));
+        Optional.ofNullable(includesCache)
+                .ifPresent(c -> log.info("Found {} included users, media and places in the cache, converted {}.",
+                                         c.getHitCount(),
+                                         c.getMissCount()));
+        Optional.ofNullable(taskMetrics)
+                .ifPresent(TaskMetrics::close);
+        Optional.ofNullable(sourceRecordQueue)
+                .ifPresent(SourceRecordQueue::close);
 
         log.info("TwitterV2SourceTask stopped.");
     }
 
-    private void tweetConsumer(final Tweet tweet) {
-        log.info("TwitterV2SourceTask tweet consumer.");
+    private Supplier<Function<ByteBuffer, SourceRecord>> parserFactory(final TweetParser tweetParser) {
+        switch (tweetParser) {
+            case STREAMING:
+                return this::createStreamingParser;
+            case RAW:
+                return this::createRawParser;
+            case MODEL:
+            default:
+                return this::createModelParser;
+        }
+    }
 
-        final Struct tweetStruct = tweetConverter.convert(tweet);
+    /** Called once per pipeline worker, as the parser must not be shared between threads. */
+    private Function<ByteBuffer, SourceRecord> createModelParser() {
+        final TweetJsonParser tweetJsonParser = new TweetJsonParser();
+        return line -> Optional.of(tweetJsonParser.parseResponse(line))
+                               .filter(response -> response.getData() != null)
+                               .map(response -> tweetConverter.convert(response.getData(), response.getIncludes()))
+                               .map(this::createSourceRecord)
+                               .orElse(null);
+    }
 
-        final Map<String, ?> sourcePartition = emptyMap();
-        final Map<String, ?> sourceOffset = emptyMap();
+    /** Called once per pipeline worker, as the reader must not be shared between threads. */
+    private Function<ByteBuffer, SourceRecord> createStreamingParser() {
+        final TweetStructReader tweetStructReader = new TweetStructReader(tweetConverter.getSchema(), includesCache);
+        return line -> Optional.ofNullable(tweetStructReader.read(line))
+                               .map(this::createSourceRecord)
+                               .orElse(null);
+    }
 
-        final SourceRecord sourceRecord = new SourceRecord(sourcePartition,
-                                                           sourceOffset,
-                                                           topic,
-                                                           STRING_SCHEMA,
-                                                           tweet.getConversationId(),
-                                                           TWEET_SCHEMA,
-                                                           tweetStruct);
+    /** Called once per pipeline worker, as the scanner must not be shared between threads. */
+    private Function<ByteBuffer, SourceRecord> createRawParser() {
+        final TweetLineScanner tweetLineScanner = new TweetLineScanner();
+        return line -> {
+            if (!tweetLineScanner.scan(line)) {
+                return null;
+            }
+            final byte[] json = new byte[line.remaining()];
+            line.get(json);
+            final Map<String, Object> offset = TweetSourceOffsets.offsetOf(tweetLineScanner.getTweetId());
+            return new SourceRecord(sourcePartition,
+                                    offset,
+                                    topic,
+                                    null,
+                                    STRING_SCHEMA,
+                                    tweetLineScanner.getConversationId(),
+                                    BYTES_SCHEMA,
+                                    json,
+                                    createdAtMsOf(offset));
+        };
+    }
+
+    /** The record's timestamp is the creation time of its own tweet, unlike its offset once it is stamped. */
+    private static long createdAtMs(final SourceRecord sourceRecord) {
+        final Long timestamp = sourceRecord.timestamp();
+        return timestamp == null ? 0 : timestamp;
+    }
+
+    /** The creation time in the offset of a record that was not stamped yet, or null if the tweet has no ID. */
+    @Nullable
+    private static Long createdAtMsOf(final Map<String, Object> offset) {
+        return (Long) offset.get(TweetSourceOffsets.CREATED_AT_KEY);
+    }
+
+    private SourceRecord convertTweet(final Tweet tweet) {
+        return createSourceRecord(tweetConverter.convert(tweet));
+    }
 
-        sourceRecordQueue.add(sourceRecord);
+    private SourceRecord createSourceRecord(final Struct tweetStruct) {
+        final Map<String, Object> offset = TweetSourceOffsets.offsetOf(tweetStruct);
+        return new SourceRecord(sourcePartition,
+                                offset,
+                                topic,
+                                null,
+                                keySchema,
+                                keyed ? tweetStruct.get(SERIALIZED_NAME_CONVERSATION_ID) : null,
+                                tweetStruct.schema(),
+                                tweetStruct,
+                                createdAtMsOf(offset));
     }
 }
@@ -33,7 +33,6 @@ import static org.apache.kafka.connect.data.SchemaBuilder.array;
 import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 
 import com.twitter.clientlib.model.TweetAttachments;
-import java.util.Optional;
 import javax.annotation.Nullable;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
@@ -56,8 +55,6 @@ class AttachmentsConverter {
 
     @Nullable
     Struct convertOptional(@Nullable final TweetAttachments attachments) {
-        return Optional.ofNullable(attachments)
-                       .map(this::convert)
-                       .orElse(null);
+        return attachments == null ? null : convert(attachments);
     }
 }
@@ -26,7 +26,6 @@
  */
 package com.acroteq.kafka.connect.source.converter;
 
-import static java.util.stream.Collectors.toList;
 import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
 import static org.apache.kafka.connect.data.SchemaBuilder.struct;
@@ -34,8 +33,8 @@ import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 import com.twitter.clientlib.model.ContextAnnotation;
 import com.twitter.clientlib.model.ContextAnnotationDomainFields;
 import com.twitter.clientlib.model.ContextAnnotationEntityFields;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -90,10 +89,13 @@ class ContextAnnotationsConverter {
 
     @Nullable
     List<Struct> convertOptional(final List<ContextAnnotation> contextAnnotations) {
-        return Optional.ofNullable(contextAnnotations)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (contextAnnotations == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(contextAnnotations.size());
+        for (final ContextAnnotation item : contextAnnotations) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 }
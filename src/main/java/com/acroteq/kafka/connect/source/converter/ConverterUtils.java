@@ -27,9 +27,11 @@
 package com.acroteq.kafka.connect.source.converter;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.Optional;
+import java.util.List;
 import lombok.NonNull;
+import org.apache.kafka.connect.errors.DataException;
 import org.jetbrains.annotations.Nullable;
 
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
@@ -40,13 +42,37 @@ final class ConverterUtils {
 
     @Nullable
     static Date convertOptionalDate(@Nullable final OffsetDateTime date) {
-        return Optional.ofNullable(date)
-                       .map(offset -> Date.from(offset.toInstant()))
-                       .orElse(null);
+        return date == null ? null : Date.from(date.toInstant());
     }
 
     @NonNull
     static Date convertDate(@NonNull final OffsetDateTime date) {
         return Date.from(date.toInstant());
     }
+
+    /** A snowflake ID of the compact schema. */
+    static long convertId(@NonNull final String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (final NumberFormatException e) {
+            throw new DataException("Not a numeric ID: " + id, e);
+        }
+    }
+
+    @Nullable
+    static Long convertOptionalId(@Nullable final String id) {
+        return id == null ? null : convertId(id);
+    }
+
+    @Nullable
+    static List<Long> convertOptionalIds(@Nullable final List<String> ids) {
+        if (ids == null) {
+            return null;
+        }
+        final List<Long> longs = new ArrayList<>(ids.size());
+        for (final String id : ids) {
+            longs.add(convertId(id));
+        }
+        return longs;
+    }
 }
@@ -36,7 +36,6 @@ import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 import static org.apache.kafka.connect.data.Timestamp.SCHEMA;
 
 import com.twitter.clientlib.model.TweetEditControls;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -61,8 +60,6 @@ class EditControlsConverter {
 
     @Nullable
     Struct convertOptional(final TweetEditControls editControls) {
-        return Optional.ofNullable(editControls)
-                       .map(this::convert)
-                       .orElse(null);
+        return editControls == null ? null : convert(editControls);
     }
 }
@@ -45,8 +45,8 @@ import static com.twitter.clientlib.model.UrlEntity.SERIALIZED_NAME_TITLE;
 import static com.twitter.clientlib.model.UrlEntity.SERIALIZED_NAME_UNWOUND_URL;
 import static com.twitter.clientlib.model.UrlImage.SERIALIZED_NAME_HEIGHT;
 import static com.twitter.clientlib.model.UrlImage.SERIALIZED_NAME_WIDTH;
-import static java.util.stream.Collectors.toList;
 import static org.apache.kafka.connect.data.Schema.INT32_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.INT64_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.OPTIONAL_FLOAT64_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT32_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
@@ -62,8 +62,8 @@ import com.twitter.clientlib.model.MentionEntity;
 import com.twitter.clientlib.model.UrlEntity;
 import com.twitter.clientlib.model.UrlImage;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -106,35 +106,59 @@ class EntitiesConverter {
                   .field(HashtagEntity.SERIALIZED_NAME_TAG, STRING_SCHEMA)
                   .build();
 
-    private static final Schema MENTION_ENTITY_SCHEMA =
-          struct().field(MentionEntity.SERIALIZED_NAME_START, INT32_SCHEMA)
-                  .field(MentionEntity.SERIALIZED_NAME_END, INT32_SCHEMA)
-                  .field(SERIALIZED_NAME_USERNAME, STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_ID, STRING_SCHEMA)
-                  .build();
+    private static final Schema MENTION_ENTITY_SCHEMA = mentionEntitySchema(STRING_SCHEMA);
+    private static final Schema COMPACT_MENTION_ENTITY_SCHEMA = mentionEntitySchema(INT64_SCHEMA);
     private static final Schema CASHTAG_ENTITY_SCHEMA =
           struct().field(CashtagEntity.SERIALIZED_NAME_START, INT32_SCHEMA)
                   .field(CashtagEntity.SERIALIZED_NAME_END, INT32_SCHEMA)
                   .field(CashtagEntity.SERIALIZED_NAME_TAG, STRING_SCHEMA)
                   .build();
 
-    static final Schema FULL_TEXT_ENTITIES_SCHEMA = struct().optional()
-                                                            .field(SERIALIZED_NAME_ANNOTATIONS,
-                                                                   array(ANNOTATIONS_SCHEMA).optional()
-                                                                                            .build())
-                                                            .field(SERIALIZED_NAME_URLS,
-                                                                   array(URL_ENTITY_SCHEMA).optional()
-                                                                                           .build())
-                                                            .field(SERIALIZED_NAME_HASHTAGS,
-                                                                   array(HASHTAG_ENTITY_SCHEMA).optional()
-                                                                                               .build())
-                                                            .field(SERIALIZED_NAME_MENTIONS,
-                                                                   array(MENTION_ENTITY_SCHEMA).optional()
-                                                                                               .build())
-                                                            .field(SERIALIZED_NAME_CASHTAGS,
-                                                                   array(CASHTAG_ENTITY_SCHEMA).optional()
-                                                                                               .build())
-                                                            .build();
+    static final Schema FULL_TEXT_ENTITIES_SCHEMA = fullTextEntitiesSchema(MENTION_ENTITY_SCHEMA);
+    static final Schema COMPACT_FULL_TEXT_ENTITIES_SCHEMA = fullTextEntitiesSchema(COMPACT_MENTION_ENTITY_SCHEMA);
+
+    private final boolean compact;
+    private final Schema mentionEntitySchema;
+    private final Schema fullTextEntitiesSchema;
+
+    EntitiesConverter() {
+        this(false);
+    }
+
+    /** @param compact true for the compact schema, with the IDs of mentions as INT64 */
+    EntitiesConverter(final boolean compact) {
+        this.compact = compact;
+        this.mentionEntitySchema = compact ? COMPACT_MENTION_ENTITY_SCHEMA : MENTION_ENTITY_SCHEMA;
+        this.fullTextEntitiesSchema = compact ? COMPACT_FULL_TEXT_ENTITIES_SCHEMA : FULL_TEXT_ENTITIES_SCHEMA;
+    }
+
+    private static Schema mentionEntitySchema(final Schema idSchema) {
+        return struct().field(MentionEntity.SERIALIZED_NAME_START, INT32_SCHEMA)
+                       .field(MentionEntity.SERIALIZED_NAME_END, INT32_SCHEMA)
+                       .field(SERIALIZED_NAME_USERNAME, STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_ID, idSchema)
+                       .build();
+    }
+
+    private static Schema fullTextEntitiesSchema(final Schema mentionEntitySchema) {
+        return struct().optional()
+                       .field(SERIALIZED_NAME_ANNOTATIONS,
+                              array(ANNOTATIONS_SCHEMA).optional()
+                                                       .build())
+                       .field(SERIALIZED_NAME_URLS,
+                              array(URL_ENTITY_SCHEMA).optional()
+                                                      .build())
+                       .field(SERIALIZED_NAME_HASHTAGS,
+                              array(HASHTAG_ENTITY_SCHEMA).optional()
+                                                          .build())
+                       .field(SERIALIZED_NAME_MENTIONS,
+                              array(mentionEntitySchema).optional()
+                                                        .build())
+                       .field(SERIALIZED_NAME_CASHTAGS,
+                              array(CASHTAG_ENTITY_SCHEMA).optional()
+                                                          .build())
+                       .build();
+    }
 
     private Struct convert(@NonNull final UrlImage input) {
         return new Struct(URL_IMAGE_SCHEMA).put(UrlImage.SERIALIZED_NAME_URL, convertOptionalUrl(input.getUrl()))
@@ -174,10 +198,11 @@ class EntitiesConverter {
     }
 
     private Struct convert(@NonNull final MentionEntity input) {
-        return new Struct(MENTION_ENTITY_SCHEMA).put(MentionEntity.SERIALIZED_NAME_START, input.getStart())
-                                                .put(MentionEntity.SERIALIZED_NAME_END, input.getEnd())
-                                                .put(SERIALIZED_NAME_USERNAME, input.getUsername())
-                                                .put(SERIALIZED_NAME_ID, input.getId());
+        return new Struct(mentionEntitySchema).put(MentionEntity.SERIALIZED_NAME_START, input.getStart())
+                                              .put(MentionEntity.SERIALIZED_NAME_END, input.getEnd())
+                                              .put(SERIALIZED_NAME_USERNAME, input.getUsername())
+                                              .put(SERIALIZED_NAME_ID,
+                                                   compact ? ConverterUtils.convertId(input.getId()) : input.getId());
     }
 
     private Struct convert(@NonNull final HashtagEntity input) {
@@ -187,82 +212,96 @@ class EntitiesConverter {
     }
 
     private Struct convert(@NonNull final FullTextEntities input) {
-        return new Struct(FULL_TEXT_ENTITIES_SCHEMA).put(SERIALIZED_NAME_ANNOTATIONS,
-                                                         convertOptionalAnnotations(input.getAnnotations()))
-                                                    .put(SERIALIZED_NAME_URLS, convertOptionalUrls(input.getUrls()))
-                                                    .put(SERIALIZED_NAME_HASHTAGS,
-                                                         convertOptionalHashtags(input.getHashtags()))
-                                                    .put(SERIALIZED_NAME_MENTIONS,
-                                                         convertOptionalMentions(input.getMentions()))
-                                                    .put(SERIALIZED_NAME_CASHTAGS,
-                                                         convertOptionalCashtags(input.getCashtags()));
+        return new Struct(fullTextEntitiesSchema).put(SERIALIZED_NAME_ANNOTATIONS,
+                                                      convertOptionalAnnotations(input.getAnnotations()))
+                                                 .put(SERIALIZED_NAME_URLS, convertOptionalUrls(input.getUrls()))
+                                                 .put(SERIALIZED_NAME_HASHTAGS,
+                                                      convertOptionalHashtags(input.getHashtags()))
+                                                 .put(SERIALIZED_NAME_MENTIONS,
+                                                      convertOptionalMentions(input.getMentions()))
+                                                 .put(SERIALIZED_NAME_CASHTAGS,
+                                                      convertOptionalCashtags(input.getCashtags()));
     }
 
     @Nullable
     Struct convertOptional(@Nullable final FullTextEntities entities) {
-        return Optional.ofNullable(entities)
-                       .map(this::convert)
-                       .orElse(null);
+        return entities == null ? null : convert(entities);
     }
 
     @Nullable
     private String convertOptionalUrl(@Nullable final URL url) {
-        return Optional.ofNullable(url)
-                       .map(URL::toString)
-                       .orElse(null);
+        return url == null ? null : url.toString();
     }
 
     @Nullable
     private List<Struct> convertOptionalAnnotations(@Nullable final List<FullTextEntitiesAnnotations> annotations) {
-        return Optional.ofNullable(annotations)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (annotations == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(annotations.size());
+        for (final FullTextEntitiesAnnotations item : annotations) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 
     @Nullable
     private List<Struct> convertOptionalUrlImages(@Nullable final List<UrlImage> images) {
-        return Optional.ofNullable(images)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (images == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(images.size());
+        for (final UrlImage item : images) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 
     @Nullable
     private List<Struct> convertOptionalUrls(@Nullable final List<UrlEntity> urls) {
-        return Optional.ofNullable(urls)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (urls == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(urls.size());
+        for (final UrlEntity item : urls) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 
     @Nullable
     private List<Struct> convertOptionalHashtags(@Nullable final List<HashtagEntity> hashtags) {
-        return Optional.ofNullable(hashtags)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (hashtags == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(hashtags.size());
+        for (final HashtagEntity item : hashtags) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 
     @Nullable
     private List<Struct> convertOptionalMentions(@Nullable final List<MentionEntity> mentions) {
-        return Optional.ofNullable(mentions)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (mentions == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(mentions.size());
+        for (final MentionEntity item : mentions) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 
     @Nullable
     private List<Struct> convertOptionalCashtags(@Nullable final List<CashtagEntity> cashtags) {
-        return Optional.ofNullable(cashtags)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (cashtags == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(cashtags.size());
+        for (final CashtagEntity item : cashtags) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 }
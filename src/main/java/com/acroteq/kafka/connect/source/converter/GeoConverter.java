@@ -29,8 +29,8 @@ package com.acroteq.kafka.connect.source.converter;
 import static com.twitter.clientlib.model.Point.SERIALIZED_NAME_TYPE;
 import static com.twitter.clientlib.model.TweetGeo.SERIALIZED_NAME_PLACE_ID;
 import static java.math.RoundingMode.UNNECESSARY;
-import static java.util.stream.Collectors.toList;
 import static org.apache.kafka.connect.data.Decimal.schema;
+import static org.apache.kafka.connect.data.Schema.FLOAT64_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
 import static org.apache.kafka.connect.data.SchemaBuilder.array;
@@ -38,7 +38,9 @@ import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 
 import com.twitter.clientlib.model.Point;
 import com.twitter.clientlib.model.TweetGeo;
-import java.util.Optional;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
@@ -49,42 +51,67 @@ class GeoConverter {
 
     private static final int POINTS_COORDINATES_SCALE = 8;
 
-    private static final Schema POINT_SCHEMA = struct().optional()
-                                                       .field(SERIALIZED_NAME_TYPE, STRING_SCHEMA)
-                                                       .field(Point.SERIALIZED_NAME_COORDINATES,
-                                                              array(schema(POINTS_COORDINATES_SCALE)))
-                                                       .build();
-    static final Schema GEO_SCHEMA = struct().optional()
-                                             .field(TweetGeo.SERIALIZED_NAME_COORDINATES, POINT_SCHEMA)
-                                             .field(SERIALIZED_NAME_PLACE_ID, OPTIONAL_STRING_SCHEMA)
-                                             .build();
+    private static final Schema POINT_SCHEMA = pointSchema(schema(POINTS_COORDINATES_SCALE));
+    private static final Schema COMPACT_POINT_SCHEMA = pointSchema(FLOAT64_SCHEMA);
+    static final Schema GEO_SCHEMA = geoSchema(POINT_SCHEMA);
+    static final Schema COMPACT_GEO_SCHEMA = geoSchema(COMPACT_POINT_SCHEMA);
+
+    private final boolean compact;
+    private final Schema pointSchema;
+    private final Schema geoSchema;
+
+    GeoConverter() {
+        this(false);
+    }
+
+    /** @param compact true for the compact schema, with the coordinates as FLOAT64 */
+    GeoConverter(final boolean compact) {
+        this.compact = compact;
+        this.pointSchema = compact ? COMPACT_POINT_SCHEMA : POINT_SCHEMA;
+        this.geoSchema = compact ? COMPACT_GEO_SCHEMA : GEO_SCHEMA;
+    }
+
+    private static Schema pointSchema(final Schema coordinateSchema) {
+        return struct().optional()
+                       .field(SERIALIZED_NAME_TYPE, STRING_SCHEMA)
+                       .field(Point.SERIALIZED_NAME_COORDINATES, array(coordinateSchema))
+                       .build();
+    }
+
+    private static Schema geoSchema(final Schema pointSchema) {
+        return struct().optional()
+                       .field(TweetGeo.SERIALIZED_NAME_COORDINATES, pointSchema)
+                       .field(SERIALIZED_NAME_PLACE_ID, OPTIONAL_STRING_SCHEMA)
+                       .build();
+    }
 
     private Struct convert(@NonNull final Point input) {
-        return new Struct(POINT_SCHEMA).put(SERIALIZED_NAME_TYPE,
-                                            input.getType()
-                                                 .getValue())
-                                       .put(Point.SERIALIZED_NAME_COORDINATES,
-                                            input.getCoordinates()
-                                                 .stream()
-                                                 .map(d -> d.setScale(POINTS_COORDINATES_SCALE, UNNECESSARY))
-                                                 .collect(toList()));
+        final List<Object> coordinates = new ArrayList<>(input.getCoordinates()
+                                                              .size());
+        for (final BigDecimal coordinate : input.getCoordinates()) {
+            if (compact) {
+                coordinates.add(coordinate.doubleValue());
+            } else {
+                coordinates.add(coordinate.setScale(POINTS_COORDINATES_SCALE, UNNECESSARY));
+            }
+        }
+        return new Struct(pointSchema).put(SERIALIZED_NAME_TYPE,
+                                           input.getType()
+                                                .getValue())
+                                      .put(Point.SERIALIZED_NAME_COORDINATES, coordinates);
     }
 
     private Struct convertOptional(@Nullable final Point input) {
-        return Optional.ofNullable(input)
-                       .map(this::convert)
-                       .orElse(null);
+        return input == null ? null : convert(input);
     }
 
     private Struct convert(@NonNull final TweetGeo input) {
-        return new Struct(GEO_SCHEMA).put(TweetGeo.SERIALIZED_NAME_COORDINATES, convertOptional(input.getCoordinates()))
-                                     .put(SERIALIZED_NAME_PLACE_ID, input.getPlaceId());
+        return new Struct(geoSchema).put(TweetGeo.SERIALIZED_NAME_COORDINATES, convertOptional(input.getCoordinates()))
+                                    .put(SERIALIZED_NAME_PLACE_ID, input.getPlaceId());
     }
 
     @org.jetbrains.annotations.Nullable
     Struct convertOptional(final TweetGeo geo) {
-        return Optional.ofNullable(geo)
-                       .map(this::convert)
-                       .orElse(null);
+        return geo == null ? null : convert(geo);
     }
 }
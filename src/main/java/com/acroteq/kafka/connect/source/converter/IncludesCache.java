@@ -0,0 +1,112 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_MEDIA;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_PLACES;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_USERS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Map;
+import org.apache.kafka.connect.data.Struct;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The users, media and places of the {@code includes} of recent responses, already converted, so that e.g. the author
+ * of many tweets is read and converted once rather than for every tweet.
+ *
+ * <p>Each of the includes has a cache of its own, keyed by the user ID, the media key or the place ID, and bounded to
+ * the maximum number of entries, evicting the least recently used first.  An entry expires the TTL after it was
+ * converted, so that a changed user, e.g. a new follower count, is picked up from a later tweet again.  A cached struct
+ * is shared by the records of every tweet that includes it, so it must not be modified.
+ *
+ * <p>The cache is thread safe, so that the parser workers of a task can share it.  The structs depend on the schema,
+ * so a cache must not be shared between the standard and the compact schema.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public class IncludesCache {
+
+    private final Map<String, Cache<String, Struct>> caches;
+
+    /**
+     * @param maxEntries the maximum number of users, and as many media and places; 0 caches nothing
+     * @param ttlMs      how long after it was converted an entry is reused
+     */
+    public IncludesCache(final int maxEntries, final long ttlMs) {
+        this(maxEntries, ttlMs, Ticker.systemTicker());
+    }
+
+    IncludesCache(final int maxEntries, final long ttlMs, final Ticker ticker) {
+        checkArgument(maxEntries >= 0, "maxEntries must not be negative");
+        checkArgument(ttlMs > 0, "ttlMs must be positive");
+        caches = Map.of(SERIALIZED_NAME_USERS,
+                        createCache(maxEntries, ttlMs, ticker),
+                        SERIALIZED_NAME_MEDIA,
+                        createCache(maxEntries, ttlMs, ticker),
+                        SERIALIZED_NAME_PLACES,
+                        createCache(maxEntries, ttlMs, ticker));
+    }
+
+    private static Cache<String, Struct> createCache(final int maxEntries, final long ttlMs, final Ticker ticker) {
+        return CacheBuilder.newBuilder()
+                           .maximumSize(maxEntries)
+                           .expireAfterWrite(ttlMs, MILLISECONDS)
+                           .ticker(ticker)
+                           .recordStats()
+                           .build();
+    }
+
+    /** @return the cache of the named includes, e.g. {@code users}, or null if they are not cached */
+    @Nullable
+    Cache<String, Struct> forIncludes(final String name) {
+        return caches.get(name);
+    }
+
+    /** The number of users, media and places that were found in the cache. */
+    public long getHitCount() {
+        return caches.values()
+                     .stream()
+                     .map(Cache::stats)
+                     .mapToLong(CacheStats::hitCount)
+                     .sum();
+    }
+
+    /** The number of users, media and places that were not in the cache, or had expired, so were converted. */
+    public long getMissCount() {
+        return caches.values()
+                     .stream()
+                     .map(Cache::stats)
+                     .mapToLong(CacheStats::missCount)
+                     .sum();
+    }
+}
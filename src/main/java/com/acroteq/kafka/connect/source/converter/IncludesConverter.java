@@ -0,0 +1,152 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.acroteq.kafka.connect.source.converter.MediaConverter.MEDIA_SCHEMA;
+import static com.acroteq.kafka.connect.source.converter.PlaceConverter.PLACE_SCHEMA;
+import static com.acroteq.kafka.connect.source.converter.UserConverter.COMPACT_USER_SCHEMA;
+import static com.acroteq.kafka.connect.source.converter.UserConverter.USER_SCHEMA;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_MEDIA;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_PLACES;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_USERS;
+import static org.apache.kafka.connect.data.SchemaBuilder.array;
+import static org.apache.kafka.connect.data.SchemaBuilder.struct;
+
+import com.google.common.cache.Cache;
+import com.twitter.clientlib.model.Expansions;
+import com.twitter.clientlib.model.Media;
+import com.twitter.clientlib.model.Place;
+import com.twitter.clientlib.model.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.Getter;
+import lombok.NonNull;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts the users, media and places that the expansions add to the {@code includes} of a response.  Other includes,
+ * e.g. referenced tweets and polls, are left out.  Each user, media and place is looked up in the
+ * {@link IncludesCache} first, and only converted if it is not cached.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class IncludesConverter {
+
+    static final Schema INCLUDES_SCHEMA = includesSchema(USER_SCHEMA);
+    static final Schema COMPACT_INCLUDES_SCHEMA = includesSchema(COMPACT_USER_SCHEMA);
+
+    /** The field that is the cache key of each of the includes. */
+    static final Map<String, String> KEY_FIELDS = Map.of(SERIALIZED_NAME_USERS,
+                                                         User.SERIALIZED_NAME_ID,
+                                                         SERIALIZED_NAME_MEDIA,
+                                                         Media.SERIALIZED_NAME_MEDIA_KEY,
+                                                         SERIALIZED_NAME_PLACES,
+                                                         Place.SERIALIZED_NAME_ID);
+
+    private final UserConverter userConverter;
+    private final MediaConverter mediaConverter = new MediaConverter();
+    private final PlaceConverter placeConverter = new PlaceConverter();
+    @Nullable private final IncludesCache includesCache;
+    @Getter private final Schema schema;
+
+    /**
+     * @param compact       true for the compact schema, with the user IDs as INT64
+     * @param includesCache the cache of converted includes, or null to convert them all
+     */
+    IncludesConverter(final boolean compact, @Nullable final IncludesCache includesCache) {
+        this.userConverter = new UserConverter(compact);
+        this.includesCache = includesCache;
+        this.schema = compact ? COMPACT_INCLUDES_SCHEMA : INCLUDES_SCHEMA;
+    }
+
+    private static Schema includesSchema(final Schema userSchema) {
+        return struct().optional()
+                       .field(SERIALIZED_NAME_USERS,
+                              array(userSchema).optional()
+                                               .build())
+                       .field(SERIALIZED_NAME_MEDIA,
+                              array(MEDIA_SCHEMA).optional()
+                                                 .build())
+                       .field(SERIALIZED_NAME_PLACES,
+                              array(PLACE_SCHEMA).optional()
+                                                 .build())
+                       .build();
+    }
+
+    private Struct convert(@NonNull final Expansions input) {
+        return new Struct(schema).put(SERIALIZED_NAME_USERS,
+                                      convertOptional(SERIALIZED_NAME_USERS,
+                                                      input.getUsers(),
+                                                      User::getId,
+                                                      userConverter::convert))
+                                 .put(SERIALIZED_NAME_MEDIA,
+                                      convertOptional(SERIALIZED_NAME_MEDIA,
+                                                      input.getMedia(),
+                                                      Media::getMediaKey,
+                                                      mediaConverter::convert))
+                                 .put(SERIALIZED_NAME_PLACES,
+                                      convertOptional(SERIALIZED_NAME_PLACES,
+                                                      input.getPlaces(),
+                                                      Place::getId,
+                                                      placeConverter::convert));
+    }
+
+    @Nullable
+    private <T> List<Struct> convertOptional(final String name,
+                                             @Nullable final List<T> items,
+                                             final Function<T, String> key,
+                                             final Function<T, Struct> converter) {
+        if (items == null) {
+            return null;
+        }
+        final Cache<String, Struct> cache = includesCache == null ? null : includesCache.forIncludes(name);
+        final List<Struct> structs = new ArrayList<>(items.size());
+        for (final T item : items) {
+            final String itemKey = key.apply(item);
+            if (cache == null || itemKey == null) {
+                structs.add(converter.apply(item));
+                continue;
+            }
+            Struct struct = cache.getIfPresent(itemKey);
+            if (struct == null) {
+                struct = converter.apply(item);
+                cache.put(itemKey, struct);
+            }
+            structs.add(struct);
+        }
+        return structs;
+    }
+
+    @Nullable
+    Struct convertOptional(@Nullable final Expansions includes) {
+        return includes == null ? null : convert(includes);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
+import org.apache.kafka.connect.errors.DataException;
+
+/**
+ * A logical type for an enumeration of strings stored as the INT32 index of the symbol, in the manner of Kafka
+ * Connect's {@code Decimal} and {@code Timestamp}.  The symbols are a parameter of the schema, so a consumer can map
+ * the codes back without knowing the enumeration, and Avro and Protobuf converters carry the parameter along.
+ *
+ * <p>Symbols are only ever appended to an enumeration, so the code of a symbol never changes.  A symbol that is not
+ * part of the enumeration is stored as {@link #UNKNOWN}.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public final class IntEnum {
+
+    public static final String LOGICAL_NAME = "com.acroteq.kafka.connect.source.IntEnum";
+    public static final String SYMBOLS_FIELD = "symbols";
+    public static final int UNKNOWN = -1;
+
+    private static final String SEPARATOR = ",";
+    private static final Map<String, Map<String, Integer>> CODES = new ConcurrentHashMap<>();
+
+    private IntEnum() {
+    }
+
+    /** A builder of an INT32 schema for the given symbols, coded in the order given. */
+    public static SchemaBuilder builder(final List<String> symbols) {
+        return SchemaBuilder.int32()
+                            .name(LOGICAL_NAME)
+                            .version(1)
+                            .parameter(SYMBOLS_FIELD, String.join(SEPARATOR, symbols));
+    }
+
+    /** The code of a symbol, {@link #UNKNOWN} if it is not part of the enumeration of the schema. */
+    public static int toCode(final Schema schema, final String symbol) {
+        return codes(schema).getOrDefault(symbol, UNKNOWN);
+    }
+
+    /** The symbol of a code, null if the code is {@link #UNKNOWN}. */
+    public static String toSymbol(final Schema schema, final int code) {
+        if (code == UNKNOWN) {
+            return null;
+        }
+        final String[] symbols = symbolsOf(schema).split(SEPARATOR);
+        if (code < 0 || code >= symbols.length) {
+            throw new DataException("Code " + code + " is not part of the enumeration " + schema.name());
+        }
+        return symbols[code];
+    }
+
+    private static Map<String, Integer> codes(final Schema schema) {
+        return CODES.computeIfAbsent(symbolsOf(schema), IntEnum::createCodes);
+    }
+
+    private static Map<String, Integer> createCodes(final String symbols) {
+        final String[] split = symbols.split(SEPARATOR);
+        final Map<String, Integer> codes = new HashMap<>(split.length * 2);
+        for (int i = 0; i < split.length; i++) {
+            codes.put(split[i], i);
+        }
+        return codes;
+    }
+
+    private static String symbolsOf(final Schema schema) {
+        if (!LOGICAL_NAME.equals(schema.name()) || schema.parameters() == null
+            || !schema.parameters()
+                      .containsKey(SYMBOLS_FIELD)) {
+            throw new DataException("Requested conversion of IntEnum object but the schema does not match.");
+        }
+        return schema.parameters()
+                     .get(SYMBOLS_FIELD);
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.twitter.clientlib.model.Media.SERIALIZED_NAME_HEIGHT;
+import static com.twitter.clientlib.model.Media.SERIALIZED_NAME_MEDIA_KEY;
+import static com.twitter.clientlib.model.Media.SERIALIZED_NAME_TYPE;
+import static com.twitter.clientlib.model.Media.SERIALIZED_NAME_WIDTH;
+import static com.twitter.clientlib.model.Photo.SERIALIZED_NAME_ALT_TEXT;
+import static com.twitter.clientlib.model.Photo.SERIALIZED_NAME_URL;
+import static com.twitter.clientlib.model.Video.SERIALIZED_NAME_DURATION_MS;
+import static com.twitter.clientlib.model.Video.SERIALIZED_NAME_PREVIEW_IMAGE_URL;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT32_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
+import static org.apache.kafka.connect.data.SchemaBuilder.struct;
+
+import com.twitter.clientlib.model.AnimatedGif;
+import com.twitter.clientlib.model.Media;
+import com.twitter.clientlib.model.Photo;
+import com.twitter.clientlib.model.Video;
+import java.net.URL;
+import lombok.NonNull;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts a photo, video or animated GIF of the {@code includes} of a response into a single schema; the fields that
+ * the type of media does not have are null.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class MediaConverter {
+
+    static final Schema MEDIA_SCHEMA = struct().field(SERIALIZED_NAME_MEDIA_KEY, STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_TYPE, STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_URL, OPTIONAL_STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_PREVIEW_IMAGE_URL, OPTIONAL_STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_ALT_TEXT, OPTIONAL_STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_DURATION_MS, OPTIONAL_INT32_SCHEMA)
+                                               .field(SERIALIZED_NAME_HEIGHT, OPTIONAL_INT32_SCHEMA)
+                                               .field(SERIALIZED_NAME_WIDTH, OPTIONAL_INT32_SCHEMA)
+                                               .build();
+
+    Struct convert(@NonNull final Media input) {
+        final Struct struct = new Struct(MEDIA_SCHEMA).put(SERIALIZED_NAME_MEDIA_KEY, input.getMediaKey())
+                                                      .put(SERIALIZED_NAME_TYPE, input.getType())
+                                                      .put(SERIALIZED_NAME_HEIGHT, input.getHeight())
+                                                      .put(SERIALIZED_NAME_WIDTH, input.getWidth());
+        if (input instanceof Photo) {
+            final Photo photo = (Photo) input;
+            struct.put(SERIALIZED_NAME_URL, convertOptionalUrl(photo.getUrl()))
+                  .put(SERIALIZED_NAME_ALT_TEXT, photo.getAltText());
+        } else if (input instanceof Video) {
+            final Video video = (Video) input;
+            struct.put(SERIALIZED_NAME_PREVIEW_IMAGE_URL, convertOptionalUrl(video.getPreviewImageUrl()))
+                  .put(SERIALIZED_NAME_DURATION_MS, video.getDurationMs());
+        } else if (input instanceof AnimatedGif) {
+            struct.put(SERIALIZED_NAME_PREVIEW_IMAGE_URL,
+                       convertOptionalUrl(((AnimatedGif) input).getPreviewImageUrl()));
+        }
+        return struct;
+    }
+
+    @Nullable
+    private static String convertOptionalUrl(@Nullable final URL url) {
+        return url == null ? null : url.toString();
+    }
+}
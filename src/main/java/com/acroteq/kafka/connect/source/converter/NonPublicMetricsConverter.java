@@ -31,7 +31,6 @@ import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT32_SCHEMA;
 import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 
 import com.twitter.clientlib.model.TweetNonPublicMetrics;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -53,8 +52,6 @@ class NonPublicMetricsConverter {
 
     @Nullable
     Struct convertOptional(final TweetNonPublicMetrics nonPublicMetrics) {
-        return Optional.ofNullable(nonPublicMetrics)
-                       .map(this::convert)
-                       .orElse(null);
+        return nonPublicMetrics == null ? null : convert(nonPublicMetrics);
     }
 }
@@ -33,7 +33,6 @@ import static com.twitter.clientlib.model.TweetOrganicMetrics.SERIALIZED_NAME_RE
 import static org.apache.kafka.connect.data.Schema.INT32_SCHEMA;
 
 import com.twitter.clientlib.model.TweetOrganicMetrics;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.SchemaBuilder;
@@ -63,8 +62,6 @@ public class OrganicMetricsConverter {
 
     @Nullable
     Struct convertOptional(final TweetOrganicMetrics organicMetrics) {
-        return Optional.ofNullable(organicMetrics)
-                       .map(this::convert)
-                       .orElse(null);
+        return organicMetrics == null ? null : convert(organicMetrics);
     }
 }
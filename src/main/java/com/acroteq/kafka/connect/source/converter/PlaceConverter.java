@@ -0,0 +1,81 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.twitter.clientlib.model.Place.SERIALIZED_NAME_CONTAINED_WITHIN;
+import static com.twitter.clientlib.model.Place.SERIALIZED_NAME_COUNTRY;
+import static com.twitter.clientlib.model.Place.SERIALIZED_NAME_COUNTRY_CODE;
+import static com.twitter.clientlib.model.Place.SERIALIZED_NAME_FULL_NAME;
+import static com.twitter.clientlib.model.Place.SERIALIZED_NAME_ID;
+import static com.twitter.clientlib.model.Place.SERIALIZED_NAME_NAME;
+import static com.twitter.clientlib.model.Place.SERIALIZED_NAME_PLACE_TYPE;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
+import static org.apache.kafka.connect.data.SchemaBuilder.array;
+import static org.apache.kafka.connect.data.SchemaBuilder.struct;
+
+import com.twitter.clientlib.model.Place;
+import com.twitter.clientlib.model.PlaceType;
+import lombok.NonNull;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts a place of the {@code includes} of a response.  The place ID is not a snowflake ID, so it stays a string in
+ * the compact schema.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class PlaceConverter {
+
+    static final Schema PLACE_SCHEMA = struct().field(SERIALIZED_NAME_ID, STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_FULL_NAME, STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_NAME, OPTIONAL_STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_COUNTRY, OPTIONAL_STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_COUNTRY_CODE, OPTIONAL_STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_PLACE_TYPE, OPTIONAL_STRING_SCHEMA)
+                                               .field(SERIALIZED_NAME_CONTAINED_WITHIN,
+                                                      array(STRING_SCHEMA).optional()
+                                                                          .build())
+                                               .build();
+
+    Struct convert(@NonNull final Place input) {
+        return new Struct(PLACE_SCHEMA).put(SERIALIZED_NAME_ID, input.getId())
+                                       .put(SERIALIZED_NAME_FULL_NAME, input.getFullName())
+                                       .put(SERIALIZED_NAME_NAME, input.getName())
+                                       .put(SERIALIZED_NAME_COUNTRY, input.getCountry())
+                                       .put(SERIALIZED_NAME_COUNTRY_CODE, input.getCountryCode())
+                                       .put(SERIALIZED_NAME_PLACE_TYPE, convertOptionalPlaceType(input.getPlaceType()))
+                                       .put(SERIALIZED_NAME_CONTAINED_WITHIN, input.getContainedWithin());
+    }
+
+    @Nullable
+    private static String convertOptionalPlaceType(@Nullable final PlaceType placeType) {
+        return placeType == null ? null : placeType.getValue();
+    }
+}
@@ -34,7 +34,6 @@ import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT32_SCHEMA;
 import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 
 import com.twitter.clientlib.model.TweetPromotedMetrics;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -64,9 +63,7 @@ public class PromotedMetricsConverter {
 
     @Nullable
     Struct convertOptional(final TweetPromotedMetrics promotedMetrics) {
-        return Optional.ofNullable(promotedMetrics)
-                       .map(this::convert)
-                       .orElse(null);
+        return promotedMetrics == null ? null : convert(promotedMetrics);
     }
 
 }
@@ -35,7 +35,6 @@ import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT32_SCHEMA;
 import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 
 import com.twitter.clientlib.model.TweetPublicMetrics;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -60,8 +59,6 @@ class PublicMetricsConverter {
 
     @Nullable
     Struct convertOptional(final TweetPublicMetrics publicMetrics) {
-        return Optional.ofNullable(publicMetrics)
-                       .map(this::convert)
-                       .orElse(null);
+        return publicMetrics == null ? null : convert(publicMetrics);
     }
 }
@@ -28,13 +28,13 @@ package com.acroteq.kafka.connect.source.converter;
 
 import static com.twitter.clientlib.model.TweetReferencedTweets.SERIALIZED_NAME_ID;
 import static com.twitter.clientlib.model.TweetReferencedTweets.SERIALIZED_NAME_TYPE;
-import static java.util.stream.Collectors.toList;
+import static org.apache.kafka.connect.data.Schema.INT64_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
 import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 
 import com.twitter.clientlib.model.TweetReferencedTweets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -43,24 +43,46 @@ import org.jetbrains.annotations.Nullable;
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
 class ReferencedTweetsConverter {
 
-    static final Schema TWEET_REFERENCED_TWEETS_ITEM_SCHEMA = struct().field(SERIALIZED_NAME_TYPE, STRING_SCHEMA)
-                                                                      .field(SERIALIZED_NAME_ID, STRING_SCHEMA)
-                                                                      .build();
+    static final Schema TWEET_REFERENCED_TWEETS_ITEM_SCHEMA = itemSchema(STRING_SCHEMA);
+    static final Schema COMPACT_TWEET_REFERENCED_TWEETS_ITEM_SCHEMA = itemSchema(INT64_SCHEMA);
+
+    private final boolean compact;
+    private final Schema itemSchema;
+
+    ReferencedTweetsConverter() {
+        this(false);
+    }
+
+    /** @param compact true for the compact schema, with the ID as an INT64 */
+    ReferencedTweetsConverter(final boolean compact) {
+        this.compact = compact;
+        this.itemSchema = compact ? COMPACT_TWEET_REFERENCED_TWEETS_ITEM_SCHEMA : TWEET_REFERENCED_TWEETS_ITEM_SCHEMA;
+    }
+
+    private static Schema itemSchema(final Schema idSchema) {
+        return struct().field(SERIALIZED_NAME_TYPE, STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_ID, idSchema)
+                       .build();
+    }
 
     private Struct convert(@NonNull final TweetReferencedTweets input) {
-        return new Struct(TWEET_REFERENCED_TWEETS_ITEM_SCHEMA).put(SERIALIZED_NAME_TYPE,
-                                                                   input.getType()
-                                                                        .getValue())
-                                                              .put(SERIALIZED_NAME_ID, input.getId());
+        return new Struct(itemSchema).put(SERIALIZED_NAME_TYPE,
+                                          input.getType()
+                                               .getValue())
+                                     .put(SERIALIZED_NAME_ID,
+                                          compact ? ConverterUtils.convertId(input.getId()) : input.getId());
     }
 
     @Nullable
     List<Struct> convertOptional(@Nullable final List<TweetReferencedTweets> referencedTweets) {
-        return Optional.ofNullable(referencedTweets)
-                       .map(list -> list.stream()
-                                        .map(this::convert)
-                                        .collect(toList()))
-                       .orElse(null);
+        if (referencedTweets == null) {
+            return null;
+        }
+        final List<Struct> structs = new ArrayList<>(referencedTweets.size());
+        for (final TweetReferencedTweets item : referencedTweets) {
+            structs.add(convert(item));
+        }
+        return structs;
     }
 
 }
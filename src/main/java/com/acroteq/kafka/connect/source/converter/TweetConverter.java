@@ -26,10 +26,14 @@
  */
 package com.acroteq.kafka.connect.source.converter;
 
+import static com.acroteq.kafka.connect.source.converter.EntitiesConverter.COMPACT_FULL_TEXT_ENTITIES_SCHEMA;
 import static com.acroteq.kafka.connect.source.converter.EntitiesConverter.FULL_TEXT_ENTITIES_SCHEMA;
+import static com.acroteq.kafka.connect.source.converter.GeoConverter.COMPACT_GEO_SCHEMA;
 import static com.acroteq.kafka.connect.source.converter.GeoConverter.GEO_SCHEMA;
+import static com.acroteq.kafka.connect.source.converter.ReferencedTweetsConverter.COMPACT_TWEET_REFERENCED_TWEETS_ITEM_SCHEMA;
 import static com.acroteq.kafka.connect.source.converter.ReferencedTweetsConverter.TWEET_REFERENCED_TWEETS_ITEM_SCHEMA;
 import static com.acroteq.kafka.connect.source.converter.WithheldConverter.WITHHELD_SCHEMA;
+import static com.twitter.clientlib.model.FilteredStreamingTweetResponse.SERIALIZED_NAME_INCLUDES;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_ATTACHMENTS;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_AUTHOR_ID;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_CONTEXT_ANNOTATIONS;
@@ -52,13 +56,17 @@ import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_REPLY_SETTINGS;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_SOURCE;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_TEXT;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_WITHHELD;
+import static java.util.stream.Collectors.toList;
+import static org.apache.kafka.connect.data.Schema.INT64_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.OPTIONAL_BOOLEAN_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT64_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
 import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
 import static org.apache.kafka.connect.data.SchemaBuilder.array;
 import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 
 import com.twitter.clientlib.model.ContextAnnotation;
+import com.twitter.clientlib.model.Expansions;
 import com.twitter.clientlib.model.FullTextEntities;
 import com.twitter.clientlib.model.ReplySettings;
 import com.twitter.clientlib.model.Tweet;
@@ -72,93 +80,262 @@ import com.twitter.clientlib.model.TweetPublicMetrics;
 import com.twitter.clientlib.model.TweetReferencedTweets;
 import com.twitter.clientlib.model.TweetWithheld;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import lombok.Getter;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.SchemaBuilder;
 import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.data.Timestamp;
 import org.jetbrains.annotations.Nullable;
 
-/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+/**
+ * Converts the Twitter SDK model of a tweet into a {@link Struct}.
+ *
+ * <p>The schema can be projected onto the configured tweet fields: Twitter only returns the fields that are asked for,
+ * along with the default fields {@code id}, {@code text} and {@code edit_history_tweet_ids}, so the schema of a
+ * projected converter leaves out every other field, and the converter only converts the fields in its schema.
+ *
+ * <p>The compact schema, {@link #COMPACT_TWEET_SCHEMA}, has the same fields, but stores the snowflake IDs of the
+ * tweet, its author, conversation, reply, edit history, referenced tweets and mentions as INT64, the coordinates of
+ * its geo point as FLOAT64, and its {@code lang} and {@code reply_settings} as {@link IntEnum} codes.
+ *
+ * <p>With an {@link IncludesCache}, the schema ends with an {@code includes} field, holding the users, media and places
+ * that the expansions add to the response, and that are converted through the cache.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
 public class TweetConverter {
 
+    /** The fields Twitter always returns, whether they are asked for or not. */
+    private static final Set<String> DEFAULT_FIELDS =
+          Set.of(SERIALIZED_NAME_ID, SERIALIZED_NAME_TEXT, SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS);
+
+    private static final List<TweetField> TWEET_FIELDS = List.of( //
+          new TweetField(SERIALIZED_NAME_ID, STRING_SCHEMA, (c, t) -> t.getId()),
+          new TweetField(SERIALIZED_NAME_CREATED_AT,
+                         Timestamp.builder()
+                                  .optional()
+                                  .build(),
+                         (c, t) -> ConverterUtils.convertOptionalDate(t.getCreatedAt())),
+          new TweetField(SERIALIZED_NAME_TEXT, STRING_SCHEMA, (c, t) -> t.getText()),
+          new TweetField(SERIALIZED_NAME_AUTHOR_ID, OPTIONAL_STRING_SCHEMA, (c, t) -> t.getAuthorId()),
+          new TweetField(SERIALIZED_NAME_IN_REPLY_TO_USER_ID, OPTIONAL_STRING_SCHEMA, (c, t) -> t.getInReplyToUserId()),
+          new TweetField(SERIALIZED_NAME_REFERENCED_TWEETS,
+                         array(TWEET_REFERENCED_TWEETS_ITEM_SCHEMA).optional()
+                                                                   .build(),
+                         (c, t) -> c.convertOptionalReferencedTweets(t.getReferencedTweets())),
+          new TweetField(SERIALIZED_NAME_ATTACHMENTS,
+                         AttachmentsConverter.TWEET_ATTACHMENTS_SCHEMA,
+                         (c, t) -> c.convertOptionalAttachments(t.getAttachments())),
+          new TweetField(SERIALIZED_NAME_CONTEXT_ANNOTATIONS,
+                         array(ContextAnnotationsConverter.CONTEXT_ANNOTATION_SCHEMA).optional()
+                                                                                     .build(),
+                         (c, t) -> c.convertOptionalContextAnnotations(t.getContextAnnotations())),
+          new TweetField(SERIALIZED_NAME_WITHHELD,
+                         WITHHELD_SCHEMA,
+                         (c, t) -> c.convertOptionalWithheld(t.getWithheld())),
+          new TweetField(SERIALIZED_NAME_GEO, GEO_SCHEMA, (c, t) -> c.convertOptionalGeo(t.getGeo())),
+          new TweetField(SERIALIZED_NAME_ENTITIES,
+                         FULL_TEXT_ENTITIES_SCHEMA,
+                         (c, t) -> c.convertOptionalEntities(t.getEntities())),
+          new TweetField(SERIALIZED_NAME_PUBLIC_METRICS,
+                         PublicMetricsConverter.TWEET_PUBLIC_METRICS_SCHEMA,
+                         (c, t) -> c.convertOptionalPublicMetrics(t.getPublicMetrics())),
+          new TweetField(SERIALIZED_NAME_POSSIBLY_SENSITIVE,
+                         OPTIONAL_BOOLEAN_SCHEMA,
+                         (c, t) -> t.getPossiblySensitive()),
+          new TweetField(SERIALIZED_NAME_LANG, OPTIONAL_STRING_SCHEMA, (c, t) -> t.getLang()),
+          new TweetField(SERIALIZED_NAME_SOURCE, OPTIONAL_STRING_SCHEMA, (c, t) -> t.getSource()),
+          new TweetField(SERIALIZED_NAME_NON_PUBLIC_METRICS,
+                         NonPublicMetricsConverter.TWEET_NON_PUBLIC_METRICS_SCHEMA,
+                         (c, t) -> c.convertOptionalNonPublicMetrics(t.getNonPublicMetrics())),
+          new TweetField(SERIALIZED_NAME_PROMOTED_METRICS,
+                         PromotedMetricsConverter.TWEET_PROMOTED_METRICS_SCHEMA,
+                         (c, t) -> c.convertOptionalPromotedMetrics(t.getPromotedMetrics())),
+          new TweetField(SERIALIZED_NAME_ORGANIC_METRICS,
+                         OrganicMetricsConverter.TWEET_ORGANIC_METRICS_SCHEMA,
+                         (c, t) -> c.convertOptionalOrganicMetrics(t.getOrganicMetrics())),
+          new TweetField(SERIALIZED_NAME_CONVERSATION_ID, OPTIONAL_STRING_SCHEMA, (c, t) -> t.getConversationId()),
+          new TweetField(SERIALIZED_NAME_EDIT_CONTROLS,
+                         EditControlsConverter.TWEET_EDIT_CONTROLS_SCHEMA,
+                         (c, t) -> c.convertOptionalEditControls(t.getEditControls())),
+          new TweetField(SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS,
+                         array(STRING_SCHEMA),
+                         (c, t) -> t.getEditHistoryTweetIds()),
+          new TweetField(SERIALIZED_NAME_REPLY_SETTINGS,
+                         OPTIONAL_STRING_SCHEMA,
+                         (c, t) -> convertOptionalReplySettings(t.getReplySettings())));
+
+    /**
+     * The languages Twitter detects, and its codes for undetermined or textless tweets, e.g. {@code und} and
+     * {@code zxx}.  Only ever append, as the index of a language is its code in the compact schema.
+     */
+    private static final List<String> LANGUAGES = List.of( //
+          "und", "en", "ja", "es", "pt", "ar", "in", "ko", "fr", "tr", "th", "de", "it", "ru", "tl", "hi", "fa",
+          "nl", "pl", "ur", "zh", "iw", "ca", "sv", "el", "uk", "da", "fi", "no", "cs", "hu", "ro", "ta", "ne",
+          "mr", "bn", "gu", "kn", "te", "ml", "pa", "or", "si", "sd", "ps", "am", "my", "km", "lo", "ka", "hy",
+          "bo", "dv", "ug", "iu", "chr", "ckb", "cy", "ht", "is", "eu", "et", "lt", "lv", "sl", "sr", "bg", "vi",
+          "qam", "qct", "qht", "qme", "qst", "zxx", "art");
+    /** The values of {@link ReplySettings}, only ever append. */
+    private static final List<String> REPLY_SETTINGS = List.of("everyone", "mentionedUsers", "following", "other");
+
+    static final Schema COMPACT_LANG_SCHEMA = IntEnum.builder(LANGUAGES)
+                                                     .optional()
+                                                     .build();
+    static final Schema COMPACT_REPLY_SETTINGS_SCHEMA = IntEnum.builder(REPLY_SETTINGS)
+                                                               .optional()
+                                                               .build();
+
+    /** The fields of the compact schema that differ from the standard schema. */
+    private static final List<TweetField> COMPACT_FIELDS = List.of( //
+          new TweetField(SERIALIZED_NAME_ID, INT64_SCHEMA, (c, t) -> ConverterUtils.convertId(t.getId())),
+          new TweetField(SERIALIZED_NAME_AUTHOR_ID,
+                         OPTIONAL_INT64_SCHEMA,
+                         (c, t) -> ConverterUtils.convertOptionalId(t.getAuthorId())),
+          new TweetField(SERIALIZED_NAME_IN_REPLY_TO_USER_ID,
+                         OPTIONAL_INT64_SCHEMA,
+                         (c, t) -> ConverterUtils.convertOptionalId(t.getInReplyToUserId())),
+          new TweetField(SERIALIZED_NAME_REFERENCED_TWEETS,
+                         array(COMPACT_TWEET_REFERENCED_TWEETS_ITEM_SCHEMA).optional()
+                                                                           .build(),
+                         (c, t) -> c.convertOptionalReferencedTweets(t.getReferencedTweets())),
+          new TweetField(SERIALIZED_NAME_GEO, COMPACT_GEO_SCHEMA, (c, t) -> c.convertOptionalGeo(t.getGeo())),
+          new TweetField(SERIALIZED_NAME_ENTITIES,
+                         COMPACT_FULL_TEXT_ENTITIES_SCHEMA,
+                         (c, t) -> c.convertOptionalEntities(t.getEntities())),
+          new TweetField(SERIALIZED_NAME_LANG, COMPACT_LANG_SCHEMA, (c, t) -> convertOptionalLang(t.getLang())),
+          new TweetField(SERIALIZED_NAME_CONVERSATION_ID,
+                         OPTIONAL_INT64_SCHEMA,
+                         (c, t) -> ConverterUtils.convertOptionalId(t.getConversationId())),
+          new TweetField(SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS,
+                         array(INT64_SCHEMA),
+                         (c, t) -> ConverterUtils.convertOptionalIds(t.getEditHistoryTweetIds())),
+          new TweetField(SERIALIZED_NAME_REPLY_SETTINGS,
+                         COMPACT_REPLY_SETTINGS_SCHEMA,
+                         (c, t) -> convertOptionalCompactReplySettings(t.getReplySettings())));
+
+    private static final List<TweetField> COMPACT_TWEET_FIELDS = TWEET_FIELDS.stream()
+                                                                             .map(TweetConverter::compactField)
+                                                                             .collect(toList());
+
+    /** The schema with every tweet field. */
+    public static final Schema TWEET_SCHEMA = createSchema(TWEET_FIELDS).build();
+
+    /** The compact schema with every tweet field. */
+    public static final Schema COMPACT_TWEET_SCHEMA = createSchema(COMPACT_TWEET_FIELDS).build();
+
     private final AttachmentsConverter attachmentsConverter = new AttachmentsConverter();
     private final ContextAnnotationsConverter contextAnnotationsConverter = new ContextAnnotationsConverter();
     private final EditControlsConverter editControlsConverter = new EditControlsConverter();
-    private final EntitiesConverter entitiesConverter = new EntitiesConverter();
-    private final GeoConverter geoConverter = new GeoConverter();
+    private final EntitiesConverter entitiesConverter;
+    private final GeoConverter geoConverter;
     private final NonPublicMetricsConverter nonPublicMetricsConverter = new NonPublicMetricsConverter();
     private final OrganicMetricsConverter organicMetricsConverter = new OrganicMetricsConverter();
     private final PromotedMetricsConverter promotedMetricsConverter = new PromotedMetricsConverter();
     private final PublicMetricsConverter publicMetricsConverter = new PublicMetricsConverter();
-    private final ReferencedTweetsConverter referencedTweetsConverter = new ReferencedTweetsConverter();
+    private final ReferencedTweetsConverter referencedTweetsConverter;
     private final WithheldConverter withheldConverter = new WithheldConverter();
+    @Nullable private final IncludesConverter includesConverter;
 
-    public static final Schema TWEET_SCHEMA = //
-          struct().field(SERIALIZED_NAME_ID, STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_CREATED_AT,
-                         Timestamp.builder()
-                                  .optional()
-                                  .build())
-                  .field(SERIALIZED_NAME_TEXT, STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_AUTHOR_ID, OPTIONAL_STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_IN_REPLY_TO_USER_ID, OPTIONAL_STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_REFERENCED_TWEETS,
-                         array(TWEET_REFERENCED_TWEETS_ITEM_SCHEMA).optional()
-                                                                   .build())
-                  .field(SERIALIZED_NAME_ATTACHMENTS, AttachmentsConverter.TWEET_ATTACHMENTS_SCHEMA)
-                  .field(SERIALIZED_NAME_CONTEXT_ANNOTATIONS,
-                         array(ContextAnnotationsConverter.CONTEXT_ANNOTATION_SCHEMA).optional()
-                                                                                     .build())
-                  .field(SERIALIZED_NAME_WITHHELD, WITHHELD_SCHEMA)
-                  .field(SERIALIZED_NAME_GEO, GEO_SCHEMA)
-                  .field(SERIALIZED_NAME_ENTITIES, FULL_TEXT_ENTITIES_SCHEMA)
-                  .field(SERIALIZED_NAME_PUBLIC_METRICS, PublicMetricsConverter.TWEET_PUBLIC_METRICS_SCHEMA)
-                  .field(SERIALIZED_NAME_POSSIBLY_SENSITIVE, OPTIONAL_BOOLEAN_SCHEMA)
-                  .field(SERIALIZED_NAME_LANG, OPTIONAL_STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_SOURCE, OPTIONAL_STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_NON_PUBLIC_METRICS, NonPublicMetricsConverter.TWEET_NON_PUBLIC_METRICS_SCHEMA)
-                  .field(SERIALIZED_NAME_PROMOTED_METRICS, PromotedMetricsConverter.TWEET_PROMOTED_METRICS_SCHEMA)
-                  .field(SERIALIZED_NAME_ORGANIC_METRICS, OrganicMetricsConverter.TWEET_ORGANIC_METRICS_SCHEMA)
-                  .field(SERIALIZED_NAME_CONVERSATION_ID, OPTIONAL_STRING_SCHEMA)
-                  .field(SERIALIZED_NAME_EDIT_CONTROLS, EditControlsConverter.TWEET_EDIT_CONTROLS_SCHEMA)
-                  .field(SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS, array(STRING_SCHEMA))
-                  .field(SERIALIZED_NAME_REPLY_SETTINGS, OPTIONAL_STRING_SCHEMA);
+    private final List<TweetField> fields;
+    @Getter private final Schema schema;
+
+    /** A converter with every tweet field, see {@link #TWEET_SCHEMA}. */
+    public TweetConverter() {
+        this.fields = TWEET_FIELDS;
+        this.schema = TWEET_SCHEMA;
+        this.entitiesConverter = new EntitiesConverter();
+        this.geoConverter = new GeoConverter();
+        this.referencedTweetsConverter = new ReferencedTweetsConverter();
+        this.includesConverter = null;
+    }
+
+    /**
+     * A converter projected onto the given tweet fields, as configured in {@code twitter.tweetFields}, and the
+     * default fields.  Unknown fields are ignored.
+     */
+    public TweetConverter(@NonNull final Set<String> tweetFields) {
+        this(tweetFields, false);
+    }
+
+    /**
+     * A converter projected onto the given tweet fields and the default fields, with either the standard or the
+     * compact schema.
+     */
+    public TweetConverter(@NonNull final Set<String> tweetFields, final boolean compact) {
+        this(tweetFields, compact, null);
+    }
+
+    /**
+     * A converter projected onto the given tweet fields and the default fields, with either the standard or the
+     * compact schema, and with the {@code includes} of the response if an includes cache is given.
+     */
+    public TweetConverter(@NonNull final Set<String> tweetFields,
+                          final boolean compact,
+                          @Nullable final IncludesCache includesCache) {
+        final List<TweetField> allFields = compact ? COMPACT_TWEET_FIELDS : TWEET_FIELDS;
+        this.fields = allFields.stream()
+                               .filter(f -> DEFAULT_FIELDS.contains(f.name) || tweetFields.contains(f.name))
+                               .collect(toList());
+        this.includesConverter = includesCache == null ? null : new IncludesConverter(compact, includesCache);
+        if (includesConverter != null) {
+            this.schema = createSchema(fields).field(SERIALIZED_NAME_INCLUDES, includesConverter.getSchema())
+                                              .build();
+        } else if (fields.size() == allFields.size()) {
+            this.schema = compact ? COMPACT_TWEET_SCHEMA : TWEET_SCHEMA;
+        } else {
+            this.schema = createSchema(fields).build();
+        }
+        this.entitiesConverter = new EntitiesConverter(compact);
+        this.geoConverter = new GeoConverter(compact);
+        this.referencedTweetsConverter = new ReferencedTweetsConverter(compact);
+    }
+
+    private static TweetField compactField(final TweetField field) {
+        return COMPACT_FIELDS.stream()
+                             .filter(f -> f.name.equals(field.name))
+                             .findFirst()
+                             .orElse(field);
+    }
+
+    private static SchemaBuilder createSchema(final List<TweetField> fields) {
+        final SchemaBuilder builder = struct();
+        fields.forEach(f -> builder.field(f.name, f.schema));
+        return builder;
+    }
 
+    /** Convert a tweet without its response, e.g. a backfilled tweet, so without includes. */
     public Struct convert(@NonNull final Tweet tweet) {
-        final Struct struct = new Struct(TWEET_SCHEMA);
-        struct.put(SERIALIZED_NAME_ID, tweet.getId());
-        struct.put(SERIALIZED_NAME_CREATED_AT, ConverterUtils.convertOptionalDate(tweet.getCreatedAt()));
-        struct.put(SERIALIZED_NAME_TEXT, tweet.getText());
-        struct.put(SERIALIZED_NAME_AUTHOR_ID, tweet.getAuthorId());
-        struct.put(SERIALIZED_NAME_IN_REPLY_TO_USER_ID, tweet.getInReplyToUserId());
-        struct.put(SERIALIZED_NAME_REFERENCED_TWEETS, convertOptionalReferencedTweets(tweet.getReferencedTweets()));
-        struct.put(SERIALIZED_NAME_ATTACHMENTS, convertOptionalAttachments(tweet.getAttachments()));
-        struct.put(SERIALIZED_NAME_CONTEXT_ANNOTATIONS,
-                   convertOptionalContextAnnotations(tweet.getContextAnnotations()));
-        struct.put(SERIALIZED_NAME_WITHHELD, convertOptionalWithheld(tweet.getWithheld()));
-        struct.put(SERIALIZED_NAME_GEO, convertOptionalGeo(tweet.getGeo()));
-        struct.put(SERIALIZED_NAME_ENTITIES, convertOptionalEntities(tweet.getEntities()));
-        struct.put(SERIALIZED_NAME_PUBLIC_METRICS, convertOptionalPublicMetrics(tweet.getPublicMetrics()));
-        struct.put(SERIALIZED_NAME_POSSIBLY_SENSITIVE, tweet.getPossiblySensitive());
-        struct.put(SERIALIZED_NAME_LANG, tweet.getLang());
-        struct.put(SERIALIZED_NAME_SOURCE, tweet.getSource());
-        struct.put(SERIALIZED_NAME_NON_PUBLIC_METRICS, convertOptionalNonPublicMetrics(tweet.getNonPublicMetrics()));
-        struct.put(SERIALIZED_NAME_PROMOTED_METRICS, convertOptionalPromotedMetrics(tweet.getPromotedMetrics()));
-        struct.put(SERIALIZED_NAME_ORGANIC_METRICS, convertOptionalOrganicMetrics(tweet.getOrganicMetrics()));
-        struct.put(SERIALIZED_NAME_CONVERSATION_ID, tweet.getConversationId());
-        struct.put(SERIALIZED_NAME_EDIT_CONTROLS, convertOptionalEditControls(tweet.getEditControls()));
-        struct.put(SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS, tweet.getEditHistoryTweetIds());
-        struct.put(SERIALIZED_NAME_REPLY_SETTINGS, convertOptionalReplySettings(tweet.getReplySettings()));
+        return convert(tweet, null);
+    }
 
+    /** Convert a tweet and, if the schema has them, the {@code includes} of its response. */
+    public Struct convert(@NonNull final Tweet tweet, @Nullable final Expansions includes) {
+        final Struct struct = new Struct(schema);
+        for (final TweetField field : fields) {
+            struct.put(field.name, field.getter.apply(this, tweet));
+        }
+        if (includesConverter != null) {
+            struct.put(SERIALIZED_NAME_INCLUDES, includesConverter.convertOptional(includes));
+        }
         return struct;
     }
 
     @Nullable
     private static String convertOptionalReplySettings(final ReplySettings replySettings) {
-        return Optional.ofNullable(replySettings)
-                       .map(ReplySettings::getValue)
-                       .orElse(null);
+        return replySettings == null ? null : replySettings.getValue();
+    }
+
+    @Nullable
+    private static Integer convertOptionalCompactReplySettings(final ReplySettings replySettings) {
+        return replySettings == null ? null : IntEnum.toCode(COMPACT_REPLY_SETTINGS_SCHEMA, replySettings.getValue());
+    }
+
+    @Nullable
+    private static Integer convertOptionalLang(final String lang) {
+        return lang == null ? null : IntEnum.toCode(COMPACT_LANG_SCHEMA, lang);
     }
 
     private Struct convertOptionalAttachments(final TweetAttachments input) {
@@ -204,4 +381,18 @@ public class TweetConverter {
     private Struct convertOptionalWithheld(final TweetWithheld input) {
         return withheldConverter.convertOptional(input);
     }
+
+    /** A field of the tweet schema, with how to get its value from the SDK model. */
+    private static class TweetField {
+
+        private final String name;
+        private final Schema schema;
+        private final BiFunction<TweetConverter, Tweet, Object> getter;
+
+        TweetField(final String name, final Schema schema, final BiFunction<TweetConverter, Tweet, Object> getter) {
+            this.name = name;
+            this.schema = schema;
+            this.getter = getter;
+        }
+    }
 }
\ No newline at end of file
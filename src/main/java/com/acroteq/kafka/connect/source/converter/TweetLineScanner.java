@@ -0,0 +1,224 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.nio.ByteBuffer;
+import org.apache.kafka.connect.errors.DataException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Finds the ID and the conversation ID of the tweet in a filtered stream response, without parsing the rest of it.
+ *
+ * <p>The line is scanned byte by byte, keeping track of strings and nesting only, so the {@code id} fields of
+ * mentions, referenced tweets and includes are not mistaken for the tweet's.  Nothing is allocated but the
+ * conversation ID, and the position of the line is left as it is.
+ *
+ * <p>An instance keeps the result of the last scan, so it must not be shared between threads.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public class TweetLineScanner {
+
+    public static final long NO_TWEET_ID = 0;
+
+    private static final byte[] DATA = "data".getBytes(US_ASCII);
+    private static final byte[] ERRORS = "errors".getBytes(US_ASCII);
+    private static final byte[] ID = "id".getBytes(US_ASCII);
+    private static final byte[] CONVERSATION_ID = "conversation_id".getBytes(US_ASCII);
+
+    private static final int NONE = 0;
+    private static final int DATA_FIELD = 1;
+    private static final int ERRORS_FIELD = 2;
+    private static final int ID_FIELD = 3;
+    private static final int CONVERSATION_ID_FIELD = 4;
+
+    private long tweetId;
+    private String conversationId;
+
+    /**
+     * Scan a line of the filtered stream.
+     *
+     * @return false if the line carries no tweet
+     * @throws DataException if the line is an error response, or the tweet has no ID
+     */
+    public boolean scan(final ByteBuffer line) {
+        tweetId = NO_TWEET_ID;
+        conversationId = null;
+
+        final int limit = line.limit();
+        int depth = 0;
+        int dataDepth = -1;
+        boolean data = false;
+        boolean errors = false;
+        boolean id = false;
+        int pending = NONE;
+        int i = line.position();
+        while (i < limit) {
+            final byte b = line.get(i);
+            if (b == '"') {
+                final int start = i + 1;
+                final int end = endOfString(line, start, limit);
+                final int next = skipWhitespace(line, end + 1, limit);
+                if (next < limit && line.get(next) == ':') {
+                    pending = fieldOf(line, start, end, depth, dataDepth);
+                    i = next + 1;
+                    continue;
+                }
+                if (pending == ID_FIELD) {
+                    id = true;
+                    tweetId = parseId(line, start, end);
+                } else if (pending == CONVERSATION_ID_FIELD) {
+                    conversationId = decode(line, start, end);
+                }
+                pending = NONE;
+                i = end + 1;
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+                if (pending == DATA_FIELD && b == '{') {
+                    data = true;
+                    dataDepth = depth;
+                } else if (pending == ERRORS_FIELD && b == '[') {
+                    final int next = skipWhitespace(line, i + 1, limit);
+                    errors = next < limit && line.get(next) != ']';
+                }
+                pending = NONE;
+            } else if (b == '}' || b == ']') {
+                if (depth == dataDepth) {
+                    dataDepth = -1;
+                }
+                depth--;
+            } else if (!isWhitespace(b)) {
+                pending = NONE;
+            }
+            i++;
+        }
+
+        if (errors) {
+            throw new DataException("Error response received: " + decode(line, line.position(), limit));
+        }
+        if (data && !id) {
+            throw new DataException("Tweet without an ID received: " + decode(line, line.position(), limit));
+        }
+        return data;
+    }
+
+    /** The ID of the last tweet scanned, {@link #NO_TWEET_ID} if it is not a number. */
+    public long getTweetId() {
+        return tweetId;
+    }
+
+    /** The conversation ID of the last tweet scanned, null if the line has none. */
+    @Nullable
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    private static int fieldOf(final ByteBuffer line,
+                               final int start,
+                               final int end,
+                               final int depth,
+                               final int dataDepth) {
+        if (depth == 1) {
+            if (matches(line, start, end, DATA)) {
+                return DATA_FIELD;
+            }
+            return matches(line, start, end, ERRORS) ? ERRORS_FIELD : NONE;
+        }
+        if (depth == dataDepth) {
+            if (matches(line, start, end, ID)) {
+                return ID_FIELD;
+            }
+            return matches(line, start, end, CONVERSATION_ID) ? CONVERSATION_ID_FIELD : NONE;
+        }
+        return NONE;
+    }
+
+    /** The index of the closing quote of the string starting at {@code start}, or the limit if there is none. */
+    private static int endOfString(final ByteBuffer line, final int start, final int limit) {
+        int i = start;
+        while (i < limit) {
+            final byte b = line.get(i);
+            if (b == '"') {
+                return i;
+            }
+            i += b == '\\' ? 2 : 1;
+        }
+        return limit;
+    }
+
+    private static int skipWhitespace(final ByteBuffer line, final int start, final int limit) {
+        int i = start;
+        while (i < limit && isWhitespace(line.get(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean matches(final ByteBuffer line, final int start, final int end, final byte[] name) {
+        if (end - start != name.length) {
+            return false;
+        }
+        for (int i = 0; i < name.length; i++) {
+            if (line.get(start + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long parseId(final ByteBuffer line, final int start, final int end) {
+        if (start == end || end - start > 19) {
+            return NO_TWEET_ID;
+        }
+        long id = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = line.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return NO_TWEET_ID;
+            }
+            id = id * 10 + digit;
+        }
+        return id < 0 ? NO_TWEET_ID : id;
+    }
+
+    private static String decode(final ByteBuffer line, final int start, final int end) {
+        final ByteBuffer bytes = line.duplicate();
+        bytes.limit(end)
+             .position(start);
+        return UTF_8.decode(bytes)
+                    .toString();
+    }
+}
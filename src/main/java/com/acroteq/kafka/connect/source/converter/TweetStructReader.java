@@ -0,0 +1,356 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.acroteq.kafka.connect.source.converter.TweetConverter.TWEET_SCHEMA;
+import static com.twitter.clientlib.model.FilteredStreamingTweetResponse.SERIALIZED_NAME_INCLUDES;
+import static com.google.gson.stream.JsonToken.END_DOCUMENT;
+import static com.google.gson.stream.JsonToken.NULL;
+import static java.math.RoundingMode.UNNECESSARY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+
+import com.google.common.cache.Cache;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.time.DateTimeException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import lombok.NonNull;
+import org.apache.kafka.connect.data.Decimal;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.apache.kafka.connect.errors.DataException;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads a filtered stream response straight into a {@link Struct}, without building the Twitter SDK model first.
+ *
+ * <p>The JSON is walked token by token and each field is looked up in the target schema, so fields that are not
+ * part of the schema are skipped without being materialised.  The result is equal to what
+ * {@link TweetConverter#convert} produces from the SDK model of the same response, with the standard or the compact
+ * schema: the quoted IDs are read as INT64 where the schema asks for it.
+ *
+ * <p>If the schema has an {@code includes} field, the users, media and places of the {@code includes} of the response
+ * are read into it.  With an {@link IncludesCache}, the key of each, e.g. the user ID, is looked up as soon as it is
+ * read, and if the user is cached, the rest of its JSON is skipped and the cached struct is used instead.
+ *
+ * <p>An instance reuses its decode buffer between calls, so it must not be shared between threads.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public class TweetStructReader {
+
+    private static final String DATA = "data";
+    private static final String ERRORS = "errors";
+    private static final int INITIAL_LINE_LENGTH = 8 * 1024;
+
+    private final Schema tweetSchema;
+    @Nullable private final Field includesField;
+    @Nullable private final IncludesCache includesCache;
+    private final CharsetDecoder decoder = UTF_8.newDecoder()
+                                                .onMalformedInput(CodingErrorAction.REPLACE)
+                                                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private CharBuffer chars = CharBuffer.allocate(INITIAL_LINE_LENGTH);
+
+    public TweetStructReader() {
+        this(TWEET_SCHEMA);
+    }
+
+    public TweetStructReader(@NonNull final Schema tweetSchema) {
+        this(tweetSchema, null);
+    }
+
+    /** @param includesCache the cache of the includes read before, or null to read them all */
+    public TweetStructReader(@NonNull final Schema tweetSchema, @Nullable final IncludesCache includesCache) {
+        this.tweetSchema = tweetSchema;
+        this.includesField = tweetSchema.field(SERIALIZED_NAME_INCLUDES);
+        this.includesCache = includesCache;
+    }
+
+    /**
+     * Read one line of the filtered stream.
+     *
+     * @return the tweet, or {@code null} if the response has no {@code data}.
+     * @throws DataException if the JSON is malformed, does not match the schema, or is an error response.
+     */
+    @Nullable
+    public Struct read(@NonNull final String json) {
+        return read(new StringReader(json));
+    }
+
+    /**
+     * Read one line of the filtered stream from its UTF-8 bytes, between the position and the limit of the buffer.
+     * The bytes are decoded into a buffer that is reused for the next line, so no {@link String} is built for the
+     * line.  The position of the buffer is advanced to its limit.
+     *
+     * @return the tweet, or {@code null} if the response has no {@code data}.
+     * @throws DataException if the JSON is malformed, does not match the schema, or is an error response.
+     */
+    @Nullable
+    public Struct read(@NonNull final ByteBuffer utf8) {
+        // a UTF-8 line never decodes to more chars than it has bytes
+        if (chars.capacity() < utf8.remaining()) {
+            chars = CharBuffer.allocate(Math.max(utf8.remaining(), chars.capacity() * 2));
+        }
+        chars.clear();
+        decoder.reset();
+        decoder.decode(utf8, chars, true);
+        decoder.flush(chars);
+        return read(new CharArrayReader(chars.array(), 0, chars.position()));
+    }
+
+    @Nullable
+    private Struct read(final Reader json) {
+        try (JsonReader reader = new JsonReader(json)) {
+            // as lenient as GSON, so both parsers accept the same input
+            reader.setLenient(true);
+            final Struct tweet = readResponse(reader);
+            if (reader.peek() != END_DOCUMENT) {
+                throw new DataException("Unexpected content after the end of the tweet JSON");
+            }
+            return tweet;
+        } catch (final IOException | IllegalStateException | NumberFormatException | DateTimeException
+                       | ArithmeticException e) {
+            throw new DataException("Error while reading tweet JSON", e);
+        }
+    }
+
+    @Nullable
+    private Struct readResponse(final JsonReader reader) throws IOException {
+        Struct tweet = null;
+        Struct includes = null;
+        JsonArray errors = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            if (DATA.equals(name)) {
+                tweet = readOptionalStruct(reader, tweetSchema);
+            } else if (includesField != null && SERIALIZED_NAME_INCLUDES.equals(name)) {
+                includes = readOptionalIncludes(reader, includesField.schema());
+            } else if (ERRORS.equals(name)) {
+                errors = JsonParser.parseReader(reader)
+                                   .getAsJsonArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (errors != null && !errors.isEmpty()) {
+            throw new DataException("Error response received: " + errors);
+        }
+        if (tweet != null && includes != null) {
+            tweet.put(includesField, includes);
+        }
+        return tweet;
+    }
+
+    @Nullable
+    private Struct readOptionalIncludes(final JsonReader reader, final Schema schema) throws IOException {
+        if (reader.peek() == NULL) {
+            reader.nextNull();
+            return null;
+        }
+        final Struct includes = new Struct(schema);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final String name = reader.nextName();
+            final Field field = schema.field(name);
+            if (field == null || reader.peek() == NULL) {
+                reader.skipValue();
+            } else {
+                includes.put(field, readIncludedArray(reader, field.schema(), name));
+            }
+        }
+        reader.endObject();
+        return includes;
+    }
+
+    private List<Object> readIncludedArray(final JsonReader reader, final Schema arraySchema, final String name)
+          throws IOException {
+        final Cache<String, Struct> cache = includesCache == null ? null : includesCache.forIncludes(name);
+        if (cache == null) {
+            return readArray(reader, arraySchema.valueSchema());
+        }
+        final Field keyField = arraySchema.valueSchema()
+                                          .field(IncludesConverter.KEY_FIELDS.get(name));
+        final List<Object> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(readIncluded(reader, arraySchema.valueSchema(), keyField, cache));
+        }
+        reader.endArray();
+        return values;
+    }
+
+    /** The fields before the key are read in vain if the struct turns out to be cached. */
+    private Struct readIncluded(final JsonReader reader,
+                                final Schema schema,
+                                final Field keyField,
+                                final Cache<String, Struct> cache) throws IOException {
+        final Struct struct = new Struct(schema);
+        String key = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final Field field = schema.field(reader.nextName());
+            if (field == null) {
+                reader.skipValue();
+            } else if (field.equals(keyField) && reader.peek() != NULL) {
+                key = reader.nextString();
+                final Struct cached = cache.getIfPresent(key);
+                if (cached != null) {
+                    skipRemainingFields(reader);
+                    return cached;
+                }
+                struct.put(field, field.schema()
+                                       .type() == Schema.Type.INT64 ? ConverterUtils.convertId(key) : key);
+            } else {
+                struct.put(field, readValue(reader, field.schema()));
+            }
+        }
+        reader.endObject();
+
+        defaultMissingArrays(struct);
+        struct.validate();
+        if (key != null) {
+            cache.put(key, struct);
+        }
+        return struct;
+    }
+
+    private static void skipRemainingFields(final JsonReader reader) throws IOException {
+        while (reader.hasNext()) {
+            reader.nextName();
+            reader.skipValue();
+        }
+        reader.endObject();
+    }
+
+    @Nullable
+    private Object readValue(final JsonReader reader, final Schema schema) throws IOException {
+        if (reader.peek() == NULL) {
+            reader.nextNull();
+            return null;
+        }
+
+        if (Timestamp.LOGICAL_NAME.equals(schema.name())) {
+            return Date.from(OffsetDateTime.parse(reader.nextString())
+                                           .toInstant());
+        }
+        if (Decimal.LOGICAL_NAME.equals(schema.name())) {
+            final int scale = Integer.parseInt(schema.parameters()
+                                                     .get(Decimal.SCALE_FIELD));
+            return new BigDecimal(reader.nextString()).setScale(scale, UNNECESSARY);
+        }
+        if (IntEnum.LOGICAL_NAME.equals(schema.name())) {
+            return IntEnum.toCode(schema, reader.nextString());
+        }
+
+        switch (schema.type()) {
+            case STRING:
+                return reader.nextString();
+            case INT32:
+                return reader.nextInt();
+            case INT64:
+                return reader.nextLong();
+            case FLOAT64:
+                return reader.nextDouble();
+            case BOOLEAN:
+                return reader.nextBoolean();
+            case ARRAY:
+                return readArray(reader, schema.valueSchema());
+            case STRUCT:
+                return readStruct(reader, schema);
+            default:
+                throw new DataException("Unsupported schema type: " + schema.type());
+        }
+    }
+
+    private List<Object> readArray(final JsonReader reader, final Schema valueSchema) throws IOException {
+        final List<Object> values = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            values.add(readValue(reader, valueSchema));
+        }
+        reader.endArray();
+        return values;
+    }
+
+    @Nullable
+    private Struct readOptionalStruct(final JsonReader reader, final Schema schema) throws IOException {
+        if (reader.peek() == NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return readStruct(reader, schema);
+    }
+
+    private Struct readStruct(final JsonReader reader, final Schema schema) throws IOException {
+        final Struct struct = new Struct(schema);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            final Field field = schema.field(reader.nextName());
+            if (field == null) {
+                reader.skipValue();
+            } else {
+                struct.put(field, readValue(reader, field.schema()));
+            }
+        }
+        reader.endObject();
+
+        defaultMissingArrays(struct);
+        struct.validate();
+        return struct;
+    }
+
+    /** The SDK model initialises required lists, e.g. {@code edit_history_tweet_ids}, to an empty list. */
+    private static void defaultMissingArrays(final Struct struct) {
+        for (final Field field : struct.schema()
+                                       .fields()) {
+            final Schema fieldSchema = field.schema();
+            if (fieldSchema.type() == Schema.Type.ARRAY && !fieldSchema.isOptional() && struct.get(field) == null) {
+                struct.put(field, emptyList());
+            }
+        }
+    }
+}
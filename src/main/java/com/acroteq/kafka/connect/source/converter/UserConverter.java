@@ -0,0 +1,148 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_CREATED_AT;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_DESCRIPTION;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_ID;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_LOCATION;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_NAME;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_PINNED_TWEET_ID;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_PROFILE_IMAGE_URL;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_PROTECTED;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_PUBLIC_METRICS;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_URL;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_USERNAME;
+import static com.twitter.clientlib.model.User.SERIALIZED_NAME_VERIFIED;
+import static com.twitter.clientlib.model.UserPublicMetrics.SERIALIZED_NAME_FOLLOWERS_COUNT;
+import static com.twitter.clientlib.model.UserPublicMetrics.SERIALIZED_NAME_FOLLOWING_COUNT;
+import static com.twitter.clientlib.model.UserPublicMetrics.SERIALIZED_NAME_LISTED_COUNT;
+import static com.twitter.clientlib.model.UserPublicMetrics.SERIALIZED_NAME_TWEET_COUNT;
+import static org.apache.kafka.connect.data.Schema.INT32_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.INT64_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_BOOLEAN_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_INT64_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
+import static org.apache.kafka.connect.data.SchemaBuilder.struct;
+
+import com.twitter.clientlib.model.User;
+import com.twitter.clientlib.model.UserPublicMetrics;
+import java.net.URL;
+import lombok.NonNull;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.data.Timestamp;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Converts a user of the {@code includes} of a response.  Only the user fields asked for in {@code twitter.userFields}
+ * are returned by Twitter, along with the {@code id}, {@code name} and {@code username}; the other fields are null.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class UserConverter {
+
+    static final Schema USER_PUBLIC_METRICS_SCHEMA = struct().optional()
+                                                             .field(SERIALIZED_NAME_FOLLOWERS_COUNT, INT32_SCHEMA)
+                                                             .field(SERIALIZED_NAME_FOLLOWING_COUNT, INT32_SCHEMA)
+                                                             .field(SERIALIZED_NAME_TWEET_COUNT, INT32_SCHEMA)
+                                                             .field(SERIALIZED_NAME_LISTED_COUNT, INT32_SCHEMA)
+                                                             .build();
+    static final Schema USER_SCHEMA = userSchema(STRING_SCHEMA, OPTIONAL_STRING_SCHEMA);
+    static final Schema COMPACT_USER_SCHEMA = userSchema(INT64_SCHEMA, OPTIONAL_INT64_SCHEMA);
+
+    private final boolean compact;
+    private final Schema userSchema;
+
+    UserConverter() {
+        this(false);
+    }
+
+    /** @param compact true for the compact schema, with the user ID and the pinned tweet ID as INT64 */
+    UserConverter(final boolean compact) {
+        this.compact = compact;
+        this.userSchema = compact ? COMPACT_USER_SCHEMA : USER_SCHEMA;
+    }
+
+    private static Schema userSchema(final Schema idSchema, final Schema optionalIdSchema) {
+        return struct().field(SERIALIZED_NAME_ID, idSchema)
+                       .field(SERIALIZED_NAME_NAME, STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_USERNAME, STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_CREATED_AT,
+                              Timestamp.builder()
+                                       .optional()
+                                       .build())
+                       .field(SERIALIZED_NAME_DESCRIPTION, OPTIONAL_STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_LOCATION, OPTIONAL_STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_URL, OPTIONAL_STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_PROFILE_IMAGE_URL, OPTIONAL_STRING_SCHEMA)
+                       .field(SERIALIZED_NAME_PINNED_TWEET_ID, optionalIdSchema)
+                       .field(SERIALIZED_NAME_PROTECTED, OPTIONAL_BOOLEAN_SCHEMA)
+                       .field(SERIALIZED_NAME_VERIFIED, OPTIONAL_BOOLEAN_SCHEMA)
+                       .field(SERIALIZED_NAME_PUBLIC_METRICS, USER_PUBLIC_METRICS_SCHEMA)
+                       .build();
+    }
+
+    Struct convert(@NonNull final User input) {
+        return new Struct(userSchema).put(SERIALIZED_NAME_ID,
+                                          compact ? ConverterUtils.convertId(input.getId()) : input.getId())
+                                     .put(SERIALIZED_NAME_NAME, input.getName())
+                                     .put(SERIALIZED_NAME_USERNAME, input.getUsername())
+                                     .put(SERIALIZED_NAME_CREATED_AT,
+                                          ConverterUtils.convertOptionalDate(input.getCreatedAt()))
+                                     .put(SERIALIZED_NAME_DESCRIPTION, input.getDescription())
+                                     .put(SERIALIZED_NAME_LOCATION, input.getLocation())
+                                     .put(SERIALIZED_NAME_URL, input.getUrl())
+                                     .put(SERIALIZED_NAME_PROFILE_IMAGE_URL,
+                                          convertOptionalUrl(input.getProfileImageUrl()))
+                                     .put(SERIALIZED_NAME_PINNED_TWEET_ID,
+                                          compact
+                                          ? ConverterUtils.convertOptionalId(input.getPinnedTweetId())
+                                          : input.getPinnedTweetId())
+                                     .put(SERIALIZED_NAME_PROTECTED, input.getProtected())
+                                     .put(SERIALIZED_NAME_VERIFIED, input.getVerified())
+                                     .put(SERIALIZED_NAME_PUBLIC_METRICS,
+                                          convertOptionalPublicMetrics(input.getPublicMetrics()));
+    }
+
+    @Nullable
+    private static String convertOptionalUrl(@Nullable final URL url) {
+        return url == null ? null : url.toString();
+    }
+
+    @Nullable
+    private static Struct convertOptionalPublicMetrics(@Nullable final UserPublicMetrics input) {
+        if (input == null) {
+            return null;
+        }
+        return new Struct(USER_PUBLIC_METRICS_SCHEMA).put(SERIALIZED_NAME_FOLLOWERS_COUNT, input.getFollowersCount())
+                                                     .put(SERIALIZED_NAME_FOLLOWING_COUNT, input.getFollowingCount())
+                                                     .put(SERIALIZED_NAME_TWEET_COUNT, input.getTweetCount())
+                                                     .put(SERIALIZED_NAME_LISTED_COUNT, input.getListedCount());
+    }
+}
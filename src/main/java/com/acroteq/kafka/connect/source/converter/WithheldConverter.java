@@ -38,7 +38,6 @@ import static org.apache.kafka.connect.data.SchemaBuilder.struct;
 import com.twitter.clientlib.model.TweetWithheld;
 import com.twitter.clientlib.model.TweetWithheld.ScopeEnum;
 import java.util.ArrayList;
-import java.util.Optional;
 import lombok.NonNull;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
@@ -61,15 +60,11 @@ class WithheldConverter {
 
     @Nullable
     Struct convertOptional(@Nullable final TweetWithheld withheld) {
-        return Optional.ofNullable(withheld)
-                       .map(this::convert)
-                       .orElse(null);
+        return withheld == null ? null : convert(withheld);
     }
 
     @Nullable
     private String convertOptionalScope(final ScopeEnum scope) {
-        return Optional.ofNullable(scope)
-                       .map(ScopeEnum::getValue)
-                       .orElse(null);
+        return scope == null ? null : scope.getValue();
     }
 }
\ No newline at end of file
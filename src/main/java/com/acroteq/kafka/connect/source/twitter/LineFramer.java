@@ -0,0 +1,192 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import lombok.NonNull;
+
+/**
+ * Splits the filtered stream into lines at the byte level, without decoding it.
+ *
+ * <p>Bytes are read into one reusable direct buffer and scanned for {@code \n}; a preceding {@code \r} is stripped.
+ * Each non-blank line is handed to the consumer as a read-only view of that buffer, positioned on the UTF-8 bytes of
+ * the line.  The view is reused for every line and is only valid for the duration of the call, so the consumer has to
+ * copy anything it wants to keep.
+ * Blank lines, i.e. the keep-alives that Twitter sends when there are no tweets, are counted and dropped without
+ * allocating anything.
+ *
+ * <p>The buffer grows, up to {@link #MAX_BUFFER_SIZE}, when a single line does not fit.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class LineFramer implements Closeable {
+
+    static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    static final int MAX_BUFFER_SIZE = 16 * 1024 * 1024;
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte SPACE = ' ';
+    private static final byte TAB = '\t';
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private ByteBuffer lineView;
+
+    private long lineCount;
+    private long keepAliveCount;
+    private volatile long lastReadNanos = System.nanoTime();
+
+    LineFramer(@NonNull final ReadableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    LineFramer(@NonNull final ReadableByteChannel channel, final int bufferSize) {
+        checkArgument(bufferSize > 0 && bufferSize <= MAX_BUFFER_SIZE,
+                      "bufferSize must be between 1 and %s",
+                      MAX_BUFFER_SIZE);
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.lineView = buffer.asReadOnlyBuffer();
+    }
+
+    /**
+     * Read lines until the end of the stream, or until {@code running} returns false.
+     *
+     * @param lineConsumer receives a view on the UTF-8 bytes of each non-blank line, from its position to its limit,
+     *                     without the line terminator.
+     */
+    void readLines(@NonNull final Consumer<ByteBuffer> lineConsumer, @NonNull final BooleanSupplier running)
+          throws IOException {
+        // buffer is in write mode between reads: [0, scanned) has been searched for LF and holds no complete line
+        int scanned = 0;
+        while (running.getAsBoolean()) {
+            if (!buffer.hasRemaining()) {
+                grow();
+            }
+            final int read = channel.read(buffer);
+            if (read < 0) {
+                buffer.flip();
+                frame(buffer.limit(), lineConsumer);
+                return;
+            }
+            if (read > 0) {
+                lastReadNanos = System.nanoTime();
+            }
+
+            final int end = buffer.position();
+            int lineStart = 0;
+            for (int i = scanned; i < end && running.getAsBoolean(); i++) {
+                if (buffer.get(i) == LF) {
+                    frame(lineStart, i, lineConsumer);
+                    lineStart = i + 1;
+                }
+            }
+
+            if (lineStart > 0) {
+                buffer.flip();
+                buffer.position(lineStart);
+                buffer.compact();
+            }
+            scanned = buffer.position();
+        }
+    }
+
+    /** Deliver whatever is left at the end of the stream, if it is not terminated by a line feed. */
+    private void frame(final int end, final Consumer<ByteBuffer> lineConsumer) {
+        if (end > 0) {
+            frame(0, end, lineConsumer);
+        }
+    }
+
+    private void frame(final int start, final int lineFeed, final Consumer<ByteBuffer> lineConsumer) {
+        int end = lineFeed;
+        if (end > start && buffer.get(end - 1) == CR) {
+            end--;
+        }
+
+        if (isBlank(start, end)) {
+            keepAliveCount++;
+            return;
+        }
+
+        lineCount++;
+        lineView.clear()
+                .limit(end)
+                .position(start);
+        lineConsumer.accept(lineView);
+    }
+
+    private boolean isBlank(final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            final byte b = buffer.get(i);
+            if (b != SPACE && b != TAB && b != CR) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() throws IOException {
+        final int capacity = buffer.capacity();
+        if (capacity >= MAX_BUFFER_SIZE) {
+            throw new IOException("Line exceeds the maximum size of " + MAX_BUFFER_SIZE + " bytes");
+        }
+        final ByteBuffer grown = ByteBuffer.allocateDirect(Math.min(capacity * 2, MAX_BUFFER_SIZE));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+        lineView = buffer.asReadOnlyBuffer();
+    }
+
+    /** The number of non-blank lines handed to the consumer. */
+    long getLineCount() {
+        return lineCount;
+    }
+
+    /** The number of blank keep-alive lines that were dropped. */
+    long getKeepAliveCount() {
+        return keepAliveCount;
+    }
+
+    /** The {@link System#nanoTime()} when data, tweets or keep-alives, last arrived; or when the framer was created. */
+    long getLastReadNanos() {
+        return lastReadNanos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.hash.Hashing;
+import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.ApiResponse;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.config.types.Password;
+import org.apache.kafka.common.metrics.Gauge;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.metrics.KafkaMetricsContext;
+import org.apache.kafka.common.metrics.MetricConfig;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.common.utils.Time;
+
+/**
+ * Paces the calls of one Twitter app through a {@link TokenBucket} per endpoint, and learns the budgets from the
+ * {@code x-rate-limit-*} response headers.  A caller that would exceed the budget is parked until the reset time,
+ * rather than being rejected with HTTP 429, and a call that is rejected anyway parks until the reset time before it is
+ * retried.  Server and network errors are retried too, after the backoff Twitter recommends for reconnecting.
+ *
+ * <p>There is one limiter per app in the worker, shared by the connector and its tasks, and released by each of them
+ * when they stop.  The budgets are exposed as metrics in the {@value #METRIC_GROUP} group, over JMX under
+ * {@value #JMX_PREFIX}, tagged by app and endpoint, for as long as the app's limiter is in use.  The app is identified
+ * by a fingerprint of its bearer token.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+class RateLimiter {
+
+    static final String METRIC_GROUP = "twitter-rate-limit";
+    static final String JMX_PREFIX = "kafka.connect.twitter";
+    static final Duration WINDOW = Duration.ofMinutes(15);
+
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+    private static final long LOG_PARK_THRESHOLD_MS = 1000;
+
+    /** The limiters in use, by app.  Guards the users of each limiter and the metrics they share. */
+    private static final Map<String, RateLimiter> APP_RATE_LIMITERS = new HashMap<>();
+    /** The metrics of the app limiters, reported over JMX while any of them is in use. */
+    private static Metrics appMetrics;
+
+    private final String app;
+    private final Clock clock;
+    private final Sleeper sleeper;
+    private final Metrics metrics;
+    private final Map<TwitterEndpoint, TokenBucket> buckets = new EnumMap<>(TwitterEndpoint.class);
+    private final List<MetricName> metricNames = new ArrayList<>();
+    private int users;
+
+    /** A call to the Twitter API that returns the response headers along with the data. */
+    @FunctionalInterface
+    interface ApiCall<T> {
+
+        ApiResponse<T> execute() throws ApiException;
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+
+        void sleep(long millis) throws InterruptedException;
+    }
+
+    RateLimiter(@NonNull final String app,
+                @NonNull final Clock clock,
+                @NonNull final Sleeper sleeper,
+                @NonNull final Metrics metrics) {
+        this.app = app;
+        this.clock = clock;
+        this.sleeper = sleeper;
+        this.metrics = metrics;
+        for (final TwitterEndpoint endpoint : TwitterEndpoint.values()) {
+            final TokenBucket bucket = new TokenBucket(endpoint.getDefaultLimit(), WINDOW, clock);
+            buckets.put(endpoint, bucket);
+            addMetrics(endpoint, bucket);
+        }
+    }
+
+    /** The rate limiter of the app the bearer token belongs to.  Each caller must {@link #release()} it when done. */
+    static RateLimiter forApp(@NonNull final Password bearerToken) {
+        final String app = Hashing.sha256()
+                                  .hashString(bearerToken.value(), UTF_8)
+                                  .toString()
+                                  .substring(0, 8);
+        synchronized (APP_RATE_LIMITERS) {
+            if (appMetrics == null) {
+                appMetrics = new Metrics(new MetricConfig(),
+                                         List.of(new JmxReporter()),
+                                         Time.SYSTEM,
+                                         new KafkaMetricsContext(JMX_PREFIX));
+            }
+            RateLimiter limiter = APP_RATE_LIMITERS.get(app);
+            if (limiter == null) {
+                limiter = new RateLimiter(app, Clock.systemUTC(), Thread::sleep, appMetrics);
+                APP_RATE_LIMITERS.put(app, limiter);
+            }
+            limiter.users++;
+            return limiter;
+        }
+    }
+
+    /**
+     * Release a limiter got from {@link #forApp(Password)}.  Once its last user releases it, the limiter and its
+     * metrics are removed, along with the JMX reporter when no other app's limiter is left.  The next user of the app
+     * starts with a new limiter, which learns the budgets again from the response headers.
+     */
+    void release() {
+        synchronized (APP_RATE_LIMITERS) {
+            if (users == 0 || --users > 0) {
+                return;
+            }
+            APP_RATE_LIMITERS.remove(app, this);
+            metricNames.forEach(metrics::removeMetric);
+            if (APP_RATE_LIMITERS.isEmpty() && appMetrics != null) {
+                appMetrics.close();
+                appMetrics = null;
+            }
+        }
+    }
+
+    private void addMetrics(final TwitterEndpoint endpoint, final TokenBucket bucket) {
+        final Map<String, String> tags = Map.of("app", app, "endpoint", endpoint.getMetricTag());
+        final BiFunction<String, String, MetricName> name = (n, d) -> {
+            final MetricName metricName = metrics.metricName(n, METRIC_GROUP, d, tags);
+            metricNames.add(metricName);
+            return metricName;
+        };
+        metrics.addMetric(name.apply("rate-limit-limit", "The calls allowed per rate limit window."),
+                          (Gauge<Integer>) (c, now) -> bucket.getLimit());
+        metrics.addMetric(name.apply("rate-limit-remaining", "The calls left until the reset, -1 if unknown."),
+                          (Gauge<Integer>) (c, now) -> bucket.getRemaining());
+        metrics.addMetric(name.apply("rate-limit-reset-ms", "The time until the budget is reset, 0 if unknown."),
+                          (Gauge<Long>) (c, now) -> bucket.getResetInMs());
+        metrics.addMetric(name.apply("rate-limit-tokens", "The tokens available to pace the calls."),
+                          (Gauge<Double>) (c, now) -> bucket.getTokens());
+        metrics.addMetric(name.apply("rate-limit-park-total", "The number of times a call was parked."),
+                          (Gauge<Long>) (c, now) -> bucket.getParkCount());
+        metrics.addMetric(name.apply("rate-limit-park-time-ms-total", "The total time calls were parked."),
+                          (Gauge<Long>) (c, now) -> bucket.getParkedMs());
+        metrics.addMetric(name.apply("rate-limit-throttled-total", "The number of calls rejected with HTTP 429."),
+                          (Gauge<Long>) (c, now) -> bucket.getThrottledCount());
+    }
+
+    /**
+     * Execute the call once the endpoint's budget allows it.  A call that fails with HTTP 429, a server error or a
+     * network error is retried up to the given number of times: after HTTP 429 at the reset time, otherwise after the
+     * backoff of the {@link ReconnectPolicy} for the failure.
+     *
+     * @return the data of the response
+     * @throws ApiException if the call fails, or the thread is interrupted while it is parked
+     */
+    <T> T execute(@NonNull final TwitterEndpoint endpoint, final int retries, @NonNull final ApiCall<T> call)
+          throws ApiException {
+        final TokenBucket bucket = buckets.get(endpoint);
+        for (int attempt = 1; ; attempt++) {
+            acquire(endpoint, bucket);
+            try {
+                final ApiResponse<T> response = call.execute();
+                bucket.update(response.getHeaders());
+                return response.getData();
+            } catch (final ApiException e) {
+                bucket.update(e.getResponseHeaders());
+                if (!isRetriable(e)) {
+                    throw e;
+                }
+                if (e.getCode() == TOO_MANY_REQUESTS) {
+                    bucket.exhaust(clock.millis() + ReconnectPolicy.RATE_LIMIT.backoffMs(attempt));
+                }
+                if (attempt > retries) {
+                    throw e;
+                }
+                if (e.getCode() == TOO_MANY_REQUESTS) {
+                    log.warn("Rate limited by Twitter on {} for app {}, retrying after the reset in {} ms.",
+                             endpoint.getMetricTag(),
+                             app,
+                             bucket.getResetInMs());
+                } else {
+                    final long backoffMs = ReconnectPolicy.forFailure(e)
+                                                          .backoffMs(attempt);
+                    log.warn("Call to Twitter on {} failed, retrying in {} ms.", endpoint.getMetricTag(), backoffMs, e);
+                    sleep(endpoint, backoffMs);
+                }
+            }
+        }
+    }
+
+    /** HTTP 429, server errors and network errors are worth retrying, other client errors are not. */
+    private static boolean isRetriable(final ApiException e) {
+        final int code = e.getCode();
+        if (code == TOO_MANY_REQUESTS || code >= SERVER_ERROR) {
+            return true;
+        }
+        return code == 0 && ExceptionUtils.indexOfType(e, IOException.class) >= 0;
+    }
+
+    private void acquire(final TwitterEndpoint endpoint, final TokenBucket bucket) throws ApiException {
+        for (long waitMs = bucket.tryAcquire(); waitMs > 0; waitMs = bucket.tryAcquire()) {
+            if (waitMs >= LOG_PARK_THRESHOLD_MS) {
+                log.info("The rate limit budget of {} for app {} is used up, waiting {} ms.",
+                         endpoint.getMetricTag(),
+                         app,
+                         waitMs);
+            }
+            bucket.recordPark(waitMs);
+            sleep(endpoint, waitMs);
+        }
+    }
+
+    private void sleep(final TwitterEndpoint endpoint, final long millis) throws ApiException {
+        try {
+            sleeper.sleep(millis);
+        } catch (final InterruptedException e) {
+            Thread.currentThread()
+                  .interrupt();
+            throw new ApiException("Interrupted while waiting to call " + endpoint.getMetricTag());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.twitter.clientlib.ApiException;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How long to wait before reconnecting to the filtered stream, following Twitter's reconnection guidelines for each
+ * class of error.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+enum ReconnectPolicy {
+
+    /** Network errors and stalls: back off linearly by 250 ms, up to 16 seconds. */
+    NETWORK(250, SECONDS.toMillis(16), false),
+
+    /** HTTP errors, and error responses on the stream: back off exponentially from 5 seconds, up to 320 seconds. */
+    HTTP(SECONDS.toMillis(5), SECONDS.toMillis(320), true),
+
+    /** HTTP 429, too many requests: back off exponentially from 1 minute, up to 16 minutes. */
+    RATE_LIMIT(SECONDS.toMillis(60), SECONDS.toMillis(960), true);
+
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final boolean exponential;
+
+    ReconnectPolicy(final long initialDelayMs, final long maxDelayMs, final boolean exponential) {
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.exponential = exponential;
+    }
+
+    /** The policy for the first {@link ApiException} or {@link IOException} in the cause chain. */
+    static ReconnectPolicy forFailure(final Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException) {
+                final int code = ((ApiException) cause).getCode();
+                if (code == TOO_MANY_REQUESTS) {
+                    return RATE_LIMIT;
+                }
+                return code == 0 ? NETWORK : HTTP;
+            }
+            if (cause instanceof IOException) {
+                return NETWORK;
+            }
+        }
+        return HTTP;
+    }
+
+    /** The backoff before the given attempt, starting at 1, without jitter. */
+    long backoffMs(final int attempt) {
+        final int step = Math.max(attempt, 1) - 1;
+        final long delayMs = exponential ? initialDelayMs << Math.min(step, 30) : initialDelayMs * (step + 1);
+        return Math.min(delayMs, maxDelayMs);
+    }
+
+    /**
+     * The backoff before the given attempt, with jitter: a random delay between half and all of the backoff, so that
+     * tasks that were disconnected together do not all reconnect at the same moment.
+     */
+    long delayMs(final int attempt) {
+        final long backoffMs = backoffMs(attempt);
+        return backoffMs / 2 + ThreadLocalRandom.current()
+                                                .nextLong(backoffMs / 2 + 1);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+import org.apache.kafka.common.config.ConfigException;
+
+/**
+ * Compiles the filter keywords into rules.  Each keyword becomes a term of a rule: a phrase is quoted, and a keyword
+ * that uses operators is kept as written, in parentheses when it has more than one clause.  The terms are packed
+ * into the fewest rules that fit the maximum rule length, and each rule is tagged, so the {@code matching_rules} of a
+ * tweet can be mapped back to its group of keywords.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public final class RuleCompiler {
+
+    static final String OR = " OR ";
+
+    private static final char QUOTE = '"';
+    private static final String OPERATOR_PREFIXES = "-#@$(";
+
+    private RuleCompiler() {
+    }
+
+    /** The rule term that matches the keyword. */
+    static String term(@NonNull final String keyword) {
+        final String trimmed = keyword.trim();
+        if (isQuoted(trimmed) || isParenthesised(trimmed)) {
+            return trimmed;
+        }
+        final String[] tokens = trimmed.split("\\s+");
+        if (Arrays.stream(tokens)
+                  .anyMatch(RuleCompiler::isOperator)) {
+            return tokens.length > 1 ? "(" + trimmed + ")" : trimmed;
+        }
+        if (tokens.length > 1 || trimmed.indexOf(QUOTE) >= 0) {
+            return QUOTE + trimmed.replace("\"", "\\\"") + QUOTE;
+        }
+        return trimmed;
+    }
+
+    /** The rule, or search query, that matches any of the keywords. */
+    static String query(@NonNull final List<String> keywords) {
+        return keywords.stream()
+                       .map(RuleCompiler::term)
+                       .collect(joining(OR));
+    }
+
+    private static boolean isQuoted(final String keyword) {
+        return keyword.length() > 1 && keyword.charAt(0) == QUOTE && keyword.charAt(keyword.length() - 1) == QUOTE;
+    }
+
+    private static boolean isParenthesised(final String keyword) {
+        return keyword.startsWith("(") && keyword.endsWith(")");
+    }
+
+    private static boolean isOperator(final String token) {
+        return !token.isEmpty()
+               && (OPERATOR_PREFIXES.indexOf(token.charAt(0)) >= 0 || token.indexOf(':') > 0 || "OR".equals(token));
+    }
+
+    /**
+     * Pack the keywords into the fewest rules no longer than the maximum length, first fit by decreasing length.  The
+     * keywords keep their order within a rule, and the rules are in the order of their first keyword.  Blank keywords,
+     * e.g. from a trailing comma in the keyword list, are skipped.
+     *
+     * @param groupSize the maximum number of keywords in a rule, or 0 for no maximum
+     */
+    public static List<RuleGroup> pack(@NonNull final List<String> allKeywords,
+                                       final int groupSize,
+                                       final int maxLength) {
+        final List<String> keywords = allKeywords.stream()
+                                                 .filter(k -> !k.isBlank())
+                                                 .collect(toList());
+        if (keywords.isEmpty()) {
+            throw new ConfigException("The keyword list " + allKeywords + " has no keywords that are not blank");
+        }
+        final int[] lengths = keywords.stream()
+                                      .mapToInt(k -> term(k).length())
+                                      .toArray();
+        IntStream.range(0, keywords.size())
+                 .filter(i -> lengths[i] > maxLength)
+                 .findFirst()
+                 .ifPresent(i -> {
+                     throw new ConfigException("The keyword '" + keywords.get(i) + "' is longer than the maximum rule "
+                                               + "length of " + maxLength);
+                 });
+
+        final Comparator<Integer> byLength = comparingInt(i -> lengths[i]);
+        final List<List<Integer>> rules = new ArrayList<>();
+        final List<Integer> ruleLengths = new ArrayList<>();
+        IntStream.range(0, keywords.size())
+                 .boxed()
+                 .sorted(byLength.reversed()
+                                 .thenComparing(i -> i))
+                 .forEach(keyword -> {
+                     final int rule = IntStream.range(0, rules.size())
+                                               .filter(r -> groupSize == 0 || rules.get(r)
+                                                                                   .size() < groupSize)
+                                               .filter(r -> ruleLengths.get(r) + OR.length() + lengths[keyword]
+                                                            <= maxLength)
+                                               .findFirst()
+                                               .orElseGet(() -> {
+                                                   rules.add(new ArrayList<>());
+                                                   ruleLengths.add(-OR.length());
+                                                   return rules.size() - 1;
+                                               });
+                     rules.get(rule)
+                          .add(keyword);
+                     ruleLengths.set(rule, ruleLengths.get(rule) + OR.length() + lengths[keyword]);
+                 });
+
+        rules.forEach(r -> r.sort(Comparator.naturalOrder()));
+        rules.sort(comparingInt(r -> r.get(0)));
+        return IntStream.range(0, rules.size())
+                        .mapToObj(r -> new RuleGroup(RuleGroup.TAG_PREFIX + r,
+                                                     rules.get(r)
+                                                          .stream()
+                                                          .map(keywords::get)
+                                                          .collect(toList())))
+                        .collect(toList());
+    }
+
+    /** Check that the rules don't exceed the maximum number of rules of the account. */
+    public static void checkRuleCount(@NonNull final List<RuleGroup> rules, final int maxCount) {
+        if (rules.size() > maxCount) {
+            throw new ConfigException("The keywords need " + rules.size() + " rules, but the account allows only "
+                                      + maxCount + ". Shorten the keyword list, or shard it across more apps.");
+        }
+    }
+}
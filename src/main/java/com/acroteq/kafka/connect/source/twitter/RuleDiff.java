@@ -0,0 +1,79 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+
+import com.twitter.clientlib.model.Rule;
+import com.twitter.clientlib.model.RuleNoId;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * The rules to add and the rules to delete to turn the active rule set into the desired one.  Rules are the same when
+ * both their value and their tag are the same; a rule whose tag changed is deleted and added again.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Getter
+class RuleDiff {
+
+    private final List<RuleNoId> adds;
+    private final List<Rule> deletes;
+
+    private RuleDiff(final List<RuleNoId> adds, final List<Rule> deletes) {
+        this.adds = adds;
+        this.deletes = deletes;
+    }
+
+    static RuleDiff of(@NonNull final List<Rule> activeRules, @NonNull final List<RuleNoId> desiredRules) {
+        final Set<RuleNoId> desired = new LinkedHashSet<>(desiredRules);
+        final Set<RuleNoId> active = activeRules.stream()
+                                                .map(RuleDiff::withoutId)
+                                                .collect(toSet());
+        final List<RuleNoId> adds = desired.stream()
+                                           .filter(r -> !active.contains(r))
+                                           .collect(toList());
+        final List<Rule> deletes = activeRules.stream()
+                                              .filter(r -> !desired.contains(withoutId(r)))
+                                              .collect(toList());
+        return new RuleDiff(adds, deletes);
+    }
+
+    private static RuleNoId withoutId(final Rule rule) {
+        return new RuleNoId().value(rule.getValue())
+                             .tag(rule.getTag());
+    }
+
+    boolean isEmpty() {
+        return adds.isEmpty() && deletes.isEmpty();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import java.util.List;
+import java.util.Objects;
+import lombok.Getter;
+import lombok.NonNull;
+
+/**
+ * A group of keywords that becomes one tagged filter rule.  The tag is returned in the {@code matching_rules} of each
+ * tweet, so the tweets can be mapped back to the group.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Getter
+public class RuleGroup {
+
+    static final String TAG_PREFIX = "group-";
+    private static final String TAG_SEPARATOR = "=";
+
+    @NonNull private final String tag;
+    @NonNull private final List<String> keywords;
+
+    public RuleGroup(@NonNull final String tag, @NonNull final List<String> keywords) {
+        this.tag = tag;
+        this.keywords = List.copyOf(keywords);
+    }
+
+    /** The rule value, matching any of the keywords. */
+    public String getValue() {
+        return RuleCompiler.query(keywords);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final RuleGroup ruleGroup = (RuleGroup) o;
+        return tag.equals(ruleGroup.tag) && keywords.equals(ruleGroup.keywords);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(tag, keywords);
+    }
+
+    @Override
+    public String toString() {
+        return tag + TAG_SEPARATOR + getValue();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * The call budget of one endpoint of one app.  The tokens refill evenly over the rate limit window, so calls are paced
+ * rather than spent in a burst, and the budget Twitter reports in the {@code x-rate-limit-*} response headers caps
+ * them: once it is used up, no token is handed out until the reset time.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+class TokenBucket {
+
+    static final String LIMIT_HEADER = "x-rate-limit-limit";
+    static final String REMAINING_HEADER = "x-rate-limit-remaining";
+    static final String RESET_HEADER = "x-rate-limit-reset";
+
+    private static final int UNKNOWN = -1;
+
+    private final Clock clock;
+    private final long windowMs;
+
+    // guarded by this
+    private int limit;
+    private double tokens;
+    private long refilledAtMs;
+    private int remaining = UNKNOWN;
+    private long resetAtMs;
+
+    private final AtomicLong parkCount = new AtomicLong();
+    private final AtomicLong parkedMs = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    TokenBucket(final int limit, final Duration window, final Clock clock) {
+        this.clock = clock;
+        this.windowMs = window.toMillis();
+        this.limit = limit;
+        this.tokens = limit;
+        this.refilledAtMs = clock.millis();
+    }
+
+    /**
+     * Take a token for a call.
+     *
+     * @return 0 if a token was taken, otherwise how long to wait in ms before trying again.
+     */
+    synchronized long tryAcquire() {
+        final long nowMs = clock.millis();
+        refill(nowMs);
+        if (remaining == 0 && resetAtMs > nowMs) {
+            return resetAtMs - nowMs;
+        }
+        if (tokens < 1) {
+            return (long) Math.ceil((1 - tokens) * windowMs / limit);
+        }
+        tokens--;
+        if (remaining > 0) {
+            remaining--;
+        }
+        return 0;
+    }
+
+    private void refill(final long nowMs) {
+        tokens = Math.min(limit, tokens + (nowMs - refilledAtMs) * (double) limit / windowMs);
+        refilledAtMs = nowMs;
+        if (resetAtMs != 0 && nowMs >= resetAtMs) {
+            remaining = UNKNOWN;
+            resetAtMs = 0;
+        }
+    }
+
+    /** Learn the budget from the {@code x-rate-limit-*} headers of a response, if it has them. */
+    synchronized void update(final Map<String, List<String>> headers) {
+        if (headers == null) {
+            return;
+        }
+        refill(clock.millis());
+        header(headers, LIMIT_HEADER).filter(l -> l > 0)
+                                     .ifPresent(l -> limit = (int) l.longValue());
+        header(headers, RESET_HEADER).ifPresent(r -> resetAtMs = SECONDS.toMillis(r));
+        header(headers, REMAINING_HEADER).ifPresent(r -> {
+            remaining = (int) r.longValue();
+            tokens = Math.min(tokens, remaining);
+        });
+    }
+
+    /**
+     * The call was rejected with HTTP 429: nothing is left until the reset time from the headers, or, if Twitter did
+     * not send one, until the given fallback.
+     */
+    synchronized void exhaust(final long fallbackResetAtMs) {
+        final long nowMs = clock.millis();
+        refill(nowMs);
+        remaining = 0;
+        tokens = 0;
+        if (resetAtMs <= nowMs) {
+            resetAtMs = fallbackResetAtMs;
+        }
+        throttledCount.incrementAndGet();
+    }
+
+    private static Optional<Long> header(final Map<String, List<String>> headers, final String name) {
+        return headers.entrySet()
+                      .stream()
+                      .filter(e -> name.equalsIgnoreCase(e.getKey()))
+                      .map(Map.Entry::getValue)
+                      .filter(v -> v != null && !v.isEmpty())
+                      .map(v -> v.get(0))
+                      .filter(NumberUtils::isDigits)
+                      .map(Long::parseLong)
+                      .findFirst();
+    }
+
+    void recordPark(final long waitMs) {
+        parkCount.incrementAndGet();
+        parkedMs.addAndGet(waitMs);
+    }
+
+    synchronized int getLimit() {
+        return limit;
+    }
+
+    /** The calls left until the reset time, as reported by Twitter, or -1 if unknown. */
+    synchronized int getRemaining() {
+        return remaining;
+    }
+
+    /** The tokens available to pace the calls. */
+    synchronized double getTokens() {
+        refill(clock.millis());
+        return tokens;
+    }
+
+    /** The time in ms until the budget is reset, or 0 if unknown. */
+    synchronized long getResetInMs() {
+        return resetAtMs == 0 ? 0 : Math.max(resetAtMs - clock.millis(), 0);
+    }
+
+    long getParkCount() {
+        return parkCount.get();
+    }
+
+    long getParkedMs() {
+        return parkedMs.get();
+    }
+
+    long getThrottledCount() {
+        return throttledCount.get();
+    }
+}
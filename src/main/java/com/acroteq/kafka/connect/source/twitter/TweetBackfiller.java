@@ -0,0 +1,228 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static com.acroteq.kafka.connect.source.twitter.TwitterEndpoint.RECENT_SEARCH;
+import static java.time.ZoneOffset.UTC;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.joining;
+import static lombok.AccessLevel.PRIVATE;
+
+import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.api.TweetsApi;
+import com.twitter.clientlib.api.TweetsApi.APItweetsRecentSearchRequest;
+import com.twitter.clientlib.model.Get2TweetsSearchAllResponseMeta;
+import com.twitter.clientlib.model.Get2TweetsSearchRecentResponse;
+import com.twitter.clientlib.model.Problem;
+import com.twitter.clientlib.model.Tweet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills the gap between the last committed tweet and the (re)start of the filtered stream, using the recent search
+ * with each of the active filter rules as the query.
+ *
+ * <p>The recent search only reaches back 7 days, and returns the newest tweets first.  When the last committed tweet is
+ * older than that, the gap is filled from the oldest tweet that can still be searched.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@AllArgsConstructor(access = PRIVATE)
+@Slf4j
+class TweetBackfiller {
+
+    static final Duration SEARCH_WINDOW = Duration.ofDays(7);
+    /** The search rejects an end time less than 10 seconds before the request. */
+    static final Duration END_TIME_DELAY = Duration.ofSeconds(10);
+    private static final Duration SEARCH_WINDOW_MARGIN = Duration.ofMinutes(1);
+    private static final int MAX_RESULTS_PER_PAGE = 100;
+    private static final long COMPLETE = -1;
+    private static final long NO_TWEET = 0;
+
+    @NonNull private final TweetsApi tweetsApi;
+
+    @NonNull private final RateLimiter rateLimiter;
+
+    private final Set<String> fields;
+    private final int retries;
+    private final int maxTweets;
+
+    static TweetBackfillerBuilder builder() {
+        return new TweetBackfillerBuilder();
+    }
+
+    /**
+     * Pass every tweet matching any of the queries, newer than the given tweet and created before the end time, to the
+     * consumer.  A tweet that matches several queries is passed once for each.  Stops early after the maximum number
+     * of tweets, on error, or when no longer running, and then logs the range of tweets that was not backfilled.
+     *
+     * @return true if the backfill is complete, false if it stopped early
+     */
+    boolean backfill(@NonNull final List<String> queries,
+                     final long sinceTweetId,
+                     @NonNull final Instant sinceCreatedAt,
+                     @NonNull final Instant endTime,
+                     @NonNull final Consumer<Tweet> consumer,
+                     @NonNull final BooleanSupplier running) {
+        final Instant oldestSearchable = Instant.now()
+                                                .minus(SEARCH_WINDOW)
+                                                .plus(SEARCH_WINDOW_MARGIN);
+        final boolean gapTooOld = sinceCreatedAt.isBefore(oldestSearchable);
+        if (gapTooOld) {
+            log.warn("The last committed tweet {} was created at {}, before the reach of the recent search.  Tweets "
+                           + "created before {} are lost.", sinceTweetId, sinceCreatedAt, oldestSearchable);
+        }
+
+        final AtomicLong count = new AtomicLong();
+        for (int i = 0; i < queries.size(); i++) {
+            final String query = queries.get(i);
+            log.info("Backfilling tweets since {} until {}, filtering for: {}", sinceTweetId, endTime, query);
+            final Instant startTime = gapTooOld ? oldestSearchable : null;
+            final long oldestTweetId = backfill(query, sinceTweetId, startTime, endTime, consumer, running, count);
+            if (oldestTweetId != COMPLETE) {
+                // newest first, so it is the oldest part of the gap that is missing
+                log.warn("Backfill stopped after {} tweets.  The tweets after {} and before {} matching '{}' are not "
+                               + "backfilled, nor are those of the {} remaining queries.",
+                         count.get(),
+                         sinceTweetId,
+                         oldestTweetId == NO_TWEET ? "the stream was connected at " + endTime : oldestTweetId,
+                         query,
+                         queries.size() - i - 1);
+                return false;
+            }
+        }
+
+        log.info("Backfill complete, {} tweets.", count.get());
+        return true;
+    }
+
+    /** @return {@link #COMPLETE}, or the ID of the oldest tweet passed on if the backfill stopped early */
+    private long backfill(final String query,
+                          final long sinceTweetId,
+                          final Instant startTime,
+                          final Instant endTime,
+                          final Consumer<Tweet> consumer,
+                          final BooleanSupplier running,
+                          final AtomicLong count) {
+        long oldestTweetId = NO_TWEET;
+        String nextToken = null;
+        do {
+            final APItweetsRecentSearchRequest request = tweetsApi.tweetsRecentSearch(query)
+                                                                  .endTime(endTime.atOffset(UTC))
+                                                                  .maxResults(MAX_RESULTS_PER_PAGE)
+                                                                  .nextToken(nextToken);
+            if (startTime != null) {
+                request.startTime(startTime.atOffset(UTC));
+            } else {
+                request.sinceId(Long.toString(sinceTweetId));
+            }
+            if (!fields.isEmpty()) {
+                request.tweetFields(fields);
+            }
+
+            final Get2TweetsSearchRecentResponse response;
+            try {
+                response = rateLimiter.execute(RECENT_SEARCH, retries, request::executeWithHttpInfo);
+            } catch (final ApiException e) {
+                log.error("Error while calling tweetsApi.tweetsRecentSearch(): {} {}", e.getCode(), e.getMessage());
+                return oldestTweetId;
+            }
+            logErrors(response);
+
+            final List<Tweet> tweets = Optional.ofNullable(response)
+                                               .map(Get2TweetsSearchRecentResponse::getData)
+                                               .orElse(emptyList());
+            for (final Tweet tweet : tweets) {
+                if (count.get() >= maxTweets || !running.getAsBoolean()) {
+                    return oldestTweetId;
+                }
+                consumer.accept(tweet);
+                count.incrementAndGet();
+                oldestTweetId = Long.parseLong(tweet.getId());
+            }
+            nextToken = Optional.ofNullable(response)
+                                .map(Get2TweetsSearchRecentResponse::getMeta)
+                                .map(Get2TweetsSearchAllResponseMeta::getNextToken)
+                                .orElse(null);
+        } while (nextToken != null && running.getAsBoolean());
+        return nextToken == null ? COMPLETE : oldestTweetId;
+    }
+
+    private void logErrors(final Get2TweetsSearchRecentResponse response) {
+        final List<Problem> errors = Optional.ofNullable(response)
+                                             .map(Get2TweetsSearchRecentResponse::getErrors)
+                                             .orElse(emptyList());
+        if (!errors.isEmpty()) {
+            log.warn("Received error response from tweetsApi.tweetsRecentSearch(): {}",
+                     errors.stream()
+                           .map(Problem::getDetail)
+                           .collect(joining(", ")));
+        }
+    }
+
+    public static class TweetBackfillerBuilder {
+
+        private TweetsApi tweetsApi;
+        private RateLimiter rateLimiter;
+        private Set<String> fields;
+        private int retries;
+        private int maxTweets;
+
+        private TweetBackfillerBuilder() {
+        }
+
+        TweetBackfillerBuilder tweetsApi(final TweetsApi tweetsApi) {
+            this.tweetsApi = tweetsApi;
+            return this;
+        }
+
+        TweetBackfillerBuilder rateLimiter(final RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        public TweetBackfillerBuilder config(final TwitterConfig config) {
+            fields = config.getFields();
+            retries = config.getRetries();
+            maxTweets = config.getBackfillMaxTweets();
+            return this;
+        }
+
+        public TweetBackfiller build() {
+            return new TweetBackfiller(tweetsApi, rateLimiter, fields, retries, maxTweets);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.joining;
+
+import com.google.gson.Gson;
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import com.twitter.clientlib.model.Problem;
+import com.twitter.clientlib.model.Tweet;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Parses one line of the filtered stream into the Twitter SDK model.
+ *
+ * <p>An instance reuses its decode buffer between calls, so it must not be shared between threads.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+public class TweetJsonParser {
+
+    private static final int INITIAL_LINE_LENGTH = 8 * 1024;
+
+    private byte[] lineBytes = new byte[INITIAL_LINE_LENGTH];
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    public TweetJsonParser() {
+        // the SDK only initialises its GSON when the first API client is created, which may not have happened yet
+        if (JSON.getGson() == null) {
+            new JSON();
+        }
+    }
+
+    /**
+     * Parse the UTF-8 bytes between the position and the limit of the buffer.
+     *
+     * @return the tweet, or {@code null} if the response has no {@code data}.
+     * @throws RuntimeException if the JSON is malformed or is an error response.
+     */
+    @Nullable
+    public Tweet parse(@NonNull final ByteBuffer line) {
+        return parseResponse(line).getData();
+    }
+
+    /**
+     * Parse the UTF-8 bytes between the position and the limit of the buffer into the whole response, including the
+     * users, media and places that the expansions add.
+     *
+     * @throws RuntimeException if the JSON is malformed or is an error response.
+     */
+    @NonNull
+    public FilteredStreamingTweetResponse parseResponse(@NonNull final ByteBuffer line) {
+        final Gson gson = JSON.getGson();
+        final FilteredStreamingTweetResponse response = gson.fromJson(decode(line),
+                                                                      FilteredStreamingTweetResponse.class);
+        checkResponseForErrors(response);
+        return response;
+    }
+
+    /** Copying into a reused array and decoding with the String constructor is much cheaper than Charset.decode(). */
+    private String decode(final ByteBuffer line) {
+        final int length = line.remaining();
+        if (lineBytes.length < length) {
+            lineBytes = new byte[Math.max(length, lineBytes.length * 2)];
+        }
+        line.get(lineBytes, 0, length);
+        return new String(lineBytes, 0, length, UTF_8);
+    }
+
+    private void checkResponseForErrors(@NonNull final FilteredStreamingTweetResponse response) {
+        final List<Problem> errors = Optional.of(response)
+                                             .map(FilteredStreamingTweetResponse::getErrors)
+                                             .orElse(emptyList());
+        if (!errors.isEmpty()) {
+            logErrorsAndThrowTwitterException(errors);
+        }
+    }
+
+    private void logErrorsAndThrowTwitterException(@NonNull final List<Problem> errors) {
+        final String errorSummary = errors.stream()
+                                          .map(Problem::toString)
+                                          .collect(joining(", "));
+
+        errors.stream()
+              .map(Problem::toString)
+              .forEach(e -> log.warn("Received error response from tweetsApi.searchStream(): {}", e));
+
+        throw new TwitterException("Error while processing tweet" + ":  \n" + errorSummary);
+    }
+}
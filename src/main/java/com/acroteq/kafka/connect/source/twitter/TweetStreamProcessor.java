@@ -26,25 +26,23 @@
  */
 package com.acroteq.kafka.connect.source.twitter;
 
-import static java.util.Collections.emptyList;
+import static com.acroteq.kafka.connect.source.twitter.TwitterEndpoint.SEARCH_STREAM;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
-import static java.util.stream.Collectors.joining;
-import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
+import com.acroteq.kafka.connect.source.util.LogSampler;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
-import com.google.gson.Gson;
 import com.twitter.clientlib.ApiException;
-import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.ApiResponse;
 import com.twitter.clientlib.api.TweetsApi;
 import com.twitter.clientlib.api.TweetsApi.APIsearchStreamRequest;
-import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
-import com.twitter.clientlib.model.Problem;
 import com.twitter.clientlib.model.Tweet;
-import java.io.BufferedReader;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -54,22 +52,26 @@ import java.util.function.Consumer;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.StringUtils;
 
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
 @Slf4j
 class TweetStreamProcessor implements AutoCloseable {
 
     private static final long SHUTDOWN_TIMEOUT_MS = 5000;
-
-    private static final Gson GSON = JSON.getGson();
+    private static final int HTTP_OK = 200;
 
     private final TweetsApi tweetsApi;
+    private final RateLimiter rateLimiter;
     private final TwitterConfig config;
     private final ExecutorService streamExecutor;
 
-    private BufferedReader tweetStreamReader;
+    private volatile LineFramer lineFramer;
     private final Consumer<Tweet> consumer;
+    private final Consumer<ByteBuffer> lineConsumer;
+    private final Consumer<Throwable> disconnectListener;
+    private final TweetJsonParser tweetJsonParser = new TweetJsonParser();
+    // only used by the stream thread
+    private final LogSampler rawJsonSampler;
 
     private final AtomicBoolean running = new AtomicBoolean(false);
 
@@ -80,11 +82,19 @@ class TweetStreamProcessor implements AutoCloseable {
 
     /** Constructor. */
     private TweetStreamProcessor(final TweetsApi tweetsApi,
+                                 @NonNull final RateLimiter rateLimiter,
                                  final TwitterConfig config,
-                                 final Consumer<Tweet> consumer) {
+                                 final Consumer<Tweet> consumer,
+                                 final Consumer<ByteBuffer> lineConsumer,
+                                 final Consumer<Throwable> disconnectListener) {
         this.tweetsApi = tweetsApi;
+        this.rateLimiter = rateLimiter;
         this.config = config;
         this.consumer = consumer;
+        this.lineConsumer = Optional.ofNullable(lineConsumer)
+                                    .orElse(this::parseTweet);
+        this.disconnectListener = disconnectListener;
+        rawJsonSampler = new LogSampler(config.getRawJsonSampleRatio());
 
         final ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("twitter-thread-%d")
                                                                       .build();
@@ -100,12 +110,33 @@ class TweetStreamProcessor implements AutoCloseable {
                     .map(TwitterConfig::getFields)
                     .filter(ObjectUtils::isNotEmpty)
                     .ifPresent(builder::tweetFields);
+            // the users, media and places the expansions add are returned in the includes of each response
+            Optional.of(config)
+                    .map(TwitterConfig::getExpansions)
+                    .filter(ObjectUtils::isNotEmpty)
+                    .ifPresent(builder::expansions);
+            Optional.of(config)
+                    .map(TwitterConfig::getUserFields)
+                    .filter(ObjectUtils::isNotEmpty)
+                    .ifPresent(builder::userFields);
+            Optional.of(config)
+                    .map(TwitterConfig::getMediaFields)
+                    .filter(ObjectUtils::isNotEmpty)
+                    .ifPresent(builder::mediaFields);
+            Optional.of(config)
+                    .map(TwitterConfig::getPlaceFields)
+                    .filter(ObjectUtils::isNotEmpty)
+                    .ifPresent(builder::placeFields);
 
             log.info("Starting the tweet streamer.");
             final int retries = config.getRetries();
-            final InputStream inputStream = builder.execute(retries);
-            final InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-            tweetStreamReader = new BufferedReader(inputStreamReader);
+            // the stream's response headers are not passed on by the SDK, only those of a rejected connection
+            final InputStream inputStream = rateLimiter.execute(SEARCH_STREAM,
+                                                                retries,
+                                                                () -> new ApiResponse<>(HTTP_OK,
+                                                                                        Map.of(),
+                                                                                        builder.executeWithHttpInfo()));
+            lineFramer = new LineFramer(Channels.newChannel(inputStream));
             streamExecutor.submit(this::processTweets);
         } catch (final ApiException e) {
             throw new TwitterException("Error while calling tweetApi.searchStream()", e);
@@ -114,61 +145,58 @@ class TweetStreamProcessor implements AutoCloseable {
 
     /** Process the incoming tweets that we get through the input stream. */
     private void processTweets() {
+        final LineFramer framer = lineFramer;
         try {
             running.set(true);
-            tweetStreamReader.lines()
-                             .filter(t -> isRunning())
-                             .forEach(this::processTweet);
-        } catch (final RuntimeException e) {
+            framer.readLines(this::processTweet, running::get);
+            if (running.get() && disconnectListener != null) {
+                disconnect(new EOFException("The tweet stream was closed by Twitter"));
+            }
+        } catch (final IOException | RuntimeException e) {
             if (running.get()) {
                 log.error("Error while trying to process a tweet", e);
-                close();
+                if (disconnectListener != null) {
+                    disconnect(e);
+                } else {
+                    close();
+                }
+            }
+        } finally {
+            if (!running.get()) {
+                closeQuietly(framer);
             }
         }
     }
 
-    private void processTweet(final String json) {
-        logTweetJson(json);
-        final Optional<FilteredStreamingTweetResponse> tweet = Optional.of(json)
-                                                                       .filter(StringUtils::isNotBlank)
-                                                                       .map(this::convertJsonToResponse);
-
-        tweet.ifPresent(this::checkResponseForErrors);
-        tweet.map(FilteredStreamingTweetResponse::getData)
-             .ifPresent(consumer);
-    }
-
-    private void logTweetJson(final String json) {
-        if (isNotBlank(json)) {
-            log.trace("Tweet stream processor received json: {}", json);
-        } else {
-            log.warn("Empty line received.");
-        }
+    /**
+     * Close the stream from the stream thread itself, without waiting for the executor to terminate, as it is this
+     * thread, and tell the listener why.
+     */
+    private void disconnect(final Throwable cause) {
+        running.set(false);
+        closeLineFramer();
+        streamExecutor.shutdown();
+        disconnectListener.accept(cause);
     }
 
-    private void checkResponseForErrors(@NonNull final FilteredStreamingTweetResponse response) {
-        final List<Problem> errors = Optional.of(response)
-                                             .map(FilteredStreamingTweetResponse::getErrors)
-                                             .orElse(emptyList());
-        if (!errors.isEmpty()) {
-            logErrorsAndThrowTwitterException(errors);
-        }
+    /** Keep-alives have already been dropped by the {@link LineFramer}. */
+    private void processTweet(final ByteBuffer line) {
+        logTweetJson(line);
+        lineConsumer.accept(line);
     }
 
-    private FilteredStreamingTweetResponse convertJsonToResponse(final String tweet) {
-        return GSON.fromJson(tweet, FilteredStreamingTweetResponse.class);
+    private void parseTweet(final ByteBuffer line) {
+        Optional.ofNullable(tweetJsonParser.parse(line))
+                .ifPresent(consumer);
     }
 
-    private void logErrorsAndThrowTwitterException(@NonNull final List<Problem> errors) {
-        final String errorSummary = errors.stream()
-                                          .map(Problem::toString)
-                                          .collect(joining(", "));
-
-        errors.stream()
-              .map(Problem::toString)
-              .forEach(e -> log.warn("Received error response from tweetsApi.searchStream(): {}", e));
-
-        throw new TwitterException("Error while processing tweet" + ":  \n" + errorSummary);
+    /** Log the sampled lines, without decoding the others. */
+    private void logTweetJson(final ByteBuffer line) {
+        if (log.isDebugEnabled() && rawJsonSampler.sample()) {
+            log.debug("Tweet stream processor received json: {}",
+                      UTF_8.decode(line.duplicate())
+                           .toString());
+        }
     }
 
     /**
@@ -178,21 +206,31 @@ class TweetStreamProcessor implements AutoCloseable {
     @Override
     public void close() {
         running.set(false);
-        closeTweetReader();
+        closeLineFramer();
         shutDownExecutor();
     }
 
-    private void closeTweetReader() {
+    private void closeLineFramer() {
+        final LineFramer framer = lineFramer;
+        lineFramer = null;
+        if (framer != null) {
+            log.info("Closing the tweet stream after {} tweets and {} keep-alives.",
+                     framer.getLineCount(),
+                     framer.getKeepAliveCount());
+            closeQuietly(framer);
+        }
+    }
+
+    private static void closeQuietly(final LineFramer framer) {
         try {
-            if (tweetStreamReader != null) {
-                log.info("Closing the tweetStreamReader.");
-                tweetStreamReader.close();
-                tweetStreamReader = null;
-            }
+            framer.close();
         } catch (final IOException e) {
-            log.warn("Error while closing tweetStreamReader", e);
+            log.warn("Error while closing the tweet stream", e);
+        } catch (final IllegalStateException e) {
+            // okio refuses to close a response body that the stream thread is blocked reading; the stream thread
+            // stops at the next line or keep-alive, as it is no longer running, and closes the stream itself
+            log.debug("The tweet stream is being read, leaving it to the stream thread to close: {}", e.getMessage());
         }
-
     }
 
     private void shutDownExecutor() {
@@ -222,14 +260,26 @@ class TweetStreamProcessor implements AutoCloseable {
         return running.get() || !streamExecutor.isTerminated();
     }
 
+    /** The {@link System#nanoTime()} when data, tweets or keep-alives, last arrived on the stream. */
+    long getLastActivityNanos() {
+        final LineFramer framer = lineFramer;
+        return framer == null ? System.nanoTime() : framer.getLastReadNanos();
+    }
+
     public static class TweetStreamProcessorFactory {
 
         private TweetsApi tweetsApi;
 
+        private RateLimiter rateLimiter;
+
         private TwitterConfig config;
 
         private Consumer<Tweet> consumer;
 
+        private Consumer<ByteBuffer> lineConsumer;
+
+        private Consumer<Throwable> disconnectListener;
+
         private TweetStreamProcessorFactory() {
         }
 
@@ -238,6 +288,11 @@ class TweetStreamProcessor implements AutoCloseable {
             return this;
         }
 
+        TweetStreamProcessorFactory rateLimiter(final RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
         public TweetStreamProcessorFactory config(final TwitterConfig config) {
             this.config = config;
             return this;
@@ -248,8 +303,26 @@ class TweetStreamProcessor implements AutoCloseable {
             return this;
         }
 
+        /**
+         * Receive the UTF-8 bytes of each non-blank line instead of the parsed {@link Tweet}.  The buffer is reused
+         * for the next line as soon as the consumer returns.
+         */
+        TweetStreamProcessorFactory lineConsumer(final Consumer<ByteBuffer> lineConsumer) {
+            this.lineConsumer = lineConsumer;
+            return this;
+        }
+
+        /**
+         * Called on the stream thread when the stream fails or ends while it is running, after the processor has
+         * closed itself.  Without a listener, the processor only closes itself when the stream fails.
+         */
+        TweetStreamProcessorFactory disconnectListener(final Consumer<Throwable> disconnectListener) {
+            this.disconnectListener = disconnectListener;
+            return this;
+        }
+
         public TweetStreamProcessor start() {
-            return new TweetStreamProcessor(tweetsApi, config, consumer);
+            return new TweetStreamProcessor(tweetsApi, rateLimiter, config, consumer, lineConsumer, disconnectListener);
         }
     }
 }
@@ -0,0 +1,232 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a {@link TweetStreamProcessor} connected.
+ *
+ * <p>When the stream fails or ends, or when nothing, not even a keep-alive, has arrived for longer than the stall
+ * timeout, the processor is closed and a new one is connected after the backoff of the {@link ReconnectPolicy} for
+ * that kind of failure.  The backoff grows with each failed attempt and is reset by a successful connection.
+ *
+ * <p>All reconnects run on the supervisor thread.  The first connection is made by the constructor, so a task that
+ * cannot connect at all still fails at start up.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+class TweetStreamSupervisor implements AutoCloseable {
+
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+    private static final long MAX_STALL_CHECK_INTERVAL_MS = 1000;
+
+    private final Function<Consumer<Throwable>, TweetStreamProcessor> connector;
+    private final long stallTimeoutNanos;
+    private final Backoff backoff;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile TweetStreamProcessor processor;
+    private volatile boolean stopped;
+
+    // only accessed by the supervisor thread, after the first connection
+    private ReconnectPolicy policy;
+    private int attempt;
+    private long disconnectedAtNanos;
+
+    private final AtomicLong reconnectCount = new AtomicLong();
+    private final AtomicLong downtimeNanos = new AtomicLong();
+
+    /** How long to wait before a reconnect attempt under the given policy. */
+    @FunctionalInterface
+    interface Backoff {
+
+        long delayMs(ReconnectPolicy policy, int attempt);
+    }
+
+    /**
+     * @param connector      starts a processor that reports its disconnect to the given listener
+     * @param stallTimeoutMs how long the stream may be silent before it is reconnected
+     */
+    TweetStreamSupervisor(final Function<Consumer<Throwable>, TweetStreamProcessor> connector,
+                          final long stallTimeoutMs) {
+        this(connector, stallTimeoutMs, ReconnectPolicy::delayMs);
+    }
+
+    /**
+     * @param connector      starts a processor that reports its disconnect to the given listener
+     * @param stallTimeoutMs how long the stream may be silent before it is reconnected
+     * @param backoff        the delay before each reconnect attempt
+     */
+    TweetStreamSupervisor(final Function<Consumer<Throwable>, TweetStreamProcessor> connector,
+                          final long stallTimeoutMs,
+                          final Backoff backoff) {
+        this.connector = connector;
+        this.stallTimeoutNanos = MILLISECONDS.toNanos(stallTimeoutMs);
+        this.backoff = backoff;
+
+        scheduler = newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("twitter-supervisor-%d")
+                                                                               .setDaemon(true)
+                                                                               .build());
+        processor = connect();
+
+        final long checkIntervalMs = Math.max(Math.min(stallTimeoutMs / 2, MAX_STALL_CHECK_INTERVAL_MS), 1);
+        scheduler.scheduleWithFixedDelay(this::checkForStall, checkIntervalMs, checkIntervalMs, MILLISECONDS);
+    }
+
+    private TweetStreamProcessor connect() {
+        return connector.apply(this::onDisconnect);
+    }
+
+    /** Called on the stream thread of the processor that disconnected. */
+    private void onDisconnect(final Throwable cause) {
+        try {
+            scheduler.execute(() -> disconnected(cause));
+        } catch (final RejectedExecutionException e) {
+            log.debug("Tweet stream supervisor is closed, not reconnecting.");
+        }
+    }
+
+    private void checkForStall() {
+        final TweetStreamProcessor current = processor;
+        if (stopped || current == null) {
+            return;
+        }
+        final long silentNanos = System.nanoTime() - current.getLastActivityNanos();
+        if (silentNanos > stallTimeoutNanos) {
+            log.warn("Nothing received on the tweet stream for {} ms, not even a keep-alive.  Reconnecting.",
+                     NANOSECONDS.toMillis(silentNanos));
+            current.close();
+            disconnected(new StallException(NANOSECONDS.toMillis(silentNanos)));
+        }
+    }
+
+    private void disconnected(final Throwable cause) {
+        if (stopped || processor == null) {
+            return;
+        }
+        processor = null;
+        disconnectedAtNanos = System.nanoTime();
+        scheduleReconnect(cause);
+    }
+
+    private void scheduleReconnect(final Throwable cause) {
+        final ReconnectPolicy failurePolicy = ReconnectPolicy.forFailure(cause);
+        if (failurePolicy != policy) {
+            policy = failurePolicy;
+            attempt = 0;
+        }
+        attempt++;
+        final long delayMs = backoff.delayMs(policy, attempt);
+        log.warn("Tweet stream disconnected: {}.  Reconnect attempt {} in {} ms ({} policy).",
+                 cause.toString(),
+                 attempt,
+                 delayMs,
+                 policy);
+        scheduler.schedule(this::reconnect, delayMs, MILLISECONDS);
+    }
+
+    private void reconnect() {
+        if (stopped) {
+            return;
+        }
+        try {
+            processor = connect();
+        } catch (final RuntimeException e) {
+            scheduleReconnect(e);
+            return;
+        }
+
+        final long downtime = System.nanoTime() - disconnectedAtNanos;
+        reconnectCount.incrementAndGet();
+        downtimeNanos.addAndGet(downtime);
+        policy = null;
+        attempt = 0;
+        log.info("Tweet stream reconnected after {} ms.  {} reconnects with {} ms downtime in total.",
+                 NANOSECONDS.toMillis(downtime),
+                 reconnectCount.get(),
+                 NANOSECONDS.toMillis(downtimeNanos.get()));
+    }
+
+    /** True until the supervisor is closed, including while it waits to reconnect. */
+    boolean isRunning() {
+        if (stopped) {
+            final TweetStreamProcessor current = processor;
+            return current != null && current.isRunning();
+        }
+        return true;
+    }
+
+    /** The number of successful reconnects. */
+    long getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    /** The total time in ms from a disconnect being detected to the stream being reconnected. */
+    long getDowntimeMs() {
+        return NANOSECONDS.toMillis(downtimeNanos.get());
+    }
+
+    @Override
+    public void close() {
+        stopped = true;
+        scheduler.shutdownNow();
+        final TweetStreamProcessor current = processor;
+        if (current != null) {
+            current.close();
+        }
+        try {
+            if (!scheduler.awaitTermination(SHUTDOWN_TIMEOUT_MS, MILLISECONDS)) {
+                log.warn("Tweet stream supervisor did not terminate within {} ms.", SHUTDOWN_TIMEOUT_MS);
+            }
+        } catch (final InterruptedException e) {
+            log.warn("Interrupted while awaiting termination of the tweet stream supervisor.");
+            Thread.currentThread()
+                  .interrupt();
+        }
+    }
+
+    /** Nothing arrived on the stream for longer than the stall timeout. */
+    static class StallException extends IOException {
+
+        StallException(final long silentMs) {
+            super("Nothing received for " + silentMs + " ms");
+        }
+    }
+}
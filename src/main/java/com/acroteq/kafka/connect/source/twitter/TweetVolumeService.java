@@ -0,0 +1,149 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static com.acroteq.kafka.connect.source.twitter.TwitterApiFactory.newTwitterApi;
+import static com.acroteq.kafka.connect.source.twitter.TwitterEndpoint.RECENT_COUNTS;
+import static lombok.AccessLevel.PRIVATE;
+
+import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.api.TweetsApi;
+import com.twitter.clientlib.model.Get2TweetsCountsRecentResponse;
+import com.twitter.clientlib.model.SearchCount;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.AllArgsConstructor;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.config.types.Password;
+
+/**
+ * Looks up how many tweets a rule group matched recently, to balance the groups across tasks.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@AllArgsConstructor(access = PRIVATE)
+@Slf4j
+public class TweetVolumeService implements AutoCloseable {
+
+    private static final String GRANULARITY = "day";
+
+    @NonNull private final TweetsApi tweetsApi;
+
+    @NonNull private final RateLimiter rateLimiter;
+
+    /** True if the rate limiter was got for the app, rather than given to the builder, and is released on close. */
+    private final boolean ownsRateLimiter;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final int retries;
+
+    public static TweetVolumeServiceBuilder builder() {
+        return new TweetVolumeServiceBuilder();
+    }
+
+    /** The number of tweets that matched the rule group over the reach of the recent search, i.e. 7 days. */
+    public long countRecent(@NonNull final RuleGroup ruleGroup) {
+        try {
+            final Get2TweetsCountsRecentResponse response =
+                  rateLimiter.execute(RECENT_COUNTS,
+                                      retries,
+                                      tweetsApi.tweetCountsRecentSearch(ruleGroup.getValue())
+                                               .granularity(GRANULARITY)::executeWithHttpInfo);
+            final long count = Optional.ofNullable(response)
+                                       .map(Get2TweetsCountsRecentResponse::getData)
+                                       .stream()
+                                       .flatMap(List::stream)
+                                       .map(SearchCount::getTweetCount)
+                                       .mapToLong(Integer::longValue)
+                                       .sum();
+            log.info("Rule group {} matched {} tweets in the last 7 days.", ruleGroup.getTag(), count);
+            return count;
+        } catch (final ApiException e) {
+            throw new TwitterException("Error while calling tweetsApi.tweetCountsRecentSearch()", e);
+        }
+    }
+
+    /** Releases the rate limiter of the app, unless it was given to the builder. */
+    @Override
+    public void close() {
+        if (ownsRateLimiter && closed.compareAndSet(false, true)) {
+            rateLimiter.release();
+        }
+    }
+
+    public static class TweetVolumeServiceBuilder {
+
+        private TweetsApi tweetsApi;
+        private Password bearerToken;
+        private String baseUrl;
+        private RateLimiter rateLimiter;
+        private int retries;
+
+        private TweetVolumeServiceBuilder() {
+        }
+
+        TweetVolumeServiceBuilder tweetsApi(final TweetsApi tweetsApi) {
+            this.tweetsApi = tweetsApi;
+            return this;
+        }
+
+        public TweetVolumeServiceBuilder bearerToken(final Password bearerToken) {
+            this.bearerToken = bearerToken;
+            return this;
+        }
+
+        /** Only set to call a stub of the Twitter API. */
+        public TweetVolumeServiceBuilder baseUrl(final String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        TweetVolumeServiceBuilder rateLimiter(final RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        public TweetVolumeServiceBuilder retries(final int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        public TweetVolumeService build() {
+            final TweetsApi api = Optional.ofNullable(tweetsApi)
+                                          .orElseGet(() -> newTwitterApi().bearerToken(bearerToken)
+                                                                          .baseUrl(baseUrl)
+                                                                          .build()
+                                                                          .tweets());
+            final RateLimiter limiter = Optional.ofNullable(rateLimiter)
+                                                .orElseGet(() -> RateLimiter.forApp(bearerToken));
+            return new TweetVolumeService(api, limiter, rateLimiter == null, retries);
+        }
+    }
+}
@@ -43,13 +43,26 @@ public final class TwitterApiFactory {
 
         private TwitterCredentialsBearer credentials;
 
+        private String baseUrl;
+
         public TwitterApiBuilder bearerToken(final Password bearerToken) {
             credentials = new TwitterCredentialsBearer(bearerToken.value());
             return this;
         }
 
+        /** Only set to call a stub of the Twitter API. */
+        public TwitterApiBuilder baseUrl(final String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
         public TwitterApi build() {
-            return new TwitterApi(credentials);
+            final TwitterApi twitterApi = new TwitterApi(credentials);
+            if (baseUrl != null) {
+                twitterApi.getApiClient()
+                          .setBasePath(baseUrl);
+            }
+            return twitterApi;
         }
     }
 }
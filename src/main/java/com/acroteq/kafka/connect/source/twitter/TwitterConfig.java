@@ -26,17 +26,25 @@
  */
 package com.acroteq.kafka.connect.source.twitter;
 
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.LOG_RAW_JSON_SAMPLE_RATIO_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.LOG_RAW_JSON_SAMPLE_RATIO_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_MAX_TWEETS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_MAX_TWEETS_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BASE_URL_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BASE_URL_DEFAULT;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BEARER_TOKEN_CONF;
-import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_FILTER_KEYWORDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_EXPANSIONS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_MEDIA_FIELDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PLACE_FIELDS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RETRIES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_STALL_TIMEOUT_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_STALL_TIMEOUT_MS_DEFAULT;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_TWEET_FIELDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_USER_FIELDS_CONF;
 import static java.lang.Integer.parseInt;
-import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -54,28 +62,80 @@ public class TwitterConfig {
     @NonNull Password bearerToken;
 
     @Builder.Default
-    @NonNull List<String> filterKeywords = new ArrayList<>();
+    @NonNull Set<String> fields = new HashSet<>();
 
     @Builder.Default
-    @NonNull Set<String> fields = new HashSet<>();
+    @NonNull Set<String> expansions = new HashSet<>();
+
+    @Builder.Default
+    @NonNull Set<String> userFields = new HashSet<>();
+
+    @Builder.Default
+    @NonNull Set<String> mediaFields = new HashSet<>();
+
+    @Builder.Default
+    @NonNull Set<String> placeFields = new HashSet<>();
 
     @Builder.Default int retries = 10;
 
+    @Builder.Default
+    @NonNull String baseUrl = TWITTER_BASE_URL_DEFAULT;
+
+    @Builder.Default int stallTimeoutMs = TWITTER_STALL_TIMEOUT_MS_DEFAULT;
+
+    @Builder.Default int backfillMaxTweets = TWITTER_BACKFILL_MAX_TWEETS_DEFAULT;
+
+    @Builder.Default double rawJsonSampleRatio = LOG_RAW_JSON_SAMPLE_RATIO_DEFAULT;
+
     public static TwitterConfig fromSettingsMap(final Map<String, String> settings) {
         final TwitterConfigBuilder builder = TwitterConfig.builder();
         builder.bearerToken(new Password(settings.get(TWITTER_BEARER_TOKEN_CONF)));
         builder.retries(parseInt(settings.get(TWITTER_RETRIES_CONF)));
 
         Optional.of(settings)
-                .map(s -> s.get(TWITTER_FILTER_KEYWORDS_CONF))
-                .map(TwitterConfig::getListOfString)
-                .ifPresent(builder::filterKeywords);
+                .map(s -> s.get(TWITTER_BASE_URL_CONF))
+                .ifPresent(builder::baseUrl);
+
+        Optional.of(settings)
+                .map(s -> s.get(TWITTER_STALL_TIMEOUT_MS_CONF))
+                .map(Integer::parseInt)
+                .ifPresent(builder::stallTimeoutMs);
+
+        Optional.of(settings)
+                .map(s -> s.get(TWITTER_BACKFILL_MAX_TWEETS_CONF))
+                .map(Integer::parseInt)
+                .ifPresent(builder::backfillMaxTweets);
+
+        Optional.of(settings)
+                .map(s -> s.get(LOG_RAW_JSON_SAMPLE_RATIO_CONF))
+                .map(Double::parseDouble)
+                .ifPresent(builder::rawJsonSampleRatio);
 
         Optional.of(settings)
                 .map(s -> s.get(TWITTER_TWEET_FIELDS_CONF))
                 .map(TwitterConfig::getSetOfString)
                 .ifPresent(builder::fields);
 
+        Optional.of(settings)
+                .map(s -> s.get(TWITTER_EXPANSIONS_CONF))
+                .map(TwitterConfig::getSetOfString)
+                .ifPresent(builder::expansions);
+
+        Optional.of(settings)
+                .map(s -> s.get(TWITTER_USER_FIELDS_CONF))
+                .map(TwitterConfig::getSetOfString)
+                .ifPresent(builder::userFields);
+
+        Optional.of(settings)
+                .map(s -> s.get(TWITTER_MEDIA_FIELDS_CONF))
+                .map(TwitterConfig::getSetOfString)
+                .ifPresent(builder::mediaFields);
+
+        Optional.of(settings)
+                .map(s -> s.get(TWITTER_PLACE_FIELDS_CONF))
+                .map(TwitterConfig::getSetOfString)
+                .ifPresent(builder::placeFields);
+
         return builder.build();
     }
 
@@ -85,11 +145,8 @@ public class TwitterConfig {
                        .map(s -> s.split(","))
                        .stream()
                        .flatMap(Stream::of)
-                       .map(String::trim);
-    }
-
-    private static List<String> getListOfString(@NonNull final String value) {
-        return splitToStream(value).collect(toList());
+                       .map(String::trim)
+                       .filter(s -> !s.isEmpty());
     }
 
     private static Set<String> getSetOfString(@NonNull final String value) {
@@ -0,0 +1,53 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import lombok.Getter;
+
+/**
+ * The Twitter API endpoints the connector calls, with their app rate limits per 15 minute window.  The limits are only
+ * the starting point: the {@link RateLimiter} learns the actual ones from the response headers.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Getter
+enum TwitterEndpoint {
+
+    SEARCH_STREAM("search-stream", 50),
+    GET_RULES("get-rules", 450),
+    ADD_OR_DELETE_RULES("add-or-delete-rules", 450),
+    RECENT_SEARCH("recent-search", 450),
+    RECENT_COUNTS("recent-counts", 300);
+
+    private final String metricTag;
+    private final int defaultLimit;
+
+    TwitterEndpoint(final String metricTag, final int defaultLimit) {
+        this.metricTag = metricTag;
+        this.defaultLimit = defaultLimit;
+    }
+}
@@ -26,8 +26,10 @@
  */
 package com.acroteq.kafka.connect.source.twitter;
 
+import static com.acroteq.kafka.connect.source.twitter.TwitterApiFactory.newTwitterApi;
+import static com.acroteq.kafka.connect.source.twitter.TwitterEndpoint.ADD_OR_DELETE_RULES;
+import static com.acroteq.kafka.connect.source.twitter.TwitterEndpoint.GET_RULES;
 import static java.util.Collections.emptyList;
-import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static lombok.AccessLevel.PRIVATE;
@@ -45,50 +47,126 @@ import com.twitter.clientlib.model.RuleNoId;
 import com.twitter.clientlib.model.RulesLookupResponse;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
+import org.apache.kafka.common.config.types.Password;
 
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
 @AllArgsConstructor(access = PRIVATE)
 @Slf4j
-class TwitterRuleService {
+public class TwitterRuleService implements AutoCloseable {
+
+    /** The rules that passed a dry run, shared within the worker so a restart doesn't validate them again. */
+    private static final Set<RuleNoId> VALIDATED_RULES = ConcurrentHashMap.newKeySet();
 
     @NonNull private final TweetsApi tweetsApi;
 
+    @NonNull private final RateLimiter rateLimiter;
+
+    /** True if the rate limiter was got for the app, rather than given to the builder, and is released on close. */
+    private final boolean ownsRateLimiter;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
     private final int retries;
 
-    static TwitterRuleServiceBuilder builder() {
+    /** The maximum number of rules the account allows, see {@code twitter.rule.maxCount}. */
+    private final int ruleMaxCount;
+
+    @NonNull private final Set<RuleNoId> validatedRules;
+
+    public static TwitterRuleServiceBuilder builder() {
         return new TwitterRuleServiceBuilder();
     }
 
 
-    /** Add a new rule to the active rule set that filters the output using the given keywords. */
-    void addKeywordFilterRules(@NonNull final List<String> keywords) {
-        final String rule = String.join(" OR ", keywords);
-        log.info("Adding active rule, filtering for keywords: {}", rule);
+    /**
+     * Bring the active rule set in line with the given rules, matching on value and tag.  Only the missing rules are
+     * added, after a dry run has validated them, and only then are the surplus rules deleted, so the stream is never
+     * without rules.  When the active rules already match, no rules are written at all.
+     *
+     * <p>If the active rules and the missing ones together exceed the account's rule count limit, the missing rules
+     * are added in batches, each after just enough surplus rules have been deleted to make room for it.
+     *
+     * @return true if the active rules were changed
+     */
+    boolean reconcileRules(@NonNull final List<RuleNoId> rules) {
+        final List<Rule> activeRules = getActiveRules();
+        final RuleDiff diff = RuleDiff.of(activeRules, rules);
+        if (diff.isEmpty()) {
+            log.info("The {} active rule(s) are up to date.", activeRules.size());
+            return false;
+        }
+        log.info("Reconciling active rules, adding: {}, deleting: {}", diff.getAdds(), diff.getDeletes());
+
+        final List<RuleNoId> adds = diff.getAdds();
+        final List<Rule> deletes = diff.getDeletes();
+        int added = 0;
+        int deleted = 0;
+        int activeCount = activeRules.size();
+        while (added < adds.size()) {
+            final int room = ruleMaxCount - activeCount;
+            if (room <= 0 && deleted < deletes.size()) {
+                final int count = Math.min(adds.size() - added, deletes.size() - deleted);
+                log.info("Deleting {} rule(s) to stay within the limit of {} rules.", count, ruleMaxCount);
+                deleteRules(deletes.subList(deleted, deleted + count));
+                deleted += count;
+                activeCount -= count;
+            } else {
+                // without room or anything left to delete the final rules do not fit, which Twitter reports
+                final int count = room <= 0 ? adds.size() - added : Math.min(room, adds.size() - added);
+                addRules(adds.subList(added, added + count));
+                added += count;
+                activeCount += count;
+            }
+        }
+        deleteRules(deletes.subList(deleted, deletes.size()));
+        return true;
+    }
 
-        final Optional<AddOrDeleteRulesRequest> request = createAddRulesRequest(singletonList(rule));
-        final Optional<AddOrDeleteRulesResponse> response = request.map(this::executeAddOrDeleteRulesRequest);
+    private void addRules(final List<RuleNoId> adds) {
+        final List<RuleNoId> unvalidated = adds.stream()
+                                               .filter(r -> !validatedRules.contains(r))
+                                               .collect(toList());
+        createAddRulesRequest(unvalidated).map(r -> executeAddOrDeleteRulesRequest(r, true))
+                                          .ifPresent(checkResponseForErrors("Error(s) while validating rules"));
+        validatedRules.addAll(unvalidated);
+
+        final Optional<AddOrDeleteRulesResponse> addResponse =
+              createAddRulesRequest(adds).map(r -> executeAddOrDeleteRulesRequest(r, false));
+        addResponse.ifPresent(checkResponseForErrors("Error(s) while adding rules"));
+        adds.forEach(a -> addResponse.ifPresent(checkNewRuleInserted(a.getValue())));
+    }
+
+    private void deleteRules(final List<Rule> deletes) {
+        createDeleteRulesRequest(deletes).map(r -> executeAddOrDeleteRulesRequest(r, false))
+                                         .ifPresent(checkResponseForErrors("Error(s) while deleting rules"));
+    }
 
-        response.ifPresent(checkResponseForErrors("Error(s) while adding filter rule '" + rule + "'"));
-        response.ifPresent(checkNewRuleInserted(rule));
+    /**
+     * Bring the active rule set in line with the rule groups, one tagged rule per group, see
+     * {@link #reconcileRules(List)}.  The filtered stream picks up the changes without reconnecting.
+     *
+     * @return true if the active rules were changed
+     */
+    public boolean reconcileRuleGroups(@NonNull final List<RuleGroup> ruleGroups) {
+        return reconcileRules(ruleGroups.stream()
+                                        .map(g -> new RuleNoId().value(g.getValue())
+                                                                .tag(g.getTag()))
+                                        .collect(toList()));
     }
 
-    private Optional<AddOrDeleteRulesRequest> createAddRulesRequest(@NonNull final List<String> rules) {
+    private Optional<AddOrDeleteRulesRequest> createAddRulesRequest(@NonNull final List<RuleNoId> rules) {
         return Optional.of(rules)
                        .filter(ObjectUtils::isNotEmpty)
-                       .map(this::createAddRulesRequestActualInstance)
+                       .map(r -> new AddRulesRequest().add(r))
                        .map(this::createAddOrDeleteRulesRequest);
-
-    }
-
-    private AddRulesRequest createAddRulesRequestActualInstance(@NonNull final List<String> rules) {
-        return rules.stream()
-                    .map(v -> new RuleNoId().value(v))
-                    .reduce(new AddRulesRequest(), AddRulesRequest::addAddItem, (l, r) -> l);
     }
 
     private AddOrDeleteRulesRequest createAddOrDeleteRulesRequest(final AddRulesRequest deleteRulesRequest) {
@@ -138,50 +216,26 @@ class TwitterRuleService {
         }
     }
 
-    /** Delete all the rules in the active rule set. */
-    void deleteAllRules() {
-        log.info("Deleting all active rules.");
-
-        final List<String> values = getAllRules();
-
-        final Optional<AddOrDeleteRulesRequest> request = createDeleteRulesRequest(values);
-        final Optional<AddOrDeleteRulesResponse> response = request.map(this::executeAddOrDeleteRulesRequest);
-
-        response.ifPresent(checkResponseForErrors("Error(s) while deleting all rules"));
-        response.ifPresent(this::checkResponseHasNoExistingRules);
-    }
-
-    private void checkResponseHasNoExistingRules(@NonNull final AddOrDeleteRulesResponse response) {
-        final List<Rule> rules = Optional.of(response)
-                                         .map(AddOrDeleteRulesResponse::getData)
-                                         .orElse(emptyList());
-        if (!rules.isEmpty()) {
-            final String rulesSummary = rules.stream()
-                                             .map(Rule::getValue)
-                                             .collect(joining(", "));
-            throw new TwitterException("There should be no active rules, but we still received: " + rulesSummary);
-        }
-    }
-
-    private List<String> getAllRules() {
+    /** The rules in the active rule set. */
+    List<Rule> getActiveRules() {
         try {
-            final RulesLookupResponse response = tweetsApi.getRules()
-                                                          .execute(retries);
+            final RulesLookupResponse response = rateLimiter.execute(GET_RULES,
+                                                                     retries,
+                                                                     tweetsApi.getRules()::executeWithHttpInfo);
             return Optional.ofNullable(response)
                            .map(RulesLookupResponse::getData)
-                           .stream()
-                           .flatMap(List::stream)
-                           .map(Rule::getValue)
-                           .collect(toList());
+                           .orElse(emptyList());
         } catch (final ApiException e) {
             throw new TwitterException("Error while calling tweetsApi.getRules()", e);
         }
     }
 
-    private Optional<AddOrDeleteRulesRequest> createDeleteRulesRequest(final List<String> values) {
-        return Optional.of(values)
+    private Optional<AddOrDeleteRulesRequest> createDeleteRulesRequest(final List<Rule> rules) {
+        return Optional.of(rules)
                        .filter(ObjectUtils::isNotEmpty)
-                       .map(v -> new DeleteRulesRequestDelete().values(values))
+                       .map(r -> new DeleteRulesRequestDelete().ids(r.stream()
+                                                                    .map(Rule::getId)
+                                                                    .collect(toList())))
                        .map(r -> new DeleteRulesRequest().delete(r))
                        .map(this::createAddOrDeleteRulesRequest);
     }
@@ -192,19 +246,35 @@ class TwitterRuleService {
         return request;
     }
 
-    private AddOrDeleteRulesResponse executeAddOrDeleteRulesRequest(@NonNull final AddOrDeleteRulesRequest request) {
+    private AddOrDeleteRulesResponse executeAddOrDeleteRulesRequest(@NonNull final AddOrDeleteRulesRequest request,
+                                                                    final boolean dryRun) {
         try {
-            return tweetsApi.addOrDeleteRules(request)
-                            .execute(retries);
+            return rateLimiter.execute(ADD_OR_DELETE_RULES,
+                                       retries,
+                                       tweetsApi.addOrDeleteRules(request)
+                                                .dryRun(dryRun)::executeWithHttpInfo);
         } catch (final ApiException e) {
             throw new TwitterException("Error while calling tweetsApi.addOrDeleteRules()", e);
         }
     }
 
+    /** Releases the rate limiter of the app, unless it was given to the builder. */
+    @Override
+    public void close() {
+        if (ownsRateLimiter && closed.compareAndSet(false, true)) {
+            rateLimiter.release();
+        }
+    }
+
     public static class TwitterRuleServiceBuilder {
 
         private TweetsApi tweetsApi;
+        private Password bearerToken;
+        private String baseUrl;
+        private RateLimiter rateLimiter;
         private int retries;
+        private int ruleMaxCount = Integer.MAX_VALUE;
+        private Set<RuleNoId> validatedRules = VALIDATED_RULES;
 
         private TwitterRuleServiceBuilder() {
         }
@@ -214,13 +284,54 @@ class TwitterRuleService {
             return this;
         }
 
+        public TwitterRuleServiceBuilder bearerToken(final Password bearerToken) {
+            this.bearerToken = bearerToken;
+            return this;
+        }
+
+        /** Only set to call a stub of the Twitter API. */
+        public TwitterRuleServiceBuilder baseUrl(final String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        public TwitterRuleServiceBuilder retries(final int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        /** The maximum number of rules the account allows.  Unlimited if not set, e.g. to only read the rules. */
+        public TwitterRuleServiceBuilder ruleMaxCount(final int ruleMaxCount) {
+            this.ruleMaxCount = ruleMaxCount;
+            return this;
+        }
+
+        TwitterRuleServiceBuilder rateLimiter(final RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        TwitterRuleServiceBuilder validatedRules(final Set<RuleNoId> validatedRules) {
+            this.validatedRules = validatedRules;
+            return this;
+        }
+
         public TwitterRuleServiceBuilder config(final TwitterConfig config) {
+            bearerToken = config.getBearerToken();
+            baseUrl = config.getBaseUrl();
             retries = config.getRetries();
             return this;
         }
 
         public TwitterRuleService build() {
-            return new TwitterRuleService(tweetsApi, retries);
+            final TweetsApi api = Optional.ofNullable(tweetsApi)
+                                          .orElseGet(() -> newTwitterApi().bearerToken(bearerToken)
+                                                                          .baseUrl(baseUrl)
+                                                                          .build()
+                                                                          .tweets());
+            final RateLimiter limiter = Optional.ofNullable(rateLimiter)
+                                                .orElseGet(() -> RateLimiter.forApp(bearerToken));
+            return new TwitterRuleService(api, limiter, rateLimiter == null, retries, ruleMaxCount, validatedRules);
         }
     }
 }
@@ -27,10 +27,21 @@
 package com.acroteq.kafka.connect.source.twitter;
 
 import static com.acroteq.kafka.connect.source.twitter.TwitterApiFactory.newTwitterApi;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.stream.Collectors.toList;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.twitter.clientlib.api.TweetsApi;
 import com.twitter.clientlib.api.TwitterApi;
+import com.twitter.clientlib.model.Rule;
 import com.twitter.clientlib.model.Tweet;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
@@ -40,44 +51,174 @@ import org.apache.kafka.common.config.types.Password;
 @Slf4j
 public class TwitterStreamer {
 
-    private final TweetStreamProcessor processor;
+    private static final long BACKFILL_SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final RateLimiter rateLimiter;
+    /** True if the rate limiter was got for the app, rather than given to the factory, and is released on stop. */
+    private final boolean ownsRateLimiter;
+    private final AtomicBoolean rateLimiterReleased = new AtomicBoolean();
+    private final TweetStreamSupervisor supervisor;
+    private final ExecutorService backfillExecutor;
+    private volatile boolean backfilling;
+    private volatile boolean backfillPending;
 
     public static TwitterStreamerFactory factory() {
         return new TwitterStreamerFactory();
     }
 
-    private TwitterStreamer(@NonNull final TwitterConfig config, final Consumer<Tweet> consumer) {
+    private TwitterStreamer(@NonNull final TwitterConfig config,
+                            final Consumer<Tweet> consumer,
+                            final Consumer<ByteBuffer> lineConsumer,
+                            final Backfill backfill,
+                            final RateLimiter rateLimiter,
+                            final TweetStreamSupervisor.Backoff backoff) {
         final Password bearerToken = config.getBearerToken();
         final TwitterApi apiInstance = newTwitterApi().bearerToken(bearerToken)
+                                                      .baseUrl(config.getBaseUrl())
                                                       .build();
         final TweetsApi tweetsApi = apiInstance.tweets();
 
-        final TwitterRuleService twitterRuleService = TwitterRuleService.builder()
-                                                                        .tweetsApi(tweetsApi)
-                                                                        .config(config)
-                                                                        .build();
-        twitterRuleService.deleteAllRules();
-        twitterRuleService.addKeywordFilterRules(config.getFilterKeywords());
-
-        processor = TweetStreamProcessor.factory()
-                                        .tweetsApi(tweetsApi)
-                                        .config(config)
-                                        .consumer(consumer)
-                                        .start();
+        ownsRateLimiter = rateLimiter == null;
+        this.rateLimiter = ownsRateLimiter ? RateLimiter.forApp(bearerToken) : rateLimiter;
+        final RateLimiter limiter = this.rateLimiter;
+
+        final Instant connectedAt = Instant.now();
+        try {
+            supervisor = new TweetStreamSupervisor(listener -> TweetStreamProcessor.factory()
+                                                                                   .tweetsApi(tweetsApi)
+                                                                                   .rateLimiter(limiter)
+                                                                                   .config(config)
+                                                                                   .consumer(consumer)
+                                                                                   .lineConsumer(lineConsumer)
+                                                                                   .disconnectListener(listener)
+                                                                                   .start(),
+                                                   config.getStallTimeoutMs(),
+                                                   backoff);
+        } catch (final RuntimeException e) {
+            releaseRateLimiter();
+            throw e;
+        }
+
+        if (backfill == null) {
+            backfillExecutor = null;
+        } else {
+            final TwitterRuleService twitterRuleService = TwitterRuleService.builder()
+                                                                            .tweetsApi(tweetsApi)
+                                                                            .rateLimiter(limiter)
+                                                                            .config(config)
+                                                                            .build();
+            final TweetBackfiller backfiller = TweetBackfiller.builder()
+                                                              .tweetsApi(tweetsApi)
+                                                              .rateLimiter(limiter)
+                                                              .config(config)
+                                                              .build();
+            backfilling = true;
+            backfillPending = true;
+            backfillExecutor = newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("twitter-backfill-%d")
+                                                                                 .setDaemon(true)
+                                                                                 .build());
+            backfillExecutor.execute(() -> runBackfill(twitterRuleService, backfiller, backfill, connectedAt));
+            backfillExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Backfill up to the moment the stream was connected, once the search accepts that as its end time.  The active
+     * rules, maintained by the connector, are the search queries.  The backfill is only no longer pending once it is
+     * complete, so if it stops early the restored offset is kept, and the gap is backfilled again after a restart.
+     */
+    private void runBackfill(final TwitterRuleService twitterRuleService,
+                             final TweetBackfiller backfiller,
+                             final Backfill backfill,
+                             final Instant connectedAt) {
+        try {
+            final long waitMs = Duration.between(Instant.now(), connectedAt.plus(TweetBackfiller.END_TIME_DELAY))
+                                        .toMillis();
+            if (waitMs > 0) {
+                Thread.sleep(waitMs);
+            }
+            final List<String> queries = twitterRuleService.getActiveRules()
+                                                           .stream()
+                                                           .map(Rule::getValue)
+                                                           .collect(toList());
+            if (backfiller.backfill(queries,
+                                    backfill.sinceTweetId,
+                                    backfill.sinceCreatedAt,
+                                    connectedAt,
+                                    backfill.consumer,
+                                    () -> backfilling)) {
+                backfillPending = false;
+                return;
+            }
+        } catch (final InterruptedException e) {
+            log.info("Backfill interrupted.");
+            Thread.currentThread()
+                  .interrupt();
+        } catch (final RuntimeException e) {
+            log.error("Backfill failed.", e);
+        } finally {
+            backfilling = false;
+        }
+        log.warn("Backfill incomplete, keeping the offset at tweet {} so that the tweets after it and before the "
+                       + "stream was connected at {} are backfilled again after a restart.",
+                 backfill.sinceTweetId,
+                 connectedAt);
     }
 
     public void stop() {
-        processor.close();
+        supervisor.close();
+        if (backfillExecutor != null) {
+            backfilling = false;
+            backfillExecutor.shutdownNow();
+            try {
+                if (!backfillExecutor.awaitTermination(BACKFILL_SHUTDOWN_TIMEOUT_MS, MILLISECONDS)) {
+                    log.warn("Backfill did not terminate within {} ms.", BACKFILL_SHUTDOWN_TIMEOUT_MS);
+                }
+            } catch (final InterruptedException e) {
+                log.warn("Interrupted while awaiting termination of the backfill.");
+                Thread.currentThread()
+                      .interrupt();
+            }
+        }
+        releaseRateLimiter();
+    }
+
+    private void releaseRateLimiter() {
+        if (ownsRateLimiter && rateLimiterReleased.compareAndSet(false, true)) {
+            rateLimiter.release();
+        }
+    }
+
+    /**
+     * True until the tweets missed since the last committed tweet have all been backfilled.  It stays true if the
+     * backfill stopped early, as the offset must not move past the gap that is left.
+     */
+    public boolean isBackfillPending() {
+        return backfillPending;
     }
 
     public boolean isRunning() {
-        return processor.isRunning();
+        return supervisor.isRunning();
+    }
+
+    /** The number of times the stream was reconnected after a failure or stall. */
+    public long getReconnectCount() {
+        return supervisor.getReconnectCount();
+    }
+
+    /** The total time in ms that the stream was disconnected before being reconnected. */
+    public long getDowntimeMs() {
+        return supervisor.getDowntimeMs();
     }
 
     public static class TwitterStreamerFactory {
 
         private TwitterConfig config;
         private Consumer<Tweet> tweetConsumer;
+        private Consumer<ByteBuffer> lineConsumer;
+        private Backfill backfill;
+        private RateLimiter rateLimiter;
+        private TweetStreamSupervisor.Backoff backoff = ReconnectPolicy::delayMs;
 
         public TwitterStreamerFactory config(final TwitterConfig config) {
             this.config = config;
@@ -89,9 +230,58 @@ public class TwitterStreamer {
             return this;
         }
 
+        /**
+         * Receive the UTF-8 bytes of each line of the filtered stream, instead of the parsed {@link Tweet}.  The
+         * consumer is then responsible for parsing the response and for rejecting error responses.  The buffer is
+         * reused for the next line as soon as the consumer returns.
+         */
+        public TwitterStreamerFactory lineConsumer(final Consumer<ByteBuffer> lineConsumer) {
+            this.lineConsumer = lineConsumer;
+            return this;
+        }
+
+        /**
+         * Backfill the tweets created after the given tweet and before the stream was connected, passing them to the
+         * consumer on the backfill thread, newest first.
+         */
+        public TwitterStreamerFactory backfill(final long sinceTweetId,
+                                               @NonNull final Instant sinceCreatedAt,
+                                               @NonNull final Consumer<Tweet> consumer) {
+            this.backfill = new Backfill(sinceTweetId, sinceCreatedAt, consumer);
+            return this;
+        }
+
+        /**
+         * The rate limiter of the calls to Twitter, which the caller releases.  By default the one of the app the
+         * bearer token belongs to, which is released when the streamer is stopped.
+         */
+        TwitterStreamerFactory rateLimiter(final RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /** Replace the backoff of the {@link ReconnectPolicy} before each reconnect, so tests need not wait it out. */
+        TwitterStreamerFactory backoff(@NonNull final TweetStreamSupervisor.Backoff backoff) {
+            this.backoff = backoff;
+            return this;
+        }
+
         /** Start up the Twitter Streamer. */
         public TwitterStreamer start() {
-            return new TwitterStreamer(config, tweetConsumer);
+            return new TwitterStreamer(config, tweetConsumer, lineConsumer, backfill, rateLimiter, backoff);
+        }
+    }
+
+    private static class Backfill {
+
+        private final long sinceTweetId;
+        private final Instant sinceCreatedAt;
+        private final Consumer<Tweet> consumer;
+
+        private Backfill(final long sinceTweetId, final Instant sinceCreatedAt, final Consumer<Tweet> consumer) {
+            this.sinceTweetId = sinceTweetId;
+            this.sinceCreatedAt = sinceCreatedAt;
+            this.consumer = consumer;
         }
     }
 }
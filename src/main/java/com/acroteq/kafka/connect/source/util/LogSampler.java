@@ -0,0 +1,54 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Picks every n-th event for logging, for a ratio of 1 in n, so a diagnostic log line on the hot path costs a counter
+ * increment when it is not picked.  The first event is always picked, unless the ratio is 0.
+ *
+ * <p>Not thread safe: each thread that logs needs its own sampler.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public final class LogSampler {
+
+    private final long interval;
+    private long count;
+
+    /** @param ratio the share of the events to pick, between 0 for none and 1 for all */
+    public LogSampler(final double ratio) {
+        checkArgument(ratio >= 0 && ratio <= 1, "The sample ratio must be between 0 and 1, but was %s.", ratio);
+        interval = ratio == 0 ? 0 : Math.max(1, Math.round(1 / ratio));
+    }
+
+    /** Count an event, and tell whether it is picked. */
+    public boolean sample() {
+        return interval > 0 && count++ % interval == 0;
+    }
+}
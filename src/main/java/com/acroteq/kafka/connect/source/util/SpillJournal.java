@@ -0,0 +1,293 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An append-only journal of byte entries, held in memory-mapped segment files on the local disk.
+ *
+ * <p>Entries are appended to the newest segment and read back in the order they were appended.  An entry that has been
+ * read stays in its segment until it is {@link #release(long) released}, e.g. once the record made from it has been
+ * committed.  A segment is recycled when all its entries have been read and released, and the writer has moved on to
+ * a newer segment, or it is the newest and is empty again.  Recycled segments are reused, so the files are only mapped
+ * once.
+ *
+ * <p>The journal never holds more than {@code maxBytes / segmentBytes} segments.  When they are all in use,
+ * {@link #append(ByteBuffer)} returns false and the caller decides what to do with the entry.
+ *
+ * <p>The journal is a spill buffer, not a write-ahead log: nothing is forced to disk, the files are deleted on
+ * {@link #close()}, and a new journal always starts empty.  The page cache writes the segments back as it sees fit, so
+ * they only use heap for their bookkeeping.
+ *
+ * <p>The methods are synchronised, so the writer, the reader and the thread that releases entries may all differ.
+ * Spilling only happens under overload, so the lock is not on any regular path.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+public final class SpillJournal implements AutoCloseable {
+
+    /** The smallest segment that is worth mapping. */
+    public static final int MIN_SEGMENT_BYTES = 64 * 1024;
+
+    private static final String DIRECTORY_PREFIX = "twitter-spill-";
+    private static final int LENGTH_BYTES = Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final int maxSegments;
+
+    /** The segments in use, oldest first.  The last one is written to. */
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final Deque<Segment> recycled = new ArrayDeque<>();
+    private final List<Path> files = new ArrayList<>();
+    private long nextSegmentId;
+    private long size;
+    private boolean closed;
+
+    /**
+     * @param parent       the directory in which the journal creates its own, temporary directory
+     * @param maxBytes     the disk budget, rounded down to whole segments, but at least one
+     * @param segmentBytes the size of each segment file, which bounds the size of an entry
+     */
+    public SpillJournal(final Path parent, final long maxBytes, final int segmentBytes) throws IOException {
+        checkArgument(segmentBytes >= MIN_SEGMENT_BYTES,
+                      "The segment size must be at least %s bytes, but was %s.",
+                      MIN_SEGMENT_BYTES,
+                      segmentBytes);
+        this.segmentBytes = segmentBytes;
+        maxSegments = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes));
+        Files.createDirectories(parent);
+        directory = Files.createTempDirectory(parent, DIRECTORY_PREFIX);
+        log.info("Spill journal in {}, with up to {} segments of {} bytes.", directory, maxSegments, segmentBytes);
+    }
+
+    /**
+     * Append the bytes between the position and the limit of the buffer, without moving its position.
+     *
+     * @return false if the journal is full, or the entry does not fit into a segment.
+     */
+    public synchronized boolean append(final ByteBuffer entry) {
+        final int length = entry.remaining();
+        if (closed || length > segmentBytes - LENGTH_BYTES) {
+            return false;
+        }
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.writableBytes() < LENGTH_BYTES + length) {
+            segment = nextSegment();
+            if (segment == null) {
+                return false;
+            }
+            segments.addLast(segment);
+        }
+        segment.write(entry);
+        size++;
+        return true;
+    }
+
+    private Segment nextSegment() {
+        Segment segment = recycled.poll();
+        if (segment == null) {
+            if (files.size() >= maxSegments) {
+                return null;
+            }
+            segment = new Segment(map(directory.resolve("segment-" + files.size())));
+        }
+        segment.reset(nextSegmentId++);
+        return segment;
+    }
+
+    private MappedByteBuffer map(final Path file) {
+        try (FileChannel channel = FileChannel.open(file, CREATE_NEW, READ, WRITE)) {
+            files.add(file);
+            // the mapping stays valid after the channel is closed
+            return channel.map(READ_WRITE, 0, segmentBytes);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Could not map the spill journal segment " + file, e);
+        }
+    }
+
+    /**
+     * Read the next entry, in the order they were appended.  The buffer of the entry stays valid until the entry is
+     * released.
+     *
+     * @return the entry, or null if all the entries have been read.
+     */
+    public synchronized Entry poll() {
+        for (final Segment segment : segments) {
+            if (segment.readableBytes() > 0) {
+                size--;
+                return segment.read();
+            }
+        }
+        return null;
+    }
+
+    /** Release an entry that has been read, so its segment can be recycled once all its entries are released. */
+    public synchronized void release(final long segmentId) {
+        for (final Segment segment : segments) {
+            if (segment.id == segmentId) {
+                segment.unreleased--;
+                recycle(segment);
+                return;
+            }
+        }
+    }
+
+    private void recycle(final Segment segment) {
+        if (segment.readableBytes() > 0 || segment.unreleased > 0) {
+            return;
+        }
+        if (segment == segments.peekLast()) {
+            // the writer has not moved on, so rewind it rather than swapping it for another one
+            segment.reset(segment.id);
+        } else {
+            segments.remove(segment);
+            recycled.add(segment);
+        }
+    }
+
+    /** The number of entries that have been appended, but not yet read. */
+    public synchronized long size() {
+        return size;
+    }
+
+    /** The number of segment files created so far. */
+    public synchronized int segmentFileCount() {
+        return files.size();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /** Discard all the entries and delete the files.  The mappings are released once they are garbage collected. */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        segments.clear();
+        recycled.clear();
+        size = 0;
+        try {
+            for (final Path file : files) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (final IOException e) {
+            log.warn("Could not delete the spill journal in {}.", directory, e);
+        }
+    }
+
+    /** An entry read from the journal, to be released by its segment ID. */
+    public static final class Entry {
+
+        private final long segmentId;
+        private final ByteBuffer data;
+
+        private Entry(final long segmentId, final ByteBuffer data) {
+            this.segmentId = segmentId;
+            this.data = data;
+        }
+
+        public long getSegmentId() {
+            return segmentId;
+        }
+
+        /** The bytes of the entry, between the position and the limit. */
+        public ByteBuffer getData() {
+            return data;
+        }
+    }
+
+    private static final class Segment {
+
+        private final MappedByteBuffer buffer;
+        private long id;
+        private int writePosition;
+        private int readPosition;
+        private int unreleased;
+
+        private Segment(final MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private void reset(final long newId) {
+            id = newId;
+            writePosition = 0;
+            readPosition = 0;
+            unreleased = 0;
+        }
+
+        private int writableBytes() {
+            return buffer.capacity() - writePosition;
+        }
+
+        private int readableBytes() {
+            return writePosition - readPosition;
+        }
+
+        private void write(final ByteBuffer entry) {
+            final int length = entry.remaining();
+            final ByteBuffer target = buffer.duplicate();
+            target.position(writePosition);
+            target.putInt(length);
+            target.put(entry.duplicate());
+            writePosition += LENGTH_BYTES + length;
+        }
+
+        private Entry read() {
+            final int length = buffer.getInt(readPosition);
+            final ByteBuffer data = buffer.duplicate();
+            data.position(readPosition + LENGTH_BYTES);
+            data.limit(readPosition + LENGTH_BYTES + length);
+            readPosition += LENGTH_BYTES + length;
+            unreleased++;
+            return new Entry(id, data.slice());
+        }
+    }
+}
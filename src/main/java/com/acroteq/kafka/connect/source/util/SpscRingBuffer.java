@@ -0,0 +1,266 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collection;
+
+/**
+ * A bounded, lock-free, single-producer/single-consumer ring buffer.
+ *
+ * <p>The buffer is a pre-sized array whose length is rounded up to the next power of two.  The producer only writes
+ * the tail sequence and the consumer only writes the head sequence, so neither side needs a CAS.  Each side caches
+ * its last view of the opposite sequence and only re-reads it when the buffer looks full (producer) or empty
+ * (consumer).
+ *
+ * <p>Exactly one thread may call {@link #offer(Object)} at a time, and exactly one thread may call {@link #poll()} or
+ * {@link #drainTo(Collection, int)} at a time.  Callers that need more than one consumer thread must serialise them
+ * externally.
+ *
+ * <p>Each element can carry a stamp, e.g. the time it was added, which the consumer reads with {@link #headStamp()}
+ * without allocating a wrapper per element.  It can also carry a weight, e.g. its estimated size, which bounds how
+ * much {@link #drainTo(Collection, int, long)} takes.
+ *
+ * @param <E> the element type
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+public final class SpscRingBuffer<E> {
+
+    /** The stamp of an empty buffer. */
+    public static final long NO_STAMP = Long.MIN_VALUE;
+
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Object[] buffer;
+    private final long[] stamps;
+    private final int[] weights;
+    private final int mask;
+    private final int capacity;
+
+    /** The next sequence to read.  Written by the consumer; its cache holds the consumer's view of the tail. */
+    private final PaddedSequence head = new PaddedSequence();
+
+    /** The next sequence to write.  Written by the producer; its cache holds the producer's view of the head. */
+    private final PaddedSequence tail = new PaddedSequence();
+
+    public SpscRingBuffer(final int requestedCapacity) {
+        checkArgument(requestedCapacity > 0 && requestedCapacity <= MAX_CAPACITY,
+                      "Capacity must be between 1 and %s, but was %s.",
+                      MAX_CAPACITY,
+                      requestedCapacity);
+        capacity = ceilingPowerOfTwo(requestedCapacity);
+        mask = capacity - 1;
+        buffer = new Object[capacity];
+        stamps = new long[capacity];
+        weights = new int[capacity];
+    }
+
+    /**
+     * Producer side.  Add the element to the tail of the buffer.
+     *
+     * @return false if the buffer is full, in which case the element was not added.
+     */
+    public boolean offer(final E element) {
+        return offer(element, 0);
+    }
+
+    /**
+     * Producer side.  Add the element to the tail of the buffer, with a stamp.
+     *
+     * @return false if the buffer is full, in which case the element was not added.
+     */
+    public boolean offer(final E element, final long stamp) {
+        return offer(element, stamp, 0);
+    }
+
+    /**
+     * Producer side.  Add the element to the tail of the buffer, with a stamp and a weight.
+     *
+     * @return false if the buffer is full, in which case the element was not added.
+     */
+    public boolean offer(final E element, final long stamp, final int weight) {
+        requireNonNull(element, "element");
+        final long currentTail = tail.getPlain();
+        if (currentTail - tail.cache >= capacity) {
+            tail.cache = head.getAcquire();
+            if (currentTail - tail.cache >= capacity) {
+                return false;
+            }
+        }
+        final int index = index(currentTail);
+        buffer[index] = element;
+        stamps[index] = stamp;
+        weights[index] = weight;
+        tail.setRelease(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side.  Remove the element at the head of the buffer.
+     *
+     * @return the element, or null if the buffer is empty.
+     */
+    public E poll() {
+        final long currentHead = head.getPlain();
+        if (currentHead >= head.cache) {
+            head.cache = tail.getAcquire();
+            if (currentHead >= head.cache) {
+                return null;
+            }
+        }
+        final int index = index(currentHead);
+        @SuppressWarnings("unchecked") final E element = (E) buffer[index];
+        buffer[index] = null;
+        head.setRelease(currentHead + 1);
+        return element;
+    }
+
+    /**
+     * Consumer side.  Move up to {@code maxElements} elements from the head of the buffer into the collection, with a
+     * single read of the tail and a single write of the head.
+     *
+     * @return the number of elements that were moved.
+     */
+    public int drainTo(final Collection<? super E> collection, final int maxElements) {
+        final long currentHead = head.getPlain();
+        long available = head.cache - currentHead;
+        if (available < maxElements) {
+            head.cache = tail.getAcquire();
+            available = head.cache - currentHead;
+        }
+        final int count = (int) Math.min(available, maxElements);
+        for (int i = 0; i < count; i++) {
+            final int index = index(currentHead + i);
+            @SuppressWarnings("unchecked") final E element = (E) buffer[index];
+            buffer[index] = null;
+            collection.add(element);
+        }
+        if (count > 0) {
+            head.setRelease(currentHead + count);
+        }
+        return count;
+    }
+
+    /**
+     * Consumer side.  Like {@link #drainTo(Collection, int)}, but also stops before the element that would take the
+     * total weight of the moved elements over {@code maxWeight}.  The first element is always moved, however heavy.
+     *
+     * @return the total weight of the elements that were moved.
+     */
+    public long drainTo(final Collection<? super E> collection, final int maxElements, final long maxWeight) {
+        final long currentHead = head.getPlain();
+        long available = head.cache - currentHead;
+        if (available < maxElements) {
+            head.cache = tail.getAcquire();
+            available = head.cache - currentHead;
+        }
+        final int limit = (int) Math.min(available, maxElements);
+        long totalWeight = 0;
+        int count = 0;
+        while (count < limit) {
+            final int index = index(currentHead + count);
+            final int weight = weights[index];
+            if (count > 0 && totalWeight + weight > maxWeight) {
+                break;
+            }
+            @SuppressWarnings("unchecked") final E element = (E) buffer[index];
+            buffer[index] = null;
+            collection.add(element);
+            totalWeight += weight;
+            count++;
+        }
+        if (count > 0) {
+            head.setRelease(currentHead + count);
+        }
+        return totalWeight;
+    }
+
+    /**
+     * Consumer side.  The stamp of the element at the head of the buffer, which stays valid until the consumer removes
+     * that element.
+     *
+     * @return the stamp, or {@link #NO_STAMP} if the buffer is empty.
+     */
+    public long headStamp() {
+        final long currentHead = head.getPlain();
+        if (currentHead >= head.cache) {
+            head.cache = tail.getAcquire();
+            if (currentHead >= head.cache) {
+                return NO_STAMP;
+            }
+        }
+        return stamps[index(currentHead)];
+    }
+
+    /**
+     * Consumer side.  The weight of the element at the head of the buffer, which stays valid until the consumer removes
+     * that element.
+     *
+     * @return the weight, or 0 if the buffer is empty.
+     */
+    public int headWeight() {
+        final long currentHead = head.getPlain();
+        if (currentHead >= head.cache) {
+            head.cache = tail.getAcquire();
+            if (currentHead >= head.cache) {
+                return 0;
+            }
+        }
+        return weights[index(currentHead)];
+    }
+
+    /** The number of elements in the buffer.  O(1), and safe to call from any thread, but only a snapshot. */
+    public int size() {
+        final long currentHead = head.getAcquire();
+        final long currentTail = tail.getAcquire();
+        return (int) Math.max(0, Math.min(capacity, currentTail - currentHead));
+    }
+
+    /** The total number of elements ever added to the buffer. */
+    public long addedCount() {
+        return tail.getAcquire();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /** The actual capacity, which is the requested capacity rounded up to the next power of two. */
+    public int capacity() {
+        return capacity;
+    }
+
+    private int index(final long sequence) {
+        return (int) sequence & mask;
+    }
+
+    private static int ceilingPowerOfTwo(final int value) {
+        return value == 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class AdaptiveBatchSizerTest {
+
+    private static final int TARGET_LATENCY_MS = 200;
+    private static final int MIN_BATCH_SIZE = 5;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_LINGER_MS = 1000;
+    private static final long START_NANOS = 1_000_000_000L;
+
+    private final AdaptiveBatchSizer batchSizer =
+          new AdaptiveBatchSizer(TARGET_LATENCY_MS, MIN_BATCH_SIZE, MAX_BATCH_SIZE, MAX_LINGER_MS);
+
+    @Test
+    void testInitialState() {
+        assertThat(batchSizer.batchSize(), is(MIN_BATCH_SIZE));
+        assertThat(batchSizer.maxBatchSize(), is(MAX_BATCH_SIZE));
+        assertThat(batchSizer.lingerNanos(), is(MILLISECONDS.toNanos(TARGET_LATENCY_MS)));
+    }
+
+    @Test
+    void testLowArrivalRate_minBatchSize() {
+        // when: 1 tweet per second for a minute
+        pollAtRate(1, 60);
+        // then:
+        assertThat(batchSizer.getArrivalRate(), is(closeTo(1, 0.1)));
+        assertThat(batchSizer.batchSize(), is(MIN_BATCH_SIZE));
+    }
+
+    @Test
+    void testMediumArrivalRate_sizedToTargetLatency() {
+        // when: 1000 tweets per second for a minute
+        pollAtRate(1000, 60);
+        // then: 200 ms worth of tweets
+        assertThat(batchSizer.getArrivalRate(), is(closeTo(1000, 10)));
+        assertThat((double) batchSizer.batchSize(), is(closeTo(200, 2)));
+        assertThat(batchSizer.lingerNanos(), is(MILLISECONDS.toNanos(TARGET_LATENCY_MS)));
+    }
+
+    @Test
+    void testHighArrivalRate_maxBatchSize() {
+        // when: 50k tweets per second for a minute
+        pollAtRate(50_000, 60);
+        // then:
+        assertThat(batchSizer.batchSize(), is(MAX_BATCH_SIZE));
+    }
+
+    @Test
+    void testCommitLatency_shortensLinger() {
+        // given:
+        for (int i = 0; i < 100; i++) {
+            batchSizer.onCommit(MILLISECONDS.toNanos(150));
+        }
+        // when:
+        pollAtRate(1000, 60);
+        // then: only 50 ms of the 200 ms target is left for lingering
+        assertThat(batchSizer.getCommitLatencyMs(), is(closeTo(150, 1)));
+        assertThat(batchSizer.lingerNanos(), is(lessThan(MILLISECONDS.toNanos(60))));
+        assertThat((double) batchSizer.batchSize(), is(closeTo(50, 10)));
+    }
+
+    @Test
+    void testCommitLatencyAboveTarget_minimumLinger() {
+        // given:
+        for (int i = 0; i < 100; i++) {
+            batchSizer.onCommit(MILLISECONDS.toNanos(500));
+        }
+        // when:
+        pollAtRate(1, 10);
+        // then:
+        assertThat(batchSizer.lingerNanos(), is(MILLISECONDS.toNanos(1)));
+        assertThat(batchSizer.batchSize(), is(MIN_BATCH_SIZE));
+    }
+
+    /** Simulate polls every 100 ms, with the given arrival rate. */
+    private void pollAtRate(final int tweetsPerSecond, final int seconds) {
+        final long pollIntervalNanos = MILLISECONDS.toNanos(100);
+        final int polls = (int) (SECONDS.toNanos(seconds) / pollIntervalNanos);
+        for (int i = 0; i <= polls; i++) {
+            final long elapsedNanos = i * pollIntervalNanos;
+            final long arrivals = elapsedNanos * tweetsPerSecond / SECONDS.toNanos(1);
+            batchSizer.onPoll(arrivals, START_NANOS + elapsedNanos);
+        }
+    }
+}
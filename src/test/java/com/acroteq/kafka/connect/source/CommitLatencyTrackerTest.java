@@ -0,0 +1,92 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.CommitLatencyTracker.NOT_SAMPLED;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class CommitLatencyTrackerTest {
+
+    private static SourceRecord createRecord(final int i) {
+        return new SourceRecord(TweetSourceOffsets.SOURCE_PARTITION,
+                                TweetSourceOffsets.offsetOf(i),
+                                "topic",
+                                Schema.INT32_SCHEMA,
+                                i);
+    }
+
+    @Test
+    void testCommitted() {
+        // given:
+        final CommitLatencyTracker tracker = new CommitLatencyTracker(10);
+        final SourceRecord sample = createRecord(1);
+        tracker.polled(sample, 1000);
+        // when:
+        final long latencyNanos = tracker.committed(sample, 1500);
+        final long notSampled = tracker.committed(createRecord(2), 1500);
+        // then:
+        assertThat(latencyNanos, is(500L));
+        assertThat(notSampled, is(NOT_SAMPLED));
+        assertThat(tracker.pendingCount(), is(0));
+    }
+
+    @Test
+    void testCommitted_sameValueDifferentRecord() {
+        // given:
+        final CommitLatencyTracker tracker = new CommitLatencyTracker(10);
+        tracker.polled(createRecord(1), 1000);
+        // when:
+        final long latencyNanos = tracker.committed(createRecord(1), 1500);
+        // then:
+        // the samples are the polled instances, not equal records
+        assertThat(latencyNanos, is(NOT_SAMPLED));
+    }
+
+    @Test
+    void testPolled_evictsOnlyTheOldest() {
+        // given:
+        final CommitLatencyTracker tracker = new CommitLatencyTracker(3);
+        final SourceRecord oldest = createRecord(1);
+        final SourceRecord second = createRecord(2);
+        tracker.polled(oldest, 1000);
+        tracker.polled(second, 2000);
+        tracker.polled(createRecord(3), 3000);
+        // when:
+        tracker.polled(createRecord(4), 4000);
+        // then:
+        // Connect is behind, but the commits of all the newer batches are still measured
+        assertThat(tracker.pendingCount(), is(3));
+        assertThat(tracker.committed(oldest, 5000), is(NOT_SAMPLED));
+        assertThat(tracker.committed(second, 5000), is(3000L));
+    }
+}
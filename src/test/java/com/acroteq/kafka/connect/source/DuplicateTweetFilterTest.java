@@ -0,0 +1,141 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class DuplicateTweetFilterTest {
+
+    private static final long WINDOW_MS = 70000;
+    private static final long MAX_BYTES = 1 << 20;
+    /** A snowflake tweet ID. */
+    private static final long TWEET_ID = 1580418426475421696L;
+    private static final int TIMESTAMP_SHIFT = 22;
+
+    private static long tweetIdAfter(final long tweetId, final long ms) {
+        return tweetId + (ms << TIMESTAMP_SHIFT);
+    }
+
+    @Test
+    void testDuplicate() {
+        // given:
+        final DuplicateTweetFilter filter = new DuplicateTweetFilter(WINDOW_MS, MAX_BYTES);
+
+        // when:
+        final boolean first = filter.firstSeen(TWEET_ID);
+        final boolean second = filter.firstSeen(TWEET_ID);
+        final boolean other = filter.firstSeen(TWEET_ID + 1);
+
+        // then:
+        assertThat(first, is(true));
+        assertThat(second, is(false));
+        assertThat(other, is(true));
+        assertThat(filter.getCheckedCount(), is(3L));
+        assertThat(filter.getDuplicateCount(), is(1L));
+    }
+
+    @Test
+    void testDuplicateWithinWindow() {
+        // given:
+        final DuplicateTweetFilter filter = new DuplicateTweetFilter(WINDOW_MS, MAX_BYTES);
+        filter.firstSeen(TWEET_ID);
+
+        // when:
+        filter.firstSeen(tweetIdAfter(TWEET_ID, WINDOW_MS));
+        final boolean replayed = filter.firstSeen(TWEET_ID);
+
+        // then:
+        assertThat(replayed, is(false));
+        assertThat(filter.getOutOfWindowCount(), is(0L));
+    }
+
+    @Test
+    void testOutOfWindow() {
+        // given:
+        final DuplicateTweetFilter filter = new DuplicateTweetFilter(WINDOW_MS, MAX_BYTES);
+        filter.firstSeen(TWEET_ID);
+
+        // when:
+        // the slice of the first tweet is reused as the newest tweets move on
+        for (long ms = 0; ms <= 2 * WINDOW_MS; ms += 1000) {
+            filter.firstSeen(tweetIdAfter(TWEET_ID, ms) + 1);
+        }
+        final boolean replayed = filter.firstSeen(TWEET_ID);
+
+        // then:
+        assertThat(replayed, is(true));
+        assertThat(filter.getOutOfWindowCount(), is(1L));
+    }
+
+    @Test
+    void testFalsePositiveRate() {
+        // given:
+        final DuplicateTweetFilter filter = new DuplicateTweetFilter(WINDOW_MS, MAX_BYTES);
+        final int tweets = 50000;
+
+        // when:
+        int falsePositives = 0;
+        for (int i = 0; i < tweets; i++) {
+            if (!filter.firstSeen(tweetIdAfter(TWEET_ID, i) + i)) {
+                falsePositives++;
+            }
+        }
+
+        // then:
+        // 1 MB over 8 slices, with about 7000 tweets per slice
+        assertThat(filter.getSizeBytes(), is(MAX_BYTES));
+        assertThat(filter.getFalsePositiveRate(), lessThan(1e-6));
+        assertThat(falsePositives, is(0));
+    }
+
+    @Test
+    void testFalsePositiveRateGrowsWhenFull() {
+        // given:
+        final DuplicateTweetFilter filter = new DuplicateTweetFilter(WINDOW_MS, 8192);
+
+        // when:
+        for (int i = 0; i < 5000; i++) {
+            filter.firstSeen(TWEET_ID + i);
+        }
+
+        // then:
+        assertThat(filter.getFalsePositiveRate() > 0.01, is(true));
+    }
+
+    @Test
+    void testInvalidWindow() {
+        // when:
+        // then:
+        assertThrows(IllegalArgumentException.class, () -> new DuplicateTweetFilter(0, MAX_BYTES));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.TweetSourceOffsets.CREATED_AT_KEY;
+import static com.acroteq.kafka.connect.source.TweetSourceOffsets.TWEET_ID_KEY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import com.acroteq.kafka.connect.source.util.SpillJournal;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class JournalOverflowTierTest {
+
+    private static final int SEGMENT_BYTES = SpillJournal.MIN_SEGMENT_BYTES;
+
+    @TempDir
+    Path tempDir;
+
+    private JournalOverflowTier overflowTier;
+
+    @AfterEach
+    void tearDown() {
+        if (overflowTier != null) {
+            overflowTier.close();
+        }
+    }
+
+    @Test
+    void testAddAndPoll_parsesLineAndRestoresOffset() throws IOException {
+        // given:
+        overflowTier = new JournalOverflowTier(new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES),
+                                               JournalOverflowTierTest::parse);
+        final SourceRecord stamped = parse(UTF_8.encode("tweet 1"));
+        // when:
+        final boolean added = overflowTier.add(stamped, UTF_8.encode("tweet 1"));
+        final SourceRecord sourceRecord = overflowTier.poll();
+        // then:
+        assertThat(added, is(true));
+        assertThat(sourceRecord.value(), is("tweet 1"));
+        assertThat(sourceRecord.sourceOffset()
+                               .isEmpty(), is(true));
+        assertThat(overflowTier.poll(), is(nullValue()));
+        assertThat(overflowTier.size(), is(0));
+        assertThat(overflowTier.addedCount(), is(1L));
+    }
+
+    @Test
+    void testAddAndPoll_keepsStampedOffset() throws IOException {
+        // given:
+        overflowTier = new JournalOverflowTier(new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES),
+                                               JournalOverflowTierTest::parse);
+        final SourceRecord stamped = TweetSourceOffsets.withOffset(parse(UTF_8.encode("tweet 2")), 42L, 4242L);
+        // when:
+        overflowTier.add(stamped, UTF_8.encode("tweet 2"));
+        final SourceRecord sourceRecord = overflowTier.poll();
+        // then:
+        assertThat(sourceRecord.sourceOffset()
+                               .get(TWEET_ID_KEY), is(42L));
+        assertThat(sourceRecord.sourceOffset()
+                               .get(CREATED_AT_KEY), is(4242L));
+    }
+
+    @Test
+    void testAdd_withoutLine() throws IOException {
+        // given:
+        overflowTier = new JournalOverflowTier(new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES),
+                                               JournalOverflowTierTest::parse);
+        // when:
+        final boolean added = overflowTier.add(parse(UTF_8.encode("tweet")), null);
+        // then:
+        assertThat(added, is(false));
+        assertThat(overflowTier.size(), is(0));
+    }
+
+    @Test
+    void testCommit_releasesSegment() throws IOException {
+        // given:
+        overflowTier = new JournalOverflowTier(new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES),
+                                               JournalOverflowTierTest::parse);
+        final ByteBuffer line = ByteBuffer.allocate(SEGMENT_BYTES / 2);
+        final SourceRecord stamped = parse(UTF_8.encode("tweet"));
+        overflowTier.add(stamped, line);
+        final SourceRecord sourceRecord = overflowTier.poll();
+        final boolean addedBeforeCommit = overflowTier.add(stamped, line);
+        overflowTier.poll();
+        // when:
+        overflowTier.commit(sourceRecord);
+        final boolean addedAfterCommit = overflowTier.add(stamped, line);
+        // then:
+        assertThat(addedBeforeCommit, is(false));
+        assertThat(addedAfterCommit, is(true));
+    }
+
+    private static SourceRecord parse(final ByteBuffer line) {
+        return new SourceRecord(TweetSourceOffsets.SOURCE_PARTITION,
+                                Map.of(),
+                                "topic",
+                                STRING_SCHEMA,
+                                UTF_8.decode(line)
+                                     .toString());
+    }
+}
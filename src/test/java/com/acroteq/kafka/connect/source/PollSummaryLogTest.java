@@ -0,0 +1,57 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class PollSummaryLogTest {
+
+    private static final long INTERVAL_MS = 1000;
+
+    private final SourceRecordQueue queue = new SourceRecordQueue(10, 10);
+
+    @Test
+    void testRecord_logsOncePerInterval() {
+        // given:
+        final PollSummaryLog summaryLog = new PollSummaryLog(INTERVAL_MS, queue, 0);
+        // when:
+        final boolean early = summaryLog.record(10, MILLISECONDS.toNanos(500));
+        final boolean due = summaryLog.record(10, MILLISECONDS.toNanos(1000));
+        final boolean afterSummary = summaryLog.record(10, MILLISECONDS.toNanos(1500));
+        final boolean nextDue = summaryLog.record(10, MILLISECONDS.toNanos(2100));
+        // then:
+        assertThat(early, is(false));
+        assertThat(due, is(true));
+        assertThat(afterSummary, is(false));
+        assertThat(nextDue, is(true));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static org.apache.kafka.connect.data.Schema.INT64_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.OPTIONAL_STRING_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
+import static org.apache.kafka.connect.data.SchemaBuilder.array;
+import static org.apache.kafka.connect.data.SchemaBuilder.struct;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class RecordSizeEstimatorTest {
+
+    private static final Schema MENTION_SCHEMA = struct().field("id", INT64_SCHEMA)
+                                                         .field("username", STRING_SCHEMA)
+                                                         .build();
+    private static final Schema TWEET_SCHEMA = struct().field("id", STRING_SCHEMA)
+                                                       .field("text", STRING_SCHEMA)
+                                                       .field("lang", OPTIONAL_STRING_SCHEMA)
+                                                       .field("mentions", array(MENTION_SCHEMA).build())
+                                                       .build();
+
+    @Test
+    void testEstimate_countsStringLengths() {
+        // given:
+        final SourceRecord shortTweet = createRecord(StringUtils.repeat('a', 10), emptyList());
+        final SourceRecord longTweet = createRecord(StringUtils.repeat('a', 110), emptyList());
+        // when:
+        final int shortBytes = RecordSizeEstimator.estimate(shortTweet);
+        final int longBytes = RecordSizeEstimator.estimate(longTweet);
+        // then:
+        assertThat(longBytes - shortBytes, is(100));
+    }
+
+    @Test
+    void testEstimate_countsNestedStructs() {
+        // given:
+        final List<Struct> mentions = IntStream.range(0, 10)
+                                               .mapToObj(i -> new Struct(MENTION_SCHEMA).put("id", (long) i)
+                                                                                        .put("username", "user" + i))
+                                               .collect(Collectors.toList());
+        final SourceRecord plainTweet = createRecord("text", emptyList());
+        final SourceRecord tweetWithMentions = createRecord("text", mentions);
+        // when:
+        final int plainBytes = RecordSizeEstimator.estimate(plainTweet);
+        final int bytesWithMentions = RecordSizeEstimator.estimate(tweetWithMentions);
+        // then:
+        // each mention is a struct, its array of values, a boxed id and a string
+        assertThat(bytesWithMentions - plainBytes, is(greaterThan(10 * 100)));
+        assertThat(plainBytes, is(greaterThan(0)));
+    }
+
+    private static SourceRecord createRecord(final String text, final List<Struct> mentions) {
+        final Struct tweet = new Struct(TWEET_SCHEMA).put("id", "1")
+                                                     .put("text", text)
+                                                     .put("mentions", mentions);
+        return new SourceRecord(emptyMap(), emptyMap(), "topic", null, "conversation", TWEET_SCHEMA, tweet);
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+
+import com.acroteq.kafka.connect.source.twitter.RuleGroup;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class RuleGroupBalancerTest {
+
+    private static final RuleGroup JAVA = new RuleGroup("group-0", List.of("java"));
+    private static final RuleGroup KAFKA = new RuleGroup("group-1", List.of("kafka"));
+    private static final RuleGroup SCALA = new RuleGroup("group-2", List.of("scala"));
+    private static final RuleGroup DOCKER = new RuleGroup("group-3", List.of("docker"));
+    private static final List<RuleGroup> GROUPS = List.of(JAVA, KAFKA, SCALA, DOCKER);
+
+    @Test
+    void testBalanceByVolume() {
+        // given:
+        final Map<RuleGroup, Long> volumes = Map.of(JAVA, 900L, KAFKA, 100L, SCALA, 300L, DOCKER, 500L);
+        // when:
+        final List<List<RuleGroup>> shards = RuleGroupBalancer.balance(GROUPS, 2, volumes::get);
+        // then:
+        // 900 against 500 + 300 + 100, each shard in the original order
+        assertThat(shards, contains(List.of(JAVA), List.of(KAFKA, SCALA, DOCKER)));
+    }
+
+    @Test
+    void testEveryShardGetsAGroup() {
+        // given:
+        final Map<RuleGroup, Long> volumes = Map.of(JAVA, 0L, KAFKA, 0L, SCALA, 0L, DOCKER, 1000L);
+        // when:
+        final List<List<RuleGroup>> shards = RuleGroupBalancer.balance(GROUPS, 3, volumes::get);
+        // then:
+        assertThat(shards, hasSize(3));
+        assertThat(shards, contains(List.of(DOCKER), List.of(JAVA, SCALA), List.of(KAFKA)));
+    }
+
+    @Test
+    void testSingleShard() {
+        // when:
+        final List<List<RuleGroup>> shards = RuleGroupBalancer.balance(GROUPS, 1, g -> 1);
+        // then:
+        assertThat(shards, contains(GROUPS));
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static java.util.Collections.emptyMap;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Measures the time from {@link SourceRecordQueue#add(SourceRecord)} to the record being returned by
+ * {@link SourceRecordQueue#getBatch()}, and checks the 99th percentile under low, medium and burst load.  The bounds are
+ * on the wall clock, so it only runs with the soak tests, on a machine that is not shared with other builds.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = TwitterV2SourceTaskSoakTest.SOAK_MINUTES, matches = "[1-9][0-9]*")
+class SourceRecordQueueLatencySoakTest {
+
+    private static final String TOPIC = "topic";
+    private static final int MAX_BATCH_SIZE = 50;
+    private static final int MAX_BATCH_INTERVAL_MS = 500;
+    private static final long SCHEDULING_SLACK_MS = 150;
+
+    /** A trickle of tweets: batches never fill, so every record should be released at the linger deadline. */
+    @Test
+    @Timeout(30)
+    void testLatency_lowLoad() {
+        // when:
+        final long p99Ms = measureP99LatencyMs(20, 10);
+        // then:
+        assertThat(p99Ms, is(lessThan(MAX_BATCH_INTERVAL_MS + SCHEDULING_SLACK_MS)));
+    }
+
+    /** A batch fills in about 50 ms, so records should be released long before the linger deadline. */
+    @Test
+    @Timeout(30)
+    void testLatency_mediumLoad() {
+        // when:
+        final long p99Ms = measureP99LatencyMs(1000, 1000);
+        // then:
+        assertThat(p99Ms, is(lessThan(MAX_BATCH_INTERVAL_MS / 2L)));
+    }
+
+    /** Everything arrives at once: full batches must be handed over back to back, without waiting. */
+    @Test
+    @Timeout(30)
+    void testLatency_burst() {
+        // when:
+        final long p99Ms = measureP99LatencyMs(20_000, 0);
+        // then:
+        assertThat(p99Ms, is(lessThan(MAX_BATCH_INTERVAL_MS / 2L)));
+    }
+
+    @SneakyThrows
+    private long measureP99LatencyMs(final int recordCount, final int recordsPerSecond) {
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .capacity(recordCount)
+                                                                     .build();
+        final long intervalNanos = recordsPerSecond == 0 ? 0 : SECONDS.toNanos(1) / recordsPerSecond;
+        final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < recordCount; i++) {
+                sourceRecordQueue.add(createSourceRecord(System.nanoTime()));
+                if (intervalNanos > 0) {
+                    LockSupport.parkNanos(intervalNanos);
+                }
+            }
+        });
+
+        final long[] latencies = new long[recordCount];
+        int received = 0;
+        while (received < recordCount) {
+            final List<SourceRecord> batch = sourceRecordQueue.getBatch();
+            final long now = System.nanoTime();
+            for (final SourceRecord sourceRecord : batch) {
+                latencies[received++] = now - (Long) sourceRecord.value();
+            }
+        }
+        producer.get();
+
+        Arrays.sort(latencies);
+        final long p50Ms = NANOSECONDS.toMillis(latencies[recordCount / 2]);
+        final long p99Ms = NANOSECONDS.toMillis(latencies[(int) (recordCount * 0.99)]);
+        log.info("{} records, {}: enqueue-to-poll latency p50 {} ms, p99 {} ms, max {} ms.",
+                 recordCount,
+                 recordsPerSecond == 0 ? "burst" : recordsPerSecond + "/s",
+                 p50Ms,
+                 p99Ms,
+                 NANOSECONDS.toMillis(latencies[recordCount - 1]));
+        return p99Ms;
+    }
+
+    private static SourceRecord createSourceRecord(final long enqueueNanos) {
+        return new SourceRecord(emptyMap(), emptyMap(), TOPIC, Schema.INT64_SCHEMA, enqueueNanos);
+    }
+}
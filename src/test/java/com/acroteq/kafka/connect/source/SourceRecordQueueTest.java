@@ -27,21 +27,34 @@
 package com.acroteq.kafka.connect.source;
 
 import static java.util.Collections.emptyMap;
+import static com.acroteq.kafka.connect.source.QueueOverflowPolicy.BLOCK;
+import static com.acroteq.kafka.connect.source.QueueOverflowPolicy.DROP_OLDEST;
+import static com.acroteq.kafka.connect.source.QueueOverflowPolicy.SPILL;
+import static com.acroteq.kafka.connect.source.util.SpillJournal.MIN_SEGMENT_BYTES;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 
+import com.acroteq.kafka.connect.source.util.SpillJournal;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.IntStream;
 import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.source.SourceRecord;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -79,6 +92,198 @@ class SourceRecordQueueTest {
         assertReturnsAfterBatchInterval(sourceRecordQueue, new String[] {});
     }
 
+    @Test
+    public void testAdd_dropOldestWhenFull() {
+        // given:
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .capacity(4)
+                                                                     .overflowPolicy(DROP_OLDEST)
+                                                                     .build();
+        // when:
+        IntStream.range(1, 7)
+                 .mapToObj(this::createSourceRecord)
+                 .forEach(sourceRecordQueue::add);
+        // then:
+        assertThat(sourceRecordQueue.size(), is(4));
+        assertThat(sourceRecordQueue.getDroppedCount(), is(2L));
+        assertReturnsAfterBatchInterval(sourceRecordQueue, new String[] { "Value 3", "Value 4", "Value 5", "Value 6" });
+    }
+
+    @Test
+    public void testAdd_dropOldestWhenFullByBytes() {
+        // given:
+        final int recordBytes = RecordSizeEstimator.estimate(createSourceRecord(1));
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .capacity(16)
+                                                                     .maxQueuedBytes(3L * recordBytes)
+                                                                     .overflowPolicy(DROP_OLDEST)
+                                                                     .build();
+        // when:
+        IntStream.range(1, 6)
+                 .mapToObj(this::createSourceRecord)
+                 .forEach(sourceRecordQueue::add);
+        // then:
+        assertThat(sourceRecordQueue.size(), is(3));
+        assertThat(sourceRecordQueue.getDroppedCount(), is(2L));
+        assertThat(sourceRecordQueue.getQueuedBytes(), is(3L * recordBytes));
+        assertReturnsAfterBatchInterval(sourceRecordQueue, new String[] { "Value 3", "Value 4", "Value 5" });
+        assertThat(sourceRecordQueue.getQueuedBytes(), is(0L));
+        assertThat(sourceRecordQueue.getPeakQueuedBytes(), is(3L * recordBytes));
+    }
+
+    @Test
+    public void testGetBatch_boundedByBytes() {
+        // given:
+        final int recordBytes = RecordSizeEstimator.estimate(createSourceRecord(1));
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .maxBatchBytes(2L * recordBytes)
+                                                                     .build();
+        IntStream.range(1, 6)
+                 .mapToObj(this::createSourceRecord)
+                 .forEach(sourceRecordQueue::add);
+
+        // a batch is full as soon as it reaches the bytes, before it reaches the batch size
+        assertReturnsBeforeBatchInterval(sourceRecordQueue, new String[] { "Value 1", "Value 2" });
+        assertReturnsBeforeBatchInterval(sourceRecordQueue, new String[] { "Value 3", "Value 4" });
+        assertReturnsAfterBatchInterval(sourceRecordQueue, new String[] { "Value 5" });
+    }
+
+    @Test
+    public void testAdd_spillWhenFull() {
+        // given:
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .capacity(2)
+                                                                     .overflowPolicy(SPILL)
+                                                                     .build();
+        // when:
+        IntStream.range(1, MAX_BATCH_SIZE * 2 + 2)
+                 .mapToObj(this::createSourceRecord)
+                 .forEach(sourceRecordQueue::add);
+        // then:
+        assertThat(sourceRecordQueue.size(), is(MAX_BATCH_SIZE * 2 + 1));
+        assertThat(sourceRecordQueue.getDroppedCount(), is(0L));
+        assertThat(getBatchValues(sourceRecordQueue.getBatch()),
+                   contains("Value 1", "Value 2", "Value 3", "Value 4", "Value 5"));
+        assertThat(getBatchValues(sourceRecordQueue.getBatch()),
+                   contains("Value 6", "Value 7", "Value 8", "Value 9", "Value 10"));
+        // the overflow tier is drained, so new records go back into the ring buffer after the spilled ones.
+        sourceRecordQueue.add(createSourceRecord(12));
+        assertThat(getBatchValues(sourceRecordQueue.getBatch()), contains("Value 11", "Value 12"));
+    }
+
+    @Test
+    public void testAdd_spillToMemoryWhenFull() {
+        // given:
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .capacity(2)
+                                                                     .overflowPolicy(SPILL)
+                                                                     .overflowCapacity(2)
+                                                                     .build();
+        // when:
+        IntStream.range(1, 7)
+                 .mapToObj(this::createSourceRecord)
+                 .forEach(sourceRecordQueue::add);
+        // then:
+        // the overflow tier on the heap is bounded too, so the records that do not fit are dropped
+        assertThat(sourceRecordQueue.size(), is(4));
+        assertThat(sourceRecordQueue.getDroppedCount(), is(2L));
+        assertReturnsAfterBatchInterval(sourceRecordQueue, new String[] { "Value 1", "Value 2", "Value 3", "Value 4" });
+    }
+
+    @Test
+    public void testAdd_spillToJournal(@TempDir final Path tempDir) throws IOException {
+        // given:
+        final JournalOverflowTier journalOverflowTier =
+              new JournalOverflowTier(new SpillJournal(tempDir, MIN_SEGMENT_BYTES, MIN_SEGMENT_BYTES),
+                                      line -> createSourceRecord(UTF_8.decode(line)
+                                                                      .toString()));
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .capacity(2)
+                                                                     .overflowPolicy(SPILL)
+                                                                     .overflowTier(journalOverflowTier)
+                                                                     .build();
+        // when:
+        IntStream.range(1, 5)
+                 .mapToObj(i -> "Value " + i)
+                 .forEach(value -> sourceRecordQueue.add(createSourceRecord(value), UTF_8.encode(value)));
+        // a record without its line cannot be spilled
+        sourceRecordQueue.add(createSourceRecord(5));
+        // then:
+        assertThat(sourceRecordQueue.size(), is(4));
+        assertThat(sourceRecordQueue.getDroppedCount(), is(1L));
+        assertReturnsAfterBatchInterval(sourceRecordQueue, new String[] { "Value 1", "Value 2", "Value 3", "Value 4" });
+        sourceRecordQueue.close();
+    }
+
+    @Test
+    public void testAdd_blockWhenFull() {
+        // given:
+        final SourceRecordQueue sourceRecordQueue = SourceRecordQueue.builder()
+                                                                     .maxBatchSize(MAX_BATCH_SIZE)
+                                                                     .maxBatchIntervalMs(MAX_BATCH_INTERVAL_MS)
+                                                                     .capacity(2)
+                                                                     .overflowPolicy(BLOCK)
+                                                                     .build();
+        sourceRecordQueue.add(createSourceRecord(1));
+        sourceRecordQueue.add(createSourceRecord(2));
+        // when:
+        final CompletableFuture<Void> blockedAdd =
+              CompletableFuture.runAsync(() -> sourceRecordQueue.add(createSourceRecord(3)));
+        // then:
+        await().during(100, MILLISECONDS)
+               .atMost(1, SECONDS)
+               .until(() -> !blockedAdd.isDone());
+        assertThat(getBatchValues(sourceRecordQueue.getBatch()), contains("Value 1", "Value 2"));
+        await().atMost(1, SECONDS)
+               .until(blockedAdd::isDone);
+        assertThat(getBatchValues(sourceRecordQueue.getBatch()), contains("Value 3"));
+        assertThat(sourceRecordQueue.getDroppedCount(), is(0L));
+    }
+
+    @Test
+    public void testGetBatch_adaptiveReturnsMinBatchWithoutLingering() {
+        // given: no arrival history yet, so the adaptive sizer starts at the minimum batch size of 2
+        final SourceRecordQueue sourceRecordQueue =
+              SourceRecordQueue.builder()
+                               .batchSizer(new AdaptiveBatchSizer(MAX_BATCH_INTERVAL_MS, 2, MAX_BATCH_SIZE, 60000))
+                               .build();
+        IntStream.range(1, 4)
+                 .mapToObj(this::createSourceRecord)
+                 .forEach(sourceRecordQueue::add);
+
+        // then: the batch is complete, and it is allowed to hold up to the maximum batch size
+        assertReturnsBeforeBatchInterval(sourceRecordQueue, new String[] { "Value 1", "Value 2", "Value 3" });
+    }
+
+    @Test
+    public void testGetBatch_lastBatchWaitOfOldestRecord() throws InterruptedException {
+        // given:
+        final SourceRecordQueue sourceRecordQueue = new SourceRecordQueue(MAX_BATCH_SIZE, MAX_BATCH_INTERVAL_MS);
+        sourceRecordQueue.add(createSourceRecord(1));
+        Thread.sleep(20);
+        sourceRecordQueue.add(createSourceRecord(2));
+        // when:
+        sourceRecordQueue.getBatch();
+        final long waitNanos = sourceRecordQueue.getLastBatchWaitNanos();
+        sourceRecordQueue.getBatch();
+        final long emptyWaitNanos = sourceRecordQueue.getLastBatchWaitNanos();
+        // then:
+        assertThat(waitNanos, greaterThanOrEqualTo(MILLISECONDS.toNanos(20)));
+        assertThat(emptyWaitNanos, is(0L));
+    }
+
     @NotNull
     private static List<String> getBatchValues(final List<SourceRecord> batch) {
         return batch.stream()
@@ -88,7 +293,11 @@ class SourceRecordQueueTest {
     }
 
     private SourceRecord createSourceRecord(final int i) {
-        return new SourceRecord(emptyMap(), emptyMap(), TOPIC, schema, "Value " + i);
+        return createSourceRecord("Value " + i);
+    }
+
+    private SourceRecord createSourceRecord(final String value) {
+        return new SourceRecord(emptyMap(), new HashMap<>(), TOPIC, schema, value);
     }
 
     private void assertReturnsBeforeBatchInterval(final SourceRecordQueue sourceRecordQueue,
@@ -0,0 +1,192 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.TaskMetrics.METRIC_GROUP;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyMap;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.acroteq.kafka.connect.source.twitter.TwitterStreamer;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.kafka.common.metrics.Metrics;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+@ExtendWith(MockitoExtension.class)
+class TaskMetricsTest {
+
+    private static final String CONNECTOR = "twitter-test";
+    private static final int TASK = 1;
+    private static final long CREATED_AGO_MS = 5000;
+
+    private final Metrics metrics = new Metrics();
+    private final SourceRecordQueue queue = new SourceRecordQueue(2, 10);
+
+    @Mock private TwitterStreamer twitterStreamer;
+
+    @AfterEach
+    void tearDown() {
+        metrics.close();
+    }
+
+    private TaskMetrics.TaskMetricsBuilder builder() {
+        return TaskMetrics.builder()
+                          .metrics(metrics)
+                          .connector(CONNECTOR)
+                          .task(TASK)
+                          .queue(queue);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T metric(final String name) {
+        final Map<String, String> tags = Map.of("connector", CONNECTOR, "task", Integer.toString(TASK));
+        return (T) metrics.metric(metrics.metricName(name, METRIC_GROUP, tags))
+                          .metricValue();
+    }
+
+    private static SourceRecord createSourceRecord(final String value) {
+        return new SourceRecord(emptyMap(), emptyMap(), "topic", Schema.STRING_SCHEMA, value);
+    }
+
+    @Test
+    void testInstrument() {
+        // given:
+        final TaskMetrics taskMetrics = builder().build();
+        final Function<ByteBuffer, SourceRecord> parser = taskMetrics.instrument(line -> {
+            final String json = UTF_8.decode(line)
+                                     .toString();
+            if (json.startsWith("{\"data\"")) {
+                return createSourceRecord(json);
+            } else if (json.startsWith("{\"errors\"")) {
+                return null;
+            }
+            throw new DataException("Unparseable line " + json);
+        });
+        // when:
+        final SourceRecord tweet = parser.apply(UTF_8.encode("{\"data\":{}}"));
+        final SourceRecord skipped = parser.apply(UTF_8.encode("{\"errors\":[]}"));
+        assertThrows(DataException.class, () -> parser.apply(UTF_8.encode("garbage")));
+        // then:
+        assertThat(tweet.value(), is("{\"data\":{}}"));
+        assertThat(skipped, is(nullValue()));
+        assertThat(metric("stream-bytes-total"), is(31.0));
+        assertThat(metric("tweet-total"), is(1.0));
+        assertThat(metric("parse-error-total"), is(1.0));
+        assertThat(metric("convert-time-us-max"), greaterThanOrEqualTo(0.0));
+    }
+
+    @Test
+    void testRecordPoll() {
+        // given:
+        final TaskMetrics taskMetrics = builder().maxBatchSize(2)
+                                                 .createdAtMs(r -> System.currentTimeMillis() - CREATED_AGO_MS)
+                                                 .build();
+        queue.add(createSourceRecord("1"));
+        queue.add(createSourceRecord("2"));
+        queue.add(createSourceRecord("3"));
+        final List<SourceRecord> batch = queue.getBatch();
+        // when:
+        taskMetrics.recordPoll(batch);
+        // then:
+        assertThat(metric("poll-batch-size-max"), is(2.0));
+        assertThat(metric("queue-depth-max"), is(3.0));
+        assertThat(metric("queue-depth-high-water"), is(3));
+        assertThat(metric("queue-depth"), is(1));
+        assertThat(metric("enqueue-to-poll-latency-ms-max"), greaterThanOrEqualTo(0.0));
+        assertThat(metric("end-to-end-latency-ms-max"), greaterThanOrEqualTo((double) CREATED_AGO_MS));
+    }
+
+    @Test
+    void testRecordPoll_emptyBatch() {
+        // given:
+        final TaskMetrics taskMetrics = builder().build();
+        // when:
+        taskMetrics.recordPoll(List.of());
+        // then:
+        assertThat(metric("poll-batch-size-max"), is(0.0));
+        assertThat(metric("end-to-end-latency-ms-max"), is(Double.NaN));
+    }
+
+    @Test
+    void testReconnects() {
+        // given:
+        when(twitterStreamer.getReconnectCount()).thenReturn(3L);
+        when(twitterStreamer.getDowntimeMs()).thenReturn(1500L);
+        // when:
+        builder().streamer(() -> twitterStreamer)
+                 .build();
+        // then:
+        assertThat(metric("reconnect-total"), is(3L));
+        assertThat(metric("stream-downtime-ms-total"), is(1500L));
+    }
+
+    @Test
+    void testReconnects_notStarted() {
+        // when:
+        builder().build();
+        // then:
+        assertThat(metric("reconnect-total"), is(0L));
+    }
+
+    @Test
+    void testJmx() throws Exception {
+        // given:
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName(
+              "kafka.connect.twitter:type=" + METRIC_GROUP + ",connector=" + CONNECTOR + ",task=" + TASK);
+        // when:
+        final TaskMetrics taskMetrics = TaskMetrics.builder()
+                                                   .connector(CONNECTOR)
+                                                   .task(TASK)
+                                                   .queue(queue)
+                                                   .build();
+        final Object registeredTweetTotal = mBeanServer.getAttribute(objectName, "tweet-total");
+        taskMetrics.close();
+        // then:
+        assertThat(registeredTweetTotal, is(0.0));
+        assertThat(mBeanServer.isRegistered(objectName), is(false));
+    }
+}
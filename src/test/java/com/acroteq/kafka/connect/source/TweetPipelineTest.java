@@ -0,0 +1,279 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.PipelineOrdering.GLOBAL;
+import static com.acroteq.kafka.connect.source.PipelineOrdering.KEY;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.synchronizedList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.apache.kafka.connect.data.Schema.INT32_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import org.apache.kafka.connect.errors.ConnectException;
+import org.apache.kafka.connect.errors.DataException;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class TweetPipelineTest {
+
+    private static final int TWEETS = 2000;
+    private static final int CONVERSATIONS = 7;
+    private static final int TIMEOUT_SECONDS = 30;
+
+    private final List<SourceRecord> sourceRecords = synchronizedList(new ArrayList<>());
+
+    private TweetPipeline tweetPipeline;
+
+    @AfterEach
+    void tearDown() {
+        Optional.ofNullable(tweetPipeline)
+                .ifPresent(TweetPipeline::close);
+    }
+
+    @Test
+    void testInline() {
+        // given:
+        tweetPipeline = createPipeline(0, GLOBAL);
+        // when:
+        sendTweets(TWEETS);
+        // then:
+        assertThat(sequences(sourceRecords), is(expectedSequences(TWEETS)));
+    }
+
+    @Test
+    void testSink_receivesLine() {
+        for (final int workers : new int[] { 0, 2 }) {
+            // given:
+            final List<String> lines = synchronizedList(new ArrayList<>());
+            try (TweetPipeline pipeline = TweetPipeline.builder()
+                                                       .parserFactory(TweetPipelineTest::createParser)
+                                                       .sink((sourceRecord, json) -> lines.add(UTF_8.decode(json)
+                                                                                                    .toString()))
+                                                       .workers(workers)
+                                                       .build()) {
+                // when:
+                pipeline.accept(UTF_8.encode(json(0)));
+                pipeline.accept(UTF_8.encode(json(1)));
+                // then:
+                await().atMost(TIMEOUT_SECONDS, SECONDS)
+                       .until(() -> lines.size() >= 2);
+                assertThat(lines, contains(json(0), json(1)));
+            }
+        }
+    }
+
+    @Test
+    void testWorkers_globalOrder() {
+        // given:
+        tweetPipeline = createPipeline(4, GLOBAL);
+        // when:
+        sendTweets(TWEETS);
+        // then:
+        awaitRecords(TWEETS);
+        assertThat(sequences(sourceRecords), is(expectedSequences(TWEETS)));
+    }
+
+    @Test
+    void testWorkers_keyOrder() {
+        // given:
+        tweetPipeline = createPipeline(4, KEY);
+        // when:
+        sendTweets(TWEETS);
+        // then:
+        awaitRecords(TWEETS);
+        final Map<Object, List<Integer>> sequencesByKey =
+              sourceRecords.stream()
+                           .collect(groupingBy(SourceRecord::key, mapping(r -> (Integer) r.value(), toList())));
+        assertThat(sequencesByKey.size(), is(CONVERSATIONS));
+        sequencesByKey.values()
+                      .forEach(sequences -> assertThat(sequences, is(sorted(sequences))));
+    }
+
+    @Test
+    void testWorkers_skipsLinesWithoutTweet() {
+        // given:
+        tweetPipeline = createPipeline(2, GLOBAL);
+        // when:
+        tweetPipeline.accept(UTF_8.encode(json(0)));
+        tweetPipeline.accept(UTF_8.encode("{}"));
+        tweetPipeline.accept(UTF_8.encode(json(1)));
+        // then:
+        awaitRecords(2);
+        assertThat(sequences(sourceRecords), contains(0, 1));
+    }
+
+    @Test
+    void testWorkers_failureStopsPipeline() {
+        // given:
+        tweetPipeline = createPipeline(2, GLOBAL);
+        tweetPipeline.accept(UTF_8.encode(json(0)));
+        tweetPipeline.accept(UTF_8.encode("fail"));
+        // when:
+        // the failure is rethrown to the stream reader on one of the next lines
+        final ConnectException exception =
+              assertThrows(ConnectException.class,
+                           () -> IntStream.range(1, TWEETS)
+                                          .forEach(i -> {
+                                              tweetPipeline.accept(UTF_8.encode(json(i)));
+                                              LockSupport.parkNanos(1_000_000);
+                                          }));
+        // then:
+        assertThat(exception.getCause(), is(instanceOf(DataException.class)));
+        assertThat(sequences(sourceRecords), contains(0));
+    }
+
+    @Test
+    void testWorkers_tweetsFlowAgainAfterReconnect() {
+        // given:
+        tweetPipeline = createPipeline(2, GLOBAL);
+        tweetPipeline.accept(UTF_8.encode(json(0)));
+        tweetPipeline.accept(UTF_8.encode("fail"));
+        assertThrows(ConnectException.class,
+                     () -> IntStream.range(1, TWEETS)
+                                    .forEach(i -> {
+                                        tweetPipeline.accept(UTF_8.encode(json(i)));
+                                        LockSupport.parkNanos(1_000_000);
+                                    }));
+        // when:
+        // the stream reconnects and sends on with the same pipeline
+        IntStream.range(TWEETS, TWEETS + 10)
+                 .forEach(i -> tweetPipeline.accept(UTF_8.encode(json(i))));
+        // then:
+        awaitRecords(11);
+        final List<Integer> sequences = sequences(sourceRecords);
+        assertThat(sequences.get(0), is(0));
+        assertThat(sequences.subList(1, 11), is(IntStream.range(TWEETS, TWEETS + 10)
+                                                         .boxed()
+                                                         .collect(toList())));
+    }
+
+    @Test
+    void testKeyHash() {
+        // given:
+        final int hash = TweetPipeline.keyHash(json(1).getBytes(UTF_8));
+        // then:
+        assertThat(TweetPipeline.keyHash(json(1 + CONVERSATIONS).getBytes(UTF_8)), is(hash));
+        assertThat(TweetPipeline.keyHash(json(2).getBytes(UTF_8)), is(not(hash)));
+        assertThat(TweetPipeline.keyHash("{\"data\":{}}".getBytes(UTF_8)), is(0));
+    }
+
+    private TweetPipeline createPipeline(final int workers, final PipelineOrdering ordering) {
+        return TweetPipeline.builder()
+                            .parserFactory(TweetPipelineTest::createParser)
+                            .sink((sourceRecord, json) -> sourceRecords.add(sourceRecord))
+                            .workers(workers)
+                            .ordering(ordering)
+                            .build();
+    }
+
+    /**
+     * A stand-in for the tweet parsers, which turns each line into a record keyed by the conversation, with the
+     * sequence as value.  Every tenth line is slow to parse, so that the workers finish out of order.
+     */
+    private static Function<ByteBuffer, SourceRecord> createParser() {
+        return line -> {
+            final String json = UTF_8.decode(line)
+                                     .toString();
+            if (json.equals("{}")) {
+                return null;
+            }
+            if (json.equals("fail")) {
+                throw new DataException("Error while reading tweet JSON");
+            }
+            final int sequence = Integer.parseInt(json.substring(json.lastIndexOf(':') + 1, json.length() - 1));
+            if (sequence % 10 == 0) {
+                LockSupport.parkNanos(100_000);
+            }
+            final String conversation = json.substring(json.indexOf(":\"") + 2, json.indexOf("\","));
+            return new SourceRecord(emptyMap(),
+                                    emptyMap(),
+                                    "topic",
+                                    STRING_SCHEMA,
+                                    conversation,
+                                    INT32_SCHEMA,
+                                    sequence);
+        };
+    }
+
+    private static String json(final int sequence) {
+        return "{\"conversation_id\":\"conversation-" + sequence % CONVERSATIONS + "\",\"sequence\":" + sequence + "}";
+    }
+
+    private void sendTweets(final int count) {
+        IntStream.range(0, count)
+                 .forEach(i -> tweetPipeline.accept(UTF_8.encode(json(i))));
+    }
+
+    private void awaitRecords(final int count) {
+        await().atMost(TIMEOUT_SECONDS, SECONDS)
+               .until(() -> sourceRecords.size() >= count);
+        assertThat(sourceRecords, hasSize(count));
+    }
+
+    private static List<Integer> sequences(final List<SourceRecord> records) {
+        synchronized (records) {
+            return records.stream()
+                          .map(r -> (Integer) r.value())
+                          .collect(toList());
+        }
+    }
+
+    private static List<Integer> expectedSequences(final int count) {
+        return IntStream.range(0, count)
+                        .boxed()
+                        .collect(toList());
+    }
+
+    private static List<Integer> sorted(final List<Integer> sequences) {
+        final List<Integer> sorted = new ArrayList<>(sequences);
+        sorted.sort(null);
+        return sorted;
+    }
+}
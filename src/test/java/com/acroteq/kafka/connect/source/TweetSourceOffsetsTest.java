@@ -0,0 +1,202 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.TweetSourceOffsets.CREATED_AT_KEY;
+import static com.acroteq.kafka.connect.source.TweetSourceOffsets.SOURCE_PARTITION;
+import static com.acroteq.kafka.connect.source.TweetSourceOffsets.TWEET_ID_KEY;
+import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_ID;
+import static org.apache.kafka.connect.data.Schema.INT64_SCHEMA;
+import static org.apache.kafka.connect.data.Schema.STRING_SCHEMA;
+import static org.apache.kafka.connect.data.SchemaBuilder.struct;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class TweetSourceOffsetsTest {
+
+    private static final Schema SCHEMA = struct().field(SERIALIZED_NAME_ID, STRING_SCHEMA)
+                                                 .build();
+    /** A snowflake tweet ID, created at 2022-10-13T04:41:30.283Z. */
+    private static final long TWEET_ID = 1580418426475421696L;
+    private static final long CREATED_AT_MS = Instant.parse("2022-10-13T04:41:30.283Z")
+                                                     .toEpochMilli();
+
+    private final AtomicBoolean holding = new AtomicBoolean();
+
+    private static SourceRecord createRecord(final String tweetId) {
+        final Struct tweet = new Struct(SCHEMA).put(SERIALIZED_NAME_ID, tweetId);
+        return new SourceRecord(SOURCE_PARTITION, TweetSourceOffsets.offsetOf(tweet), "topic", SCHEMA, tweet);
+    }
+
+    private static Object offsetTweetId(final SourceRecord sourceRecord) {
+        return sourceRecord.sourceOffset()
+                           .get(TWEET_ID_KEY);
+    }
+
+    @Test
+    void testCreatedAtFromSnowflake() {
+        // when:
+        final long createdAtMs = TweetSourceOffsets.createdAtMs(TWEET_ID);
+        // then:
+        assertThat(createdAtMs, is(CREATED_AT_MS));
+    }
+
+    @Test
+    void testOffsetOf() {
+        // when:
+        final SourceRecord sourceRecord = createRecord(Long.toString(TWEET_ID));
+        // then:
+        assertThat(sourceRecord.sourceOffset(), is(Map.of(TWEET_ID_KEY, TWEET_ID, CREATED_AT_KEY, CREATED_AT_MS)));
+    }
+
+    @Test
+    void testOffsetOf_compactSchema() {
+        // given:
+        final Schema compactSchema = struct().field(SERIALIZED_NAME_ID, INT64_SCHEMA)
+                                             .build();
+        final Struct tweet = new Struct(compactSchema).put(SERIALIZED_NAME_ID, TWEET_ID);
+        // when:
+        final Map<String, Object> offset = TweetSourceOffsets.offsetOf(tweet);
+        // then:
+        assertThat(offset, is(Map.of(TWEET_ID_KEY, TWEET_ID, CREATED_AT_KEY, CREATED_AT_MS)));
+    }
+
+    @Test
+    void testOffsetOf_tweetIdOnly() {
+        // when:
+        final Map<String, Object> offset = TweetSourceOffsets.offsetOf(TWEET_ID);
+        // then:
+        assertThat(offset, is(Map.of(TWEET_ID_KEY, TWEET_ID, CREATED_AT_KEY, CREATED_AT_MS)));
+    }
+
+    @Test
+    void testOffsetOfInvalidId() {
+        // when:
+        final SourceRecord sourceRecord = createRecord("not-a-snowflake");
+        // then:
+        assertThat(sourceRecord.sourceOffset(), is(Map.of()));
+    }
+
+    @Test
+    void testStampHighestTweetId() {
+        // given:
+        final TweetSourceOffsets offsets = new TweetSourceOffsets(null, holding::get);
+        final SourceRecord first = createRecord(Long.toString(TWEET_ID + 10));
+        final SourceRecord second = createRecord(Long.toString(TWEET_ID));
+        final SourceRecord third = createRecord(Long.toString(TWEET_ID + 20));
+
+        // when:
+        final SourceRecord stampedFirst = offsets.stamp(first);
+        final SourceRecord stampedSecond = offsets.stamp(second);
+        final SourceRecord stampedThird = offsets.stamp(third);
+
+        // then:
+        assertThat(offsets.isRestored(), is(false));
+        assertThat(offsetTweetId(stampedFirst), is(TWEET_ID + 10));
+        assertThat(offsetTweetId(stampedSecond), is(TWEET_ID + 10));
+        assertThat(offsetTweetId(stampedThird), is(TWEET_ID + 20));
+        // the offset of a record is never changed in place
+        assertThat(stampedFirst, is(sameInstance(first)));
+        assertThat(offsetTweetId(second), is(TWEET_ID));
+        assertThat(stampedSecond.value(), is(sameInstance(second.value())));
+    }
+
+    @Test
+    void testRestored() {
+        // given:
+        final Map<String, Object> restoredOffset = Map.of(TWEET_ID_KEY, TWEET_ID, CREATED_AT_KEY, CREATED_AT_MS);
+        final TweetSourceOffsets offsets = new TweetSourceOffsets(restoredOffset, holding::get);
+        final SourceRecord older = createRecord(Long.toString(TWEET_ID - 10));
+
+        // when:
+        final SourceRecord stamped = offsets.stamp(older);
+
+        // then:
+        assertThat(offsets.isRestored(), is(true));
+        assertThat(offsets.getRestoredTweetId(), is(TWEET_ID));
+        assertThat(offsets.getRestoredCreatedAt(), is(Instant.ofEpochMilli(CREATED_AT_MS)));
+        assertThat(offsetTweetId(stamped), is(TWEET_ID));
+    }
+
+    @Test
+    void testRestoredWithoutCreatedAt() {
+        // when:
+        final TweetSourceOffsets offsets = new TweetSourceOffsets(Map.of(TWEET_ID_KEY, TWEET_ID), holding::get);
+        // then:
+        assertThat(offsets.getRestoredCreatedAt(), is(Instant.ofEpochMilli(CREATED_AT_MS)));
+    }
+
+    @Test
+    void testHoldWhileBackfilling() {
+        // given:
+        final TweetSourceOffsets offsets = new TweetSourceOffsets(Map.of(TWEET_ID_KEY, TWEET_ID), holding::get);
+        final SourceRecord live = createRecord(Long.toString(TWEET_ID + 100));
+        final SourceRecord backfilled = createRecord(Long.toString(TWEET_ID + 50));
+        final SourceRecord afterBackfill = createRecord(Long.toString(TWEET_ID + 60));
+
+        // when:
+        holding.set(true);
+        final SourceRecord stampedLive = offsets.stamp(live);
+        final SourceRecord stampedBackfilled = offsets.stampBackfilled(backfilled);
+        holding.set(false);
+        final SourceRecord stampedAfterBackfill = offsets.stamp(afterBackfill);
+
+        // then:
+        assertThat(offsetTweetId(stampedLive), is(TWEET_ID));
+        assertThat(offsetTweetId(stampedBackfilled), is(TWEET_ID));
+        assertThat(offsetTweetId(stampedAfterBackfill), is(TWEET_ID + 100));
+    }
+
+    @Test
+    void testBackfilledDuplicateOfLiveTweet() {
+        // given:
+        final TweetSourceOffsets offsets = new TweetSourceOffsets(Map.of(TWEET_ID_KEY, TWEET_ID), holding::get);
+        offsets.stamp(createRecord(Long.toString(TWEET_ID + 100)));
+
+        // when:
+        final SourceRecord duplicate = offsets.stampBackfilled(createRecord(Long.toString(TWEET_ID + 100)));
+        final SourceRecord newer = offsets.stampBackfilled(createRecord(Long.toString(TWEET_ID + 200)));
+        final SourceRecord older = offsets.stampBackfilled(createRecord(Long.toString(TWEET_ID + 50)));
+
+        // then:
+        assertThat(duplicate, is(nullValue()));
+        assertThat(newer, is(nullValue()));
+        assertThat(older, is(notNullValue()));
+    }
+}
@@ -26,17 +26,58 @@
  */
 package com.acroteq.kafka.connect.source;
 
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_BATCH_ADAPTIVE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_BATCH_TARGET_LATENCY_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_BATCH_TARGET_LATENCY_MS_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_BYTES_DEFAULT;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_INTERVAL_MS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_INTERVAL_MS_DEFAULT;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_SIZE_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_SIZE_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MIN_BATCH_SIZE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MIN_BATCH_SIZE_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_CAPACITY_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_CAPACITY_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_MAX_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_MAX_BYTES_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_OVERFLOW_POLICY_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_DIR_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_MAX_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_MAX_BYTES_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_SEGMENT_BYTES_DEFAULT;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_TWEETS_TOPIC_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.LOG_RAW_JSON_SAMPLE_RATIO_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.LOG_SUMMARY_INTERVAL_MS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_TWEETS_TOPIC_DEFAULT;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_ENABLED_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_MAX_TWEETS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BASE_URL_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BEARER_TOKEN_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_ENABLED_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_MAX_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_WINDOW_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_EXPANSIONS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_FILTER_KEYWORDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_INCLUDES_CACHE_TTL_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_MEDIA_FIELDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_ORDERING_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_WORKERS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PLACE_FIELDS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RETRIES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_GROUP_SIZE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_MAX_COUNT_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_MAX_LENGTH_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SCHEMA_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SHARD_BALANCE_BY_VOLUME_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SHARD_BEARER_TOKENS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_STALL_TIMEOUT_MS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RETRIES_DEFAULT;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_TWEET_FIELDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_USER_FIELDS_CONF;
 import static com.google.common.collect.Maps.newHashMap;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
@@ -44,9 +85,11 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.nio.file.Paths;
 import java.util.Map;
 import org.apache.kafka.common.config.ConfigDef;
 import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.config.types.Password;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 
@@ -122,6 +165,19 @@ class TwitterV2SourceConnectorConfigTest {
                    is("Missing required configuration \"twitter.filterKeywords\" which has no default value."));
     }
 
+    @Test
+    void testForTask_filterKeywordsMissing() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.remove(TWITTER_FILTER_KEYWORDS_CONF);
+        // when:
+        final TwitterV2SourceConnectorConfig config = TwitterV2SourceConnectorConfig.forTask(settingsMap);
+        // then:
+        assertThat(config.getTopic(), is(TOPIC));
+        assertThat(config.getBearerToken()
+                         .value(), is(PASSWORD));
+    }
+
     @Test
     void testFilterKeywordsEmpty() {
         // given:
@@ -349,6 +405,358 @@ class TwitterV2SourceConnectorConfigTest {
                             + "60000"));
     }
 
+    @Test
+    void testAdaptiveBatchingDefaults() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(config.isAdaptiveBatching(), is(false));
+        assertThat(config.getBatchTargetLatencyMs(), is(KAFKA_BATCH_TARGET_LATENCY_MS_DEFAULT));
+        assertThat(config.getMinBatchSize(), is(KAFKA_MIN_BATCH_SIZE_DEFAULT));
+    }
+
+    @Test
+    void testAdaptiveBatching() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_BATCH_ADAPTIVE_CONF, "true");
+        settingsMap.put(KAFKA_BATCH_TARGET_LATENCY_MS_CONF, "50");
+        settingsMap.put(KAFKA_MIN_BATCH_SIZE_CONF, "10");
+        // when:
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(config.isAdaptiveBatching(), is(true));
+        assertThat(config.getBatchTargetLatencyMs(), is(50));
+        assertThat(config.getMinBatchSize(), is(10));
+    }
+
+    @Test
+    void testMinBatchSizeGreaterThanMax() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_MIN_BATCH_SIZE_CONF, Integer.toString(MAX_BATCH_SIZE + 1));
+        // when:
+        final ConfigException configException =
+              assertThrows(ConfigException.class, () -> new TwitterV2SourceConnectorConfig(settingsMap));
+        // then:
+        assertThat(configException.getMessage(),
+                   is("Invalid value 51 for configuration kafka.batch.minSize: Must not be greater than "
+                            + "kafka.batch.maxSize"));
+    }
+
+    @Test
+    void testQueueDefaults() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(config.getQueueCapacity(), is(KAFKA_QUEUE_CAPACITY_DEFAULT));
+        assertThat(config.getQueueMaxBytes(), is(KAFKA_QUEUE_MAX_BYTES_DEFAULT));
+        assertThat(config.getMaxBatchBytes(), is(KAFKA_MAX_BATCH_BYTES_DEFAULT));
+        assertThat(config.getQueueOverflowPolicy(), is(QueueOverflowPolicy.BLOCK));
+    }
+
+    @Test
+    void testQueueMaxBytes() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_QUEUE_MAX_BYTES_CONF, "8589934592");
+        settingsMap.put(KAFKA_MAX_BATCH_BYTES_CONF, "1048576");
+        // when:
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(config.getQueueMaxBytes(), is(8589934592L));
+        assertThat(config.getMaxBatchBytes(), is(1048576));
+    }
+
+    @Test
+    void testMaxBatchBytesOutOfRange() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_MAX_BATCH_BYTES_CONF, "100");
+        // when:
+        final ConfigException configException =
+              assertThrows(ConfigException.class, () -> new TwitterV2SourceConnectorConfig(settingsMap));
+        // then:
+        assertThat(configException.getMessage(),
+                   is("Invalid value 100 for configuration kafka.batch.maxBytes: Value must be at least 1024"));
+    }
+
+    @Test
+    void testQueueOverflowPolicy() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_QUEUE_CAPACITY_CONF, "1000");
+        settingsMap.put(KAFKA_QUEUE_OVERFLOW_POLICY_CONF, "drop_oldest");
+        // when:
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(config.getQueueCapacity(), is(1000));
+        assertThat(config.getQueueOverflowPolicy(), is(QueueOverflowPolicy.DROP_OLDEST));
+    }
+
+    @Test
+    void testQueueSpill() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_QUEUE_OVERFLOW_POLICY_CONF, "spill");
+        settingsMap.put(KAFKA_QUEUE_SPILL_DIR_CONF, "/var/spool/twitter");
+        settingsMap.put(KAFKA_QUEUE_SPILL_MAX_BYTES_CONF, "10485760");
+        settingsMap.put(KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF, "1048576");
+        // when:
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(config.getQueueOverflowPolicy(), is(QueueOverflowPolicy.SPILL));
+        assertThat(config.getQueueSpillDir(), is(Paths.get("/var/spool/twitter")));
+        assertThat(config.getQueueSpillMaxBytes(), is(10485760L));
+        assertThat(config.getQueueSpillSegmentBytes(), is(1048576));
+    }
+
+    @Test
+    void testQueueSpillDefaults() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(config.getQueueSpillDir(), is(Paths.get(System.getProperty("java.io.tmpdir"))));
+        assertThat(config.getQueueSpillMaxBytes(), is(KAFKA_QUEUE_SPILL_MAX_BYTES_DEFAULT));
+        assertThat(config.getQueueSpillSegmentBytes(), is(KAFKA_QUEUE_SPILL_SEGMENT_BYTES_DEFAULT));
+    }
+
+    @Test
+    void testQueueSpillSegmentBytesOutOfRange() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF, "1024");
+        // when:
+        final ConfigException configException =
+              assertThrows(ConfigException.class, () -> new TwitterV2SourceConnectorConfig(settingsMap));
+        // then:
+        assertThat(configException.getMessage(),
+                   is("Invalid value 1024 for configuration kafka.queue.spill.segmentBytes: Value must be at least "
+                            + "65536"));
+    }
+
+    @Test
+    void testQueueOverflowPolicyInvalid() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_QUEUE_OVERFLOW_POLICY_CONF, "invalid");
+        // when:
+        final ConfigException configException =
+              assertThrows(ConfigException.class, () -> new TwitterV2SourceConnectorConfig(settingsMap));
+        // then:
+        assertThat(configException.getMessage(),
+                   is("Invalid value invalid for configuration kafka.queue.overflowPolicy: String must be one of: "
+                            + "block, drop_oldest, spill"));
+    }
+
+    @Test
+    void testQueueCapacityOutOfRange() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(KAFKA_QUEUE_CAPACITY_CONF, "0");
+        // when:
+        final ConfigException configException =
+              assertThrows(ConfigException.class, () -> new TwitterV2SourceConnectorConfig(settingsMap));
+        // then:
+        assertThat(configException.getMessage(),
+                   is("Invalid value 0 for configuration kafka.queue.capacity: Value must be at least 1"));
+    }
+
+    @Test
+    void testTweetParser() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_PARSER_CONF, "streaming");
+        final TwitterV2SourceConnectorConfig streamingConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_PARSER_CONF, "raw");
+        final TwitterV2SourceConnectorConfig rawConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.getTweetParser(), is(TweetParser.MODEL));
+        assertThat(streamingConfig.getTweetParser(), is(TweetParser.STREAMING));
+        assertThat(rawConfig.getTweetParser(), is(TweetParser.RAW));
+    }
+
+    @Test
+    void testParserWorkers() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_PARSER_WORKERS_CONF, "4");
+        settingsMap.put(TWITTER_PARSER_ORDERING_CONF, "key");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.getParserWorkers(), is(0));
+        assertThat(defaultConfig.getPipelineOrdering(), is(PipelineOrdering.GLOBAL));
+        assertThat(config.getParserWorkers(), is(4));
+        assertThat(config.getPipelineOrdering(), is(PipelineOrdering.KEY));
+    }
+
+    @Test
+    void testTweetSchemaVariant() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_SCHEMA_CONF, "compact");
+        final TwitterV2SourceConnectorConfig compactConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.getTweetSchemaVariant(), is(TweetSchemaVariant.STANDARD));
+        assertThat(compactConfig.getTweetSchemaVariant(), is(TweetSchemaVariant.COMPACT));
+    }
+
+    @Test
+    void testIncludes() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_EXPANSIONS_CONF, "author_id,attachments.media_keys");
+        settingsMap.put(TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF, "500");
+        settingsMap.put(TWITTER_INCLUDES_CACHE_TTL_MS_CONF, "60000");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.isIncludesEnabled(), is(false));
+        assertThat(defaultConfig.getIncludesCacheMaxEntries(), is(10000));
+        assertThat(defaultConfig.getIncludesCacheTtlMs(), is(900000));
+        assertThat(config.isIncludesEnabled(), is(true));
+        assertThat(config.getIncludesCacheMaxEntries(), is(500));
+        assertThat(config.getIncludesCacheTtlMs(), is(60000));
+    }
+
+    @Test
+    void testStallTimeout() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_STALL_TIMEOUT_MS_CONF, "45000");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.getStallTimeoutMs(), is(30000));
+        assertThat(config.getStallTimeoutMs(), is(45000));
+    }
+
+    @Test
+    void testLogging() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(LOG_SUMMARY_INTERVAL_MS_CONF, "10000");
+        settingsMap.put(LOG_RAW_JSON_SAMPLE_RATIO_CONF, "0.5");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.getLogSummaryIntervalMs(), is(60000));
+        assertThat(defaultConfig.getLogRawJsonSampleRatio(), is(0.001));
+        assertThat(config.getLogSummaryIntervalMs(), is(10000));
+        assertThat(config.getLogRawJsonSampleRatio(), is(0.5));
+    }
+
+    @Test
+    void testLogRawJsonSampleRatioInvalid() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(LOG_RAW_JSON_SAMPLE_RATIO_CONF, "2");
+        // when:
+        final ConfigException configException =
+              assertThrows(ConfigException.class, () -> new TwitterV2SourceConnectorConfig(settingsMap));
+        // then:
+        assertThat(configException.getMessage(),
+                   is("Invalid value 2.0 for configuration log.rawJsonSampleRatio: Value must be no more than 1.0"));
+    }
+
+    @Test
+    void testBackfill() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_BACKFILL_ENABLED_CONF, "true");
+        settingsMap.put(TWITTER_BACKFILL_MAX_TWEETS_CONF, "500");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.isBackfillEnabled(), is(false));
+        assertThat(defaultConfig.getBackfillMaxTweets(), is(10000));
+        assertThat(config.isBackfillEnabled(), is(true));
+        assertThat(config.getBackfillMaxTweets(), is(500));
+    }
+
+    @Test
+    void testDedupe() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_DEDUPE_ENABLED_CONF, "true");
+        settingsMap.put(TWITTER_DEDUPE_WINDOW_MS_CONF, "60000");
+        settingsMap.put(TWITTER_DEDUPE_MAX_BYTES_CONF, "65536");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.isDedupeEnabled(), is(false));
+        assertThat(defaultConfig.getDedupeWindowMs(), is(600000));
+        assertThat(defaultConfig.getDedupeMaxBytes(), is(4194304));
+        assertThat(config.isDedupeEnabled(), is(true));
+        assertThat(config.getDedupeWindowMs(), is(60000));
+        assertThat(config.getDedupeMaxBytes(), is(65536));
+    }
+
+    @Test
+    void testRuleLimits() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_RULE_MAX_LENGTH_CONF, "1024");
+        settingsMap.put(TWITTER_RULE_MAX_COUNT_CONF, "1000");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.getRuleMaxLength(), is(512));
+        assertThat(defaultConfig.getRuleMaxCount(), is(5));
+        assertThat(config.getRuleMaxLength(), is(1024));
+        assertThat(config.getRuleMaxCount(), is(1000));
+    }
+
+    @Test
+    void testSharding() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        // when:
+        final TwitterV2SourceConnectorConfig defaultConfig = new TwitterV2SourceConnectorConfig(settingsMap);
+        settingsMap.put(TWITTER_RULE_GROUP_SIZE_CONF, "5");
+        settingsMap.put(TWITTER_SHARD_BEARER_TOKENS_CONF, "token-0, token-1");
+        settingsMap.put(TWITTER_SHARD_BALANCE_BY_VOLUME_CONF, "false");
+        final TwitterV2SourceConnectorConfig config = new TwitterV2SourceConnectorConfig(settingsMap);
+        // then:
+        assertThat(defaultConfig.getRuleGroupSize(), is(0));
+        assertThat(defaultConfig.getShardBearerTokens(), contains(defaultConfig.getBearerToken()));
+        assertThat(defaultConfig.isShardBalanceByVolume(), is(true));
+        assertThat(config.getRuleGroupSize(), is(5));
+        assertThat(config.getShardBearerTokens(), contains(new Password("token-0"), new Password("token-1")));
+        assertThat(config.isShardBalanceByVolume(), is(false));
+    }
+
+    @Test
+    void testTweetParserInvalid() {
+        // given:
+        final Map<String, String> settingsMap = createSettingsMap();
+        settingsMap.put(TWITTER_PARSER_CONF, "invalid");
+        // when:
+        final ConfigException configException =
+              assertThrows(ConfigException.class, () -> new TwitterV2SourceConnectorConfig(settingsMap));
+        // then:
+        assertThat(configException.getMessage(),
+                   is("Invalid value invalid for configuration twitter.parser: String must be one of: model, streaming, raw"));
+    }
+
     @Test
     void testCreateConfigDef() {
         // when:
@@ -361,7 +769,41 @@ class TwitterV2SourceConnectorConfigTest {
                                       TWITTER_RETRIES_CONF,
                                       KAFKA_TWEETS_TOPIC_CONF,
                                       KAFKA_MAX_BATCH_SIZE_CONF,
-                                      KAFKA_MAX_BATCH_INTERVAL_MS_CONF));
+                                      KAFKA_MAX_BATCH_BYTES_CONF,
+                                      KAFKA_MAX_BATCH_INTERVAL_MS_CONF,
+                                      KAFKA_BATCH_ADAPTIVE_CONF,
+                                      KAFKA_BATCH_TARGET_LATENCY_MS_CONF,
+                                      KAFKA_MIN_BATCH_SIZE_CONF,
+                                      KAFKA_QUEUE_CAPACITY_CONF,
+                                      KAFKA_QUEUE_MAX_BYTES_CONF,
+                                      KAFKA_QUEUE_OVERFLOW_POLICY_CONF,
+                                      KAFKA_QUEUE_SPILL_DIR_CONF,
+                                      KAFKA_QUEUE_SPILL_MAX_BYTES_CONF,
+                                      KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF,
+                                      LOG_RAW_JSON_SAMPLE_RATIO_CONF,
+                                      LOG_SUMMARY_INTERVAL_MS_CONF,
+                                      TWITTER_PARSER_CONF,
+                                      TWITTER_PARSER_WORKERS_CONF,
+                                      TWITTER_BACKFILL_ENABLED_CONF,
+                                      TWITTER_BACKFILL_MAX_TWEETS_CONF,
+                                      TWITTER_DEDUPE_ENABLED_CONF,
+                                      TWITTER_DEDUPE_WINDOW_MS_CONF,
+                                      TWITTER_DEDUPE_MAX_BYTES_CONF,
+                                      TWITTER_BASE_URL_CONF,
+                                      TWITTER_STALL_TIMEOUT_MS_CONF,
+                                      TWITTER_RULE_GROUP_SIZE_CONF,
+                                      TWITTER_RULE_MAX_LENGTH_CONF,
+                                      TWITTER_RULE_MAX_COUNT_CONF,
+                                      TWITTER_SHARD_BEARER_TOKENS_CONF,
+                                      TWITTER_SHARD_BALANCE_BY_VOLUME_CONF,
+                                      TWITTER_PARSER_ORDERING_CONF,
+                                      TWITTER_SCHEMA_CONF,
+                                      TWITTER_EXPANSIONS_CONF,
+                                      TWITTER_USER_FIELDS_CONF,
+                                      TWITTER_MEDIA_FIELDS_CONF,
+                                      TWITTER_PLACE_FIELDS_CONF,
+                                      TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF,
+                                      TWITTER_INCLUDES_CACHE_TTL_MS_CONF));
     }
 
     @NotNull
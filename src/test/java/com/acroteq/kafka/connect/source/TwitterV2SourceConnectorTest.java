@@ -26,26 +26,85 @@
  */
 package com.acroteq.kafka.connect.source;
 
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_BATCH_ADAPTIVE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_BATCH_TARGET_LATENCY_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_BYTES_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_INTERVAL_MS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_SIZE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MIN_BATCH_SIZE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_CAPACITY_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_MAX_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_OVERFLOW_POLICY_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_DIR_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_MAX_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_TWEETS_TOPIC_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.LOG_RAW_JSON_SAMPLE_RATIO_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.LOG_SUMMARY_INTERVAL_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TASK_SHARD_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_ENABLED_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_MAX_TWEETS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BASE_URL_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BASE_URL_DEFAULT;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BEARER_TOKEN_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_ENABLED_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_MAX_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_WINDOW_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_EXPANSIONS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_FILTER_KEYWORDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_INCLUDES_CACHE_TTL_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_MEDIA_FIELDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_ORDERING_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_WORKERS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PLACE_FIELDS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RETRIES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_GROUP_SIZE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_MAX_COUNT_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RULE_MAX_LENGTH_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SCHEMA_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SHARD_BALANCE_BY_VOLUME_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SHARD_BEARER_TOKENS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_STALL_TIMEOUT_MS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_TWEET_FIELDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_USER_FIELDS_CONF;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
 
+import com.acroteq.kafka.connect.source.twitter.RuleGroup;
+import com.acroteq.kafka.connect.source.twitter.TweetVolumeService;
+import com.acroteq.kafka.connect.source.twitter.TweetVolumeService.TweetVolumeServiceBuilder;
+import com.acroteq.kafka.connect.source.twitter.TwitterRuleService;
+import com.acroteq.kafka.connect.source.twitter.TwitterRuleService.TwitterRuleServiceBuilder;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import org.apache.kafka.common.config.ConfigDef;
+import org.apache.kafka.common.config.ConfigException;
+import org.apache.kafka.common.config.types.Password;
+import org.apache.kafka.connect.connector.ConnectorContext;
 import org.apache.kafka.connect.connector.Task;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 /** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
@@ -59,11 +118,18 @@ class TwitterV2SourceConnectorTest {
     private static final int RETRIES = 10;
     private static final int BATCH_SIZE = 50;
     private static final int MAX_TASKS = 1;
+    private static final int SHARDED_MAX_TASKS = 3;
+
+    @Mock private TweetVolumeServiceBuilder tweetVolumeServiceBuilder;
+    @Mock private TweetVolumeService tweetVolumeService;
+    @Mock private TwitterRuleServiceBuilder twitterRuleServiceBuilder;
+    @Mock private TwitterRuleService twitterRuleService;
+    @Mock private ConnectorContext connectorContext;
 
     @Test
     public void testVersion() {
         // given:
-        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
         // when:
         final String version = twitterV2SourceConnector.version();
         // then:
@@ -73,34 +139,216 @@ class TwitterV2SourceConnectorTest {
     @Test
     public void testStart() {
         // given:
-        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
         final Map<String, String> settingsMap = createSettingsMap();
         // when:
         twitterV2SourceConnector.start(settingsMap);
         // then:
         assertThat(twitterV2SourceConnector.isRunning(), is(true));
-        final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(MAX_TASKS);
-        assertThat(taskConfigs.size(), is(1));
-        assertThat(taskConfigs.get(0), is(settingsMap));
     }
 
     @Test
     public void testGetTaskConfigs_running() {
         // given:
-        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
         final Map<String, String> settingsMap = createSettingsMap();
         twitterV2SourceConnector.start(settingsMap);
+        mockRuleService(() -> {
+            // when:
+            final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(MAX_TASKS);
+            // then:
+            // the connector maintains the rules, the task gets everything else
+            final Map<String, String> taskSettings = new HashMap<>(settingsMap);
+            taskSettings.remove(TWITTER_FILTER_KEYWORDS_CONF);
+            taskSettings.put(TASK_SHARD_CONF, "0");
+            assertThat(taskConfigs, contains(taskSettings));
+            verify(twitterRuleServiceBuilder).bearerToken(new Password(PASSWORD));
+            verify(twitterRuleService).reconcileRuleGroups(List.of(new RuleGroup("group-0", List.of(KEYWORD))));
+            verify(twitterRuleService).close();
+        });
+    }
+
+    @Test
+    public void testGetTaskConfigs_keywordsChanged() {
+        // given:
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
+        final Map<String, String> settingsMap = new HashMap<>(createSettingsMap());
+        twitterV2SourceConnector.start(settingsMap);
+        mockRuleService(() -> {
+            final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(MAX_TASKS);
+            twitterV2SourceConnector.stop();
+            settingsMap.put(TWITTER_FILTER_KEYWORDS_CONF, "java,kafka");
+            twitterV2SourceConnector.start(settingsMap);
+            // when:
+            final List<Map<String, String>> changedTaskConfigs = twitterV2SourceConnector.taskConfigs(MAX_TASKS);
+            // then:
+            // the same task settings, so Kafka Connect doesn't restart the task, but new rules
+            assertThat(changedTaskConfigs, is(taskConfigs));
+            verify(twitterRuleService).reconcileRuleGroups(List.of(new RuleGroup("group-0", List.of("java", "kafka"))));
+        });
+    }
+
+    @Test
+    public void testGetTaskConfigs_sharded() {
+        // given:
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
+        final Map<String, String> settingsMap = new HashMap<>(createSettingsMap());
+        settingsMap.put(TWITTER_FILTER_KEYWORDS_CONF, "java,kafka,scala");
+        settingsMap.put(TWITTER_RULE_GROUP_SIZE_CONF, "1");
+        settingsMap.put(TWITTER_SHARD_BEARER_TOKENS_CONF, "token-0, token-1");
+        settingsMap.put(TWITTER_SHARD_BALANCE_BY_VOLUME_CONF, "false");
+        twitterV2SourceConnector.start(settingsMap);
+        mockRuleService(() -> {
+            // when:
+            final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(SHARDED_MAX_TASKS);
+            // then:
+            // limited to the number of bearer tokens
+            assertThat(taskConfigs.size(), is(2));
+            assertThat(taskConfigs.get(0)
+                                  .get(TWITTER_BEARER_TOKEN_CONF), is("token-0"));
+            assertThat(taskConfigs.get(0)
+                                  .get(TASK_SHARD_CONF), is("0"));
+            assertThat(taskConfigs.get(1)
+                                  .get(TWITTER_BEARER_TOKEN_CONF), is("token-1"));
+            assertThat(taskConfigs.get(1)
+                                  .get(TASK_SHARD_CONF), is("1"));
+            taskConfigs.forEach(c -> assertThat(c.containsKey(TWITTER_SHARD_BEARER_TOKENS_CONF), is(false)));
+
+            final InOrder inOrder = inOrder(twitterRuleServiceBuilder, twitterRuleService);
+            inOrder.verify(twitterRuleServiceBuilder)
+                   .bearerToken(new Password("token-0"));
+            inOrder.verify(twitterRuleService)
+                   .reconcileRuleGroups(List.of(new RuleGroup("group-0", List.of("java")),
+                                                new RuleGroup("group-2", List.of("scala"))));
+            inOrder.verify(twitterRuleServiceBuilder)
+                   .bearerToken(new Password("token-1"));
+            inOrder.verify(twitterRuleService)
+                   .reconcileRuleGroups(List.of(new RuleGroup("group-1", List.of("kafka"))));
+        });
+    }
+
+    @Test
+    public void testGetTaskConfigs_balanceByVolume() {
+        // given:
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
+        final Map<String, String> settingsMap = new HashMap<>(createSettingsMap());
+        settingsMap.put(TWITTER_FILTER_KEYWORDS_CONF, "java,kafka,scala");
+        settingsMap.put(TWITTER_RULE_GROUP_SIZE_CONF, "1");
+        settingsMap.put(TWITTER_SHARD_BEARER_TOKENS_CONF, "token-0,token-1");
+        twitterV2SourceConnector.start(settingsMap);
+
+        try (final MockedStatic<TweetVolumeService> tweetVolumeServiceMockedStatic =
+                   mockStatic(TweetVolumeService.class)) {
+            tweetVolumeServiceMockedStatic.when(TweetVolumeService::builder)
+                                          .thenReturn(tweetVolumeServiceBuilder);
+            when(tweetVolumeServiceBuilder.bearerToken(any(Password.class))).thenReturn(tweetVolumeServiceBuilder);
+            when(tweetVolumeServiceBuilder.baseUrl(TWITTER_BASE_URL_DEFAULT)).thenReturn(tweetVolumeServiceBuilder);
+            when(tweetVolumeServiceBuilder.retries(RETRIES)).thenReturn(tweetVolumeServiceBuilder);
+            when(tweetVolumeServiceBuilder.build()).thenReturn(tweetVolumeService);
+            when(tweetVolumeService.countRecent(any(RuleGroup.class))).thenAnswer(a -> {
+                final RuleGroup group = a.getArgument(0);
+                return group.getKeywords()
+                            .contains("java") ? 1000L : 10L;
+            });
+            mockRuleService(() -> {
+                // when:
+                final List<Map<String, String>> taskConfigs =
+                      twitterV2SourceConnector.taskConfigs(SHARDED_MAX_TASKS);
+                // then:
+                assertThat(taskConfigs.size(), is(2));
+                verify(twitterRuleService).reconcileRuleGroups(List.of(new RuleGroup("group-0", List.of("java"))));
+                verify(twitterRuleService).reconcileRuleGroups(List.of(new RuleGroup("group-1", List.of("kafka")),
+                                                                       new RuleGroup("group-2", List.of("scala"))));
+                verify(tweetVolumeService).close();
+            });
+        }
+    }
+
+    @Test
+    public void testGetTaskConfigs_ruleGroupsWithoutShardTokens() {
+        // given:
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
+        final Map<String, String> settingsMap = new HashMap<>(createSettingsMap());
+        settingsMap.put(TWITTER_FILTER_KEYWORDS_CONF, "java,kafka");
+        settingsMap.put(TWITTER_RULE_GROUP_SIZE_CONF, "1");
+        twitterV2SourceConnector.start(settingsMap);
+        mockRuleService(() -> {
+            // when:
+            final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(SHARDED_MAX_TASKS);
+            // then:
+            // a single bearer token can only have one filtered stream
+            assertThat(taskConfigs.size(), is(1));
+            assertThat(taskConfigs.get(0)
+                                  .get(TWITTER_BEARER_TOKEN_CONF), is(PASSWORD));
+            verify(twitterRuleService).reconcileRuleGroups(List.of(new RuleGroup("group-0", List.of("java")),
+                                                                   new RuleGroup("group-1", List.of("kafka"))));
+        });
+    }
+
+    @Test
+    public void testGetTaskConfigs_tooManyRules() {
+        // given:
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
+        final Map<String, String> settingsMap = new HashMap<>(createSettingsMap());
+        settingsMap.put(TWITTER_FILTER_KEYWORDS_CONF, "java,kafka,scala");
+        settingsMap.put(TWITTER_RULE_GROUP_SIZE_CONF, "1");
+        settingsMap.put(TWITTER_RULE_MAX_COUNT_CONF, "2");
+        twitterV2SourceConnector.start(settingsMap);
         // when:
-        final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(MAX_TASKS);
+        final ConfigException exception =
+              assertThrows(ConfigException.class, () -> twitterV2SourceConnector.taskConfigs(MAX_TASKS));
         // then:
-        assertThat(taskConfigs.size(), is(1));
-        assertThat(taskConfigs.get(0), is(settingsMap));
+        assertThat(exception.getMessage(),
+                   is("The keywords need 3 rules, but the account allows only 2. Shorten the keyword list, or shard it "
+                      + "across more apps."));
+    }
+
+    @Test
+    public void testGetTaskConfigs_rulesNotUpdated() {
+        // given:
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
+        twitterV2SourceConnector.initialize(connectorContext);
+        twitterV2SourceConnector.start(createSettingsMap());
+        mockRuleService(() -> {
+            when(twitterRuleService.reconcileRuleGroups(anyList())).thenThrow(new IllegalStateException("unavailable"));
+            // when:
+            final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(MAX_TASKS);
+            // then:
+            // the tasks are configured all the same, and the connector asks to be reconfigured to try again
+            assertThat(taskConfigs.size(), is(1));
+            verify(connectorContext).requestTaskReconfiguration();
+        });
+    }
+
+    @Test
+    public void testGetTaskConfigs_rulesMaintainedAfterwards() {
+        // given:
+        final List<Runnable> rulesUpdates = new ArrayList<>();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(rulesUpdates::add, 0);
+        final Map<String, String> settingsMap = new HashMap<>(createSettingsMap());
+        twitterV2SourceConnector.start(settingsMap);
+        mockRuleService(() -> {
+            // when:
+            final List<Map<String, String>> taskConfigs = twitterV2SourceConnector.taskConfigs(MAX_TASKS);
+            twitterV2SourceConnector.stop();
+            settingsMap.put(TWITTER_FILTER_KEYWORDS_CONF, "java,kafka");
+            twitterV2SourceConnector.start(settingsMap);
+            twitterV2SourceConnector.taskConfigs(MAX_TASKS);
+            // then:
+            // the tasks are configured without calling Twitter, and only the latest rules are reconciled
+            assertThat(taskConfigs.size(), is(1));
+            verify(twitterRuleService, never()).reconcileRuleGroups(anyList());
+            rulesUpdates.forEach(Runnable::run);
+            verify(twitterRuleService).reconcileRuleGroups(List.of(new RuleGroup("group-0", List.of("java", "kafka"))));
+            verify(twitterRuleService).close();
+            verifyNoMoreInteractions(twitterRuleService);
+        });
     }
 
     @Test
     public void testGetTaskConfigs_notRunning() {
         // given:
-        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
         // when:
         assertThrows(IllegalStateException.class, () -> twitterV2SourceConnector.taskConfigs(MAX_TASKS));
     }
@@ -108,7 +356,7 @@ class TwitterV2SourceConnectorTest {
     @Test
     public void testStop() {
         // given:
-        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
         final Map<String, String> settingsMap = createSettingsMap();
         twitterV2SourceConnector.start(settingsMap);
         // when:
@@ -120,7 +368,7 @@ class TwitterV2SourceConnectorTest {
     @Test
     public void testTaskClass() {
         // given:
-        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
         // when:
         final Class<? extends Task> taskClass = twitterV2SourceConnector.taskClass();
         // then:
@@ -130,7 +378,7 @@ class TwitterV2SourceConnectorTest {
     @Test
     public void testConfig() {
         // given:
-        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector();
+        final TwitterV2SourceConnector twitterV2SourceConnector = new TwitterV2SourceConnector(Runnable::run, 0);
         final Map<String, String> settingsMap = createSettingsMap();
         twitterV2SourceConnector.start(settingsMap);
         // when:
@@ -142,10 +390,59 @@ class TwitterV2SourceConnectorTest {
                                       TWITTER_TWEET_FIELDS_CONF,
                                       KAFKA_TWEETS_TOPIC_CONF,
                                       KAFKA_MAX_BATCH_SIZE_CONF,
+                                      KAFKA_MAX_BATCH_BYTES_CONF,
                                       KAFKA_MAX_BATCH_INTERVAL_MS_CONF,
+                                      KAFKA_BATCH_ADAPTIVE_CONF,
+                                      KAFKA_BATCH_TARGET_LATENCY_MS_CONF,
+                                      KAFKA_MIN_BATCH_SIZE_CONF,
+                                      KAFKA_QUEUE_CAPACITY_CONF,
+                                      KAFKA_QUEUE_MAX_BYTES_CONF,
+                                      KAFKA_QUEUE_OVERFLOW_POLICY_CONF,
+                                      KAFKA_QUEUE_SPILL_DIR_CONF,
+                                      KAFKA_QUEUE_SPILL_MAX_BYTES_CONF,
+                                      KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF,
+                                      LOG_RAW_JSON_SAMPLE_RATIO_CONF,
+                                      LOG_SUMMARY_INTERVAL_MS_CONF,
+                                      TWITTER_PARSER_CONF,
+                                      TWITTER_PARSER_WORKERS_CONF,
+                                      TWITTER_BACKFILL_ENABLED_CONF,
+                                      TWITTER_BACKFILL_MAX_TWEETS_CONF,
+                                      TWITTER_DEDUPE_ENABLED_CONF,
+                                      TWITTER_DEDUPE_WINDOW_MS_CONF,
+                                      TWITTER_DEDUPE_MAX_BYTES_CONF,
+                                      TWITTER_BASE_URL_CONF,
+                                      TWITTER_STALL_TIMEOUT_MS_CONF,
+                                      TWITTER_RULE_GROUP_SIZE_CONF,
+                                      TWITTER_RULE_MAX_LENGTH_CONF,
+                                      TWITTER_RULE_MAX_COUNT_CONF,
+                                      TWITTER_SHARD_BEARER_TOKENS_CONF,
+                                      TWITTER_SHARD_BALANCE_BY_VOLUME_CONF,
+                                      TWITTER_PARSER_ORDERING_CONF,
+                                      TWITTER_SCHEMA_CONF,
+                                      TWITTER_EXPANSIONS_CONF,
+                                      TWITTER_USER_FIELDS_CONF,
+                                      TWITTER_MEDIA_FIELDS_CONF,
+                                      TWITTER_PLACE_FIELDS_CONF,
+                                      TWITTER_INCLUDES_CACHE_MAX_ENTRIES_CONF,
+                                      TWITTER_INCLUDES_CACHE_TTL_MS_CONF,
                                       TWITTER_RETRIES_CONF));
     }
 
+    private void mockRuleService(final Runnable test) {
+        try (final MockedStatic<TwitterRuleService> twitterRuleServiceMockedStatic =
+                   mockStatic(TwitterRuleService.class)) {
+            twitterRuleServiceMockedStatic.when(TwitterRuleService::builder)
+                                          .thenReturn(twitterRuleServiceBuilder);
+            when(twitterRuleServiceBuilder.bearerToken(any(Password.class))).thenReturn(twitterRuleServiceBuilder);
+            when(twitterRuleServiceBuilder.baseUrl(TWITTER_BASE_URL_DEFAULT)).thenReturn(twitterRuleServiceBuilder);
+            when(twitterRuleServiceBuilder.retries(RETRIES)).thenReturn(twitterRuleServiceBuilder);
+            when(twitterRuleServiceBuilder.ruleMaxCount(anyInt())).thenReturn(twitterRuleServiceBuilder);
+            when(twitterRuleServiceBuilder.build()).thenReturn(twitterRuleService);
+
+            test.run();
+        }
+    }
+
     @NotNull
     private static Map<String, String> createSettingsMap() {
         return Map.of(KAFKA_TWEETS_TOPIC_CONF,
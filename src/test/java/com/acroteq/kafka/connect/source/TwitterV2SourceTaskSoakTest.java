@@ -0,0 +1,214 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source;
+
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_TWEETS_TOPIC_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_ENABLED_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BASE_URL_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BEARER_TOKEN_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_MAX_BYTES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_WINDOW_MS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RETRIES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_TWEET_FIELDS_CONF;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.acroteq.kafka.connect.source.twitter.MockTwitterServer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Drives the whole task against the {@link MockTwitterServer} for {@value #SOAK_MINUTES} minutes, at
+ * {@value #SOAK_TWEETS_PER_SECOND} tweets per second, default 50000, disconnecting the stream, sending an error
+ * payload or rejecting the reconnect with HTTP 429 in turn every {@value #SOAK_FAULT_INTERVAL_SECONDS} seconds,
+ * default 60.
+ *
+ * <p>Only runs when the duration is set, e.g. {@code ./gradlew soakTest -PsoakMinutes=180}.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = TwitterV2SourceTaskSoakTest.SOAK_MINUTES, matches = "[1-9][0-9]*")
+class TwitterV2SourceTaskSoakTest {
+
+    static final String SOAK_MINUTES = "soak.minutes";
+    static final String SOAK_TWEETS_PER_SECOND = "soak.tweetsPerSecond";
+    static final String SOAK_FAULT_INTERVAL_SECONDS = "soak.faultIntervalSeconds";
+
+    private static final int DEFAULT_TWEETS_PER_SECOND = 50000;
+    private static final int DEFAULT_FAULT_INTERVAL_SECONDS = 60;
+    private static final long REPORT_INTERVAL_NANOS = SECONDS.toNanos(10);
+    // the tweets still in the socket buffers when a fault closes the stream are lost, as they would be with Twitter
+    private static final long MAX_LOST_PER_FAULT = 50000;
+    private static final double MAX_LOST_RATIO = 0.01;
+    private static final int DEDUPE_MAX_BYTES = 16 * 1024 * 1024;
+    private static final long MAX_HEAP_GROWTH_BYTES = 64L * 1024 * 1024;
+
+    private final long durationNanos = MINUTES.toNanos(Long.getLong(SOAK_MINUTES, 0));
+    private final long faultIntervalNanos = SECONDS.toNanos(Long.getLong(SOAK_FAULT_INTERVAL_SECONDS,
+                                                                         DEFAULT_FAULT_INTERVAL_SECONDS));
+
+    private MockTwitterServer server;
+    private TwitterV2SourceTask task;
+
+    @BeforeEach
+    void setUp() {
+        server = MockTwitterServer.builder()
+                                  .tweetsPerSecond(Integer.getInteger(SOAK_TWEETS_PER_SECOND,
+                                                                      DEFAULT_TWEETS_PER_SECOND))
+                                  .keepAliveIntervalMs(SECONDS.toMillis(1))
+                                  .start();
+
+        final OffsetStorageReader offsetStorageReader = mock(OffsetStorageReader.class);
+        final SourceTaskContext context = mock(SourceTaskContext.class);
+        when(context.offsetStorageReader()).thenReturn(offsetStorageReader);
+
+        final Map<String, String> settings = new HashMap<>();
+        settings.put(KAFKA_TWEETS_TOPIC_CONF, "tweets");
+        settings.put(TWITTER_TWEET_FIELDS_CONF, "conversation_id,lang");
+        settings.put(TWITTER_BEARER_TOKEN_CONF, "mock-bearer-token");
+        settings.put(TWITTER_BASE_URL_CONF, server.getBaseUrl());
+        settings.put(TWITTER_RETRIES_CONF, "10");
+        settings.put(TWITTER_PARSER_CONF, TweetParser.STREAMING.configValue());
+        settings.put(TWITTER_BACKFILL_ENABLED_CONF, "false");
+        // the default dedupe filter is sized for the rates Twitter delivers, and saturates at the soak rates
+        settings.put(TWITTER_DEDUPE_WINDOW_MS_CONF, Long.toString(MINUTES.toMillis(1)));
+        settings.put(TWITTER_DEDUPE_MAX_BYTES_CONF, Integer.toString(DEDUPE_MAX_BYTES));
+
+        task = new TwitterV2SourceTask();
+        task.initialize(context);
+        task.start(settings);
+    }
+
+    @AfterEach
+    void tearDown() {
+        task.stop();
+        server.close();
+    }
+
+    @Test
+    void testSoak() {
+        // given:
+        final List<Runnable> faults = List.of(server::disconnect, server::sendErrorPayload, () -> {
+            server.rejectConnections(1);
+            server.disconnect();
+        });
+        final long startNanos = System.nanoTime();
+        final long endNanos = startNanos + durationNanos;
+        final List<Long> deliveredPerMinute = new ArrayList<>();
+        long delivered = 0;
+        long deliveredThisMinute = 0;
+        long nextMinuteNanos = startNanos + MINUTES.toNanos(1);
+        long nextFaultNanos = startNanos + faultIntervalNanos;
+        long nextReportNanos = startNanos + REPORT_INTERVAL_NANOS;
+        long baselineHeap = -1;
+        int faultCount = 0;
+
+        // when:
+        long nowNanos = startNanos;
+        while (nowNanos < endNanos) {
+            final List<SourceRecord> sourceRecords = task.poll();
+            for (final SourceRecord sourceRecord : sourceRecords) {
+                task.commitRecord(sourceRecord, null);
+            }
+            delivered += sourceRecords.size();
+            deliveredThisMinute += sourceRecords.size();
+
+            nowNanos = System.nanoTime();
+            if (nowNanos >= nextMinuteNanos) {
+                deliveredPerMinute.add(deliveredThisMinute);
+                deliveredThisMinute = 0;
+                nextMinuteNanos += MINUTES.toNanos(1);
+                if (baselineHeap < 0) {
+                    // the first minute warms up the pipeline, the dedupe filter and the JIT
+                    baselineHeap = usedHeapAfterGc();
+                }
+            }
+            if (nowNanos >= nextFaultNanos) {
+                faults.get(faultCount++ % faults.size())
+                      .run();
+                nextFaultNanos += faultIntervalNanos;
+            }
+            if (nowNanos >= nextReportNanos) {
+                report(delivered, nowNanos - startNanos, faultCount);
+                nextReportNanos += REPORT_INTERVAL_NANOS;
+            }
+        }
+
+        // then:
+        final long sent = server.getSentTweetCount();
+        final long heapGrowth = usedHeapAfterGc() - baselineHeap;
+        report(delivered, nowNanos - startNanos, faultCount);
+        log.info("Soak test sent {} tweets, delivered {}, per minute {}, heap growth {} bytes.",
+                 sent,
+                 delivered,
+                 deliveredPerMinute,
+                 heapGrowth);
+
+        for (final long deliveredInMinute : deliveredPerMinute) {
+            assertThat(deliveredInMinute, greaterThan(0L));
+        }
+        final long maxLost = (long) (sent * MAX_LOST_RATIO) + faultCount * MAX_LOST_PER_FAULT;
+        assertThat(sent - delivered, lessThanOrEqualTo(maxLost));
+        assertThat(heapGrowth, lessThan(MAX_HEAP_GROWTH_BYTES));
+    }
+
+    private void report(final long delivered, final long elapsedNanos, final int faultCount) {
+        final long elapsedSeconds = Math.max(1, NANOSECONDS.toSeconds(elapsedNanos));
+        log.info("Soak test after {}s: sent {}, delivered {} ({} per second), {} connections, {} faults.",
+                 elapsedSeconds,
+                 server.getSentTweetCount(),
+                 delivered,
+                 delivered / elapsedSeconds,
+                 server.getConnectionCount(),
+                 faultCount);
+    }
+
+    private static long usedHeapAfterGc() {
+        final Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
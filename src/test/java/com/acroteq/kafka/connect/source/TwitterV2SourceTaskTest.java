@@ -27,32 +27,71 @@
 package com.acroteq.kafka.connect.source;
 
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_MAX_BATCH_SIZE_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_CAPACITY_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_OVERFLOW_POLICY_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_DIR_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.KAFKA_TWEETS_TOPIC_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BACKFILL_ENABLED_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BEARER_TOKEN_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_DEDUPE_ENABLED_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_EXPANSIONS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_FILTER_KEYWORDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_PARSER_WORKERS_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RETRIES_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_SCHEMA_CONF;
 import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_TWEET_FIELDS_CONF;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.acroteq.kafka.connect.source.twitter.TwitterConfig;
 import com.acroteq.kafka.connect.source.twitter.TwitterStreamer;
 import com.acroteq.kafka.connect.source.twitter.TwitterStreamer.TwitterStreamerFactory;
+import com.acroteq.kafka.connect.source.util.SpillJournal;
 import com.twitter.clientlib.model.Tweet;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
 import org.apache.kafka.connect.source.SourceRecord;
+import org.apache.kafka.connect.source.SourceTaskContext;
+import org.apache.kafka.connect.storage.OffsetStorageReader;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
@@ -66,23 +105,31 @@ class TwitterV2SourceTaskTest {
     private static final String TOPIC = "topic";
     private static final String PASSWORD = "password";
     private static final String KEYWORD = "keyword";
-    private static final String FIELD = "field";
+    private static final String FIELD = "conversation_id";
     private static final int RETRIES = 10;
     private static final int BATCH_SIZE = 50;
-    private static final String TWEET_ID = "tweet-id";
+    private static final long TWEET_ID_VALUE = 1580000000000000000L;
+    private static final String TWEET_ID = Long.toString(TWEET_ID_VALUE);
+    private static final long RESTORED_TWEET_ID = 1570000000000000000L;
     private static final String TWEET_TEXT = "tweet-text";
+    private static final String CONVERSATION_ID = "conversation-id";
+    private static final String AUTHOR_ID = "author-id";
+    private static final String USERNAME = "username";
+    private static final String TWEET_JSON = "{\"data\":{\"id\":\"" + TWEET_ID + "\",\"text\":\"" + TWEET_TEXT
+          + "\",\"conversation_id\":\"" + CONVERSATION_ID + "\",\"edit_history_tweet_ids\":[\"" + TWEET_ID + "\"]}}";
 
 
     @Mock private TwitterStreamerFactory twitterStreamerFactory;
     @Mock private TwitterStreamer twitterStreamer;
+    @Mock private SourceTaskContext context;
+    @Mock private OffsetStorageReader offsetStorageReader;
 
-    @Captor private ArgumentCaptor<Consumer<Tweet>> tweetConsumerCaptor;
+    @Captor private ArgumentCaptor<Consumer<ByteBuffer>> lineConsumerCaptor;
+    @Captor private ArgumentCaptor<Consumer<Tweet>> backfillConsumerCaptor;
 
 
     private final TwitterV2SourceTask twitterV2SourceTask = new TwitterV2SourceTask();
     private final Map<String, String> settingsMap = createSettingsMap();
-    private final Tweet tweet = new Tweet().id(TWEET_ID)
-                                           .text(TWEET_TEXT);
 
     @Test
     public void testVersion() {
@@ -132,10 +179,10 @@ class TwitterV2SourceTaskTest {
         mockTwitterStreamer(() -> {
             // given:
             twitterV2SourceTask.start(settingsMap);
-            verify(twitterStreamerFactory).consumer(tweetConsumerCaptor.capture());
-            final Consumer<Tweet> tweetConsumer = tweetConsumerCaptor.getValue();
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            final Consumer<ByteBuffer> lineConsumer = lineConsumerCaptor.getValue();
             // receive a tweet
-            tweetConsumer.accept(tweet);
+            lineConsumer.accept(UTF_8.encode(TWEET_JSON));
 
             // when:
             final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
@@ -144,6 +191,367 @@ class TwitterV2SourceTaskTest {
         });
     }
 
+    @Test
+    public void testPoll_sourceOffset() {
+        mockTwitterStreamer(() -> {
+            // given:
+            twitterV2SourceTask.start(settingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode(TWEET_JSON));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords, hasSize(1));
+            final SourceRecord sourceRecord = sourceRecords.get(0);
+            assertThat(sourceRecord.sourcePartition(), is(TweetSourceOffsets.SOURCE_PARTITION));
+            assertThat(sourceRecord.sourceOffset()
+                                   .get(TweetSourceOffsets.TWEET_ID_KEY), is(TWEET_ID_VALUE));
+            verify(twitterStreamerFactory, never()).backfill(anyLong(), any(), any());
+        });
+    }
+
+    @Test
+    public void testPoll_duplicateTweets() {
+        mockTwitterStreamer(() -> {
+            // given:
+            twitterV2SourceTask.start(settingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            final Consumer<ByteBuffer> lineConsumer = lineConsumerCaptor.getValue();
+            // receive the same tweet twice, e.g. after a reconnect
+            lineConsumer.accept(UTF_8.encode(TWEET_JSON));
+            lineConsumer.accept(UTF_8.encode(TWEET_JSON));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords, hasSize(1));
+        });
+    }
+
+    @Test
+    public void testStart_backfill() {
+        mockTwitterStreamer(() -> {
+            // given:
+            when(offsetStorageReader.offset(TweetSourceOffsets.SOURCE_PARTITION)).thenReturn(Map.of(
+                  TweetSourceOffsets.TWEET_ID_KEY,
+                  RESTORED_TWEET_ID));
+            when(twitterStreamerFactory.backfill(eq(RESTORED_TWEET_ID),
+                                                 any(Instant.class),
+                                                 backfillConsumerCaptor.capture())).thenReturn(twitterStreamerFactory);
+            when(twitterStreamer.isBackfillPending()).thenReturn(true);
+            twitterV2SourceTask.start(settingsMap);
+
+            // when:
+            backfillConsumerCaptor.getValue()
+                                  .accept(new Tweet().id(TWEET_ID)
+                                                     .text(TWEET_TEXT)
+                                                     .conversationId(CONVERSATION_ID)
+                                                     .editHistoryTweetIds(List.of(TWEET_ID)));
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+
+            // then:
+            // the offset does not move on until the backfill is complete
+            assertThat(sourceRecords, hasSize(1));
+            assertThat(sourceRecords.get(0)
+                                    .sourceOffset()
+                                    .get(TweetSourceOffsets.TWEET_ID_KEY), is(RESTORED_TWEET_ID));
+            // but the timestamp is the creation time of the backfilled tweet
+            assertThat(sourceRecords.get(0)
+                                    .timestamp(), is(TweetSourceOffsets.createdAtMs(TWEET_ID_VALUE)));
+        });
+    }
+
+    @Test
+    public void testPoll_timestampOfOwnTweet() {
+        mockTwitterStreamer(() -> {
+            // given:
+            twitterV2SourceTask.start(settingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            final long olderTweetId = TWEET_ID_VALUE - (1L << 32);
+            // receive a tweet, then an older one
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode(TWEET_JSON));
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode("{\"data\":{\"id\":\"" + olderTweetId + "\",\"text\":\""
+                                                   + TWEET_TEXT + "\",\"edit_history_tweet_ids\":[]}}"));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords, hasSize(2));
+            final SourceRecord olderRecord = sourceRecords.get(1);
+            // the offset is the highest tweet ID queued so far, the timestamp that of the record's own tweet
+            assertThat(olderRecord.sourceOffset()
+                                  .get(TweetSourceOffsets.TWEET_ID_KEY), is(TWEET_ID_VALUE));
+            assertThat(olderRecord.timestamp(), is(TweetSourceOffsets.createdAtMs(olderTweetId)));
+        });
+    }
+
+    @Test
+    public void testPoll_backfillAndLiveStreamConcurrently() {
+        mockTwitterStreamer(() -> {
+            // given:
+            final int count = 20_000;
+            final Map<String, String> noDedupeSettingsMap = new HashMap<>(settingsMap);
+            // the dedupe filter can mistake a new tweet for a duplicate, which would look like a lost record
+            noDedupeSettingsMap.put(TWITTER_DEDUPE_ENABLED_CONF, "false");
+            when(offsetStorageReader.offset(TweetSourceOffsets.SOURCE_PARTITION)).thenReturn(Map.of(
+                  TweetSourceOffsets.TWEET_ID_KEY,
+                  RESTORED_TWEET_ID));
+            when(twitterStreamerFactory.backfill(eq(RESTORED_TWEET_ID),
+                                                 any(Instant.class),
+                                                 backfillConsumerCaptor.capture())).thenReturn(twitterStreamerFactory);
+            twitterV2SourceTask.start(noDedupeSettingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            final Consumer<Tweet> backfillConsumer = backfillConsumerCaptor.getValue();
+            final Consumer<ByteBuffer> lineConsumer = lineConsumerCaptor.getValue();
+
+            // when:
+            final CompletableFuture<Void> backfill = CompletableFuture.runAsync(() -> {
+                for (int i = 1; i <= count; i++) {
+                    final String tweetId = Long.toString(RESTORED_TWEET_ID + i);
+                    backfillConsumer.accept(new Tweet().id(tweetId)
+                                                       .text(TWEET_TEXT)
+                                                       .editHistoryTweetIds(List.of(tweetId)));
+                }
+            });
+            final CompletableFuture<Void> stream = CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < count; i++) {
+                    lineConsumer.accept(UTF_8.encode("{\"data\":{\"id\":\"" + (TWEET_ID_VALUE + i) + "\",\"text\":\""
+                                                     + TWEET_TEXT + "\",\"edit_history_tweet_ids\":[]}}"));
+                }
+            });
+            final Set<Object> tweetIds = new HashSet<>();
+
+            // then:
+            await().atMost(30, SECONDS)
+                   .pollInterval(Duration.ZERO)
+                   .until(() -> {
+                       twitterV2SourceTask.poll()
+                                          .stream()
+                                          .map(sourceRecord -> ((Struct) sourceRecord.value()).get("id"))
+                                          .forEach(tweetIds::add);
+                       return tweetIds.size() >= 2 * count;
+                   });
+            backfill.join();
+            stream.join();
+            assertThat(tweetIds, hasSize(2 * count));
+            assertThat(twitterV2SourceTask.poll(), is(empty()));
+        });
+    }
+
+    @Test
+    public void testPoll_receivedTweets_streamingParser() {
+        final Map<String, String> streamingSettingsMap = new HashMap<>(settingsMap);
+        streamingSettingsMap.put(TWITTER_PARSER_CONF, "streaming");
+        mockTwitterStreamer(() -> {
+            // given:
+            twitterV2SourceTask.start(streamingSettingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            final Consumer<ByteBuffer> lineConsumer = lineConsumerCaptor.getValue();
+            // receive a tweet
+            lineConsumer.accept(UTF_8.encode(TWEET_JSON));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords, hasSize(1));
+            assertThat(sourceRecords.get(0)
+                                    .key(), is(CONVERSATION_ID));
+        });
+    }
+
+    @Test
+    public void testPoll_receivedTweets_compactSchema() {
+        final Map<String, String> compactSettingsMap = new HashMap<>(settingsMap);
+        compactSettingsMap.put(TWITTER_PARSER_CONF, "streaming");
+        compactSettingsMap.put(TWITTER_SCHEMA_CONF, "compact");
+        final long conversationId = TWEET_ID_VALUE - 1;
+        final String json = "{\"data\":{\"id\":\"" + TWEET_ID + "\",\"text\":\"" + TWEET_TEXT
+              + "\",\"conversation_id\":\"" + conversationId + "\",\"edit_history_tweet_ids\":[\"" + TWEET_ID + "\"]}}";
+        mockTwitterStreamer(() -> {
+            // given:
+            twitterV2SourceTask.start(compactSettingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            // receive a tweet
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode(json));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords, hasSize(1));
+            final SourceRecord sourceRecord = sourceRecords.get(0);
+            assertThat(sourceRecord.keySchema(), is(Schema.OPTIONAL_INT64_SCHEMA));
+            assertThat(sourceRecord.key(), is(conversationId));
+            assertThat(((Struct) sourceRecord.value()).getInt64("id"), is(TWEET_ID_VALUE));
+            assertThat(sourceRecord.sourceOffset()
+                                   .get(TweetSourceOffsets.TWEET_ID_KEY), is(TWEET_ID_VALUE));
+        });
+    }
+
+    @Test
+    public void testPoll_receivedTweets_includes() {
+        assertIncludes("model");
+    }
+
+    @Test
+    public void testPoll_receivedTweets_includesStreamingParser() {
+        assertIncludes("streaming");
+    }
+
+    private void assertIncludes(final String parser) {
+        final Map<String, String> includesSettingsMap = new HashMap<>(settingsMap);
+        includesSettingsMap.put(TWITTER_PARSER_CONF, parser);
+        includesSettingsMap.put(TWITTER_EXPANSIONS_CONF, "author_id");
+        final String json = "{\"data\":{\"id\":\"%d\",\"text\":\"" + TWEET_TEXT
+              + "\",\"edit_history_tweet_ids\":[]},\"includes\":{\"users\":[{\"id\":\"" + AUTHOR_ID
+              + "\",\"name\":\"name\",\"username\":\"" + USERNAME + "\"}]}}";
+        mockTwitterStreamer(() -> {
+            // given:
+            twitterV2SourceTask.start(includesSettingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            // receive two tweets by the same author
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode(String.format(json, TWEET_ID_VALUE)));
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode(String.format(json, TWEET_ID_VALUE + 1)));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords, hasSize(2));
+            final List<Struct> users = sourceRecords.stream()
+                                                    .map(SourceRecord::value)
+                                                    .map(Struct.class::cast)
+                                                    .map(value -> value.getStruct("includes"))
+                                                    .map(includes -> (Struct) includes.getArray("users")
+                                                                                      .get(0))
+                                                    .collect(toList());
+            assertThat(users.get(0)
+                            .getString("username"), is(USERNAME));
+            assertThat(users.get(1), is(sameInstance(users.get(0))));
+        });
+    }
+
+    @Test
+    public void testPoll_receivedTweets_rawParser() {
+        final Map<String, String> rawSettingsMap = new HashMap<>(settingsMap);
+        rawSettingsMap.put(TWITTER_PARSER_CONF, "raw");
+        mockTwitterStreamer(() -> {
+            // given:
+            when(offsetStorageReader.offset(TweetSourceOffsets.SOURCE_PARTITION)).thenReturn(Map.of(
+                  TweetSourceOffsets.TWEET_ID_KEY,
+                  RESTORED_TWEET_ID));
+            when(twitterStreamerFactory.backfill(eq(RESTORED_TWEET_ID),
+                                                 any(Instant.class),
+                                                 backfillConsumerCaptor.capture())).thenReturn(twitterStreamerFactory);
+            twitterV2SourceTask.start(rawSettingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            // backfill a tweet, then receive one
+            backfillConsumerCaptor.getValue()
+                                  .accept(new Tweet().id(Long.toString(RESTORED_TWEET_ID + 1))
+                                                     .text("backfilled")
+                                                     .editHistoryTweetIds(List.of()));
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode(TWEET_JSON));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords, hasSize(2));
+            assertThat(sourceRecords.get(0)
+                                    .valueSchema(), is(Schema.BYTES_SCHEMA));
+            assertThat(new String((byte[]) sourceRecords.get(0)
+                                                        .value(), UTF_8), containsString("\"text\":\"backfilled\""));
+            final SourceRecord received = sourceRecords.get(1);
+            assertThat(received.valueSchema(), is(Schema.BYTES_SCHEMA));
+            assertThat(new String((byte[]) received.value(), UTF_8), is(TWEET_JSON));
+            assertThat(received.key(), is(CONVERSATION_ID));
+            assertThat(received.sourceOffset()
+                               .get(TweetSourceOffsets.TWEET_ID_KEY), is(TWEET_ID_VALUE));
+            twitterV2SourceTask.stop();
+        });
+    }
+
+    @Test
+    public void testPoll_receivedTweets_parserWorkers() {
+        final Map<String, String> workersSettingsMap = new HashMap<>(settingsMap);
+        workersSettingsMap.put(TWITTER_PARSER_WORKERS_CONF, "2");
+        mockTwitterStreamer(() -> {
+            // given:
+            twitterV2SourceTask.start(workersSettingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            final Consumer<ByteBuffer> lineConsumer = lineConsumerCaptor.getValue();
+            // receive a tweet, which is parsed on a worker thread
+            lineConsumer.accept(UTF_8.encode(TWEET_JSON));
+
+            // when:
+            final List<SourceRecord> sourceRecords = new ArrayList<>();
+            await().atMost(10, SECONDS)
+                   .until(() -> sourceRecords.addAll(twitterV2SourceTask.poll()));
+            // then:
+            assertThat(sourceRecords, hasSize(1));
+            assertThat(sourceRecords.get(0)
+                                    .key(), is(CONVERSATION_ID));
+            twitterV2SourceTask.stop();
+        });
+    }
+
+    @Test
+    public void testPoll_spilledTweets(@TempDir final Path spillDir) {
+        final Map<String, String> spillSettingsMap = new HashMap<>(settingsMap);
+        spillSettingsMap.put(KAFKA_QUEUE_CAPACITY_CONF, "1");
+        spillSettingsMap.put(KAFKA_QUEUE_OVERFLOW_POLICY_CONF, "spill");
+        spillSettingsMap.put(KAFKA_QUEUE_SPILL_DIR_CONF, spillDir.toString());
+        spillSettingsMap.put(KAFKA_QUEUE_SPILL_SEGMENT_BYTES_CONF, Integer.toString(SpillJournal.MIN_SEGMENT_BYTES));
+        mockTwitterStreamer(() -> {
+            // given:
+            when(offsetStorageReader.offset(TweetSourceOffsets.SOURCE_PARTITION)).thenReturn(Map.of(
+                  TweetSourceOffsets.TWEET_ID_KEY,
+                  RESTORED_TWEET_ID));
+            when(twitterStreamerFactory.backfill(eq(RESTORED_TWEET_ID),
+                                                 any(Instant.class),
+                                                 backfillConsumerCaptor.capture())).thenReturn(twitterStreamerFactory);
+            twitterV2SourceTask.start(spillSettingsMap);
+            verify(twitterStreamerFactory).lineConsumer(lineConsumerCaptor.capture());
+            // the first tweet fills the queue, the others are spilled to the journal
+            for (int i = 1; i <= 2; i++) {
+                backfillConsumerCaptor.getValue()
+                                      .accept(new Tweet().id(Long.toString(RESTORED_TWEET_ID + i))
+                                                         .text("backfilled-" + i)
+                                                         .editHistoryTweetIds(List.of()));
+            }
+            lineConsumerCaptor.getValue()
+                              .accept(UTF_8.encode(TWEET_JSON));
+
+            // when:
+            final List<SourceRecord> sourceRecords = twitterV2SourceTask.poll();
+            // then:
+            assertThat(sourceRecords.stream()
+                                    .map(sourceRecord -> ((Struct) sourceRecord.value()).getString("text"))
+                                    .collect(toList()), contains("backfilled-1", "backfilled-2", TWEET_TEXT));
+            assertThat(sourceRecords.get(2)
+                                    .key(), is(CONVERSATION_ID));
+            assertThat(sourceRecords.get(2)
+                                    .sourceOffset()
+                                    .get(TweetSourceOffsets.TWEET_ID_KEY), is(TWEET_ID_VALUE));
+            sourceRecords.forEach(sourceRecord -> twitterV2SourceTask.commitRecord(sourceRecord, null));
+            twitterV2SourceTask.stop();
+            assertThat(listFiles(spillDir), is(empty()));
+        });
+    }
+
+    private static List<Path> listFiles(final Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(toList());
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     @NotNull
     private static Map<String, String> createSettingsMap() {
         return Map.of(KAFKA_TWEETS_TOPIC_CONF,
@@ -157,7 +565,11 @@ class TwitterV2SourceTaskTest {
                       KAFKA_MAX_BATCH_SIZE_CONF,
                       Integer.toString(BATCH_SIZE),
                       TWITTER_RETRIES_CONF,
-                      Integer.toString(RETRIES));
+                      Integer.toString(RETRIES),
+                      TWITTER_BACKFILL_ENABLED_CONF,
+                      "true",
+                      TWITTER_DEDUPE_ENABLED_CONF,
+                      "true");
     }
 
     @SuppressWarnings({ "ResultOfMethodCallIgnored", "unchecked" })
@@ -166,8 +578,10 @@ class TwitterV2SourceTaskTest {
             utilities.when(TwitterStreamer::factory)
                      .thenReturn(twitterStreamerFactory);
             when(twitterStreamerFactory.config(any(TwitterConfig.class))).thenReturn(twitterStreamerFactory);
-            when(twitterStreamerFactory.consumer(any(Consumer.class))).thenReturn(twitterStreamerFactory);
+            when(twitterStreamerFactory.lineConsumer(any(Consumer.class))).thenReturn(twitterStreamerFactory);
             when(twitterStreamerFactory.start()).thenReturn(twitterStreamer);
+            when(context.offsetStorageReader()).thenReturn(offsetStorageReader);
+            twitterV2SourceTask.initialize(context);
             lenient().when(twitterStreamer.isRunning())
                      .thenReturn(true);
 
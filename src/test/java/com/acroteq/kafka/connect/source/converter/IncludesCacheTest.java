@@ -0,0 +1,141 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_MEDIA;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_POLLS;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_USERS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import org.apache.kafka.connect.data.Struct;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class IncludesCacheTest {
+
+    private final TestTicker ticker = new TestTicker();
+
+    private final Struct user = new UserConverter().convert(new TweetTestDataGenerator().createUser());
+
+    @Test
+    void testForIncludes_cachedOnly() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(10, 1000, ticker);
+        // then:
+        assertThat(includesCache.forIncludes(SERIALIZED_NAME_USERS), is(notNullValue()));
+        assertThat(includesCache.forIncludes(SERIALIZED_NAME_MEDIA), is(notNullValue()));
+        assertThat(includesCache.forIncludes(SERIALIZED_NAME_POLLS), is(nullValue()));
+    }
+
+    @Test
+    void testGetIfPresent_hitsAndMisses() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(10, 1000, ticker);
+        final Cache<String, Struct> users = includesCache.forIncludes(SERIALIZED_NAME_USERS);
+        // when:
+        final Struct miss = users.getIfPresent("1");
+        users.put("1", user);
+        final Struct hit = users.getIfPresent("1");
+        // then:
+        assertThat(miss, is(nullValue()));
+        assertThat(hit, is(sameInstance(user)));
+        assertThat(includesCache.getHitCount(), is(1L));
+        assertThat(includesCache.getMissCount(), is(1L));
+    }
+
+    @Test
+    void testGetIfPresent_expired() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(10, 1000, ticker);
+        final Cache<String, Struct> users = includesCache.forIncludes(SERIALIZED_NAME_USERS);
+        users.put("1", user);
+        // when:
+        ticker.advance(999);
+        final Struct beforeExpiry = users.getIfPresent("1");
+        ticker.advance(1);
+        final Struct afterExpiry = users.getIfPresent("1");
+        // then:
+        assertThat(beforeExpiry, is(sameInstance(user)));
+        assertThat(afterExpiry, is(nullValue()));
+    }
+
+    @Test
+    void testPut_leastRecentlyUsedEvicted() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(2, 1000, ticker);
+        final Cache<String, Struct> users = includesCache.forIncludes(SERIALIZED_NAME_USERS);
+        users.put("1", user);
+        users.put("2", user);
+        users.getIfPresent("1");
+        // when:
+        users.put("3", user);
+        // then:
+        assertThat(users.size(), is(2L));
+        assertThat(users.getIfPresent("1"), is(notNullValue()));
+        assertThat(users.getIfPresent("2"), is(nullValue()));
+        assertThat(users.getIfPresent("3"), is(notNullValue()));
+    }
+
+    @Test
+    void testPut_noEntries() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(0, 1000, ticker);
+        final Cache<String, Struct> users = includesCache.forIncludes(SERIALIZED_NAME_USERS);
+        // when:
+        users.put("1", user);
+        // then:
+        assertThat(users.getIfPresent("1"), is(nullValue()));
+    }
+
+    @Test
+    void testConstructor_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new IncludesCache(-1, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new IncludesCache(10, 0));
+    }
+
+    private static class TestTicker extends Ticker {
+
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(final long millis) {
+            nanos += MILLISECONDS.toNanos(millis);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertIncludes;
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertNull;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.SNOWFLAKE_AUTHOR_ID;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_MEDIA;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_PLACES;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_USERS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import com.twitter.clientlib.model.Expansions;
+import com.twitter.clientlib.model.User;
+import java.util.List;
+import org.apache.kafka.connect.data.Struct;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class IncludesConverterTest {
+
+    private final TweetTestDataGenerator testDataGenerator = new TweetTestDataGenerator();
+
+    @Test
+    void testConvert_allIncludes() {
+        // given:
+        final IncludesConverter includesConverter = new IncludesConverter(false, null);
+        // when:
+        final Struct struct = includesConverter.convertOptional(testDataGenerator.createIncludes());
+        // then:
+        assertIncludes(struct);
+    }
+
+    @Test
+    void testConvert_usersOnly() {
+        // given:
+        final IncludesConverter includesConverter = new IncludesConverter(false, null);
+        final Expansions includes = new Expansions().users(List.of(testDataGenerator.createUser()));
+        // when:
+        final Struct struct = includesConverter.convertOptional(includes);
+        // then:
+        assertThat(struct.getArray(SERIALIZED_NAME_USERS)
+                         .size(), is(1));
+        assertNull(struct, SERIALIZED_NAME_MEDIA);
+        assertNull(struct, SERIALIZED_NAME_PLACES);
+    }
+
+    @Test
+    void testConvert_null() {
+        assertThat(new IncludesConverter(false, null).convertOptional(null), is(nullValue()));
+    }
+
+    @Test
+    void testConvert_compact() {
+        // given:
+        final IncludesConverter includesConverter = new IncludesConverter(true, null);
+        final Expansions includes = new Expansions().users(List.of(testDataGenerator.createSnowflakeUser()));
+        // when:
+        final Struct struct = includesConverter.convertOptional(includes);
+        // then:
+        final Struct user = (Struct) struct.getArray(SERIALIZED_NAME_USERS)
+                                           .get(0);
+        assertThat(user.getInt64(User.SERIALIZED_NAME_ID), is(SNOWFLAKE_AUTHOR_ID));
+    }
+
+    @Test
+    void testConvert_cachedStructsReused() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(10, 60_000);
+        final IncludesConverter includesConverter = new IncludesConverter(false, includesCache);
+        // when:
+        final Struct first = includesConverter.convertOptional(testDataGenerator.createIncludes());
+        final Struct second = includesConverter.convertOptional(testDataGenerator.createIncludes());
+        // then:
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getArray(SERIALIZED_NAME_USERS)
+                         .get(0), is(sameInstance(first.getArray(SERIALIZED_NAME_USERS)
+                                                       .get(0))));
+        assertThat(second.getArray(SERIALIZED_NAME_MEDIA)
+                         .get(1), is(sameInstance(first.getArray(SERIALIZED_NAME_MEDIA)
+                                                       .get(1))));
+        assertThat(includesCache.getMissCount(), is(4L));
+        assertThat(includesCache.getHitCount(), is(4L));
+    }
+}
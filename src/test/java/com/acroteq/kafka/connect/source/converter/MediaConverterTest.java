@@ -0,0 +1,80 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertNull;
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertPhoto;
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertVideo;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.IMAGE_URL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import com.twitter.clientlib.model.AnimatedGif;
+import com.twitter.clientlib.model.Media;
+import com.twitter.clientlib.model.Photo;
+import com.twitter.clientlib.model.Video;
+import org.apache.kafka.connect.data.Struct;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class MediaConverterTest {
+
+    private final TweetTestDataGenerator testDataGenerator = new TweetTestDataGenerator();
+
+    private final MediaConverter mediaConverter = new MediaConverter();
+
+    @Test
+    public void testConvert_photo() {
+        // when:
+        final Struct struct = mediaConverter.convert(testDataGenerator.createPhoto());
+        // then:
+        assertPhoto(struct);
+    }
+
+    @Test
+    public void testConvert_video() {
+        // when:
+        final Struct struct = mediaConverter.convert(testDataGenerator.createVideo());
+        // then:
+        assertVideo(struct);
+    }
+
+    @Test
+    public void testConvert_animatedGif() {
+        // given:
+        final AnimatedGif animatedGif = new AnimatedGif().previewImageUrl(testDataGenerator.createUrl(IMAGE_URL));
+        animatedGif.setMediaKey("animated-gif-media-key");
+        animatedGif.setType("animated_gif");
+        // when:
+        final Struct struct = mediaConverter.convert(animatedGif);
+        // then:
+        assertThat(struct.getString(Media.SERIALIZED_NAME_MEDIA_KEY), is("animated-gif-media-key"));
+        assertThat(struct.getString(Video.SERIALIZED_NAME_PREVIEW_IMAGE_URL), is(IMAGE_URL));
+        assertNull(struct, Photo.SERIALIZED_NAME_URL);
+        assertNull(struct, Video.SERIALIZED_NAME_DURATION_MS);
+    }
+}
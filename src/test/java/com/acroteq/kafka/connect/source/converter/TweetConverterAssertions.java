@@ -31,6 +31,7 @@ import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.ANNOTATION_PROBABILITY;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.ANNOTATION_START;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.ANNOTATION_TYPE;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.AUTHOR_ID;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.CASHTAG_END;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.CASHTAG_START;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.CASHTAG_TAG;
@@ -61,6 +62,12 @@ import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.ORGANIC_METRICS_LIKE_COUNT;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.ORGANIC_METRICS_REPLY_COUNT;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.ORGANIC_METRICS_RETWEET_COUNT;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PHOTO_ALT_TEXT;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PHOTO_TYPE;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PLACE_COUNTRY;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PLACE_COUNTRY_CODE;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PLACE_FULL_NAME;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PLACE_NAME;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.POINT_COORDINATES_LAT;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.POINT_COORDINATES_LONG;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.POLL_ID;
@@ -73,6 +80,7 @@ import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PUBLIC_METRICS_REPLY_COUNT;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.PUBLIC_METRICS_RETWEET_COUNT;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.REFERENCED_TWEET_ID;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.TWEET_ID;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.URL_DESCRIPTION;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.URL_END;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.URL_MEDIA_KEY;
@@ -80,6 +88,20 @@ import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.URL_STATUS;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.URL_TITLE;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.URL_URL;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_CREATED_AT;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_DESCRIPTION;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_FOLLOWERS_COUNT;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_FOLLOWING_COUNT;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_LISTED_COUNT;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_LOCATION;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_NAME;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_PROFILE_IMAGE_URL;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_TWEET_COUNT;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_URL;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_USERNAME;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.VIDEO_DURATION_MS;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.VIDEO_MEDIA_KEY;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.VIDEO_TYPE;
 import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.WITHHELD_COUNTRY_CODE;
 import static com.twitter.clientlib.model.ContextAnnotation.SERIALIZED_NAME_DOMAIN;
 import static com.twitter.clientlib.model.ContextAnnotation.SERIALIZED_NAME_ENTITY;
@@ -120,9 +142,14 @@ import static org.hamcrest.Matchers.nullValue;
 import com.twitter.clientlib.model.CashtagEntity;
 import com.twitter.clientlib.model.ContextAnnotationDomainFields;
 import com.twitter.clientlib.model.ContextAnnotationEntityFields;
+import com.twitter.clientlib.model.Expansions;
 import com.twitter.clientlib.model.FullTextEntitiesAnnotations;
 import com.twitter.clientlib.model.HashtagEntity;
+import com.twitter.clientlib.model.Media;
 import com.twitter.clientlib.model.MentionEntity;
+import com.twitter.clientlib.model.Photo;
+import com.twitter.clientlib.model.Place;
+import com.twitter.clientlib.model.PlaceType;
 import com.twitter.clientlib.model.Point;
 import com.twitter.clientlib.model.TweetEditControls;
 import com.twitter.clientlib.model.TweetGeo;
@@ -133,6 +160,9 @@ import com.twitter.clientlib.model.TweetPublicMetrics;
 import com.twitter.clientlib.model.TweetReferencedTweets;
 import com.twitter.clientlib.model.UrlEntity;
 import com.twitter.clientlib.model.UrlImage;
+import com.twitter.clientlib.model.User;
+import com.twitter.clientlib.model.UserPublicMetrics;
+import com.twitter.clientlib.model.Video;
 import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.util.Date;
@@ -319,4 +349,71 @@ class TweetConverterAssertions {
         assertThat(edit, is(EDIT_HISTORY_TWEET_ID));
     }
 
+    static void assertIncludes(final Struct struct) {
+        final List<Struct> users = struct.getArray(Expansions.SERIALIZED_NAME_USERS);
+        assertThat(users, hasSize(1));
+        assertUser(users.get(0));
+        final List<Struct> media = struct.getArray(Expansions.SERIALIZED_NAME_MEDIA);
+        assertThat(media, hasSize(2));
+        assertPhoto(media.get(0));
+        assertVideo(media.get(1));
+        final List<Struct> places = struct.getArray(Expansions.SERIALIZED_NAME_PLACES);
+        assertThat(places, hasSize(1));
+        assertPlace(places.get(0));
+    }
+
+    static void assertUser(final Struct struct) {
+        assertThat(struct.get(User.SERIALIZED_NAME_ID), is(AUTHOR_ID));
+        assertUserFields(struct);
+        assertThat(struct.get(User.SERIALIZED_NAME_PINNED_TWEET_ID), is(TWEET_ID));
+    }
+
+    /** The fields of a user that are the same in the standard and the compact schema. */
+    static void assertUserFields(final Struct struct) {
+        assertThat(struct.getString(User.SERIALIZED_NAME_NAME), is(USER_NAME));
+        assertThat(struct.getString(User.SERIALIZED_NAME_USERNAME), is(USER_USERNAME));
+        assertDate(struct, User.SERIALIZED_NAME_CREATED_AT, USER_CREATED_AT);
+        assertThat(struct.getString(User.SERIALIZED_NAME_DESCRIPTION), is(USER_DESCRIPTION));
+        assertThat(struct.getString(User.SERIALIZED_NAME_LOCATION), is(USER_LOCATION));
+        assertThat(struct.getString(User.SERIALIZED_NAME_URL), is(USER_URL));
+        assertThat(struct.getString(User.SERIALIZED_NAME_PROFILE_IMAGE_URL), is(USER_PROFILE_IMAGE_URL));
+        assertThat(struct.getBoolean(User.SERIALIZED_NAME_PROTECTED), is(false));
+        assertThat(struct.getBoolean(User.SERIALIZED_NAME_VERIFIED), is(true));
+
+        final Struct publicMetrics = struct.getStruct(User.SERIALIZED_NAME_PUBLIC_METRICS);
+        assertThat(publicMetrics.getInt32(UserPublicMetrics.SERIALIZED_NAME_FOLLOWERS_COUNT), is(USER_FOLLOWERS_COUNT));
+        assertThat(publicMetrics.getInt32(UserPublicMetrics.SERIALIZED_NAME_FOLLOWING_COUNT), is(USER_FOLLOWING_COUNT));
+        assertThat(publicMetrics.getInt32(UserPublicMetrics.SERIALIZED_NAME_TWEET_COUNT), is(USER_TWEET_COUNT));
+        assertThat(publicMetrics.getInt32(UserPublicMetrics.SERIALIZED_NAME_LISTED_COUNT), is(USER_LISTED_COUNT));
+    }
+
+    static void assertPhoto(final Struct struct) {
+        assertThat(struct.getString(Media.SERIALIZED_NAME_MEDIA_KEY), is(MEDIA_KEY));
+        assertThat(struct.getString(Media.SERIALIZED_NAME_TYPE), is(PHOTO_TYPE));
+        assertThat(struct.getString(Photo.SERIALIZED_NAME_URL), is(IMAGE_URL));
+        assertThat(struct.getString(Photo.SERIALIZED_NAME_ALT_TEXT), is(PHOTO_ALT_TEXT));
+        assertThat(struct.getInt32(Media.SERIALIZED_NAME_HEIGHT), is(IMAGE_HEIGHT));
+        assertThat(struct.getInt32(Media.SERIALIZED_NAME_WIDTH), is(IMAGE_WIDTH));
+        assertNull(struct, Video.SERIALIZED_NAME_PREVIEW_IMAGE_URL);
+        assertNull(struct, Video.SERIALIZED_NAME_DURATION_MS);
+    }
+
+    static void assertVideo(final Struct struct) {
+        assertThat(struct.getString(Media.SERIALIZED_NAME_MEDIA_KEY), is(VIDEO_MEDIA_KEY));
+        assertThat(struct.getString(Media.SERIALIZED_NAME_TYPE), is(VIDEO_TYPE));
+        assertThat(struct.getString(Video.SERIALIZED_NAME_PREVIEW_IMAGE_URL), is(IMAGE_URL));
+        assertThat(struct.getInt32(Video.SERIALIZED_NAME_DURATION_MS), is(VIDEO_DURATION_MS));
+        assertNull(struct, Photo.SERIALIZED_NAME_URL);
+        assertNull(struct, Media.SERIALIZED_NAME_HEIGHT);
+    }
+
+    static void assertPlace(final Struct struct) {
+        assertThat(struct.getString(Place.SERIALIZED_NAME_ID), is(GEO_PLACE_ID));
+        assertThat(struct.getString(Place.SERIALIZED_NAME_FULL_NAME), is(PLACE_FULL_NAME));
+        assertThat(struct.getString(Place.SERIALIZED_NAME_NAME), is(PLACE_NAME));
+        assertThat(struct.getString(Place.SERIALIZED_NAME_COUNTRY), is(PLACE_COUNTRY));
+        assertThat(struct.getString(Place.SERIALIZED_NAME_COUNTRY_CODE), is(PLACE_COUNTRY_CODE));
+        assertThat(struct.getString(Place.SERIALIZED_NAME_PLACE_TYPE), is(PlaceType.POI.getValue()));
+    }
+
 }
@@ -26,6 +26,7 @@
  */
 package com.acroteq.kafka.connect.source.converter;
 
+import static com.twitter.clientlib.model.FilteredStreamingTweetResponse.SERIALIZED_NAME_INCLUDES;
 import static com.twitter.clientlib.model.ReplySettings.EVERYONE;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_ATTACHMENTS;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_AUTHOR_ID;
@@ -49,12 +50,22 @@ import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_REPLY_SETTINGS;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_SOURCE;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_TEXT;
 import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_WITHHELD;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.twitter.clientlib.model.Tweet;
+import java.util.List;
+import java.util.Set;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
 import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
@@ -137,4 +148,159 @@ class TweetConverterTest {
         assertThat(struct.getArray(SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS), is(empty()));
         TweetConverterAssertions.assertNull(struct, SERIALIZED_NAME_REPLY_SETTINGS);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testProjection_selectedFields() {
+        // given:
+        final Tweet tweet = testDataGenerator.createTweet();
+        final TweetConverter projected = new TweetConverter(Set.of(SERIALIZED_NAME_LANG, SERIALIZED_NAME_AUTHOR_ID));
+        // when:
+        final Struct struct = projected.convert(tweet);
+        // then:
+        assertThat(fieldNames(projected.getSchema()),
+                   contains(SERIALIZED_NAME_ID,
+                            SERIALIZED_NAME_TEXT,
+                            SERIALIZED_NAME_AUTHOR_ID,
+                            SERIALIZED_NAME_LANG,
+                            SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS));
+        assertThat(struct.schema(), is(projected.getSchema()));
+        assertThat(struct.getString(SERIALIZED_NAME_ID), is(TweetTestDataGenerator.TWEET_ID));
+        assertThat(struct.getString(SERIALIZED_NAME_AUTHOR_ID), is(TweetTestDataGenerator.AUTHOR_ID));
+        assertThat(struct.getString(SERIALIZED_NAME_LANG), is(TweetTestDataGenerator.LANG));
+    }
+
+    @Test
+    public void testProjection_defaultFieldsOnly() {
+        // when:
+        final TweetConverter projected = new TweetConverter(Set.of());
+        // then:
+        assertThat(fieldNames(projected.getSchema()),
+                   contains(SERIALIZED_NAME_ID, SERIALIZED_NAME_TEXT, SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS));
+    }
+
+    @Test
+    public void testProjection_allFields() {
+        // given:
+        final Set<String> allFields = Set.copyOf(fieldNames(TweetConverter.TWEET_SCHEMA));
+        // when:
+        final TweetConverter projected = new TweetConverter(allFields);
+        // then:
+        assertThat(projected.getSchema(), is(sameInstance(TweetConverter.TWEET_SCHEMA)));
+        assertThat(tweetConverter.getSchema(), is(sameInstance(TweetConverter.TWEET_SCHEMA)));
+    }
+
+    @Test
+    public void testConvertTweet_compact() {
+        // given:
+        final Tweet tweet = testDataGenerator.createSnowflakeTweet();
+        final Set<String> allFields = Set.copyOf(fieldNames(TweetConverter.TWEET_SCHEMA));
+        final TweetConverter compactConverter = new TweetConverter(allFields, true);
+        // when:
+        final Struct struct = compactConverter.convert(tweet);
+        // then:
+        assertThat(compactConverter.getSchema(), is(sameInstance(TweetConverter.COMPACT_TWEET_SCHEMA)));
+        assertThat(fieldNames(struct.schema()), is(fieldNames(TweetConverter.TWEET_SCHEMA)));
+        assertThat(struct.getInt64(SERIALIZED_NAME_ID), is(TweetTestDataGenerator.SNOWFLAKE_TWEET_ID));
+        assertThat(struct.getInt64(SERIALIZED_NAME_AUTHOR_ID), is(TweetTestDataGenerator.SNOWFLAKE_AUTHOR_ID));
+        assertThat(struct.getInt64(SERIALIZED_NAME_IN_REPLY_TO_USER_ID),
+                   is(TweetTestDataGenerator.SNOWFLAKE_IN_REPLY_TO_USER_ID));
+        assertThat(struct.getInt64(SERIALIZED_NAME_CONVERSATION_ID),
+                   is(TweetTestDataGenerator.SNOWFLAKE_CONVERSATION_ID));
+        assertThat(struct.getArray(SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS),
+                   contains(TweetTestDataGenerator.SNOWFLAKE_TWEET_ID));
+        assertThat(struct.<Struct>getArray(SERIALIZED_NAME_REFERENCED_TWEETS)
+                         .get(0)
+                         .getInt64("id"), is(TweetTestDataGenerator.SNOWFLAKE_REFERENCED_TWEET_ID));
+        assertThat(struct.getStruct(SERIALIZED_NAME_ENTITIES)
+                         .<Struct>getArray("mentions")
+                         .get(0)
+                         .getInt64("id"), is(TweetTestDataGenerator.SNOWFLAKE_MENTION_ID));
+        assertThat(struct.getStruct(SERIALIZED_NAME_GEO)
+                         .getStruct("coordinates")
+                         .getArray("coordinates"),
+                   contains(TweetTestDataGenerator.POINT_COORDINATES_LAT.doubleValue(),
+                            TweetTestDataGenerator.POINT_COORDINATES_LONG.doubleValue()));
+        final Integer lang = struct.getInt32(SERIALIZED_NAME_LANG);
+        assertThat(IntEnum.toSymbol(struct.schema()
+                                          .field(SERIALIZED_NAME_LANG)
+                                          .schema(), lang), is(TweetTestDataGenerator.SNOWFLAKE_LANG));
+        final Integer replySettings = struct.getInt32(SERIALIZED_NAME_REPLY_SETTINGS);
+        assertThat(IntEnum.toSymbol(struct.schema()
+                                          .field(SERIALIZED_NAME_REPLY_SETTINGS)
+                                          .schema(), replySettings), is(EVERYONE.getValue()));
+        assertThat(struct.getString(SERIALIZED_NAME_TEXT), is(TweetTestDataGenerator.TWEET_TEXT));
+    }
+
+    @Test
+    public void testConvertTweet_compactUnknownLang() {
+        // given:
+        final Tweet tweet = new Tweet().id(Long.toString(TweetTestDataGenerator.SNOWFLAKE_TWEET_ID))
+                                       .text(TweetTestDataGenerator.TWEET_TEXT)
+                                       .lang(TweetTestDataGenerator.LANG);
+        final TweetConverter compactConverter = new TweetConverter(Set.of(SERIALIZED_NAME_LANG), true);
+        // when:
+        final Struct struct = compactConverter.convert(tweet);
+        // then:
+        assertThat(fieldNames(compactConverter.getSchema()),
+                   contains(SERIALIZED_NAME_ID,
+                            SERIALIZED_NAME_TEXT,
+                            SERIALIZED_NAME_LANG,
+                            SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS));
+        assertThat(struct.getInt32(SERIALIZED_NAME_LANG), is(IntEnum.UNKNOWN));
+    }
+
+    @Test
+    public void testConvertTweet_compactNonNumericId() {
+        // given:
+        final Tweet tweet = testDataGenerator.createTweet();
+        final TweetConverter compactConverter = new TweetConverter(Set.of(), true);
+        // when:
+        final DataException exception = assertThrows(DataException.class, () -> compactConverter.convert(tweet));
+        // then:
+        assertThat(exception.getMessage(), is("Not a numeric ID: " + TweetTestDataGenerator.TWEET_ID));
+    }
+
+    @Test
+    public void testConvertTweet_includes() {
+        // given:
+        final Tweet tweet = testDataGenerator.createTweet();
+        final TweetConverter includesConverter = new TweetConverter(Set.of(), false, new IncludesCache(10, 60_000));
+        // when:
+        final Struct struct = includesConverter.convert(tweet, testDataGenerator.createIncludes());
+        // then:
+        assertThat(fieldNames(struct.schema()), contains(SERIALIZED_NAME_ID,
+                                                         SERIALIZED_NAME_TEXT,
+                                                         SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS,
+                                                         SERIALIZED_NAME_INCLUDES));
+        TweetConverterAssertions.assertIncludes(struct.getStruct(SERIALIZED_NAME_INCLUDES));
+    }
+
+    @Test
+    public void testConvertTweet_noIncludes() {
+        // given:
+        final Tweet tweet = testDataGenerator.createTweet();
+        final TweetConverter includesConverter = new TweetConverter(Set.of(), false, new IncludesCache(10, 60_000));
+        // when:
+        final Struct struct = includesConverter.convert(tweet);
+        // then:
+        assertThat(struct.getStruct(SERIALIZED_NAME_INCLUDES), is(nullValue()));
+    }
+
+    @Test
+    public void testConvertTweet_includesNotEnabled() {
+        // given:
+        final Tweet tweet = testDataGenerator.createTweet();
+        // when:
+        final Struct struct = new TweetConverter(Set.of()).convert(tweet, testDataGenerator.createIncludes());
+        // then:
+        assertThat(struct.schema()
+                         .field(SERIALIZED_NAME_INCLUDES), is(nullValue()));
+    }
+
+    private static List<String> fieldNames(final Schema schema) {
+        return schema.fields()
+                     .stream()
+                     .map(Field::name)
+                     .collect(toList());
+    }
+}
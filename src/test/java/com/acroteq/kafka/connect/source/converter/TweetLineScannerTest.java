@@ -0,0 +1,160 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.gson.Gson;
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import com.twitter.clientlib.model.Tweet;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class TweetLineScannerTest {
+
+    private static Gson gson;
+
+    private final TweetLineScanner tweetLineScanner = new TweetLineScanner();
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    @BeforeAll
+    static void setUpGson() {
+        new JSON();
+        gson = JSON.getGson();
+    }
+
+    @Test
+    void testScan_sameAsModel_wellFormedTweets() {
+        // given:
+        final List<String> lines = readLines("/well-formed-tweets.txt");
+        // then:
+        assertThat(lines, hasSize(11));
+        for (final String line : lines) {
+            final Tweet tweet = gson.fromJson(line, FilteredStreamingTweetResponse.class)
+                                    .getData();
+            assertThat(scan(line), is(true));
+            assertThat(tweetLineScanner.getTweetId(), is(Long.parseLong(tweet.getId())));
+            assertThat(tweetLineScanner.getConversationId(), is(tweet.getConversationId()));
+        }
+    }
+
+    @Test
+    void testScan_nestedIdsIgnored() {
+        // given:
+        final String json = "{\"matching_rules\":[{\"id\":\"1\",\"tag\":\"\"}],\"data\":{\"entities\":{\"mentions\":"
+              + "[{\"id\":\"2\",\"username\":\"}\\\"id\\\":\\\"3\"}]},\"referenced_tweets\":[{\"type\":\"quoted\","
+              + "\"id\":\"4\"}],\"id\" : \"5\",\"conversation_id\":\"6\"},\"includes\":{\"tweets\":[{\"id\":\"7\"}]}}";
+        // when:
+        final boolean scanned = scan(json);
+        // then:
+        assertThat(scanned, is(true));
+        assertThat(tweetLineScanner.getTweetId(), is(5L));
+        assertThat(tweetLineScanner.getConversationId(), is("6"));
+    }
+
+    @Test
+    void testScan_positionUnchanged() {
+        // given:
+        final ByteBuffer line = ByteBuffer.wrap("xx{\"data\":{\"id\":\"5\"}}".getBytes(UTF_8));
+        line.position(2);
+        // when:
+        final boolean scanned = tweetLineScanner.scan(line);
+        // then:
+        assertThat(scanned, is(true));
+        assertThat(tweetLineScanner.getTweetId(), is(5L));
+        assertThat(tweetLineScanner.getConversationId(), is(nullValue()));
+        assertThat(line.position(), is(2));
+    }
+
+    @Test
+    void testScan_notANumber() {
+        // when:
+        final boolean scanned = scan("{\"data\":{\"id\":\"tweet-id\"}}");
+        // then:
+        assertThat(scanned, is(true));
+        assertThat(tweetLineScanner.getTweetId(), is(TweetLineScanner.NO_TWEET_ID));
+    }
+
+    @Test
+    void testScan_noData() {
+        // when:
+        final boolean scanned = scan("{\"matching_rules\":[],\"errors\":[]}");
+        // then:
+        assertThat(scanned, is(false));
+        assertThat(tweetLineScanner.getTweetId(), is(TweetLineScanner.NO_TWEET_ID));
+    }
+
+    @Test
+    void testScan_errorResponse() {
+        // given:
+        final String json = readLines("/error-tweet.txt").get(6);
+        // when:
+        final DataException exception = assertThrows(DataException.class, () -> scan(json));
+        // then:
+        assertThat(exception.getMessage(), startsWith("Error response received: "));
+    }
+
+    @Test
+    void testScan_missingId() {
+        // given:
+        final String json = "{\"data\":{\"text\":\"text\",\"author\":{\"id\":\"5\"}}}";
+        // when:
+        final DataException exception = assertThrows(DataException.class, () -> scan(json));
+        // then:
+        assertThat(exception.getMessage(), startsWith("Tweet without an ID received: "));
+    }
+
+    private boolean scan(final String json) {
+        return tweetLineScanner.scan(ByteBuffer.wrap(json.getBytes(UTF_8)));
+    }
+
+    @SneakyThrows
+    private List<String> readLines(final String resource) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(resource),
+                                                                              UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .collect(toList());
+        }
+    }
+}
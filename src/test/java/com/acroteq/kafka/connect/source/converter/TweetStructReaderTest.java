@@ -0,0 +1,290 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.AUTHOR_ID;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.TWEET_ID;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.TWEET_TEXT;
+import static com.twitter.clientlib.model.Expansions.SERIALIZED_NAME_USERS;
+import static com.twitter.clientlib.model.FilteredStreamingTweetResponse.SERIALIZED_NAME_INCLUDES;
+import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS;
+import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_ID;
+import static com.twitter.clientlib.model.Tweet.SERIALIZED_NAME_TEXT;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.gson.Gson;
+import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.Expansions;
+import com.twitter.clientlib.model.FilteredStreamingTweetResponse;
+import com.twitter.clientlib.model.Tweet;
+import com.twitter.clientlib.model.User;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import lombok.SneakyThrows;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.connect.data.Field;
+import org.apache.kafka.connect.data.Schema;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class TweetStructReaderTest {
+
+    private static Gson gson;
+
+    private final TweetTestDataGenerator testDataGenerator = new TweetTestDataGenerator();
+
+    private final TweetConverter tweetConverter = new TweetConverter();
+
+    private final TweetStructReader tweetStructReader = new TweetStructReader();
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
+    @BeforeAll
+    static void setUpGson() {
+        new JSON();
+        gson = JSON.getGson();
+    }
+
+    @Test
+    void testRead_sameAsConverter_wellFormedTweets() {
+        // given:
+        final List<String> lines = readLines("/well-formed-tweets.txt");
+        // then:
+        assertThat(lines, hasSize(11));
+        lines.forEach(this::assertSameAsConverter);
+    }
+
+    @Test
+    void testRead_sameAsConverter_allFields() {
+        // given:
+        final Tweet tweet = testDataGenerator.createTweet();
+        final String json = gson.toJson(new FilteredStreamingTweetResponse().data(tweet));
+        // then:
+        assertSameAsConverter(json);
+    }
+
+    @Test
+    void testRead_sameAsConverter_compact() {
+        // given:
+        final TweetConverter compactConverter = new TweetConverter(Set.copyOf(fieldNames(TweetConverter.TWEET_SCHEMA)),
+                                                                   true);
+        final TweetStructReader compactReader = new TweetStructReader(compactConverter.getSchema());
+        final List<String> lines = new ArrayList<>(readLines("/well-formed-tweets.txt"));
+        lines.add(gson.toJson(new FilteredStreamingTweetResponse().data(testDataGenerator.createSnowflakeTweet())));
+        for (final String json : lines) {
+            final Tweet tweet = gson.fromJson(json, FilteredStreamingTweetResponse.class)
+                                    .getData();
+            // when:
+            final Struct struct = compactReader.read(ByteBuffer.wrap(json.getBytes(UTF_8)));
+            // then:
+            assertThat(struct, is(compactConverter.convert(tweet)));
+        }
+    }
+
+    @Test
+    void testRead_sameAsConverter_includes() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(10, 60_000);
+        final TweetConverter includesConverter = new TweetConverter(Set.copyOf(fieldNames(TweetConverter.TWEET_SCHEMA)),
+                                                                    false,
+                                                                    new IncludesCache(10, 60_000));
+        final TweetStructReader includesReader = new TweetStructReader(includesConverter.getSchema(), includesCache);
+        final FilteredStreamingTweetResponse response = new FilteredStreamingTweetResponse();
+        response.setData(testDataGenerator.createTweet());
+        response.setIncludes(testDataGenerator.createIncludes());
+        final String json = gson.toJson(response);
+        // when:
+        final Struct first = includesReader.read(json);
+        final Struct second = includesReader.read(ByteBuffer.wrap(json.getBytes(UTF_8)));
+        // then:
+        final Struct expected = includesConverter.convert(response.getData(), response.getIncludes());
+        assertThat(first, is(expected));
+        assertThat(second, is(expected));
+        assertThat(includesCache.getMissCount(), is(4L));
+        assertThat(includesCache.getHitCount(), is(4L));
+    }
+
+    @Test
+    void testRead_sameAsConverter_compactIncludes() {
+        // given:
+        final TweetConverter compactConverter = new TweetConverter(Set.copyOf(fieldNames(TweetConverter.TWEET_SCHEMA)),
+                                                                   true,
+                                                                   new IncludesCache(10, 60_000));
+        final TweetStructReader compactReader = new TweetStructReader(compactConverter.getSchema(),
+                                                                      new IncludesCache(10, 60_000));
+        final Expansions includes = testDataGenerator.createIncludes()
+                                                     .users(List.of(testDataGenerator.createSnowflakeUser()));
+        final FilteredStreamingTweetResponse response = new FilteredStreamingTweetResponse();
+        response.setData(testDataGenerator.createSnowflakeTweet());
+        response.setIncludes(includes);
+        final String json = gson.toJson(response);
+        // when:
+        final Struct struct = compactReader.read(json);
+        // then:
+        assertThat(struct, is(compactConverter.convert(response.getData(), response.getIncludes())));
+    }
+
+    @Test
+    void testRead_cachedIncludesSkipped() {
+        // given:
+        final IncludesCache includesCache = new IncludesCache(10, 60_000);
+        final TweetConverter includesConverter = new TweetConverter(Set.of(), false, includesCache);
+        final TweetStructReader includesReader = new TweetStructReader(includesConverter.getSchema(), includesCache);
+        final String json = "{\"data\":{\"id\":\"" + TWEET_ID + "\",\"text\":\"" + TWEET_TEXT
+              + "\"},\"includes\":{\"users\":[{\"id\":\"" + AUTHOR_ID + "\",\"name\":\"%s\",\"username\":\"%s\"}]}}";
+        // when:
+        final Struct first = includesReader.read(String.format(json, "first-name", "first-username"));
+        final Struct second = includesReader.read(String.format(json, "second-name", "second-username"));
+        // then:
+        final Struct firstUser = (Struct) first.getStruct(SERIALIZED_NAME_INCLUDES)
+                                               .getArray(SERIALIZED_NAME_USERS)
+                                               .get(0);
+        final Struct secondUser = (Struct) second.getStruct(SERIALIZED_NAME_INCLUDES)
+                                                 .getArray(SERIALIZED_NAME_USERS)
+                                                 .get(0);
+        assertThat(firstUser.getString(User.SERIALIZED_NAME_NAME), is("first-name"));
+        assertThat(secondUser, is(sameInstance(firstUser)));
+    }
+
+    @Test
+    void testRead_includesNotEnabled() {
+        // given:
+        final FilteredStreamingTweetResponse response = new FilteredStreamingTweetResponse();
+        response.setData(testDataGenerator.createTweet());
+        response.setIncludes(testDataGenerator.createIncludes());
+        final String json = gson.toJson(response);
+        // when:
+        final Struct struct = tweetStructReader.read(json);
+        // then:
+        assertThat(struct.schema()
+                         .field(SERIALIZED_NAME_INCLUDES), is(nullValue()));
+    }
+
+    @Test
+    void testRead_minimalFields() {
+        // given:
+        final String json = "{\"data\":{\"id\":\"" + TWEET_ID + "\",\"text\":\"" + TWEET_TEXT + "\"}}";
+        // when:
+        final Struct struct = tweetStructReader.read(json);
+        // then:
+        assertThat(struct.getString(SERIALIZED_NAME_ID), is(TWEET_ID));
+        assertThat(struct.getString(SERIALIZED_NAME_TEXT), is(TWEET_TEXT));
+        assertThat(struct.getArray(SERIALIZED_NAME_EDIT_HISTORY_TWEET_IDS), is(empty()));
+    }
+
+    @Test
+    void testRead_unknownFieldsSkipped() {
+        // given:
+        final String json = "{\"data\":{\"id\":\"" + TWEET_ID + "\",\"unknown\":{\"nested\":[1,2,{}]},\"text\":\""
+              + TWEET_TEXT + "\"},\"matching_rules\":[{\"id\":\"1\",\"tag\":\"\"}]}";
+        // when:
+        final Struct struct = tweetStructReader.read(json);
+        // then:
+        assertThat(struct.getString(SERIALIZED_NAME_ID), is(TWEET_ID));
+        assertThat(struct.getString(SERIALIZED_NAME_TEXT), is(TWEET_TEXT));
+    }
+
+    @Test
+    void testRead_noData() {
+        // when:
+        final Struct struct = tweetStructReader.read("{\"matching_rules\":[]}");
+        // then:
+        assertThat(struct, is(nullValue()));
+    }
+
+    @Test
+    void testRead_errorResponse() {
+        // given:
+        final String json = readLines("/error-tweet.txt").get(6);
+        // when:
+        final DataException exception = assertThrows(DataException.class, () -> tweetStructReader.read(json));
+        // then:
+        assertThat(exception.getMessage(), startsWith("Error response received: "));
+    }
+
+    @Test
+    void testRead_malformed() {
+        // given:
+        final String json = readLines("/malformed-tweet.txt").get(6);
+        // when:
+        final DataException exception = assertThrows(DataException.class, () -> tweetStructReader.read(json));
+        // then:
+        assertThat(exception.getMessage(), is("Error while reading tweet JSON"));
+    }
+
+    @Test
+    void testRead_missingRequiredField() {
+        // given:
+        final String json = "{\"data\":{\"id\":\"" + TWEET_ID + "\"}}";
+        // then:
+        assertThrows(DataException.class, () -> tweetStructReader.read(json));
+    }
+
+    private void assertSameAsConverter(final String json) {
+        final Tweet tweet = gson.fromJson(json, FilteredStreamingTweetResponse.class)
+                                .getData();
+        final Struct expected = tweetConverter.convert(tweet);
+
+        final Struct actual = tweetStructReader.read(json);
+        final Struct actualFromBytes = tweetStructReader.read(ByteBuffer.wrap(json.getBytes(UTF_8)));
+
+        assertThat(actual, is(expected));
+        assertThat(actualFromBytes, is(expected));
+    }
+
+    private static List<String> fieldNames(final Schema schema) {
+        return schema.fields()
+                     .stream()
+                     .map(Field::name)
+                     .collect(toList());
+    }
+
+    @SneakyThrows
+    private List<String> readLines(final String resource) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(getClass().getResourceAsStream(resource),
+                                                                              UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .collect(toList());
+        }
+    }
+}
@@ -35,10 +35,14 @@ import com.twitter.clientlib.model.CashtagEntity;
 import com.twitter.clientlib.model.ContextAnnotation;
 import com.twitter.clientlib.model.ContextAnnotationDomainFields;
 import com.twitter.clientlib.model.ContextAnnotationEntityFields;
+import com.twitter.clientlib.model.Expansions;
 import com.twitter.clientlib.model.FullTextEntities;
 import com.twitter.clientlib.model.FullTextEntitiesAnnotations;
 import com.twitter.clientlib.model.HashtagEntity;
 import com.twitter.clientlib.model.MentionEntity;
+import com.twitter.clientlib.model.Photo;
+import com.twitter.clientlib.model.Place;
+import com.twitter.clientlib.model.PlaceType;
 import com.twitter.clientlib.model.Point;
 import com.twitter.clientlib.model.ReplySettings;
 import com.twitter.clientlib.model.Tweet;
@@ -53,6 +57,9 @@ import com.twitter.clientlib.model.TweetReferencedTweets;
 import com.twitter.clientlib.model.TweetWithheld;
 import com.twitter.clientlib.model.UrlEntity;
 import com.twitter.clientlib.model.UrlImage;
+import com.twitter.clientlib.model.User;
+import com.twitter.clientlib.model.UserPublicMetrics;
+import com.twitter.clientlib.model.Video;
 import java.math.BigDecimal;
 import java.net.URL;
 import java.time.OffsetDateTime;
@@ -126,6 +133,33 @@ class TweetTestDataGenerator {
     static final OffsetDateTime EDIT_CONTROLS_EDITABLE_UNTIL = OffsetDateTime.of(2025, 1, 10, 15, 49, 51, 0, UTC);
     static final int EDIT_CONTROLS_EDITS_REMAINING = 15;
     static final boolean EDIT_CONTROLS_IS_EDIT_ELIGIBLE = true;
+    static final long SNOWFLAKE_TWEET_ID = 1612131252085358592L;
+    static final long SNOWFLAKE_AUTHOR_ID = 1551060443040325632L;
+    static final long SNOWFLAKE_IN_REPLY_TO_USER_ID = 40436652L;
+    static final long SNOWFLAKE_CONVERSATION_ID = 1612129072720580610L;
+    static final long SNOWFLAKE_REFERENCED_TWEET_ID = 1612131256048955395L;
+    static final long SNOWFLAKE_MENTION_ID = 114712278L;
+    static final String SNOWFLAKE_LANG = "en";
+    static final String USER_NAME = "user-name";
+    static final String USER_USERNAME = "user-username";
+    static final OffsetDateTime USER_CREATED_AT = OffsetDateTime.of(2009, 3, 21, 20, 50, 14, 0, UTC);
+    static final String USER_DESCRIPTION = "user-description";
+    static final String USER_LOCATION = "user-location";
+    static final String USER_URL = "https://adamcc.ch";
+    static final String USER_PROFILE_IMAGE_URL = "https://adamcc.ch/zenphoto/birds/profile.jpg";
+    static final int USER_FOLLOWERS_COUNT = 21;
+    static final int USER_FOLLOWING_COUNT = 22;
+    static final int USER_TWEET_COUNT = 23;
+    static final int USER_LISTED_COUNT = 24;
+    static final String PHOTO_TYPE = "photo";
+    static final String PHOTO_ALT_TEXT = "photo-alt-text";
+    static final String VIDEO_MEDIA_KEY = "video-media-key";
+    static final String VIDEO_TYPE = "video";
+    static final int VIDEO_DURATION_MS = 12345;
+    static final String PLACE_FULL_NAME = "Hermaness, Unst";
+    static final String PLACE_NAME = "place-name";
+    static final String PLACE_COUNTRY = "United Kingdom";
+    static final String PLACE_COUNTRY_CODE = "GB";
 
 
     Tweet createTweet() {
@@ -153,6 +187,82 @@ class TweetTestDataGenerator {
                           .replySettings(ReplySettings.EVERYONE);
     }
 
+    /** A tweet with every field, with snowflake IDs and a detected language, as the compact schema expects. */
+    Tweet createSnowflakeTweet() {
+        final Tweet tweet = createTweet().id(Long.toString(SNOWFLAKE_TWEET_ID))
+                                         .authorId(Long.toString(SNOWFLAKE_AUTHOR_ID))
+                                         .inReplyToUserId(Long.toString(SNOWFLAKE_IN_REPLY_TO_USER_ID))
+                                         .conversationId(Long.toString(SNOWFLAKE_CONVERSATION_ID))
+                                         .editHistoryTweetIds(List.of(Long.toString(SNOWFLAKE_TWEET_ID)))
+                                         .lang(SNOWFLAKE_LANG);
+        tweet.getReferencedTweets()
+             .get(0)
+             .setId(Long.toString(SNOWFLAKE_REFERENCED_TWEET_ID));
+        tweet.getEntities()
+             .getMentions()
+             .get(0)
+             .setId(Long.toString(SNOWFLAKE_MENTION_ID));
+        return tweet;
+    }
+
+    /** The includes of a response with every tweet field: its author, its photo and video, and its place. */
+    Expansions createIncludes() {
+        return new Expansions().users(List.of(createUser()))
+                               .media(List.of(createPhoto(), createVideo()))
+                               .places(List.of(createPlace()));
+    }
+
+    User createUser() {
+        return new User().id(AUTHOR_ID)
+                         .name(USER_NAME)
+                         .username(USER_USERNAME)
+                         .createdAt(USER_CREATED_AT)
+                         .description(USER_DESCRIPTION)
+                         .location(USER_LOCATION)
+                         .url(USER_URL)
+                         .profileImageUrl(createUrl(USER_PROFILE_IMAGE_URL))
+                         .pinnedTweetId(TWEET_ID)
+                         ._protected(false)
+                         .verified(true)
+                         .publicMetrics(new UserPublicMetrics().followersCount(USER_FOLLOWERS_COUNT)
+                                                               .followingCount(USER_FOLLOWING_COUNT)
+                                                               .tweetCount(USER_TWEET_COUNT)
+                                                               .listedCount(USER_LISTED_COUNT));
+    }
+
+    /** The author of the snowflake tweet, with snowflake IDs. */
+    User createSnowflakeUser() {
+        return createUser().id(Long.toString(SNOWFLAKE_AUTHOR_ID))
+                           .pinnedTweetId(Long.toString(SNOWFLAKE_TWEET_ID));
+    }
+
+    Photo createPhoto() {
+        final Photo photo = new Photo().url(createUrl(IMAGE_URL))
+                                       .altText(PHOTO_ALT_TEXT);
+        photo.setMediaKey(MEDIA_KEY);
+        photo.setType(PHOTO_TYPE);
+        photo.setHeight(IMAGE_HEIGHT);
+        photo.setWidth(IMAGE_WIDTH);
+        return photo;
+    }
+
+    Video createVideo() {
+        final Video video = new Video().previewImageUrl(createUrl(IMAGE_URL))
+                                       .durationMs(VIDEO_DURATION_MS);
+        video.setMediaKey(VIDEO_MEDIA_KEY);
+        video.setType(VIDEO_TYPE);
+        return video;
+    }
+
+    Place createPlace() {
+        return new Place().id(GEO_PLACE_ID)
+                          .fullName(PLACE_FULL_NAME)
+                          .name(PLACE_NAME)
+                          .country(PLACE_COUNTRY)
+                          .countryCode(PLACE_COUNTRY_CODE)
+                          .placeType(PlaceType.POI);
+    }
+
     TweetAttachments createAttachments() {
         return new TweetAttachments().mediaKeys(List.of(MEDIA_KEY))
                                      .pollIds(List.of(POLL_ID));
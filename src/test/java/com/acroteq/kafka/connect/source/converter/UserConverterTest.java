@@ -0,0 +1,98 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.converter;
+
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertNull;
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertUser;
+import static com.acroteq.kafka.connect.source.converter.TweetConverterAssertions.assertUserFields;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.AUTHOR_ID;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.SNOWFLAKE_AUTHOR_ID;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.SNOWFLAKE_TWEET_ID;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_NAME;
+import static com.acroteq.kafka.connect.source.converter.TweetTestDataGenerator.USER_USERNAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.twitter.clientlib.model.User;
+import org.apache.kafka.connect.data.Struct;
+import org.apache.kafka.connect.errors.DataException;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class UserConverterTest {
+
+    private final TweetTestDataGenerator testDataGenerator = new TweetTestDataGenerator();
+
+    @Test
+    public void testConvert_allFields() {
+        // given:
+        final User user = testDataGenerator.createUser();
+        // when:
+        final Struct struct = new UserConverter().convert(user);
+        // then:
+        assertUser(struct);
+    }
+
+    @Test
+    public void testConvert_defaultFields() {
+        // given:
+        final User user = new User().id(AUTHOR_ID)
+                                    .name(USER_NAME)
+                                    .username(USER_USERNAME);
+        // when:
+        final Struct struct = new UserConverter().convert(user);
+        // then:
+        assertThat(struct.getString(User.SERIALIZED_NAME_ID), is(AUTHOR_ID));
+        assertThat(struct.getString(User.SERIALIZED_NAME_USERNAME), is(USER_USERNAME));
+        assertNull(struct, User.SERIALIZED_NAME_CREATED_AT);
+        assertNull(struct, User.SERIALIZED_NAME_PUBLIC_METRICS);
+    }
+
+    @Test
+    public void testConvert_compact() {
+        // given:
+        final User user = testDataGenerator.createSnowflakeUser();
+        // when:
+        final Struct struct = new UserConverter(true).convert(user);
+        // then:
+        assertThat(struct.getInt64(User.SERIALIZED_NAME_ID), is(SNOWFLAKE_AUTHOR_ID));
+        assertThat(struct.getInt64(User.SERIALIZED_NAME_PINNED_TWEET_ID), is(SNOWFLAKE_TWEET_ID));
+        assertUserFields(struct);
+    }
+
+    @Test
+    public void testConvert_compactNonNumericId() {
+        // given:
+        final User user = testDataGenerator.createUser();
+        final UserConverter userConverter = new UserConverter(true);
+        // when:
+        final DataException exception = assertThrows(DataException.class, () -> userConverter.convert(user));
+        // then:
+        assertThat(exception.getMessage(), is("Not a numeric ID: " + AUTHOR_ID));
+    }
+}
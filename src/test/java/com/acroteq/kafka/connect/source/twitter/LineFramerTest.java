@@ -0,0 +1,184 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class LineFramerTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    @Test
+    void testReadLines_crlf() {
+        // given:
+        final LineFramer lineFramer = createLineFramer("first\r\nsecond\r\n", LineFramer.DEFAULT_BUFFER_SIZE);
+        // when:
+        readLines(lineFramer);
+        // then:
+        assertThat(lines, contains("first", "second"));
+        assertThat(lineFramer.getLineCount(), is(2L));
+        assertThat(lineFramer.getKeepAliveCount(), is(0L));
+    }
+
+    @Test
+    void testReadLines_lfAndUnterminatedLastLine() {
+        // given:
+        final LineFramer lineFramer = createLineFramer("first\nsecond", LineFramer.DEFAULT_BUFFER_SIZE);
+        // when:
+        readLines(lineFramer);
+        // then:
+        assertThat(lines, contains("first", "second"));
+    }
+
+    @Test
+    void testReadLines_keepAlivesDropped() {
+        // given:
+        final LineFramer lineFramer = createLineFramer("\r\n\r\nfirst\r\n\r\n  \r\nsecond\r\n\r\n",
+                                                       LineFramer.DEFAULT_BUFFER_SIZE);
+        // when:
+        readLines(lineFramer);
+        // then:
+        assertThat(lines, contains("first", "second"));
+        assertThat(lineFramer.getLineCount(), is(2L));
+        assertThat(lineFramer.getKeepAliveCount(), is(5L));
+    }
+
+    @Test
+    void testReadLines_onlyKeepAlives() {
+        // given:
+        final LineFramer lineFramer = createLineFramer("\r\n\r\n\r\n", LineFramer.DEFAULT_BUFFER_SIZE);
+        // when:
+        readLines(lineFramer);
+        // then:
+        assertThat(lines, is(empty()));
+        assertThat(lineFramer.getKeepAliveCount(), is(3L));
+    }
+
+    @Test
+    void testReadLines_linesSpanBufferAndGrow() {
+        // given:
+        // the second line is longer than the initial buffer, and the third line wraps around a compaction
+        final LineFramer lineFramer = createLineFramer("0123\r\n0123456789abcdefghij\r\nklmnop\r\n", 8);
+        // when:
+        readLines(lineFramer);
+        // then:
+        assertThat(lines, contains("0123", "0123456789abcdefghij", "klmnop"));
+    }
+
+    @Test
+    void testReadLines_multiByteCharacters() {
+        // given:
+        final String tweet = "{\"text\":\"Gr\u00fcezi \ud83d\udc26 \u2013 \u00e7a va?\"}";
+        final LineFramer lineFramer = createLineFramer(tweet + "\r\n" + tweet + "\r\n", 16);
+        // when:
+        readLines(lineFramer);
+        // then:
+        assertThat(lines, contains(tweet, tweet));
+    }
+
+    @Test
+    void testReadLines_oneByteAtATime() {
+        // given:
+        final byte[] stream = "first\r\n\r\nsecond\r\n".getBytes(UTF_8);
+        final ReadableByteChannel channel = new OneByteChannel(stream);
+        final LineFramer lineFramer = new LineFramer(channel, 4);
+        // when:
+        readLines(lineFramer);
+        // then:
+        assertThat(lines, contains("first", "second"));
+        assertThat(lineFramer.getKeepAliveCount(), is(1L));
+    }
+
+    @SneakyThrows
+    @Test
+    void testReadLines_stopsWhenNotRunning() {
+        // given:
+        final LineFramer lineFramer = createLineFramer("first\r\nsecond\r\nthird\r\n", LineFramer.DEFAULT_BUFFER_SIZE);
+        // when:
+        lineFramer.readLines(this::addLine, () -> lines.isEmpty());
+        // then:
+        assertThat(lines, contains("first"));
+    }
+
+    private LineFramer createLineFramer(final String stream, final int bufferSize) {
+        final ByteArrayInputStream inputStream = new ByteArrayInputStream(stream.getBytes(UTF_8));
+        return new LineFramer(Channels.newChannel(inputStream), bufferSize);
+    }
+
+    @SneakyThrows
+    private void readLines(final LineFramer lineFramer) {
+        lineFramer.readLines(this::addLine, () -> true);
+    }
+
+    private void addLine(final ByteBuffer line) {
+        lines.add(UTF_8.decode(line)
+                       .toString());
+    }
+
+    /** Delivers the stream one byte per read, to exercise the partial line handling. */
+    private static class OneByteChannel implements ReadableByteChannel {
+
+        private final byte[] stream;
+        private int position;
+
+        OneByteChannel(final byte[] stream) {
+            this.stream = stream;
+        }
+
+        @Override
+        public int read(final ByteBuffer destination) {
+            if (position == stream.length) {
+                return -1;
+            }
+            destination.put(stream[position++]);
+            return 1;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
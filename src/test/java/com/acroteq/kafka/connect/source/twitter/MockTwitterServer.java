@@ -0,0 +1,462 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.twitter.clientlib.model.Rule;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * An in-process stub of the filtered stream endpoints of the Twitter API, {@value #STREAM_PATH} and
+ * {@value #RULES_PATH}, to run the streamer and the task against without calling Twitter.
+ *
+ * <p>Each stream connection replays tweets at the configured rate, {@code 0} meaning flat out, with a keep-alive at
+ * the configured interval.  The tweets are generated with unique, current snowflake ids by default, or replayed from
+ * fixture lines.  The rules are kept in memory, and are not matched against the tweets.
+ *
+ * <p>Failures are injected on demand: {@link #disconnect()} closes the open streams, {@link #sendErrorPayload()}
+ * sends an operational-disconnect error on them before closing them, and {@link #rejectConnections(int)} answers
+ * the next connection attempts with HTTP 429 and rate limit headers that reset after
+ * {@link MockTwitterServerBuilder#rateLimitResetSeconds(int)}.
+ *
+ * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
+ */
+@Slf4j
+public class MockTwitterServer implements AutoCloseable {
+
+    static final String STREAM_PATH = "/2/tweets/search/stream";
+    static final String RULES_PATH = "/2/tweets/search/stream/rules";
+
+    private static final long TWITTER_EPOCH_MS = 1288834974657L;
+    private static final int SEQUENCE_BITS = 22;
+    private static final long TICK_NANOS = MILLISECONDS.toNanos(1);
+    private static final int FLAT_OUT_BATCH = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] LINE_END = { '\r', '\n' };
+
+    private static final int HTTP_OK = 200;
+    private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+    private static final int STREAM_RATE_LIMIT = 50;
+    private static final int RULES_RATE_LIMIT = 450;
+    private static final long RATE_LIMIT_WINDOW_SECONDS = 900;
+
+    private static final String TOO_MANY_REQUESTS = "{\"title\":\"Too Many Requests\",\"detail\":\"Too Many Requests\","
+          + "\"type\":\"about:blank\",\"status\":429}";
+    private static final String OPERATIONAL_DISCONNECT = "{\"errors\":[{\"title\":\"operational-disconnect\","
+          + "\"disconnect_type\":\"UpstreamOperationalDisconnect\",\"detail\":\"This stream has been disconnected "
+          + "upstream for operational reasons.\",\"type\":\"https://api.twitter.com/2/problems/operational-disconnect\""
+          + "}]}";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int tweetsPerSecond;
+    private final long keepAliveIntervalNanos;
+    private final int rateLimitResetSeconds;
+    private final LongFunction<String> tweetSource;
+
+    private final Set<StreamConnection> openStreams = ConcurrentHashMap.newKeySet();
+    private final Map<String, Rule> rules = new LinkedHashMap<>();
+    private final AtomicLong nextRuleId = new AtomicLong(1);
+    private final AtomicLong tweetSequence = new AtomicLong();
+    private final AtomicLong connectionCount = new AtomicLong();
+    private final AtomicInteger pendingRejections = new AtomicInteger();
+
+    private volatile boolean running = true;
+
+    public static MockTwitterServerBuilder builder() {
+        return new MockTwitterServerBuilder();
+    }
+
+    private MockTwitterServer(final int tweetsPerSecond,
+                              final long keepAliveIntervalMs,
+                              final int rateLimitResetSeconds,
+                              final LongFunction<String> tweetSource) throws IOException {
+        this.tweetsPerSecond = tweetsPerSecond;
+        this.keepAliveIntervalNanos = MILLISECONDS.toNanos(keepAliveIntervalMs);
+        this.rateLimitResetSeconds = rateLimitResetSeconds;
+        this.tweetSource = tweetSource;
+
+        executor = Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("mock-twitter-%d")
+                                                                           .setDaemon(true)
+                                                                           .build());
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(executor);
+        // the longest matching context wins, so the rules are not served by the stream
+        server.createContext(STREAM_PATH, exchange -> handle(exchange, this::stream));
+        server.createContext(RULES_PATH, exchange -> handle(exchange, this::rules));
+        server.start();
+        log.info("Mock Twitter server listening on {}.", getBaseUrl());
+    }
+
+    /** The base URL to configure as {@code twitter.baseUrl}. */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress()
+                                 .getHostString() + ":" + server.getAddress()
+                                                                .getPort();
+    }
+
+    /** The number of tweets written to the streams. */
+    public long getSentTweetCount() {
+        return tweetSequence.get();
+    }
+
+    /** The number of stream connection attempts, including those rejected. */
+    public long getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public int getOpenStreamCount() {
+        return openStreams.size();
+    }
+
+    public List<Rule> getRules() {
+        synchronized (rules) {
+            return new ArrayList<>(rules.values());
+        }
+    }
+
+    /** Close the open streams, as Twitter does, without an error. */
+    public void disconnect() {
+        openStreams.forEach(stream -> stream.close(null));
+    }
+
+    /** Send an operational-disconnect error on the open streams, then close them. */
+    public void sendErrorPayload() {
+        openStreams.forEach(stream -> stream.close(OPERATIONAL_DISCONNECT));
+    }
+
+    /** Reject the next {@code count} stream connection attempts with HTTP 429, too many requests. */
+    public void rejectConnections(final int count) {
+        pendingRejections.addAndGet(count);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        disconnect();
+        server.stop(0);
+        executor.shutdownNow();
+        log.info("Mock Twitter server stopped after {} connections and {} tweets.",
+                 connectionCount.get(),
+                 tweetSequence.get());
+    }
+
+    private void handle(final HttpExchange exchange, final ExchangeHandler handler) {
+        try {
+            handler.handle(exchange);
+        } catch (final IOException e) {
+            // the client has gone away, e.g. it reconnects after a stall
+            log.debug("Mock Twitter server exchange ended: {}", e.getMessage());
+        } catch (final RuntimeException e) {
+            log.error("Mock Twitter server failed to handle {}", exchange.getRequestURI(), e);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void stream(final HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(HTTP_METHOD_NOT_ALLOWED, -1);
+            return;
+        }
+        connectionCount.incrementAndGet();
+        if (pendingRejections.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+            addRateLimitHeaders(exchange, STREAM_RATE_LIMIT, 0, rateLimitResetSeconds);
+            respond(exchange, HTTP_TOO_MANY_REQUESTS, TOO_MANY_REQUESTS);
+            return;
+        }
+
+        exchange.getResponseHeaders()
+                .set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(HTTP_OK, 0);
+        final StreamConnection connection = new StreamConnection();
+        openStreams.add(connection);
+        try (OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), BUFFER_SIZE)) {
+            replay(connection, out);
+        } finally {
+            openStreams.remove(connection);
+        }
+    }
+
+    private void replay(final StreamConnection connection, final OutputStream out) throws IOException {
+        final long startNanos = System.nanoTime();
+        long lastKeepAliveNanos = startNanos;
+        long sent = 0;
+        while (running && connection.closing == null) {
+            final long nowNanos = System.nanoTime();
+            final long due = tweetsPerSecond == 0
+                             ? sent + FLAT_OUT_BATCH
+                             : (nowNanos - startNanos) / TICK_NANOS * tweetsPerSecond / 1000;
+            for (; sent < due; sent++) {
+                out.write(tweetSource.apply(tweetSequence.getAndIncrement())
+                                     .getBytes(UTF_8));
+                out.write(LINE_END);
+            }
+            if (nowNanos - lastKeepAliveNanos >= keepAliveIntervalNanos) {
+                out.write(LINE_END);
+                lastKeepAliveNanos = nowNanos;
+            }
+            out.flush();
+            if (tweetsPerSecond > 0) {
+                LockSupport.parkNanos(TICK_NANOS);
+            }
+        }
+        final String closing = connection.closing;
+        if (closing != null && !closing.isEmpty()) {
+            out.write(closing.getBytes(UTF_8));
+            out.write(LINE_END);
+        }
+    }
+
+    private void rules(final HttpExchange exchange) throws IOException {
+        addRateLimitHeaders(exchange, RULES_RATE_LIMIT, RULES_RATE_LIMIT - 1, RATE_LIMIT_WINDOW_SECONDS);
+        if ("GET".equals(exchange.getRequestMethod())) {
+            respond(exchange, HTTP_OK, lookupRules());
+        } else if ("POST".equals(exchange.getRequestMethod())) {
+            respond(exchange, HTTP_OK, addOrDeleteRules(exchange));
+        } else {
+            exchange.sendResponseHeaders(HTTP_METHOD_NOT_ALLOWED, -1);
+        }
+    }
+
+    private String lookupRules() {
+        final List<Rule> activeRules = getRules();
+        final JsonObject response = new JsonObject();
+        if (!activeRules.isEmpty()) {
+            response.add("data", toJson(activeRules));
+        }
+        final JsonObject meta = createMeta();
+        meta.addProperty("result_count", activeRules.size());
+        response.add("meta", meta);
+        return response.toString();
+    }
+
+    private String addOrDeleteRules(final HttpExchange exchange) {
+        final JsonObject request;
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), UTF_8)) {
+            request = JsonParser.parseReader(reader)
+                                .getAsJsonObject();
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final String query = exchange.getRequestURI()
+                                     .getQuery();
+        final boolean dryRun = query != null && query.contains("dry_run=true");
+
+        final JsonObject response = new JsonObject();
+        final JsonObject meta = createMeta();
+        final JsonObject summary = new JsonObject();
+        synchronized (rules) {
+            if (request.has("add")) {
+                final List<Rule> added = new ArrayList<>();
+                for (final JsonElement element : request.getAsJsonArray("add")) {
+                    final JsonObject add = element.getAsJsonObject();
+                    final Rule rule = new Rule().id(Long.toString(nextRuleId.getAndIncrement()))
+                                                .value(add.get("value")
+                                                          .getAsString())
+                                                .tag(add.has("tag") ? add.get("tag")
+                                                                         .getAsString() : null);
+                    added.add(rule);
+                    if (!dryRun) {
+                        rules.put(rule.getId(), rule);
+                    }
+                }
+                response.add("data", toJson(added));
+                summary.addProperty("created", added.size());
+                summary.addProperty("not_created", 0);
+                summary.addProperty("valid", added.size());
+                summary.addProperty("invalid", 0);
+            } else {
+                int deleted = 0;
+                int notDeleted = 0;
+                for (final JsonElement id : request.getAsJsonObject("delete")
+                                                   .getAsJsonArray("ids")) {
+                    if (dryRun ? rules.containsKey(id.getAsString()) : rules.remove(id.getAsString()) != null) {
+                        deleted++;
+                    } else {
+                        notDeleted++;
+                    }
+                }
+                summary.addProperty("deleted", deleted);
+                summary.addProperty("not_deleted", notDeleted);
+            }
+        }
+        meta.add("summary", summary);
+        response.add("meta", meta);
+        return response.toString();
+    }
+
+    private static JsonArray toJson(final List<Rule> rules) {
+        final JsonArray array = new JsonArray();
+        for (final Rule rule : rules) {
+            final JsonObject object = new JsonObject();
+            object.addProperty("id", rule.getId());
+            object.addProperty("value", rule.getValue());
+            if (rule.getTag() != null) {
+                object.addProperty("tag", rule.getTag());
+            }
+            array.add(object);
+        }
+        return array;
+    }
+
+    private static JsonObject createMeta() {
+        final JsonObject meta = new JsonObject();
+        meta.addProperty("sent", Instant.now()
+                                        .toString());
+        return meta;
+    }
+
+    private static void addRateLimitHeaders(final HttpExchange exchange,
+                                            final int limit,
+                                            final int remaining,
+                                            final long resetSeconds) {
+        final long resetEpochSeconds = SECONDS.convert(System.currentTimeMillis(), MILLISECONDS) + resetSeconds;
+        exchange.getResponseHeaders()
+                .set(TokenBucket.LIMIT_HEADER, Integer.toString(limit));
+        exchange.getResponseHeaders()
+                .set(TokenBucket.REMAINING_HEADER, Integer.toString(remaining));
+        exchange.getResponseHeaders()
+                .set(TokenBucket.RESET_HEADER, Long.toString(resetEpochSeconds));
+    }
+
+    private static void respond(final HttpExchange exchange, final int status, final String body) throws IOException {
+        final byte[] bytes = body.getBytes(UTF_8);
+        exchange.getResponseHeaders()
+                .set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * A tweet with a unique snowflake id for the current time, so that it is neither suppressed as a duplicate nor
+     * outside the dedupe window.
+     */
+    static String generateTweet(final long sequence) {
+        final long nowMs = System.currentTimeMillis();
+        final String id = Long.toString((nowMs - TWITTER_EPOCH_MS) << SEQUENCE_BITS
+                                        | (sequence & ((1L << SEQUENCE_BITS) - 1)));
+        return "{\"data\":{\"id\":\"" + id + "\",\"text\":\"Generated tweet " + sequence + " about #kafka\","
+               + "\"author_id\":\"2244994945\",\"created_at\":\"" + Instant.ofEpochMilli(nowMs) + "\","
+               + "\"conversation_id\":\"" + id + "\",\"lang\":\"en\",\"source\":\"mock\","
+               + "\"edit_history_tweet_ids\":[\"" + id + "\"]},"
+               + "\"matching_rules\":[{\"id\":\"1\",\"tag\":\"group-0\"}]}";
+    }
+
+    @FunctionalInterface
+    private interface ExchangeHandler {
+
+        void handle(HttpExchange exchange) throws IOException;
+    }
+
+    /** An open stream; {@link #closing} is set to end it, with the payload to send before closing. */
+    private static class StreamConnection {
+
+        private volatile String closing;
+
+        void close(final String payload) {
+            closing = payload == null ? "" : payload;
+        }
+    }
+
+    public static class MockTwitterServerBuilder {
+
+        private int tweetsPerSecond = 100;
+        private long keepAliveIntervalMs = SECONDS.toMillis(20);
+        private int rateLimitResetSeconds = 1;
+        private LongFunction<String> tweetSource = MockTwitterServer::generateTweet;
+
+        private MockTwitterServerBuilder() {
+        }
+
+        /** The rate of tweets on each stream, 0 for flat out.  Default 100. */
+        public MockTwitterServerBuilder tweetsPerSecond(final int tweetsPerSecond) {
+            this.tweetsPerSecond = tweetsPerSecond;
+            return this;
+        }
+
+        /** The interval between keep-alives on each stream.  Default 20 seconds, as Twitter sends them. */
+        public MockTwitterServerBuilder keepAliveIntervalMs(final long keepAliveIntervalMs) {
+            this.keepAliveIntervalMs = keepAliveIntervalMs;
+            return this;
+        }
+
+        /** When the rate limit of a rejected connection resets.  Default 1 second. */
+        public MockTwitterServerBuilder rateLimitResetSeconds(final int rateLimitResetSeconds) {
+            this.rateLimitResetSeconds = rateLimitResetSeconds;
+            return this;
+        }
+
+        /** Replay the given tweet lines in a loop, instead of generating tweets. */
+        public MockTwitterServerBuilder replay(final List<String> lines) {
+            final List<String> replay = List.copyOf(lines);
+            this.tweetSource = sequence -> replay.get((int) (sequence % replay.size()));
+            return this;
+        }
+
+        public MockTwitterServer start() {
+            try {
+                return new MockTwitterServer(tweetsPerSecond, keepAliveIntervalMs, rateLimitResetSeconds, tweetSource);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static com.acroteq.kafka.connect.source.twitter.RateLimiter.METRIC_GROUP;
+import static com.acroteq.kafka.connect.source.twitter.TokenBucket.REMAINING_HEADER;
+import static com.acroteq.kafka.connect.source.twitter.TokenBucket.RESET_HEADER;
+import static com.acroteq.kafka.connect.source.twitter.TwitterEndpoint.GET_RULES;
+import static com.acroteq.kafka.connect.source.twitter.TwitterEndpoint.SEARCH_STREAM;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.ApiResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.kafka.common.config.types.Password;
+import org.apache.kafka.common.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class RateLimiterTest {
+
+    private static final long NOW_MS = 1_700_000_000_000L;
+    private static final int RETRIES = 2;
+
+    private final ManualClock clock = new ManualClock(NOW_MS);
+    private final List<Long> sleeps = new ArrayList<>();
+    private final Metrics metrics = new Metrics();
+    private final RateLimiter rateLimiter = new RateLimiter("app", clock, this::sleep, metrics);
+
+    @AfterEach
+    void tearDown() {
+        metrics.close();
+    }
+
+    private void sleep(final long millis) {
+        sleeps.add(millis);
+        clock.advance(millis);
+    }
+
+    private Map<String, List<String>> headers(final int remaining, final long resetInSeconds) {
+        return Map.of(REMAINING_HEADER, List.of(Integer.toString(remaining)),
+                      RESET_HEADER, List.of(Long.toString(NOW_MS / 1000 + resetInSeconds)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T metric(final String name, final TwitterEndpoint endpoint) {
+        final Map<String, String> tags = Map.of("app", "app", "endpoint", endpoint.getMetricTag());
+        return (T) metrics.metric(metrics.metricName(name, METRIC_GROUP, tags))
+                          .metricValue();
+    }
+
+    @Test
+    void testExecute() throws ApiException {
+        // when:
+        final String data = rateLimiter.execute(GET_RULES,
+                                                RETRIES,
+                                                () -> new ApiResponse<>(200, headers(449, 900), "ok"));
+        // then:
+        assertThat(data, is("ok"));
+        assertThat(sleeps.isEmpty(), is(true));
+        assertThat(metric("rate-limit-remaining", GET_RULES), is(449));
+        assertThat(metric("rate-limit-reset-ms", GET_RULES), is(900000L));
+    }
+
+    @Test
+    void testExecute_parksUntilReset() throws ApiException {
+        // given:
+        rateLimiter.execute(GET_RULES, RETRIES, () -> new ApiResponse<>(200, headers(0, 60), "used up"));
+        // when:
+        final String data = rateLimiter.execute(GET_RULES, RETRIES, () -> new ApiResponse<>(200, Map.of(), "ok"));
+        // then:
+        assertThat(data, is("ok"));
+        assertThat(sleeps, contains(60000L));
+        assertThat(metric("rate-limit-park-total", GET_RULES), is(1L));
+        assertThat(metric("rate-limit-park-time-ms-total", GET_RULES), is(60000L));
+    }
+
+    @Test
+    void testExecute_tooManyRequests() throws ApiException {
+        // given:
+        final AtomicInteger calls = new AtomicInteger();
+        final ApiException tooManyRequests = new ApiException(429, "too many requests", headers(0, 120), null);
+        // when:
+        final String data = rateLimiter.execute(SEARCH_STREAM, RETRIES, () -> {
+            if (calls.incrementAndGet() == 1) {
+                throw tooManyRequests;
+            }
+            return new ApiResponse<>(200, Map.of(), "ok");
+        });
+        // then:
+        // parked until the reset, rather than retrying straight away
+        assertThat(data, is("ok"));
+        assertThat(calls.get(), is(2));
+        assertThat(sleeps, contains(120000L));
+        assertThat(metric("rate-limit-throttled-total", SEARCH_STREAM), is(1L));
+    }
+
+    @Test
+    void testExecute_tooManyRequestsWithoutHeaders() {
+        // given:
+        final AtomicInteger calls = new AtomicInteger();
+        final ApiException tooManyRequests = new ApiException(429, "too many requests");
+        // when:
+        final ApiException exception = assertThrows(ApiException.class,
+                                                    () -> rateLimiter.execute(SEARCH_STREAM, RETRIES, () -> {
+                                                        calls.incrementAndGet();
+                                                        throw tooManyRequests;
+                                                    }));
+        // then:
+        // without a reset time, backs off as for a reconnect
+        assertThat(exception, is(sameInstance(tooManyRequests)));
+        assertThat(calls.get(), is(RETRIES + 1));
+        assertThat(sleeps, contains(60000L, 120000L));
+    }
+
+    @Test
+    void testExecute_serverError() throws ApiException {
+        // given:
+        final AtomicInteger calls = new AtomicInteger();
+        final ApiException serviceUnavailable = new ApiException(503, "service unavailable");
+        // when:
+        final String data = rateLimiter.execute(GET_RULES, RETRIES, () -> {
+            if (calls.incrementAndGet() <= RETRIES) {
+                throw serviceUnavailable;
+            }
+            return new ApiResponse<>(200, Map.of(), "ok");
+        });
+        // then:
+        // backs off exponentially as for a reconnect after an HTTP error
+        assertThat(data, is("ok"));
+        assertThat(calls.get(), is(RETRIES + 1));
+        assertThat(sleeps, contains(5000L, 10000L));
+        assertThat(metric("rate-limit-throttled-total", GET_RULES), is(0L));
+    }
+
+    @Test
+    void testExecute_networkError() {
+        // given:
+        final AtomicInteger calls = new AtomicInteger();
+        final ApiException connectionReset = new ApiException(new IOException("connection reset"));
+        // when:
+        final ApiException exception = assertThrows(ApiException.class,
+                                                    () -> rateLimiter.execute(SEARCH_STREAM, RETRIES, () -> {
+                                                        calls.incrementAndGet();
+                                                        throw connectionReset;
+                                                    }));
+        // then:
+        // backs off linearly as for a reconnect after a network error
+        assertThat(exception, is(sameInstance(connectionReset)));
+        assertThat(calls.get(), is(RETRIES + 1));
+        assertThat(sleeps, contains(250L, 500L));
+    }
+
+    @Test
+    void testExecute_clientError() {
+        // given:
+        final AtomicInteger calls = new AtomicInteger();
+        final ApiException badRequest = new ApiException(400, "bad request");
+        // when:
+        final ApiException exception = assertThrows(ApiException.class,
+                                                    () -> rateLimiter.execute(GET_RULES, RETRIES, () -> {
+                                                        calls.incrementAndGet();
+                                                        throw badRequest;
+                                                    }));
+        // then:
+        assertThat(exception, is(sameInstance(badRequest)));
+        assertThat(calls.get(), is(1));
+        assertThat(sleeps.isEmpty(), is(true));
+    }
+
+    @Test
+    void testForApp() {
+        // when:
+        final RateLimiter first = RateLimiter.forApp(new Password("token-1"));
+        final RateLimiter second = RateLimiter.forApp(new Password("token-1"));
+        final RateLimiter other = RateLimiter.forApp(new Password("token-2"));
+        // then:
+        assertThat(second, is(sameInstance(first)));
+        assertThat(other == first, is(false));
+        first.release();
+        second.release();
+        other.release();
+    }
+
+    @Test
+    void testRelease() {
+        // given:
+        final RateLimiter first = RateLimiter.forApp(new Password("token-1"));
+        final RateLimiter second = RateLimiter.forApp(new Password("token-1"));
+        // when:
+        first.release();
+        final RateLimiter stillShared = RateLimiter.forApp(new Password("token-1"));
+        second.release();
+        stillShared.release();
+        final RateLimiter renewed = RateLimiter.forApp(new Password("token-1"));
+        // then:
+        // the limiter is kept while any of its users is left, and replaced once they have all released it
+        assertThat(stillShared, is(sameInstance(first)));
+        assertThat(renewed == first, is(false));
+        renewed.release();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static com.acroteq.kafka.connect.source.twitter.ReconnectPolicy.HTTP;
+import static com.acroteq.kafka.connect.source.twitter.ReconnectPolicy.NETWORK;
+import static com.acroteq.kafka.connect.source.twitter.ReconnectPolicy.RATE_LIMIT;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import com.twitter.clientlib.ApiException;
+import java.io.EOFException;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class ReconnectPolicyTest {
+
+    @Test
+    void testForFailure() {
+        // when:
+        // then:
+        assertThat(ReconnectPolicy.forFailure(new EOFException()), is(NETWORK));
+        assertThat(ReconnectPolicy.forFailure(new ApiException(0, "connection reset")), is(NETWORK));
+        assertThat(ReconnectPolicy.forFailure(new ApiException(503, "service unavailable")), is(HTTP));
+        assertThat(ReconnectPolicy.forFailure(new ApiException(429, "too many requests")), is(RATE_LIMIT));
+        assertThat(ReconnectPolicy.forFailure(new TwitterException("error response")), is(HTTP));
+    }
+
+    @Test
+    void testForFailureCause() {
+        // given:
+        final RuntimeException failure = new RuntimeException(new ApiException(429, "too many requests"));
+        final RuntimeException ioFailure = new RuntimeException(new IOException("closed"));
+
+        // when:
+        // then:
+        assertThat(ReconnectPolicy.forFailure(failure), is(RATE_LIMIT));
+        assertThat(ReconnectPolicy.forFailure(ioFailure), is(NETWORK));
+    }
+
+    @Test
+    void testNetworkBackoffIsLinear() {
+        // when:
+        // then:
+        assertThat(NETWORK.backoffMs(1), is(250L));
+        assertThat(NETWORK.backoffMs(2), is(500L));
+        assertThat(NETWORK.backoffMs(3), is(750L));
+        assertThat(NETWORK.backoffMs(64), is(16000L));
+        assertThat(NETWORK.backoffMs(1000), is(16000L));
+    }
+
+    @Test
+    void testHttpBackoffIsExponential() {
+        // when:
+        // then:
+        assertThat(HTTP.backoffMs(1), is(5000L));
+        assertThat(HTTP.backoffMs(2), is(10000L));
+        assertThat(HTTP.backoffMs(3), is(20000L));
+        assertThat(HTTP.backoffMs(7), is(320000L));
+        assertThat(HTTP.backoffMs(1000), is(320000L));
+    }
+
+    @Test
+    void testRateLimitBackoffIsExponential() {
+        // when:
+        // then:
+        assertThat(RATE_LIMIT.backoffMs(1), is(60000L));
+        assertThat(RATE_LIMIT.backoffMs(2), is(120000L));
+        assertThat(RATE_LIMIT.backoffMs(5), is(960000L));
+        assertThat(RATE_LIMIT.backoffMs(1000), is(960000L));
+    }
+
+    @Test
+    void testDelayIsJittered() {
+        for (int attempt = 1; attempt < 10; attempt++) {
+            for (int i = 0; i < 100; i++) {
+                // when:
+                final long delayMs = HTTP.delayMs(attempt);
+
+                // then:
+                final long backoffMs = HTTP.backoffMs(attempt);
+                assertThat(delayMs, is(allOf(greaterThanOrEqualTo(backoffMs / 2), lessThanOrEqualTo(backoffMs))));
+            }
+        }
+    }
+}
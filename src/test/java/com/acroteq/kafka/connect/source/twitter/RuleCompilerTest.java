@@ -0,0 +1,140 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import org.apache.kafka.common.config.ConfigException;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class RuleCompilerTest {
+
+    private static final int MAX_LENGTH = 512;
+
+    @Test
+    void testTerm() {
+        assertThat(RuleCompiler.term("java"), is("java"));
+        assertThat(RuleCompiler.term(" kafka "), is("kafka"));
+        assertThat(RuleCompiler.term("spring boot"), is("\"spring boot\""));
+        assertThat(RuleCompiler.term("\"spring boot\""), is("\"spring boot\""));
+        assertThat(RuleCompiler.term("say \"hi\""), is("\"say \\\"hi\\\"\""));
+        assertThat(RuleCompiler.term("#java"), is("#java"));
+        assertThat(RuleCompiler.term("from:twitterdev"), is("from:twitterdev"));
+        assertThat(RuleCompiler.term("kafka -is:retweet"), is("(kafka -is:retweet)"));
+        assertThat(RuleCompiler.term("java OR jvm"), is("(java OR jvm)"));
+        assertThat(RuleCompiler.term("(java jvm)"), is("(java jvm)"));
+    }
+
+    @Test
+    void testQuery() {
+        // when:
+        final String query = RuleCompiler.query(List.of("java", "spring boot", "kafka -is:retweet"));
+        // then:
+        assertThat(query, is("java OR \"spring boot\" OR (kafka -is:retweet)"));
+    }
+
+    @Test
+    void testPack_singleRule() {
+        // when:
+        final List<RuleGroup> rules = RuleCompiler.pack(List.of("java", "kafka", "scala"), 0, MAX_LENGTH);
+        // then:
+        assertThat(rules, contains(new RuleGroup("group-0", List.of("java", "kafka", "scala"))));
+    }
+
+    @Test
+    void testPack_fewestRules() {
+        // given:
+        // "aaaaaaaaaa OR bbbbbbbbbb" is 24 characters long
+        final List<String> keywords = List.of("aaaaaaaaaa", "cccc", "bbbbbbbbbb", "dddddddddddddddd", "ee");
+        // when:
+        final List<RuleGroup> rules = RuleCompiler.pack(keywords, 0, 24);
+        // then:
+        // first fit by decreasing length: d + c and a + b both fill a rule, leaving e on its own
+        assertThat(rules,
+                   contains(new RuleGroup("group-0", List.of("aaaaaaaaaa", "bbbbbbbbbb")),
+                            new RuleGroup("group-1", List.of("cccc", "dddddddddddddddd")),
+                            new RuleGroup("group-2", List.of("ee"))));
+        rules.forEach(r -> assertThat(r.getValue()
+                                       .length() <= 24, is(true)));
+    }
+
+    @Test
+    void testPack_groupSize() {
+        // when:
+        final List<RuleGroup> rules = RuleCompiler.pack(List.of("java", "kafka", "scala"), 2, MAX_LENGTH);
+        // then:
+        assertThat(rules,
+                   contains(new RuleGroup("group-0", List.of("java")),
+                            new RuleGroup("group-1", List.of("kafka", "scala"))));
+    }
+
+    @Test
+    void testPack_keywordTooLong() {
+        // when:
+        final ConfigException exception =
+              assertThrows(ConfigException.class, () -> RuleCompiler.pack(List.of("java", "spring boot"), 0, 12));
+        // then:
+        assertThat(exception.getMessage(),
+                   is("The keyword 'spring boot' is longer than the maximum rule length of 12"));
+    }
+
+    @Test
+    void testPack_blankKeywords() {
+        // when:
+        final List<RuleGroup> rules = RuleCompiler.pack(List.of("java", "", " ", "kafka", ""), 0, MAX_LENGTH);
+        // then:
+        assertThat(rules, contains(new RuleGroup("group-0", List.of("java", "kafka"))));
+    }
+
+    @Test
+    void testPack_onlyBlankKeywords() {
+        // when:
+        final ConfigException exception =
+              assertThrows(ConfigException.class, () -> RuleCompiler.pack(List.of("", " "), 0, MAX_LENGTH));
+        // then:
+        assertThat(exception.getMessage(), is("The keyword list [,  ] has no keywords that are not blank"));
+    }
+
+    @Test
+    void testCheckRuleCount() {
+        // given:
+        final List<RuleGroup> rules = RuleCompiler.pack(List.of("java", "kafka", "scala"), 1, MAX_LENGTH);
+        // when:
+        RuleCompiler.checkRuleCount(rules, 3);
+        final ConfigException exception =
+              assertThrows(ConfigException.class, () -> RuleCompiler.checkRuleCount(rules, 2));
+        // then:
+        assertThat(exception.getMessage(),
+                   is("The keywords need 3 rules, but the account allows only 2. Shorten the keyword list, or shard it "
+                      + "across more apps."));
+    }
+}
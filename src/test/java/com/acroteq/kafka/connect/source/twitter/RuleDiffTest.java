@@ -0,0 +1,100 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.util.Collections.emptyList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+
+import com.twitter.clientlib.model.Rule;
+import com.twitter.clientlib.model.RuleNoId;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class RuleDiffTest {
+
+    private static final String JAVA = "java OR kafka";
+    private static final String SCALA = "scala";
+    private static final String TAG = "group-0";
+    private static final String OTHER_TAG = "group-1";
+
+    @Test
+    void testOf_same() {
+        // given:
+        final List<Rule> active = List.of(new Rule().id("1")
+                                                    .value(JAVA)
+                                                    .tag(TAG));
+        // when:
+        final RuleDiff diff = RuleDiff.of(active, List.of(new RuleNoId().value(JAVA)
+                                                                        .tag(TAG)));
+        // then:
+        assertThat(diff.isEmpty(), is(true));
+    }
+
+    @Test
+    void testOf_addAndDelete() {
+        // given:
+        final Rule java = new Rule().id("1")
+                                    .value(JAVA);
+        final Rule scala = new Rule().id("2")
+                                     .value(SCALA);
+        // when:
+        final RuleDiff diff = RuleDiff.of(List.of(java, scala), List.of(new RuleNoId().value(JAVA),
+                                                                        new RuleNoId().value("docker")));
+        // then:
+        assertThat(diff.getAdds(), contains(new RuleNoId().value("docker")));
+        assertThat(diff.getDeletes(), contains(scala));
+    }
+
+    @Test
+    void testOf_tagChanged() {
+        // given:
+        final Rule active = new Rule().id("1")
+                                      .value(JAVA)
+                                      .tag(TAG);
+        final RuleNoId desired = new RuleNoId().value(JAVA)
+                                               .tag(OTHER_TAG);
+        // when:
+        final RuleDiff diff = RuleDiff.of(List.of(active), List.of(desired));
+        // then:
+        assertThat(diff.getAdds(), contains(desired));
+        assertThat(diff.getDeletes(), contains(active));
+    }
+
+    @Test
+    void testOf_noActiveRules() {
+        // given:
+        final RuleNoId desired = new RuleNoId().value(JAVA);
+        // when:
+        final RuleDiff diff = RuleDiff.of(emptyList(), List.of(desired, desired));
+        // then:
+        assertThat(diff.getAdds(), contains(desired));
+        assertThat(diff.getDeletes(), is(emptyList()));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static com.acroteq.kafka.connect.source.twitter.TokenBucket.LIMIT_HEADER;
+import static com.acroteq.kafka.connect.source.twitter.TokenBucket.REMAINING_HEADER;
+import static com.acroteq.kafka.connect.source.twitter.TokenBucket.RESET_HEADER;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class TokenBucketTest {
+
+    private static final Duration WINDOW = Duration.ofSeconds(10);
+    private static final long NOW_MS = 1_700_000_000_000L;
+
+    private final ManualClock clock = new ManualClock(NOW_MS);
+
+    @Test
+    void testTryAcquire_paced() {
+        // given:
+        final TokenBucket bucket = new TokenBucket(2, WINDOW, clock);
+        // when:
+        final long first = bucket.tryAcquire();
+        final long second = bucket.tryAcquire();
+        final long third = bucket.tryAcquire();
+        // then:
+        // the burst is the limit, after that a token refills every window / limit
+        assertThat(first, is(0L));
+        assertThat(second, is(0L));
+        assertThat(third, is(5000L));
+
+        clock.advance(5000);
+        assertThat(bucket.tryAcquire(), is(0L));
+    }
+
+    @Test
+    void testUpdate_remainingUsedUp() {
+        // given:
+        final TokenBucket bucket = new TokenBucket(450, WINDOW, clock);
+        final long resetAtSeconds = NOW_MS / 1000 + 60;
+        // when:
+        bucket.update(Map.of(LIMIT_HEADER, List.of("300"),
+                             REMAINING_HEADER, List.of("0"),
+                             RESET_HEADER, List.of(Long.toString(resetAtSeconds))));
+        // then:
+        assertThat(bucket.getLimit(), is(300));
+        assertThat(bucket.getRemaining(), is(0));
+        assertThat(bucket.tryAcquire(), is(60000L));
+
+        // after the reset the budget is unknown again, and the tokens pace the calls
+        clock.advance(60000);
+        assertThat(bucket.tryAcquire(), is(0L));
+        assertThat(bucket.getRemaining(), is(-1));
+    }
+
+    @Test
+    void testUpdate_remainingCapsTokens() {
+        // given:
+        final TokenBucket bucket = new TokenBucket(450, WINDOW, clock);
+        // when:
+        bucket.update(Map.of(REMAINING_HEADER, List.of("1")));
+        // then:
+        assertThat(bucket.tryAcquire(), is(0L));
+        assertThat(bucket.getRemaining(), is(0));
+        assertThat(bucket.tryAcquire() > 0, is(true));
+    }
+
+    @Test
+    void testUpdate_noHeaders() {
+        // given:
+        final TokenBucket bucket = new TokenBucket(450, WINDOW, clock);
+        // when:
+        bucket.update(null);
+        bucket.update(Map.of(REMAINING_HEADER, List.of("invalid")));
+        // then:
+        assertThat(bucket.getLimit(), is(450));
+        assertThat(bucket.getRemaining(), is(-1));
+    }
+
+    @Test
+    void testExhaust_fallback() {
+        // given:
+        final TokenBucket bucket = new TokenBucket(450, WINDOW, clock);
+        // when:
+        bucket.exhaust(NOW_MS + 60000);
+        // then:
+        assertThat(bucket.getResetInMs(), is(60000L));
+        assertThat(bucket.tryAcquire(), is(60000L));
+        assertThat(bucket.getThrottledCount(), is(1L));
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.time.ZoneOffset.UTC;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.ApiResponse;
+import com.twitter.clientlib.api.TweetsApi;
+import com.twitter.clientlib.api.TweetsApi.APItweetsRecentSearchRequest;
+import com.twitter.clientlib.model.Get2TweetsSearchAllResponseMeta;
+import com.twitter.clientlib.model.Get2TweetsSearchRecentResponse;
+import com.twitter.clientlib.model.Tweet;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.common.config.types.Password;
+import org.apache.kafka.common.metrics.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+@ExtendWith(MockitoExtension.class)
+class TweetBackfillerTest {
+
+    private static final long SINCE_TWEET_ID = 1580418426475421696L;
+    private static final String NEXT_TOKEN = "next-token";
+    private static final int RETRIES = 3;
+    private static final String QUERY = "java OR kafka";
+    private static final List<String> QUERIES = List.of(QUERY);
+
+    @Mock private TweetsApi tweetsApi;
+    @Mock private APItweetsRecentSearchRequest request;
+
+    private final ManualClock clock = new ManualClock(System.currentTimeMillis());
+    private final RateLimiter rateLimiter = new RateLimiter("app", clock, clock::advance, new Metrics());
+
+    private final List<Tweet> tweets = new ArrayList<>();
+    private final Instant endTime = Instant.now()
+                                           .minusSeconds(10);
+
+    @BeforeEach
+    void setUp() {
+        when(tweetsApi.tweetsRecentSearch(QUERY)).thenReturn(request);
+        when(request.endTime(endTime.atOffset(UTC))).thenReturn(request);
+        when(request.maxResults(100)).thenReturn(request);
+        when(request.nextToken(any())).thenReturn(request);
+        lenient().when(request.sinceId(anyString()))
+                 .thenReturn(request);
+        lenient().when(request.startTime(any()))
+                 .thenReturn(request);
+        lenient().when(request.tweetFields(any()))
+                 .thenReturn(request);
+    }
+
+    private TweetBackfiller createBackfiller(final int maxTweets) {
+        final TwitterConfig config = TwitterConfig.builder()
+                                                  .bearerToken(new Password("password"))
+                                                  .fields(Set.of("id", "text"))
+                                                  .retries(RETRIES)
+                                                  .backfillMaxTweets(maxTweets)
+                                                  .build();
+        return TweetBackfiller.builder()
+                              .tweetsApi(tweetsApi)
+                              .rateLimiter(rateLimiter)
+                              .config(config)
+                              .build();
+    }
+
+    private static ApiResponse<Get2TweetsSearchRecentResponse> createResponse(final String nextToken,
+                                                                              final String... ids) {
+        final Get2TweetsSearchRecentResponse response = new Get2TweetsSearchRecentResponse();
+        for (final String id : ids) {
+            response.addDataItem(new Tweet().id(id)
+                                            .text("text"));
+        }
+        response.meta(new Get2TweetsSearchAllResponseMeta().nextToken(nextToken));
+        return new ApiResponse<>(200, Map.of(), response);
+    }
+
+    private static List<String> ids(final List<Tweet> tweets) {
+        final List<String> ids = new ArrayList<>();
+        tweets.forEach(t -> ids.add(t.getId()));
+        return ids;
+    }
+
+    @Test
+    void testBackfillPages() throws ApiException {
+        // given:
+        when(request.executeWithHttpInfo()).thenReturn(createResponse(NEXT_TOKEN, "3", "2"))
+                                      .thenReturn(createResponse(null, "1"));
+        final Instant sinceCreatedAt = Instant.now()
+                                              .minus(Duration.ofHours(1));
+
+        // when:
+        final TweetBackfiller backfiller = createBackfiller(100);
+        final boolean complete = backfiller.backfill(QUERIES,
+                                                     SINCE_TWEET_ID,
+                                                     sinceCreatedAt,
+                                                     endTime,
+                                                     tweets::add,
+                                                     () -> true);
+
+        // then:
+        assertThat(complete, is(true));
+        assertThat(ids(tweets), contains("3", "2", "1"));
+        verify(request, times(2)).sinceId(Long.toString(SINCE_TWEET_ID));
+        verify(request).nextToken(NEXT_TOKEN);
+        verify(request, never()).startTime(any());
+    }
+
+    @Test
+    void testBackfillQueries() throws ApiException {
+        // given:
+        final APItweetsRecentSearchRequest scalaRequest = mock(APItweetsRecentSearchRequest.class);
+        when(tweetsApi.tweetsRecentSearch("scala")).thenReturn(scalaRequest);
+        when(scalaRequest.endTime(endTime.atOffset(UTC))).thenReturn(scalaRequest);
+        when(scalaRequest.maxResults(100)).thenReturn(scalaRequest);
+        when(scalaRequest.nextToken(any())).thenReturn(scalaRequest);
+        when(scalaRequest.sinceId(anyString())).thenReturn(scalaRequest);
+        when(scalaRequest.tweetFields(any())).thenReturn(scalaRequest);
+        when(scalaRequest.executeWithHttpInfo()).thenReturn(createResponse(null, "4"));
+        when(request.executeWithHttpInfo()).thenReturn(createResponse(null, "2", "1"));
+        final Instant sinceCreatedAt = Instant.now();
+
+        // when:
+        final TweetBackfiller backfiller = createBackfiller(100);
+        final boolean complete = backfiller.backfill(List.of(QUERY, "scala"),
+                                                     SINCE_TWEET_ID,
+                                                     sinceCreatedAt,
+                                                     endTime,
+                                                     tweets::add,
+                                                     () -> true);
+
+        // then:
+        assertThat(complete, is(true));
+        assertThat(ids(tweets), contains("2", "1", "4"));
+    }
+
+    @Test
+    void testBackfillBeyondSearchWindow() throws ApiException {
+        // given:
+        when(request.executeWithHttpInfo()).thenReturn(createResponse(null, "1"));
+        final Instant sinceCreatedAt = Instant.now()
+                                              .minus(Duration.ofDays(30));
+
+        // when:
+        final TweetBackfiller backfiller = createBackfiller(100);
+        final boolean complete = backfiller.backfill(QUERIES,
+                                                     SINCE_TWEET_ID,
+                                                     sinceCreatedAt,
+                                                     endTime,
+                                                     tweets::add,
+                                                     () -> true);
+
+        // then:
+        // the tweets beyond the reach of the search are lost, but the backfill is as complete as it can be
+        assertThat(complete, is(true));
+        assertThat(ids(tweets), contains("1"));
+        verify(request).startTime(any());
+        verify(request, never()).sinceId(anyString());
+    }
+
+    @Test
+    void testBackfillMaxTweets() throws ApiException {
+        // given:
+        when(request.executeWithHttpInfo()).thenReturn(createResponse(NEXT_TOKEN, "3", "2"));
+        final Instant sinceCreatedAt = Instant.now();
+
+        // when:
+        final TweetBackfiller backfiller = createBackfiller(1);
+        final boolean complete = backfiller.backfill(QUERIES,
+                                                     SINCE_TWEET_ID,
+                                                     sinceCreatedAt,
+                                                     endTime,
+                                                     tweets::add,
+                                                     () -> true);
+
+        // then:
+        assertThat(complete, is(false));
+        assertThat(ids(tweets), contains("3"));
+    }
+
+    @Test
+    void testBackfillError() throws ApiException {
+        // given:
+        when(request.executeWithHttpInfo()).thenThrow(new ApiException(503, "service unavailable"));
+        final Instant sinceCreatedAt = Instant.now();
+
+        // when:
+        final TweetBackfiller backfiller = createBackfiller(100);
+        final boolean complete = backfiller.backfill(QUERIES,
+                                                     SINCE_TWEET_ID,
+                                                     sinceCreatedAt,
+                                                     endTime,
+                                                     tweets::add,
+                                                     () -> true);
+
+        // then:
+        assertThat(complete, is(false));
+        assertThat(tweets.isEmpty(), is(true));
+    }
+
+    @Test
+    void testBackfillStopped() throws ApiException {
+        // given:
+        when(request.executeWithHttpInfo()).thenReturn(createResponse(NEXT_TOKEN, "3", "2"));
+        final Instant sinceCreatedAt = Instant.now();
+
+        // when:
+        final TweetBackfiller backfiller = createBackfiller(100);
+        final boolean complete = backfiller.backfill(QUERIES,
+                                                     SINCE_TWEET_ID,
+                                                     sinceCreatedAt,
+                                                     endTime,
+                                                     tweets::add,
+                                                     () -> tweets.size() < 2);
+
+        // then:
+        // stopped with more pages to come, so the oldest tweets of the gap are missing
+        assertThat(complete, is(false));
+        assertThat(ids(tweets), contains("3", "2"));
+    }
+}
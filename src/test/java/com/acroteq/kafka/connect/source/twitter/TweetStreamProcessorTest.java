@@ -26,6 +26,7 @@
  */
 package com.acroteq.kafka.connect.source.twitter;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.synchronizedList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
@@ -43,11 +44,13 @@ import com.twitter.clientlib.api.TweetsApi;
 import com.twitter.clientlib.model.Tweet;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.metrics.Metrics;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -71,7 +74,11 @@ class TweetStreamProcessorTest {
     @Mock private TwitterConfig config;
     @Mock private ApiException apiException;
 
+    private final ManualClock clock = new ManualClock(System.currentTimeMillis());
+    private final RateLimiter rateLimiter = new RateLimiter("app", clock, clock::advance, new Metrics());
+
     private List<Tweet> tweetList;
+    private List<String> lineList;
 
     private InputStream tweetStream;
 
@@ -84,6 +91,7 @@ class TweetStreamProcessorTest {
     @BeforeEach
     void setUp() {
         tweetList = synchronizedList(new ArrayList<>());
+        lineList = synchronizedList(new ArrayList<>());
         when(tweetsApi.searchStream()).thenReturn(apiSearchStreamRequest);
         when(apiSearchStreamRequest.tweetFields(anySet())).thenReturn(apiSearchStreamRequest);
 
@@ -98,11 +106,12 @@ class TweetStreamProcessorTest {
         // given:
 
         tweetStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
-        when(apiSearchStreamRequest.execute(RETRIES)).thenReturn(tweetStream);
+        when(apiSearchStreamRequest.executeWithHttpInfo()).thenReturn(tweetStream);
 
         // when:
         final TweetStreamProcessor tweetStreamProcessor = TweetStreamProcessor.factory()
                                                                               .tweetsApi(tweetsApi)
+                                                                              .rateLimiter(rateLimiter)
                                                                               .config(config)
                                                                               .consumer(this::tweetConsumer)
                                                                               .start();
@@ -110,7 +119,65 @@ class TweetStreamProcessorTest {
         // then:
         assertThat(tweetStreamProcessor.isRunning(), is(true));
         assertTweetCount(11);
-        verify(apiSearchStreamRequest).execute(RETRIES);
+        verify(apiSearchStreamRequest).executeWithHttpInfo();
+        tweetStreamProcessor.close();
+        waitForShutdown(tweetStreamProcessor);
+        assertThat(tweetStreamProcessor.isRunning(), is(false));
+    }
+
+    @SuppressWarnings("resource")
+    @SneakyThrows
+    @Test
+    void testProcessTweets_expansions() {
+        // given:
+        tweetStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
+        when(apiSearchStreamRequest.executeWithHttpInfo()).thenReturn(tweetStream);
+        when(config.getExpansions()).thenReturn(Set.of("author_id"));
+        when(config.getUserFields()).thenReturn(Set.of("username"));
+        when(config.getMediaFields()).thenReturn(Set.of("url"));
+        when(config.getPlaceFields()).thenReturn(Set.of("country"));
+
+        // when:
+        final TweetStreamProcessor tweetStreamProcessor = TweetStreamProcessor.factory()
+                                                                              .tweetsApi(tweetsApi)
+                                                                              .rateLimiter(rateLimiter)
+                                                                              .config(config)
+                                                                              .consumer(this::tweetConsumer)
+                                                                              .start();
+
+        // then:
+        assertTweetCount(11);
+        verify(apiSearchStreamRequest).expansions(Set.of("author_id"));
+        verify(apiSearchStreamRequest).userFields(Set.of("username"));
+        verify(apiSearchStreamRequest).mediaFields(Set.of("url"));
+        verify(apiSearchStreamRequest).placeFields(Set.of("country"));
+        tweetStreamProcessor.close();
+        waitForShutdown(tweetStreamProcessor);
+    }
+
+    @SuppressWarnings("resource")
+    @SneakyThrows
+    @Test
+    void testProcessTweets_lineConsumer() {
+        // given:
+        tweetStream = getClass().getResourceAsStream("/blank-tweet.txt");
+        when(apiSearchStreamRequest.executeWithHttpInfo()).thenReturn(tweetStream);
+
+        // when:
+        final TweetStreamProcessor tweetStreamProcessor = TweetStreamProcessor.factory()
+                                                                              .tweetsApi(tweetsApi)
+                                                                              .rateLimiter(rateLimiter)
+                                                                              .config(config)
+                                                                              .consumer(this::tweetConsumer)
+                                                                              .lineConsumer(this::lineConsumer)
+                                                                              .start();
+        // then:
+        // blank lines are not passed on, and the tweet consumer is bypassed
+        await().atMost(PROCESSING_TIMEOUT_SECONDS, SECONDS)
+               .pollInterval(POLL_INTERVAL_SECONDS, SECONDS)
+               .until(() -> lineList.size() >= 11);
+        assertThat(lineList.size(), is(11));
+        assertThat(tweetList.size(), is(0));
         tweetStreamProcessor.close();
         waitForShutdown(tweetStreamProcessor);
         assertThat(tweetStreamProcessor.isRunning(), is(false));
@@ -122,18 +189,19 @@ class TweetStreamProcessorTest {
     void testProcessTweets_emptyLine() {
         // given:
         tweetStream = getClass().getResourceAsStream("/blank-tweet.txt");
-        when(apiSearchStreamRequest.execute(RETRIES)).thenReturn(tweetStream);
+        when(apiSearchStreamRequest.executeWithHttpInfo()).thenReturn(tweetStream);
 
         // when:
         final TweetStreamProcessor tweetStreamProcessor = TweetStreamProcessor.factory()
                                                                               .tweetsApi(tweetsApi)
+                                                                              .rateLimiter(rateLimiter)
                                                                               .config(config)
                                                                               .consumer(this::tweetConsumer)
                                                                               .start();
         // then:
         assertThat(tweetStreamProcessor.isRunning(), is(true));
         assertTweetCount(11);
-        verify(apiSearchStreamRequest).execute(RETRIES);
+        verify(apiSearchStreamRequest).executeWithHttpInfo();
         tweetStreamProcessor.close();
         waitForShutdown(tweetStreamProcessor);
         assertThat(tweetStreamProcessor.isRunning(), is(false));
@@ -145,11 +213,12 @@ class TweetStreamProcessorTest {
     void testProcessTweets_malformed() {
         // given:
         tweetStream = getClass().getResourceAsStream("/malformed-tweet.txt");
-        when(apiSearchStreamRequest.execute(RETRIES)).thenReturn(tweetStream);
+        when(apiSearchStreamRequest.executeWithHttpInfo()).thenReturn(tweetStream);
 
         // when:
         final TweetStreamProcessor tweetStreamProcessor = TweetStreamProcessor.factory()
                                                                               .tweetsApi(tweetsApi)
+                                                                              .rateLimiter(rateLimiter)
                                                                               .config(config)
                                                                               .consumer(this::tweetConsumer)
                                                                               .start();
@@ -157,7 +226,7 @@ class TweetStreamProcessorTest {
         // The 7th is the malformed tweet, where we abort
         assertThat(tweetStreamProcessor.isRunning(), is(true));
         assertTweetCount(6);
-        verify(apiSearchStreamRequest).execute(RETRIES);
+        verify(apiSearchStreamRequest).executeWithHttpInfo();
         tweetStreamProcessor.close();
         waitForShutdown(tweetStreamProcessor);
         assertThat(tweetStreamProcessor.isRunning(), is(false));
@@ -169,18 +238,19 @@ class TweetStreamProcessorTest {
     void testProcessTweets_error() {
         // given:
         tweetStream = getClass().getResourceAsStream("/error-tweet.txt");
-        when(apiSearchStreamRequest.execute(RETRIES)).thenReturn(tweetStream);
+        when(apiSearchStreamRequest.executeWithHttpInfo()).thenReturn(tweetStream);
 
         // when:
         final TweetStreamProcessor tweetStreamProcessor = TweetStreamProcessor.factory()
                                                                               .tweetsApi(tweetsApi)
+                                                                              .rateLimiter(rateLimiter)
                                                                               .config(config)
                                                                               .consumer(this::tweetConsumer)
                                                                               .start();
         // then:
         assertThat(tweetStreamProcessor.isRunning(), is(true));
         assertTweetCount(6);
-        verify(apiSearchStreamRequest).execute(RETRIES);
+        verify(apiSearchStreamRequest).executeWithHttpInfo();
         tweetStreamProcessor.close();
         waitForShutdown(tweetStreamProcessor);
         assertThat(tweetStreamProcessor.isRunning(), is(false));
@@ -193,17 +263,18 @@ class TweetStreamProcessorTest {
         // given:
         final byte[] emptyByteArray = new byte[0];
         tweetStream = new ByteArrayInputStream(emptyByteArray);
-        when(apiSearchStreamRequest.execute(RETRIES)).thenThrow(apiException);
+        when(apiSearchStreamRequest.executeWithHttpInfo()).thenThrow(apiException);
 
         // when:
         final TwitterException twitterException = assertThrows(TwitterException.class,
                                                                () -> TweetStreamProcessor.factory()
                                                                                          .tweetsApi(tweetsApi)
+                                                                                         .rateLimiter(rateLimiter)
                                                                                          .config(config)
                                                                                          .consumer(this::tweetConsumer)
                                                                                          .start());
         assertThat(twitterException.getMessage(), is("Error while calling tweetApi.searchStream()"));
-        verify(apiSearchStreamRequest).execute(RETRIES);
+        verify(apiSearchStreamRequest).executeWithHttpInfo();
     }
 
     private void tweetConsumer(final Tweet tweet) {
@@ -211,6 +282,11 @@ class TweetStreamProcessorTest {
         tweetList.add(tweet);
     }
 
+    private void lineConsumer(final ByteBuffer line) {
+        lineList.add(UTF_8.decode(line)
+                          .toString());
+    }
+
     private void assertTweetCount(final int tweetCount) {
         await().atMost(PROCESSING_TIMEOUT_SECONDS, SECONDS)
                .pollInterval(POLL_INTERVAL_SECONDS, SECONDS)
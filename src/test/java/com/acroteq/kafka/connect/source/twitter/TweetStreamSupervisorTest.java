@@ -0,0 +1,162 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.EOFException;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+@ExtendWith(MockitoExtension.class)
+class TweetStreamSupervisorTest {
+
+    private static final long STALL_TIMEOUT_MS = 30000;
+    private static final long SHORT_STALL_TIMEOUT_MS = 100;
+    private static final int TIMEOUT_SECONDS = 10;
+
+    @Mock private TweetStreamProcessor firstProcessor;
+    @Mock private TweetStreamProcessor secondProcessor;
+
+    private BlockingQueue<TweetStreamProcessor> processors;
+    private BlockingQueue<Consumer<Throwable>> listeners;
+    private TweetStreamSupervisor supervisor;
+
+    @BeforeEach
+    void setUp() {
+        processors = new LinkedBlockingQueue<>();
+        processors.add(firstProcessor);
+        processors.add(secondProcessor);
+        listeners = new LinkedBlockingQueue<>();
+
+        lenient().when(firstProcessor.getLastActivityNanos())
+                 .thenAnswer(a -> System.nanoTime());
+        lenient().when(secondProcessor.getLastActivityNanos())
+                 .thenAnswer(a -> System.nanoTime());
+    }
+
+    @AfterEach
+    void tearDown() {
+        Optional.ofNullable(supervisor)
+                .ifPresent(TweetStreamSupervisor::close);
+    }
+
+    private TweetStreamProcessor connect(final Consumer<Throwable> listener) {
+        listeners.add(listener);
+        return processors.remove();
+    }
+
+    @Test
+    void testConnect() {
+        // when:
+        supervisor = new TweetStreamSupervisor(this::connect, STALL_TIMEOUT_MS);
+
+        // then:
+        assertThat(supervisor.isRunning(), is(true));
+        assertThat(listeners.size(), is(1));
+        assertThat(supervisor.getReconnectCount(), is(0L));
+    }
+
+    @Test
+    void testFirstConnectFails() {
+        // given:
+        final Function<Consumer<Throwable>, TweetStreamProcessor> connector = listener -> {
+            throw new TwitterException("unauthorized");
+        };
+
+        // when:
+        // then:
+        assertThrows(TwitterException.class, () -> new TweetStreamSupervisor(connector, STALL_TIMEOUT_MS));
+    }
+
+    @Test
+    void testReconnectOnDisconnect() throws InterruptedException {
+        // given:
+        supervisor = new TweetStreamSupervisor(this::connect, STALL_TIMEOUT_MS);
+        final Consumer<Throwable> listener = listeners.take();
+
+        // when:
+        listener.accept(new EOFException("closed"));
+
+        // then:
+        await().atMost(TIMEOUT_SECONDS, SECONDS)
+               .until(() -> supervisor.getReconnectCount() == 1);
+        assertThat(processors.isEmpty(), is(true));
+        assertThat(supervisor.isRunning(), is(true));
+        assertThat(supervisor.getDowntimeMs() >= 0, is(true));
+    }
+
+    @Test
+    void testReconnectOnStall() {
+        // given:
+        when(firstProcessor.getLastActivityNanos()).thenReturn(System.nanoTime() - SECONDS.toNanos(1));
+
+        // when:
+        supervisor = new TweetStreamSupervisor(this::connect, SHORT_STALL_TIMEOUT_MS);
+
+        // then:
+        await().atMost(TIMEOUT_SECONDS, SECONDS)
+               .until(() -> supervisor.getReconnectCount() == 1);
+        verify(firstProcessor).close();
+        verify(secondProcessor, never()).close();
+    }
+
+    @Test
+    void testClose() throws InterruptedException {
+        // given:
+        supervisor = new TweetStreamSupervisor(this::connect, STALL_TIMEOUT_MS);
+        final Consumer<Throwable> listener = listeners.take();
+
+        // when:
+        supervisor.close();
+        listener.accept(new EOFException("closed"));
+
+        // then:
+        assertThat(supervisor.isRunning(), is(false));
+        assertThat(supervisor.getReconnectCount(), is(0L));
+        assertThat(processors.size(), is(1));
+        verify(firstProcessor).close();
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.twitter;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.ApiResponse;
+import com.twitter.clientlib.api.TweetsApi;
+import com.twitter.clientlib.api.TweetsApi.APItweetCountsRecentSearchRequest;
+import com.twitter.clientlib.model.Get2TweetsCountsRecentResponse;
+import com.twitter.clientlib.model.SearchCount;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.common.metrics.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+@ExtendWith(MockitoExtension.class)
+class TweetVolumeServiceTest {
+
+    private static final int RETRIES = 3;
+    private static final RuleGroup RULE_GROUP = new RuleGroup("group-0", List.of("java", "kafka"));
+
+    @Mock private TweetsApi tweetsApi;
+    @Mock private APItweetCountsRecentSearchRequest request;
+
+    private final ManualClock clock = new ManualClock(System.currentTimeMillis());
+    private final RateLimiter rateLimiter = new RateLimiter("app", clock, clock::advance, new Metrics());
+
+    private TweetVolumeService tweetVolumeService;
+
+    @BeforeEach
+    void setUp() {
+        when(tweetsApi.tweetCountsRecentSearch("java OR kafka")).thenReturn(request);
+        when(request.granularity("day")).thenReturn(request);
+        tweetVolumeService = TweetVolumeService.builder()
+                                               .tweetsApi(tweetsApi)
+                                               .rateLimiter(rateLimiter)
+                                               .retries(RETRIES)
+                                               .build();
+    }
+
+    @Test
+    void testCountRecent() throws ApiException {
+        // given:
+        final Get2TweetsCountsRecentResponse response = new Get2TweetsCountsRecentResponse();
+        response.addDataItem(new SearchCount().tweetCount(100));
+        response.addDataItem(new SearchCount().tweetCount(250));
+        when(request.executeWithHttpInfo()).thenReturn(new ApiResponse<>(200, Map.of(), response));
+        // when:
+        final long count = tweetVolumeService.countRecent(RULE_GROUP);
+        // then:
+        assertThat(count, is(350L));
+    }
+
+    @Test
+    void testCountRecent_exceptionThrown() throws ApiException {
+        // given:
+        final ApiException apiException = new ApiException(429, "too many requests");
+        when(request.executeWithHttpInfo()).thenThrow(apiException);
+        // when:
+        final TwitterException twitterException =
+              assertThrows(TwitterException.class, () -> tweetVolumeService.countRecent(RULE_GROUP));
+        // then:
+        assertThat(twitterException.getMessage(), is("Error while calling tweetsApi.tweetCountsRecentSearch()"));
+        assertThat(twitterException.getCause(), is(apiException));
+    }
+}
@@ -26,13 +26,19 @@
  */
 package com.acroteq.kafka.connect.source.twitter;
 
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.LOG_RAW_JSON_SAMPLE_RATIO_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BEARER_TOKEN_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_EXPANSIONS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_MEDIA_FIELDS_CONF;
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_RETRIES_CONF;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.apache.kafka.common.config.types.Password;
 import org.junit.jupiter.api.Test;
@@ -42,8 +48,6 @@ class TwitterConfigTest {
 
     private static final String PASSWORD = "password";
     private static final Password BEARER_TOKEN = new Password(PASSWORD);
-    private static final String KEYWORD = "keyword";
-    private static final List<String> FILTER_KEYWORDS = List.of(KEYWORD);
     private static final String FIELD = "field";
     private static final Set<String> FIELDS = Set.of(FIELD);
     private static final int RETRIES = 10;
@@ -53,14 +57,12 @@ class TwitterConfigTest {
         // when:
         final TwitterConfig config = TwitterConfig.builder()
                                                   .bearerToken(BEARER_TOKEN)
-                                                  .filterKeywords(FILTER_KEYWORDS)
                                                   .fields(FIELDS)
                                                   .retries(RETRIES)
                                                   .build();
         // then:
         assertThat(config.getBearerToken()
                          .value(), is(PASSWORD));
-        assertThat(config.getFilterKeywords(), contains(KEYWORD));
         assertThat(config.getFields(), contains(FIELD));
         assertThat(config.getRetries(), is(RETRIES));
     }
@@ -71,7 +73,6 @@ class TwitterConfigTest {
         assertThrows(NullPointerException.class,
                      () -> TwitterConfig.builder()
                                         .bearerToken(null)
-                                        .filterKeywords(FILTER_KEYWORDS)
                                         .fields(FIELDS)
                                         .retries(RETRIES)
                                         .build());
@@ -82,48 +83,18 @@ class TwitterConfigTest {
         // when:
         assertThrows(NullPointerException.class,
                      () -> TwitterConfig.builder()
-                                        .filterKeywords(FILTER_KEYWORDS)
                                         .fields(FIELDS)
                                         .retries(RETRIES)
                                         .build());
     }
 
-    @Test
-    void testNullKeywords() {
-        // when:
-        assertThrows(NullPointerException.class,
-                     () -> TwitterConfig.builder()
-                                        .bearerToken(BEARER_TOKEN)
-                                        .filterKeywords(null)
-                                        .fields(FIELDS)
-                                        .retries(RETRIES)
-                                        .build());
-    }
-
-    @Test
-    void testMissingKeywords() {
-        // when:
-        final TwitterConfig config = TwitterConfig.builder()
-                                                  .bearerToken(BEARER_TOKEN)
-                                                  .fields(FIELDS)
-                                                  .retries(RETRIES)
-                                                  .build();
-        // then:
-        assertThat(config.getBearerToken()
-                         .value(), is(PASSWORD));
-        assertThat(config.getFilterKeywords(), is(empty()));
-        assertThat(config.getFields(), contains(FIELD));
-        assertThat(config.getRetries(), is(RETRIES));
-    }
-
     @Test
     void testNullFields() {
         // when:
         assertThrows(NullPointerException.class,
                      () -> TwitterConfig.builder()
                                         .bearerToken(BEARER_TOKEN)
-                                        .filterKeywords(null)
-                                        .fields(FIELDS)
+                                        .fields(null)
                                         .retries(RETRIES)
                                         .build());
     }
@@ -133,13 +104,11 @@ class TwitterConfigTest {
         // when:
         final TwitterConfig config = TwitterConfig.builder()
                                                   .bearerToken(BEARER_TOKEN)
-                                                  .filterKeywords(FILTER_KEYWORDS)
                                                   .retries(RETRIES)
                                                   .build();
         // then:
         assertThat(config.getBearerToken()
                          .value(), is(PASSWORD));
-        assertThat(config.getFilterKeywords(), contains(KEYWORD));
         assertThat(config.getFields(), is(empty()));
         assertThat(config.getRetries(), is(RETRIES));
     }
@@ -153,7 +122,6 @@ class TwitterConfigTest {
         assertThrows(NullPointerException.class,
                      () -> TwitterConfig.builder()
                                         .bearerToken(BEARER_TOKEN)
-                                        .filterKeywords(null)
                                         .fields(FIELDS)
                                         .retries(retries)
                                         .build());
@@ -164,15 +132,45 @@ class TwitterConfigTest {
         // when:
         final TwitterConfig config = TwitterConfig.builder()
                                                   .bearerToken(BEARER_TOKEN)
-                                                  .filterKeywords(FILTER_KEYWORDS)
                                                   .fields(FIELDS)
                                                   .build();
         // then:
         assertThat(config.getBearerToken()
                          .value(), is(PASSWORD));
-        assertThat(config.getFilterKeywords(), contains(KEYWORD));
         assertThat(config.getFields(), contains(FIELD));
         assertThat(config.getRetries(), is(10));
+        assertThat(config.getStallTimeoutMs(), is(30000));
+        assertThat(config.getRawJsonSampleRatio(), is(0.001));
+    }
+
+    @Test
+    void testFromSettingsMap_rawJsonSampleRatio() {
+        // when:
+        final TwitterConfig config = TwitterConfig.fromSettingsMap(Map.of(TWITTER_BEARER_TOKEN_CONF,
+                                                                          PASSWORD,
+                                                                          TWITTER_RETRIES_CONF,
+                                                                          "3",
+                                                                          LOG_RAW_JSON_SAMPLE_RATIO_CONF,
+                                                                          "0.25"));
+        // then:
+        assertThat(config.getRawJsonSampleRatio(), is(0.25));
+    }
+
+    @Test
+    void testFromSettingsMap_expansions() {
+        // when:
+        final TwitterConfig config = TwitterConfig.fromSettingsMap(Map.of(TWITTER_BEARER_TOKEN_CONF,
+                                                                          PASSWORD,
+                                                                          TWITTER_RETRIES_CONF,
+                                                                          "3",
+                                                                          TWITTER_EXPANSIONS_CONF,
+                                                                          "author_id, attachments.media_keys",
+                                                                          TWITTER_MEDIA_FIELDS_CONF,
+                                                                          ""));
+        // then:
+        assertThat(config.getExpansions(), containsInAnyOrder("author_id", "attachments.media_keys"));
+        assertThat(config.getMediaFields(), is(empty()));
+        assertThat(config.getUserFields(), is(empty()));
     }
 
-}
\ No newline at end of file
+}
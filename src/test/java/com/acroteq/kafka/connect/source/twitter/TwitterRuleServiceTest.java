@@ -28,13 +28,20 @@ package com.acroteq.kafka.connect.source.twitter;
 
 import static java.util.Collections.emptyList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.twitter.clientlib.ApiException;
+import com.twitter.clientlib.ApiResponse;
 import com.twitter.clientlib.api.TweetsApi;
 import com.twitter.clientlib.api.TweetsApi.APIaddOrDeleteRulesRequest;
 import com.twitter.clientlib.api.TweetsApi.APIgetRulesRequest;
@@ -42,12 +49,20 @@ import com.twitter.clientlib.model.AddOrDeleteRulesRequest;
 import com.twitter.clientlib.model.AddOrDeleteRulesResponse;
 import com.twitter.clientlib.model.Problem;
 import com.twitter.clientlib.model.Rule;
+import com.twitter.clientlib.model.RuleNoId;
 import com.twitter.clientlib.model.RulesLookupResponse;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import lombok.SneakyThrows;
+import org.apache.kafka.common.metrics.Metrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
@@ -58,7 +73,12 @@ class TwitterRuleServiceTest {
     private static final int RETRIES = 10;
 
     private static final String KEYWORD = "keyword";
-    private static final List<String> KEYWORDS = List.of(KEYWORD);
+    private static final String RULE_ID = "1580000000000000000";
+    private static final RuleNoId RULE = new RuleNoId().value(KEYWORD);
+    private static final Rule ACTIVE_RULE = new Rule().id(RULE_ID)
+                                                      .value(KEYWORD);
+    private static final Rule STALE_RULE = new Rule().id(RULE_ID)
+                                                     .value("stale");
 
     private static final String PROBLEM_TITLE = "problemTitle";
     private static final String PROBLEM_TYPE = "problemType";
@@ -73,7 +93,11 @@ class TwitterRuleServiceTest {
     @Mock private ApiException apiException;
     @Mock private TwitterConfig twitterConfig;
 
-    @Mock private Rule rule;
+    @Captor private ArgumentCaptor<AddOrDeleteRulesRequest> addOrDeleteRulesRequestCaptor;
+
+    private final Set<RuleNoId> validatedRules = new HashSet<>();
+    private final ManualClock clock = new ManualClock(System.currentTimeMillis());
+    private final RateLimiter rateLimiter = new RateLimiter("app", clock, clock::advance, new Metrics());
 
     private TwitterRuleService twitterRuleService;
 
@@ -83,139 +107,203 @@ class TwitterRuleServiceTest {
         when(twitterConfig.getRetries()).thenReturn(RETRIES);
         twitterRuleService = TwitterRuleService.builder()
                                                .tweetsApi(tweetsApi)
+                                               .rateLimiter(rateLimiter)
                                                .config(twitterConfig)
+                                               .validatedRules(validatedRules)
                                                .build();
     }
 
     @SneakyThrows
     @Test
-    void testAddKeywordFilterRules_noExistingRules() {
+    void testReconcileRules_upToDate() {
         // given:
-        mockAddKeywordFilterRule(List.of(rule));
+        mockGetRules(List.of(ACTIVE_RULE));
         // when:
-        twitterRuleService.addKeywordFilterRules(KEYWORDS);
+        final boolean changed = twitterRuleService.reconcileRules(List.of(RULE));
         // then:
-        verify(tweetsApi).addOrDeleteRules(any(AddOrDeleteRulesRequest.class));
+        assertThat(changed, is(false));
+        verify(tweetsApi, never()).addOrDeleteRules(any(AddOrDeleteRulesRequest.class));
     }
 
     @SneakyThrows
     @Test
-    void testAddKeywordFilterRules_withExistingRules() {
+    void testReconcileRules_noActiveRules() {
         // given:
-        mockAddKeywordFilterRule(List.of(rule));
+        mockGetRules(emptyList());
+        mockAddOrDeleteRules(List.of(ACTIVE_RULE));
         // when:
-        twitterRuleService.addKeywordFilterRules(KEYWORDS);
+        final boolean changed = twitterRuleService.reconcileRules(List.of(RULE));
         // then:
-        verify(tweetsApi).addOrDeleteRules(any(AddOrDeleteRulesRequest.class));
+        assertThat(changed, is(true));
+        // validated with a dry run first, then added
+        final InOrder inOrder = inOrder(apiAddOrDeleteRulesRequest);
+        inOrder.verify(apiAddOrDeleteRulesRequest)
+               .dryRun(true);
+        inOrder.verify(apiAddOrDeleteRulesRequest)
+               .dryRun(false);
+        verify(tweetsApi, times(2)).addOrDeleteRules(addOrDeleteRulesRequestCaptor.capture());
+        assertThat(addOrDeleteRulesRequestCaptor.getValue()
+                                                .getAddRulesRequest()
+                                                .getAdd(), contains(RULE));
+        assertThat(validatedRules, contains(RULE));
     }
 
     @SneakyThrows
     @Test
-    void testAddKeywordFilterRules_ruleNotInserted() {
+    void testReconcileRuleGroups() {
         // given:
-        mockAddKeywordFilterRule(emptyList());
+        final RuleGroup group = new RuleGroup("group-0", List.of(KEYWORD));
+        final RuleNoId taggedRule = new RuleNoId().value(KEYWORD)
+                                                  .tag("group-0");
+        mockGetRules(emptyList());
+        mockAddOrDeleteRules(List.of(ACTIVE_RULE));
         // when:
-        final TwitterException twitterException =
-              assertThrows(TwitterException.class, () -> twitterRuleService.addKeywordFilterRules(KEYWORDS));
+        final boolean changed = twitterRuleService.reconcileRuleGroups(List.of(group));
         // then:
-        assertThat(twitterException.getMessage(), is("Expected the active rules to contain 'keyword', but it didn't"));
+        assertThat(changed, is(true));
+        verify(tweetsApi, times(2)).addOrDeleteRules(addOrDeleteRulesRequestCaptor.capture());
+        assertThat(addOrDeleteRulesRequestCaptor.getValue()
+                                                .getAddRulesRequest()
+                                                .getAdd(), contains(taggedRule));
     }
 
     @SneakyThrows
     @Test
-    void testAddKeywordFilterRules_exceptionThrown() {
+    void testReconcileRules_alreadyValidated() {
         // given:
-        when(tweetsApi.addOrDeleteRules(any(AddOrDeleteRulesRequest.class))).thenReturn(apiAddOrDeleteRulesRequest);
-        when(apiAddOrDeleteRulesRequest.execute(RETRIES)).thenReturn(addOrDeleteRulesResponse);
-        when(apiAddOrDeleteRulesRequest.execute(RETRIES)).thenThrow(apiException);
+        validatedRules.add(RULE);
+        mockGetRules(emptyList());
+        mockAddOrDeleteRules(List.of(ACTIVE_RULE));
         // when:
-        final TwitterException twitterException =
-              assertThrows(TwitterException.class, () -> twitterRuleService.addKeywordFilterRules(KEYWORDS));
+        twitterRuleService.reconcileRules(List.of(RULE));
         // then:
-        assertThat(twitterException.getMessage(), is("Error while calling tweetsApi.addOrDeleteRules()"));
-        assertThat(twitterException.getCause(), is(apiException));
+        verify(apiAddOrDeleteRulesRequest, never()).dryRun(true);
+        verify(apiAddOrDeleteRulesRequest).dryRun(false);
     }
 
     @SneakyThrows
     @Test
-    void testAddKeywordFilterRules_withErrorResponse() {
+    void testReconcileRules_replaceStaleRule() {
         // given:
-        when(tweetsApi.addOrDeleteRules(any(AddOrDeleteRulesRequest.class))).thenReturn(apiAddOrDeleteRulesRequest);
-        when(apiAddOrDeleteRulesRequest.execute(RETRIES)).thenReturn(addOrDeleteRulesResponse);
-        when(addOrDeleteRulesResponse.getErrors()).thenReturn(List.of(createProblem()));
+        mockGetRules(List.of(STALE_RULE));
+        mockAddOrDeleteRules(List.of(ACTIVE_RULE));
         // when:
-        final TwitterException twitterException =
-              assertThrows(TwitterException.class, () -> twitterRuleService.addKeywordFilterRules(KEYWORDS));
+        twitterRuleService.reconcileRules(List.of(RULE));
         // then:
-        assertThat(twitterException.getMessage(), is("Error(s) while adding filter rule 'keyword':  \nproblemDetail"));
+        // the new rule is added before the stale rule is deleted
+        verify(tweetsApi, times(3)).addOrDeleteRules(addOrDeleteRulesRequestCaptor.capture());
+        final List<AddOrDeleteRulesRequest> requests = addOrDeleteRulesRequestCaptor.getAllValues();
+        assertThat(requests.get(1)
+                           .getAddRulesRequest()
+                           .getAdd(), contains(RULE));
+        assertThat(requests.get(2)
+                           .getDeleteRulesRequest()
+                           .getDelete()
+                           .getIds(), containsInAnyOrder(RULE_ID));
     }
 
     @SneakyThrows
     @Test
-    void testDeleteAllRules_ok() {
+    void testReconcileRules_replaceAllRulesWithinLimit() {
         // given:
-        mockGetRules(List.of(rule));
-        mockAddKeywordFilterRule(emptyList());
+        final TwitterRuleService limitedRuleService = TwitterRuleService.builder()
+                                                                         .tweetsApi(tweetsApi)
+                                                                         .rateLimiter(rateLimiter)
+                                                                         .config(twitterConfig)
+                                                                         .validatedRules(validatedRules)
+                                                                         .ruleMaxCount(3)
+                                                                         .build();
+        final RuleNoId ruleA = new RuleNoId().value("a");
+        final RuleNoId ruleB = new RuleNoId().value("b");
+        mockGetRules(List.of(new Rule().id("1").value("stale-1"), new Rule().id("2").value("stale-2")));
+        mockAddOrDeleteRules(List.of(new Rule().id("3").value("a"), new Rule().id("4").value("b")));
         // when:
-        twitterRuleService.deleteAllRules();
+        final boolean changed = limitedRuleService.reconcileRules(List.of(ruleA, ruleB));
         // then:
-        verify(tweetsApi).addOrDeleteRules(any(AddOrDeleteRulesRequest.class));
+        // replacing both rules at once would need four, so a stale rule is deleted between the two adds
+        assertThat(changed, is(true));
+        verify(tweetsApi, times(6)).addOrDeleteRules(addOrDeleteRulesRequestCaptor.capture());
+        final List<AddOrDeleteRulesRequest> requests = addOrDeleteRulesRequestCaptor.getAllValues();
+        assertThat(requests.get(0)
+                           .getAddRulesRequest()
+                           .getAdd(), contains(ruleA));
+        assertThat(requests.get(1)
+                           .getAddRulesRequest()
+                           .getAdd(), contains(ruleA));
+        assertThat(requests.get(2)
+                           .getDeleteRulesRequest()
+                           .getDelete()
+                           .getIds(), contains("1"));
+        assertThat(requests.get(3)
+                           .getAddRulesRequest()
+                           .getAdd(), contains(ruleB));
+        assertThat(requests.get(4)
+                           .getAddRulesRequest()
+                           .getAdd(), contains(ruleB));
+        assertThat(requests.get(5)
+                           .getDeleteRulesRequest()
+                           .getDelete()
+                           .getIds(), contains("2"));
     }
 
     @SneakyThrows
     @Test
-    void testDeleteAllRules_resultRulesNotEmpty() {
+    void testReconcileRules_ruleNotInserted() {
         // given:
-        mockGetRules(List.of(rule));
-        mockAddKeywordFilterRule(List.of(rule));
+        mockGetRules(emptyList());
+        mockAddOrDeleteRules(emptyList());
         // when:
         final TwitterException twitterException =
-              assertThrows(TwitterException.class, () -> twitterRuleService.deleteAllRules());
+              assertThrows(TwitterException.class, () -> twitterRuleService.reconcileRules(List.of(RULE)));
         // then:
-        assertThat(twitterException.getMessage(),
-                   is("There should be no active rules, but we still received: keyword"));
+        assertThat(twitterException.getMessage(), is("Expected the active rules to contain 'keyword', but it didn't"));
     }
 
     @SneakyThrows
     @Test
-    void testDeleteAllRules_exceptionInGetRules() {
+    void testReconcileRules_invalidRule() {
         // given:
-        when(tweetsApi.getRules()).thenReturn(apiGetRulesRequest);
-        when(apiGetRulesRequest.execute(RETRIES)).thenThrow(apiException);
+        mockGetRules(emptyList());
+        when(tweetsApi.addOrDeleteRules(any(AddOrDeleteRulesRequest.class))).thenReturn(apiAddOrDeleteRulesRequest);
+        when(apiAddOrDeleteRulesRequest.dryRun(true)).thenReturn(apiAddOrDeleteRulesRequest);
+        when(apiAddOrDeleteRulesRequest.executeWithHttpInfo()).thenReturn(new ApiResponse<>(200,
+                                                                                  Map.of(),
+                                                                                  addOrDeleteRulesResponse));
+        when(addOrDeleteRulesResponse.getErrors()).thenReturn(List.of(createProblem()));
         // when:
         final TwitterException twitterException =
-              assertThrows(TwitterException.class, () -> twitterRuleService.deleteAllRules());
+              assertThrows(TwitterException.class, () -> twitterRuleService.reconcileRules(List.of(RULE)));
         // then:
-        assertThat(twitterException.getMessage(), is("Error while calling tweetsApi.getRules()"));
-        assertThat(twitterException.getCause(), is(apiException));
-
+        assertThat(twitterException.getMessage(), is("Error(s) while validating rules:  \nproblemDetail"));
+        verify(apiAddOrDeleteRulesRequest, never()).dryRun(false);
+        assertThat(validatedRules.isEmpty(), is(true));
     }
 
     @SneakyThrows
     @Test
-    void testDeleteAllRules_exceptionInAddOrDeleteRules() {
+    void testReconcileRules_exceptionInGetRules() {
         // given:
-        mockGetRules(List.of(rule));
-        when(tweetsApi.addOrDeleteRules(any(AddOrDeleteRulesRequest.class))).thenReturn(apiAddOrDeleteRulesRequest);
-        when(apiAddOrDeleteRulesRequest.execute(RETRIES)).thenThrow(apiException);
+        when(tweetsApi.getRules()).thenReturn(apiGetRulesRequest);
+        when(apiGetRulesRequest.executeWithHttpInfo()).thenThrow(apiException);
         // when:
         final TwitterException twitterException =
-              assertThrows(TwitterException.class, () -> twitterRuleService.deleteAllRules());
+              assertThrows(TwitterException.class, () -> twitterRuleService.reconcileRules(List.of(RULE)));
         // then:
-        assertThat(twitterException.getMessage(), is("Error while calling tweetsApi.addOrDeleteRules()"));
+        assertThat(twitterException.getMessage(), is("Error while calling tweetsApi.getRules()"));
         assertThat(twitterException.getCause(), is(apiException));
     }
 
     @SneakyThrows
     @Test
-    void testAddKeywordFilterRules_withErrorResponseFromAddOrDeleteRules() {
+    void testReconcileRules_exceptionInAddOrDeleteRules() {
         // given:
-        mockGetRules(List.of(rule));
+        mockGetRules(List.of(STALE_RULE));
         when(tweetsApi.addOrDeleteRules(any(AddOrDeleteRulesRequest.class))).thenReturn(apiAddOrDeleteRulesRequest);
-        when(apiAddOrDeleteRulesRequest.execute(RETRIES)).thenThrow(apiException);
+        when(apiAddOrDeleteRulesRequest.dryRun(anyBoolean())).thenReturn(apiAddOrDeleteRulesRequest);
+        when(apiAddOrDeleteRulesRequest.executeWithHttpInfo()).thenThrow(apiException);
         // when:
         final TwitterException twitterException =
-              assertThrows(TwitterException.class, () -> twitterRuleService.deleteAllRules());
+              assertThrows(TwitterException.class, () -> twitterRuleService.reconcileRules(List.of(RULE)));
         // then:
         assertThat(twitterException.getMessage(), is("Error while calling tweetsApi.addOrDeleteRules()"));
         assertThat(twitterException.getCause(), is(apiException));
@@ -223,22 +311,19 @@ class TwitterRuleServiceTest {
 
     private void mockGetRules(final List<Rule> rules) throws ApiException {
         when(tweetsApi.getRules()).thenReturn(apiGetRulesRequest);
-        when(apiGetRulesRequest.execute(RETRIES)).thenReturn(rulesLookupResponse);
+        when(apiGetRulesRequest.executeWithHttpInfo()).thenReturn(new ApiResponse<>(200,
+                                                                         Map.of(),
+                                                                         rulesLookupResponse));
         when(rulesLookupResponse.getData()).thenReturn(rules);
-
-        if (!rules.isEmpty()) {
-            when(rule.getValue()).thenReturn(KEYWORD);
-        }
     }
 
-    private void mockAddKeywordFilterRule(final List<Rule> rules) throws ApiException {
+    private void mockAddOrDeleteRules(final List<Rule> rules) throws ApiException {
         when(tweetsApi.addOrDeleteRules(any(AddOrDeleteRulesRequest.class))).thenReturn(apiAddOrDeleteRulesRequest);
-        when(apiAddOrDeleteRulesRequest.execute(RETRIES)).thenReturn(addOrDeleteRulesResponse);
+        when(apiAddOrDeleteRulesRequest.dryRun(anyBoolean())).thenReturn(apiAddOrDeleteRulesRequest);
+        when(apiAddOrDeleteRulesRequest.executeWithHttpInfo()).thenReturn(new ApiResponse<>(200,
+                                                                                  Map.of(),
+                                                                                  addOrDeleteRulesResponse));
         when(addOrDeleteRulesResponse.getData()).thenReturn(rules);
-
-        if (!rules.isEmpty()) {
-            when(rule.getValue()).thenReturn(KEYWORD);
-        }
     }
 
     private Problem createProblem() {
@@ -247,4 +332,4 @@ class TwitterRuleServiceTest {
                             .detail(PROBLEM_DETAIL)
                             .status(PROBLEM_STATUS);
     }
-}
\ No newline at end of file
+}
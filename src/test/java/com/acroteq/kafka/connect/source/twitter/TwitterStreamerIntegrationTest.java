@@ -26,28 +26,40 @@
  */
 package com.acroteq.kafka.connect.source.twitter;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.synchronizedList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 
 import com.twitter.clientlib.JSON;
+import com.twitter.clientlib.model.Rule;
 import com.twitter.clientlib.model.Tweet;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.common.config.types.Password;
+import org.apache.kafka.common.metrics.Metrics;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 /**
- * In an environment with a continuous integration build (ie Jenkins or similar) we would set up a WireMock and test
- * against that.  We would not want a dependency on a third-party REST API over the internet.
+ * Runs the streamer against the {@link MockTwitterServer}, which replays the recorded tweets, rather than against the
+ * Twitter API over the internet.
  *
  * @author <a href="mailto:github@adamcc.ch">Adam Crowther</a>
  */
@@ -55,10 +67,13 @@ import org.junit.jupiter.api.Test;
 class TwitterStreamerIntegrationTest {
 
     private static final int PROCESSING_TIMEOUT_SECONDS = 60;
-    private static final int POLL_INTERVAL_SECONDS = 2;
+    private static final int POLL_INTERVAL_MS = 100;
     private static final int SHUTDOWN_TIMEOUT_SECONDS = 20;
 
     private static final int TWEET_COUNT = 10;
+    private static final int TWEETS_PER_SECOND = 100;
+    private static final int KEEP_ALIVE_INTERVAL_MS = 1000;
+    private static final long RECONNECT_BACKOFF_MS = 100;
 
     private static final String KEYWORD_JAVA = "java";
     private static final String KEYWORD_JAVASCRIPT = "javascript";
@@ -96,59 +111,149 @@ class TwitterStreamerIntegrationTest {
                                                         FIELD_LANG,
                                                         FIELD_SOURCE);
 
-    private static final Password BEARER_TOKEN =
-          new Password("AAAAAAAAAAAAAAAAAAAAAFMglAEAAAAAaOI1R94G%2BENPw6ObRAm%2Bndd6jQs"
-                             + "%3DzmHY8TU1CztUsVLWyNUgOxEoTXFFcGwyM6Bh1MI07yENoq7Op0");
+    private static final Password BEARER_TOKEN = new Password("mock-bearer-token");
+
+    private final ManualClock clock = new ManualClock(System.currentTimeMillis());
+    private final Metrics metrics = new Metrics();
+    private final RateLimiter rateLimiter = new RateLimiter("app", clock, clock::advance, metrics);
+
     private List<Tweet> tweetList;
-    private final TwitterConfig config = TwitterConfig.builder()
-                                                      .bearerToken(BEARER_TOKEN)
-                                                      .fields(FIELD_SET)
-                                                      .filterKeywords(KEYWORD_LIST)
-                                                      .retries(10)
-                                                      .build();
-
-    @SuppressWarnings("ResultOfMethodCallIgnored")
+    private MockTwitterServer server;
+    private TwitterConfig config;
+
+    @SuppressWarnings("InstantiationOfUtilityClass")
     @BeforeAll
     static void setUpGson() {
-        JSON.getGson();
+        new JSON();
     }
 
     @BeforeEach
-    void setUp() {
+    void setUp() throws IOException {
         tweetList = synchronizedList(new ArrayList<>());
+        server = MockTwitterServer.builder()
+                                  .replay(readRecordedTweets())
+                                  .tweetsPerSecond(TWEETS_PER_SECOND)
+                                  .keepAliveIntervalMs(KEEP_ALIVE_INTERVAL_MS)
+                                  .start();
+        config = TwitterConfig.builder()
+                              .bearerToken(BEARER_TOKEN)
+                              .baseUrl(server.getBaseUrl())
+                              .fields(FIELD_SET)
+                              .retries(10)
+                              .build();
+        // the connector maintains the rules, the streamer only streams them
+        TwitterRuleService.builder()
+                          .config(config)
+                          .rateLimiter(rateLimiter)
+                          .build()
+                          .reconcileRuleGroups(List.of(new RuleGroup("group-0", KEYWORD_LIST)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+        metrics.close();
     }
 
     @Test
     void testStart_ok() {
         // when:
-        final TwitterStreamer twitterStreamer = TwitterStreamer.factory()
-                                                               .config(config)
-                                                               .consumer(this::tweetConsumer)
-                                                               .start();
+        final TwitterStreamer twitterStreamer = startStreamer();
         // then:
+        final List<Rule> rules = server.getRules();
+        assertThat(rules, hasSize(1));
+        assertThat(rules.get(0)
+                        .getTag(), is("group-0"));
         assertThat(twitterStreamer.isRunning(), is(true));
-        assertTweetCount();
+        assertTweetCount(TWEET_COUNT);
+        stop(twitterStreamer);
+    }
+
+    @Test
+    void testStart_reconnectAfterDisconnect() {
+        // given:
+        final TwitterStreamer twitterStreamer = startStreamer();
+        assertTweetCount(TWEET_COUNT);
+        // when:
+        server.disconnect();
+        // then:
+        assertConnectionCount(2);
+        assertTweetCount(tweetList.size() + TWEET_COUNT);
+        stop(twitterStreamer);
+    }
+
+    @Test
+    void testStart_reconnectAfterErrorPayload() {
+        // given:
+        final TwitterStreamer twitterStreamer = startStreamer();
+        assertTweetCount(TWEET_COUNT);
+        // when:
+        server.sendErrorPayload();
+        // then:
+        assertConnectionCount(2);
+        assertTweetCount(tweetList.size() + TWEET_COUNT);
+        stop(twitterStreamer);
+    }
+
+    @Test
+    void testStart_reconnectAfterTooManyRequests() {
+        // given:
+        final TwitterStreamer twitterStreamer = startStreamer();
+        assertTweetCount(TWEET_COUNT);
+        // when:
+        server.rejectConnections(1);
+        server.disconnect();
+        // then:
+        assertConnectionCount(3);
+        assertTweetCount(tweetList.size() + TWEET_COUNT);
+        stop(twitterStreamer);
+    }
+
+    private TwitterStreamer startStreamer() {
+        return TwitterStreamer.factory()
+                              .config(config)
+                              .consumer(this::tweetConsumer)
+                              .rateLimiter(rateLimiter)
+                              .backoff((policy, attempt) -> RECONNECT_BACKOFF_MS)
+                              .start();
+    }
+
+    private void stop(final TwitterStreamer twitterStreamer) {
         twitterStreamer.stop();
         waitForShutdown(twitterStreamer::isRunning);
         assertThat(twitterStreamer.isRunning(), is(false));
     }
 
     private void tweetConsumer(final Tweet tweet) {
-        log.info("Incoming tweet: {}", tweet.toJson());
+        log.debug("Incoming tweet: {}", tweet.getId());
         tweetList.add(tweet);
     }
 
-    private void assertTweetCount() {
+    private void assertTweetCount(final int count) {
         await().atMost(PROCESSING_TIMEOUT_SECONDS, SECONDS)
-               .pollInterval(POLL_INTERVAL_SECONDS, SECONDS)
-               .until(() -> tweetList.size() >= TWEET_COUNT);
-        assertThat(tweetList.size(), is(greaterThanOrEqualTo(TWEET_COUNT)));
+               .pollInterval(POLL_INTERVAL_MS, MILLISECONDS)
+               .until(() -> tweetList.size() >= count);
+        assertThat(tweetList.size(), is(greaterThanOrEqualTo(count)));
+    }
+
+    private void assertConnectionCount(final int count) {
+        await().atMost(PROCESSING_TIMEOUT_SECONDS, SECONDS)
+               .pollInterval(POLL_INTERVAL_MS, MILLISECONDS)
+               .until(() -> server.getConnectionCount() >= count && server.getOpenStreamCount() == 1);
     }
 
     private void waitForShutdown(final BooleanSupplier isRunning) {
         await().atMost(SHUTDOWN_TIMEOUT_SECONDS, SECONDS)
-               .pollInterval(POLL_INTERVAL_SECONDS, SECONDS)
+               .pollInterval(POLL_INTERVAL_MS, MILLISECONDS)
                .until(() -> !isRunning.getAsBoolean());
     }
 
-}
\ No newline at end of file
+    private List<String> readRecordedTweets() throws IOException {
+        try (InputStream inputStream = getClass().getResourceAsStream("/well-formed-tweets.txt");
+             BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, UTF_8))) {
+            return reader.lines()
+                         .filter(StringUtils::isNotBlank)
+                         .collect(Collectors.toList());
+        }
+    }
+}
@@ -26,21 +26,21 @@
  */
 package com.acroteq.kafka.connect.source.twitter;
 
+import static com.acroteq.kafka.connect.source.TwitterV2SourceConnectorConfig.TWITTER_BASE_URL_DEFAULT;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.acroteq.kafka.connect.source.twitter.TweetStreamProcessor.TweetStreamProcessorFactory;
 import com.acroteq.kafka.connect.source.twitter.TwitterApiFactory.TwitterApiBuilder;
-import com.acroteq.kafka.connect.source.twitter.TwitterRuleService.TwitterRuleServiceBuilder;
 import com.twitter.clientlib.api.TweetsApi;
 import com.twitter.clientlib.api.TwitterApi;
 import com.twitter.clientlib.model.Tweet;
-import java.util.List;
 import java.util.function.Consumer;
 import org.apache.kafka.common.config.types.Password;
 import org.junit.jupiter.api.BeforeEach;
@@ -54,7 +54,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 @ExtendWith(MockitoExtension.class)
 class TwitterStreamerTest {
 
-    private static final String KEYWORD = "keyword";
+    private static final int STALL_TIMEOUT_MS = 30000;
 
     @Mock private TwitterApiBuilder twitterApiBuilder;
     @Mock private TwitterApi twitterApi;
@@ -63,9 +63,7 @@ class TwitterStreamerTest {
 
     @Mock private TweetStreamProcessorFactory tweetStreamProcessorFactory;
     @Mock private TweetStreamProcessor tweetStreamProcessor;
-
-    @Mock private TwitterRuleServiceBuilder twitterRuleServiceBuilder;
-    @Mock private TwitterRuleService twitterRuleService;
+    @Mock private RateLimiter rateLimiter;
 
     @Mock private TwitterConfig twitterConfig;
     @Mock private Consumer<Tweet> tweetConsumer;
@@ -74,8 +72,9 @@ class TwitterStreamerTest {
     @BeforeEach
     public void setUp() {
         when(twitterConfig.getBearerToken()).thenReturn(bearerToken);
-        when(twitterConfig.getFilterKeywords()).thenReturn(List.of(KEYWORD));
-        when(tweetStreamProcessor.isRunning()).thenReturn(true);
+        when(twitterConfig.getStallTimeoutMs()).thenReturn(STALL_TIMEOUT_MS);
+        when(twitterConfig.getBaseUrl()).thenReturn(TWITTER_BASE_URL_DEFAULT);
+        lenient().when(tweetStreamProcessor.isRunning()).thenReturn(true);
     }
 
     @SuppressWarnings("resource")
@@ -89,9 +88,9 @@ class TwitterStreamerTest {
                                                                    .start();
             // then:
             assertThat(twitterStreamer.isRunning(), is(true));
-            verify(twitterRuleService).deleteAllRules();
-            verify(twitterRuleService).addKeywordFilterRules(List.of(KEYWORD));
             verify(tweetStreamProcessorFactory).start();
+
+            twitterStreamer.stop();
         });
     }
 
@@ -115,6 +114,7 @@ class TwitterStreamerTest {
             // then:
             assertThat(twitterStreamer.isRunning(), is(false));
             verify(tweetStreamProcessor).close();
+            verify(rateLimiter).release();
         });
     }
 
@@ -124,27 +124,26 @@ class TwitterStreamerTest {
         try (final MockedStatic<TwitterApiFactory> twitterApiFactoryMockedStatic = mockStatic(TwitterApiFactory.class);
              final MockedStatic<TweetStreamProcessor> tweetStreamProcessorMockedStatic = //
                    mockStatic(TweetStreamProcessor.class);
-             final MockedStatic<TwitterRuleService> twitterRuleServiceMockedStatic = //
-                   mockStatic(TwitterRuleService.class)) {
+             final MockedStatic<RateLimiter> rateLimiterMockedStatic = mockStatic(RateLimiter.class)) {
+            rateLimiterMockedStatic.when(() -> RateLimiter.forApp(bearerToken))
+                                   .thenReturn(rateLimiter);
             twitterApiFactoryMockedStatic.when(TwitterApiFactory::newTwitterApi)
                                          .thenReturn(twitterApiBuilder);
             when(twitterApiBuilder.bearerToken(any(Password.class))).thenReturn(twitterApiBuilder);
+            when(twitterApiBuilder.baseUrl(TWITTER_BASE_URL_DEFAULT)).thenReturn(twitterApiBuilder);
             when(twitterApiBuilder.build()).thenReturn(twitterApi);
             when(twitterApi.tweets()).thenReturn(tweetsApi);
 
             tweetStreamProcessorMockedStatic.when(TweetStreamProcessor::factory)
                                             .thenReturn(tweetStreamProcessorFactory);
             when(tweetStreamProcessorFactory.tweetsApi(tweetsApi)).thenReturn(tweetStreamProcessorFactory);
+            when(tweetStreamProcessorFactory.rateLimiter(rateLimiter)).thenReturn(tweetStreamProcessorFactory);
             when(tweetStreamProcessorFactory.config(twitterConfig)).thenReturn(tweetStreamProcessorFactory);
             when(tweetStreamProcessorFactory.consumer(any(Consumer.class))).thenReturn(tweetStreamProcessorFactory);
+            when(tweetStreamProcessorFactory.lineConsumer(any())).thenReturn(tweetStreamProcessorFactory);
+            when(tweetStreamProcessorFactory.disconnectListener(any())).thenReturn(tweetStreamProcessorFactory);
             when(tweetStreamProcessorFactory.start()).thenReturn(tweetStreamProcessor);
 
-            twitterRuleServiceMockedStatic.when(TwitterRuleService::builder)
-                                          .thenReturn(twitterRuleServiceBuilder);
-            when(twitterRuleServiceBuilder.tweetsApi(tweetsApi)).thenReturn(twitterRuleServiceBuilder);
-            when(twitterRuleServiceBuilder.config(twitterConfig)).thenReturn(twitterRuleServiceBuilder);
-            when(twitterRuleServiceBuilder.build()).thenReturn(twitterRuleService);
-
             test.run();
         }
     }
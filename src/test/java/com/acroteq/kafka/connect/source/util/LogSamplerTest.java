@@ -0,0 +1,74 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.util;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class LogSamplerTest {
+
+    private static int countSampled(final LogSampler sampler, final int events) {
+        int sampled = 0;
+        for (int i = 0; i < events; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+        return sampled;
+    }
+
+    @Test
+    void testSample_ratio() {
+        // given:
+        final LogSampler sampler = new LogSampler(0.01);
+        // when:
+        final boolean first = sampler.sample();
+        final int sampled = countSampled(sampler, 999);
+        // then:
+        assertThat(first, is(true));
+        assertThat(sampled, is(9));
+    }
+
+    @Test
+    void testSample_all() {
+        assertThat(countSampled(new LogSampler(1), 100), is(100));
+    }
+
+    @Test
+    void testSample_none() {
+        assertThat(countSampled(new LogSampler(0), 100), is(0));
+    }
+
+    @Test
+    void testSample_invalidRatio() {
+        assertThrows(IllegalArgumentException.class, () -> new LogSampler(1.5));
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class SpillJournalTest {
+
+    private static final int SEGMENT_BYTES = SpillJournal.MIN_SEGMENT_BYTES;
+    /** Four entries of this size, with their length prefix, fill a segment. */
+    private static final int ENTRY_BYTES = SEGMENT_BYTES / 4 - Integer.BYTES;
+
+    @TempDir
+    Path tempDir;
+
+    private SpillJournal spillJournal;
+
+    @AfterEach
+    void tearDown() {
+        if (spillJournal != null) {
+            spillJournal.close();
+        }
+    }
+
+    @Test
+    void testAppendAndPoll_inOrder() throws IOException {
+        // given:
+        spillJournal = new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES);
+        final ByteBuffer entry = UTF_8.encode("tweet 1");
+        // when:
+        spillJournal.append(entry);
+        spillJournal.append(UTF_8.encode("tweet 2"));
+        // then:
+        assertThat(entry.remaining(), is(7));
+        assertThat(spillJournal.size(), is(2L));
+        assertThat(decode(spillJournal.poll()), is("tweet 1"));
+        assertThat(decode(spillJournal.poll()), is("tweet 2"));
+        assertThat(spillJournal.poll(), is(nullValue()));
+        assertThat(spillJournal.size(), is(0L));
+    }
+
+    @Test
+    void testAppend_fullWhenBudgetExhausted() throws IOException {
+        // given:
+        spillJournal = new SpillJournal(tempDir, 2L * SEGMENT_BYTES, SEGMENT_BYTES);
+        for (int i = 0; i < 8; i++) {
+            assertThat(spillJournal.append(entry(i)), is(true));
+        }
+        // when:
+        final boolean appended = spillJournal.append(entry(8));
+        // then:
+        assertThat(appended, is(false));
+        assertThat(spillJournal.segmentFileCount(), is(2));
+        assertThat(spillJournal.size(), is(8L));
+    }
+
+    @Test
+    void testAppend_entryLargerThanSegment() throws IOException {
+        // given:
+        spillJournal = new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES);
+        // when:
+        final boolean appended = spillJournal.append(ByteBuffer.allocate(SEGMENT_BYTES));
+        // then:
+        assertThat(appended, is(false));
+    }
+
+    @Test
+    void testRelease_recyclesSegmentOnceAllEntriesReleased() throws IOException {
+        // given:
+        spillJournal = new SpillJournal(tempDir, 2L * SEGMENT_BYTES, SEGMENT_BYTES);
+        for (int i = 0; i < 8; i++) {
+            spillJournal.append(entry(i));
+        }
+        final SpillJournal.Entry[] firstSegment = new SpillJournal.Entry[4];
+        for (int i = 0; i < 4; i++) {
+            firstSegment[i] = spillJournal.poll();
+        }
+        // when:
+        for (int i = 3; i > 0; i--) {
+            spillJournal.release(firstSegment[i].getSegmentId());
+        }
+        final boolean appendedBeforeLastRelease = spillJournal.append(entry(8));
+        spillJournal.release(firstSegment[0].getSegmentId());
+        final boolean appendedAfterLastRelease = spillJournal.append(entry(8));
+        // then:
+        assertThat(appendedBeforeLastRelease, is(false));
+        assertThat(appendedAfterLastRelease, is(true));
+        assertThat(spillJournal.segmentFileCount(), is(2));
+        for (int i = 4; i < 9; i++) {
+            assertThat(spillJournal.poll()
+                                   .getData()
+                                   .get(0), is((byte) i));
+        }
+    }
+
+    @Test
+    void testRelease_rewindsNewestSegment() throws IOException {
+        // given:
+        spillJournal = new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES);
+        for (int round = 0; round < 10; round++) {
+            // when:
+            for (int i = 0; i < 4; i++) {
+                assertThat(spillJournal.append(entry(i)), is(true));
+            }
+            for (int i = 0; i < 4; i++) {
+                final SpillJournal.Entry entry = spillJournal.poll();
+                // then:
+                assertThat(entry.getData()
+                                .get(0), is((byte) i));
+                spillJournal.release(entry.getSegmentId());
+            }
+        }
+        assertThat(spillJournal.segmentFileCount(), is(1));
+    }
+
+    @Test
+    void testClose_deletesFiles() throws IOException {
+        // given:
+        spillJournal = new SpillJournal(tempDir, SEGMENT_BYTES, SEGMENT_BYTES);
+        spillJournal.append(entry(1));
+        final Path directory = spillJournal.getDirectory();
+        // when:
+        spillJournal.close();
+        // then:
+        assertThat(Files.exists(directory), is(false));
+        assertThat(spillJournal.append(entry(2)), is(false));
+        assertThat(spillJournal.poll(), is(nullValue()));
+    }
+
+    @Test
+    void testSegmentBytes_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new SpillJournal(tempDir, SEGMENT_BYTES, 1024));
+    }
+
+    private static ByteBuffer entry(final int value) {
+        final byte[] bytes = new byte[ENTRY_BYTES];
+        Arrays.fill(bytes, (byte) value);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static String decode(final SpillJournal.Entry entry) {
+        return UTF_8.decode(entry.getData())
+                    .toString();
+    }
+}
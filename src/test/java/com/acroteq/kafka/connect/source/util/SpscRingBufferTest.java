@@ -0,0 +1,198 @@
+/*
+ * This is free and unencumbered software released into the public domain.
+ *
+ * Anyone is free to copy, modify, publish, use, compile, sell, or
+ * distribute this software, either in source code form or as a compiled
+ * binary, for any purpose, commercial or non-commercial, and by any
+ * means.
+ *
+ * In jurisdictions that recognize copyright laws, the author or authors
+ * of this software dedicate any and all copyright interest in the
+ * software to the public domain. We make this dedication for the benefit
+ * of the public at large and to the detriment of our heirs and
+ * successors. We intend this dedication to be an overt act of
+ * relinquishment in perpetuity of all present and future rights to this
+ * software under copyright law.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS BE LIABLE FOR ANY CLAIM, DAMAGES OR
+ * OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ *
+ * For more information, please refer to <http://unlicense.org/>
+ */
+package com.acroteq.kafka.connect.source.util;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+/** @author <a href="mailto:github@adamcc.ch">Adam Crowther</a> */
+class SpscRingBufferTest {
+
+    @Test
+    void testCapacity_roundedUpToPowerOfTwo() {
+        assertThat(new SpscRingBuffer<>(1).capacity(), is(1));
+        assertThat(new SpscRingBuffer<>(2).capacity(), is(2));
+        assertThat(new SpscRingBuffer<>(3).capacity(), is(4));
+        assertThat(new SpscRingBuffer<>(1000).capacity(), is(1024));
+        assertThat(new SpscRingBuffer<>(1024).capacity(), is(1024));
+    }
+
+    @Test
+    void testCapacity_invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new SpscRingBuffer<>(0));
+    }
+
+    @Test
+    void testOfferAndPoll_fifo() {
+        // given:
+        final SpscRingBuffer<String> ringBuffer = new SpscRingBuffer<>(4);
+        // when:
+        final boolean first = ringBuffer.offer("1");
+        final boolean second = ringBuffer.offer("2");
+        // then:
+        assertThat(first, is(true));
+        assertThat(second, is(true));
+        assertThat(ringBuffer.size(), is(2));
+        assertThat(ringBuffer.poll(), is("1"));
+        assertThat(ringBuffer.poll(), is("2"));
+        assertThat(ringBuffer.poll(), is(nullValue()));
+        assertThat(ringBuffer.isEmpty(), is(true));
+    }
+
+    @Test
+    void testOffer_full() {
+        // given:
+        final SpscRingBuffer<String> ringBuffer = new SpscRingBuffer<>(2);
+        ringBuffer.offer("1");
+        ringBuffer.offer("2");
+        // when:
+        final boolean added = ringBuffer.offer("3");
+        // then:
+        assertThat(added, is(false));
+        assertThat(ringBuffer.size(), is(2));
+        // and once there's room again:
+        assertThat(ringBuffer.poll(), is("1"));
+        assertThat(ringBuffer.offer("3"), is(true));
+    }
+
+    @Test
+    void testDrainTo_wrapsAround() {
+        // given:
+        final SpscRingBuffer<String> ringBuffer = new SpscRingBuffer<>(4);
+        ringBuffer.offer("1");
+        ringBuffer.offer("2");
+        ringBuffer.offer("3");
+        ringBuffer.poll();
+        ringBuffer.poll();
+        ringBuffer.offer("4");
+        ringBuffer.offer("5");
+        ringBuffer.offer("6");
+        final List<String> drained = new ArrayList<>();
+        // when:
+        final int first = ringBuffer.drainTo(drained, 3);
+        final int second = ringBuffer.drainTo(drained, 3);
+        // then:
+        assertThat(first, is(3));
+        assertThat(second, is(1));
+        assertThat(drained, contains("3", "4", "5", "6"));
+    }
+
+    @Test
+    void testDrainTo_empty() {
+        // given:
+        final SpscRingBuffer<String> ringBuffer = new SpscRingBuffer<>(4);
+        final List<String> drained = new ArrayList<>();
+        // when:
+        final int count = ringBuffer.drainTo(drained, 10);
+        // then:
+        assertThat(count, is(0));
+        assertThat(drained, is(empty()));
+    }
+
+    @Test
+    void testHeadStamp_followsHead() {
+        // given:
+        final SpscRingBuffer<String> ringBuffer = new SpscRingBuffer<>(2);
+        ringBuffer.offer("1", 10);
+        ringBuffer.offer("2", 20);
+        // when:
+        final long firstStamp = ringBuffer.headStamp();
+        ringBuffer.poll();
+        final long secondStamp = ringBuffer.headStamp();
+        ringBuffer.poll();
+        final long emptyStamp = ringBuffer.headStamp();
+        // then:
+        assertThat(firstStamp, is(10L));
+        assertThat(secondStamp, is(20L));
+        assertThat(emptyStamp, is(SpscRingBuffer.NO_STAMP));
+    }
+
+    @Test
+    void testDrainTo_boundedByWeight() {
+        // given:
+        final SpscRingBuffer<String> ringBuffer = new SpscRingBuffer<>(8);
+        ringBuffer.offer("1", 0, 40);
+        ringBuffer.offer("2", 0, 40);
+        ringBuffer.offer("3", 0, 40);
+        ringBuffer.offer("4", 0, 200);
+        final List<String> drained = new ArrayList<>();
+        // when:
+        final long firstWeight = ringBuffer.drainTo(drained, 10, 100);
+        final int headWeight = ringBuffer.headWeight();
+        // the first element is always drained, however heavy
+        final long secondWeight = ringBuffer.drainTo(drained, 10, 100);
+        final long thirdWeight = ringBuffer.drainTo(drained, 10, 100);
+        // then:
+        assertThat(firstWeight, is(80L));
+        assertThat(headWeight, is(40));
+        assertThat(secondWeight, is(40L));
+        assertThat(thirdWeight, is(200L));
+        assertThat(drained, contains("1", "2", "3", "4"));
+        assertThat(ringBuffer.headWeight(), is(0));
+    }
+
+    @Test
+    @Timeout(30)
+    void testConcurrentProducerAndConsumer_preservesOrder() throws Exception {
+        // given:
+        final int count = 200_000;
+        final SpscRingBuffer<Integer> ringBuffer = new SpscRingBuffer<>(64);
+        final CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int i = 0; i < count; i++) {
+                while (!ringBuffer.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        // when:
+        final List<Integer> batch = new ArrayList<>();
+        int expected = 0;
+        while (expected < count) {
+            batch.clear();
+            if (ringBuffer.drainTo(batch, 10) == 0) {
+                Thread.yield();
+            }
+            for (final Integer value : batch) {
+                // then:
+                assertThat(value, is(expected++));
+            }
+        }
+        producer.get(10, SECONDS);
+        assertThat(ringBuffer.isEmpty(), is(true));
+    }
+}